@@ -0,0 +1,13 @@
+package com.ayurveda.backend.audit;
+
+public enum AuditEventType {
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    // Turned away before the password was checked (hashing pool saturated)
+    LOGIN_REJECTED,
+    USER_CREATED,
+    USER_CREATE_FAILED,
+    USER_UPDATED,
+    USER_DELETED,
+    USERS_BULK_IMPORTED
+}
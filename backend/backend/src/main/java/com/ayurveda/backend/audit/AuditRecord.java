@@ -0,0 +1,28 @@
+package com.ayurveda.backend.audit;
+
+// An event as published by a request thread; the writer turns it into an audit_events row.
+// username is the account the event is about, actor the authenticated caller (null for logins).
+public final class AuditRecord {
+    private final long occurredAt;
+    private final AuditEventType type;
+    private final String username;
+    private final String actor;
+    private final String clientIp;
+    private final String detail;
+
+    public AuditRecord(long occurredAt, AuditEventType type, String username, String actor, String clientIp, String detail) {
+        this.occurredAt = occurredAt;
+        this.type = type;
+        this.username = username;
+        this.actor = actor;
+        this.clientIp = clientIp;
+        this.detail = detail;
+    }
+
+    public long getOccurredAt() { return occurredAt; }
+    public AuditEventType getType() { return type; }
+    public String getUsername() { return username; }
+    public String getActor() { return actor; }
+    public String getClientIp() { return clientIp; }
+    public String getDetail() { return detail; }
+}
@@ -0,0 +1,73 @@
+package com.ayurveda.backend.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Bounded lock-free queue for many producers and one consumer. Each slot carries a sequence number:
+// a producer claims position p with one CAS on the tail when slot p's sequence equals p, writes the
+// element and publishes it by setting the sequence to p + 1; the consumer frees the slot by setting
+// it to p + capacity. offer never blocks or spins on a full buffer, it returns false instead.
+public class MpscRingBuffer<E> {
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the consumer thread
+    private long head;
+
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+        mask = capacity - 1;
+        elements = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+    }
+
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long sequence = sequences.getAcquire(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[slot] = element;
+                    sequences.setRelease(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                return false;
+            } else {
+                // Another producer took this position; retry at the current tail
+                position = tail.get();
+            }
+        }
+    }
+
+    // Consumer only: hands up to max published elements to the sink in order and returns how many
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> sink, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) head & mask;
+            if (sequences.getAcquire(slot) != head + 1) break;
+            E element = (E) elements[slot];
+            elements[slot] = null;
+            sequences.setRelease(slot, head + elements.length);
+            head++;
+            drained++;
+            sink.accept(element);
+        }
+        return drained;
+    }
+
+    // Approximate when producers are active
+    public int size() {
+        return (int) Math.max(0, Math.min(elements.length, tail.get() - head));
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ayurveda.backend.cache;
+
+// A user whose cached copy is stale on every instance: by id, by username, or both (either may be null). With both
+// null it only says the users table changed (UserListVersion); all() says every cached user is stale.
+public class CacheInvalidation {
+    private final String origin;
+    private final Long userId;
+    private final String username;
+    private final boolean all;
+
+    public CacheInvalidation(String origin, Long userId, String username) {
+        this(origin, userId, username, false);
+    }
+
+    private CacheInvalidation(String origin, Long userId, String username, boolean all) {
+        this.origin = origin;
+        this.userId = userId;
+        this.username = username;
+        this.all = all;
+    }
+
+    // Something every cached user depends on changed, e.g. the role names (RoleRegistry refresh)
+    public static CacheInvalidation all(String origin) {
+        return new CacheInvalidation(origin, null, null, true);
+    }
+
+    // Instance that published it; instances ignore their own invalidations, which they already applied
+    public String getOrigin() { return origin; }
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public boolean isAll() { return all; }
+}
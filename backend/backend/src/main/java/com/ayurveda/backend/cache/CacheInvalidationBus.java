@@ -0,0 +1,13 @@
+package com.ayurveda.backend.cache;
+
+import java.util.function.Consumer;
+
+// Carries cache invalidations between backend instances. Delivery is asynchronous and at-most-once: a lost
+// message leaves a stale entry on the other instances until its TTL (users.cache.ttl-seconds) runs out.
+// LocalCacheInvalidationBus is the in-process stand-in; a shared broker (Redis pub/sub, Postgres LISTEN/NOTIFY)
+// is another implementation of this interface.
+public interface CacheInvalidationBus {
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,30 @@
+package com.ayurveda.backend.cache;
+
+import com.ayurveda.backend.dto.UserResponseDTO;
+import com.ayurveda.backend.entity.User;
+
+// What the user near cache keeps per user: the response view plus the password hash for login. Loaded by one
+// projection query (UserRepository.CACHED) and shared between threads, so the view must not be modified.
+public class CachedUser {
+    private final Long id;
+    private final String username;
+    private final String passwordHash;
+    private final UserResponseDTO view;
+
+    // Used by the JPQL constructor projections in UserRepository
+    public CachedUser(Long id, String username, String passwordHash, String firstName, String lastName, String email,
+                      String phone, String department, String employeeId, String reportingManager, Long managerId,
+                      User.Status status, String roleName) {
+        this.id = id;
+        this.username = username;
+        this.passwordHash = passwordHash;
+        this.view = new UserResponseDTO(id, username, firstName, lastName, email, phone, department, employeeId,
+                reportingManager, managerId, status, roleName);
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getPasswordHash() { return passwordHash; }
+    public String getRoleName() { return view.getRoleName(); }
+    public UserResponseDTO getView() { return view; }
+}
@@ -0,0 +1,81 @@
+package com.ayurveda.backend.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// In-process bus: every subscriber in this JVM receives every invalidation, on a delivery thread as it would
+// from a broker. Stands in for the shared channel when there is one instance, and lets several caches in one
+// JVM play separate instances in tests. When the queue is full, messages are dropped and counted.
+@Component
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(LocalCacheInvalidationBus.class);
+
+    @Value("${users.cache.bus.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<CacheInvalidation> queue;
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    private Thread delivery;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        delivery = new Thread(this::deliverLoop, "cache-invalidation-bus");
+        delivery.setDaemon(true);
+        delivery.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        delivery.interrupt();
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        if (queue.offer(invalidation)) published.increment();
+        else dropped.increment();
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void deliverLoop() {
+        try {
+            while (true) {
+                CacheInvalidation invalidation = queue.take();
+                for (Consumer<CacheInvalidation> listener : listeners) {
+                    try {
+                        listener.accept(invalidation);
+                    } catch (RuntimeException ex) {
+                        logger.error("Cache invalidation listener failed: {}", ex.getMessage(), ex);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
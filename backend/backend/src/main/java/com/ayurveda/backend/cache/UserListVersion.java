@@ -0,0 +1,40 @@
+package com.ayurveda.backend.cache;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version of the users table as seen by this instance, for the ETag on GET /api/users: unchanged version, unchanged
+// listing. Writers call changed() after their change is committed; it is also published on the invalidation bus so
+// the other instances move on too. The instance id is part of the tag, so a tag handed out by another instance
+// never matches here (a full response, never a wrong 304). A lost bus message leaves this instance's tag stale
+// until its next local write.
+@Component
+public class UserListVersion {
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+    @Autowired
+    private UserNearCache userNearCache;
+
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        invalidationBus.subscribe(invalidation -> {
+            if (!userNearCache.getInstanceId().equals(invalidation.getOrigin())) version.incrementAndGet();
+        });
+    }
+
+    // After the change is committed: bumping first would let a read of the old rows carry the new tag
+    public void changed() {
+        version.incrementAndGet();
+        invalidationBus.publish(new CacheInvalidation(userNearCache.getInstanceId(), null, null));
+    }
+
+    // Read before the query, so rows written meanwhile carry the old tag and are fetched again next time
+    public String etag() {
+        return "W/\"users-" + userNearCache.getInstanceId() + "-" + version.get() + "\"";
+    }
+}
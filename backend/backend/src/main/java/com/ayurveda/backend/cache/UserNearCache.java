@@ -0,0 +1,202 @@
+package com.ayurveda.backend.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Bounded in-process cache of users by username and by id, in front of the login, duplicate-username and
+// single-user lookups. Only existing users are cached. Entries expire after users.cache.ttl-seconds; writers
+// invalidate synchronously here and publish the invalidation to the other instances through the bus.
+// A load that overlaps an invalidation is not cached, so a read racing an update cannot re-insert the old row.
+@Component
+public class UserNearCache {
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${users.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${users.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${users.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<String, Entry> byUsername = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Entry> byId = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, local or remote
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        invalidationBus.subscribe(this::onRemoteInvalidation);
+        FunctionCounter.builder("users.cache", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("users.cache", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("users.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("users.cache.invalidations", invalidations, LongAdder::sum).tag("origin", "local").register(meterRegistry);
+        FunctionCounter.builder("users.cache.invalidations", remoteInvalidations, LongAdder::sum).tag("origin", "remote").register(meterRegistry);
+        Gauge.builder("users.cache.size", byId, Map::size).register(meterRegistry);
+        Gauge.builder("users.cache.hit.ratio", this, UserNearCache::hitRatio).register(meterRegistry);
+    }
+
+    // The loader runs on a miss; null (no such user) is returned and not cached
+    public CachedUser getByUsername(String username, Supplier<CachedUser> loader) {
+        if (!enabled) return loader.get();
+        return hitOrLoad(byUsername.get(username), loader);
+    }
+
+    public CachedUser getById(Long id, Supplier<CachedUser> loader) {
+        if (!enabled) return loader.get();
+        return hitOrLoad(byId.get(id), loader);
+    }
+
+    // Call after the change is committed. Either argument may be null; the other key of a cached entry goes too.
+    public void invalidate(Long id, String username) {
+        evict(id, username);
+        invalidations.increment();
+        invalidationBus.publish(new CacheInvalidation(instanceId, id, username));
+    }
+
+    // Drops every cached user here and on the other instances
+    public void invalidateAll() {
+        clear();
+        invalidations.increment();
+        invalidationBus.publish(CacheInvalidation.all(instanceId));
+    }
+
+    // Origin of the invalidations this instance publishes
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        byId.clear();
+        byUsername.clear();
+    }
+
+    private void onRemoteInvalidation(CacheInvalidation invalidation) {
+        if (instanceId.equals(invalidation.getOrigin())) return;
+        if (invalidation.isAll()) {
+            clear();
+            remoteInvalidations.increment();
+            return;
+        }
+        // A table-level change (UserListVersion): no entry to drop
+        if (invalidation.getUserId() == null && invalidation.getUsername() == null) return;
+        evict(invalidation.getUserId(), invalidation.getUsername());
+        remoteInvalidations.increment();
+    }
+
+    private CachedUser hitOrLoad(Entry entry, Supplier<CachedUser> loader) {
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.user;
+        }
+        misses.increment();
+        long loadedAtGeneration = generation.get();
+        CachedUser user = loader.get();
+        if (user != null) put(user, loadedAtGeneration, now);
+        return user;
+    }
+
+    private void put(CachedUser user, long loadedAtGeneration, long now) {
+        if (byId.size() >= maxEntries) makeRoom(now);
+        Entry entry = new Entry(user, now + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        Entry previous = byId.put(user.getId(), entry);
+        // The user may have been renamed since the previous entry was cached
+        if (previous != null) byUsername.remove(previous.user.getUsername(), previous);
+        byUsername.put(user.getUsername(), entry);
+        // An invalidation since the load started may be for this very row: drop what we just put
+        if (generation.get() != loadedAtGeneration) remove(entry);
+    }
+
+    private void evict(Long id, String username) {
+        // Bump first, so a load that is in flight does not cache the row it read before the change
+        generation.incrementAndGet();
+        if (id != null) {
+            Entry entry = byId.get(id);
+            if (entry != null) remove(entry);
+        }
+        if (username != null) {
+            Entry entry = byUsername.get(username);
+            if (entry != null) remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        byId.remove(entry.user.getId(), entry);
+        byUsername.remove(entry.user.getUsername(), entry);
+    }
+
+    // Drop expired users first; if the cache is still full, shed arbitrary entries down to 90% so the sweep is amortized
+    private void makeRoom(long now) {
+        byId.forEach((id, entry) -> {
+            if (entry.expiresAt <= now) {
+                remove(entry);
+                evictions.increment();
+            }
+        });
+        Iterator<Entry> entries = byId.values().iterator();
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        while (byId.size() > target && entries.hasNext()) {
+            remove(entries.next());
+            evictions.increment();
+        }
+    }
+
+    private double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", byId.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", hitRatio());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("remoteInvalidations", remoteInvalidations.sum());
+        return stats;
+    }
+
+    private static final class Entry {
+        private final CachedUser user;
+        private final long expiresAt;
+
+        private Entry(CachedUser user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.Locale;
+
+// Age brackets used by the cohort filters and the age histogram
+public enum AgeBracket {
+    UNDER_18("0-17", 0, 17),
+    AGE_18_24("18-24", 18, 24),
+    AGE_25_34("25-34", 25, 34),
+    AGE_35_44("35-44", 35, 44),
+    AGE_45_54("45-54", 45, 54),
+    AGE_55_64("55-64", 55, 64),
+    AGE_65_PLUS("65+", 65, Integer.MAX_VALUE);
+
+    private static final AgeBracket[] VALUES = values();
+
+    private final String label;
+    private final int min;
+    private final int max;
+
+    AgeBracket(String label, int min, int max) {
+        this.label = label;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getLabel() { return label; }
+    public int getMin() { return min; }
+    public int getMax() { return max; }
+
+    // Null for missing or negative ages
+    public static AgeBracket of(int age) {
+        if (age == IntColumn.MISSING || age < 0) return null;
+        for (AgeBracket bracket : VALUES) {
+            if (age <= bracket.max) return bracket;
+        }
+        return AGE_65_PLUS;
+    }
+
+    // Accepts the label ("18-24", "65+") or the constant name
+    public static AgeBracket parse(String value) {
+        String trimmed = value.trim();
+        for (AgeBracket bracket : VALUES) {
+            if (bracket.label.equals(trimmed) || bracket.name().equals(trimmed.toUpperCase(Locale.ROOT))) return bracket;
+        }
+        throw new IllegalArgumentException("Unknown age bracket: " + value);
+    }
+}
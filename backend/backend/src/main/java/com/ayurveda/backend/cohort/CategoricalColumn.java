@@ -0,0 +1,57 @@
+package com.ayurveda.backend.cohort;
+
+import java.nio.IntBuffer;
+
+public class CategoricalColumn extends CohortColumn {
+    public static final int MISSING = -1;
+
+    private final Dictionary dictionary;
+    private final IntBuffer codes;
+
+    public CategoricalColumn(String name, Dictionary dictionary, int[] codes) {
+        this(name, dictionary, IntBuffer.wrap(codes));
+    }
+
+    // codes may be a heap array or a view of a mapped snapshot file
+    public CategoricalColumn(String name, Dictionary dictionary, IntBuffer codes) {
+        super(name, ColumnKind.CATEGORICAL);
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    public Dictionary getDictionary() { return dictionary; }
+
+    public int code(int row) {
+        return codes.get(row);
+    }
+
+    IntBuffer codes() {
+        return codes.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return codes.capacity();
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return codes.get(row) == MISSING;
+    }
+
+    @Override
+    public String format(int row) {
+        int code = codes.get(row);
+        return code == MISSING ? "" : dictionary.value(code);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 16L + 4L * codes.capacity() + dictionary.memoryBytes();
+    }
+
+    @Override
+    public int distinctValues() {
+        return dictionary.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.ayurveda.backend.cohort;
+
+// One column of a cohort dataset. Row ids are dense, 0..size()-1, in upload order.
+public abstract class CohortColumn {
+    private final String name;
+    private final ColumnKind kind;
+
+    protected CohortColumn(String name, ColumnKind kind) {
+        this.name = name;
+        this.kind = kind;
+    }
+
+    public String getName() { return name; }
+    public ColumnKind getKind() { return kind; }
+
+    public abstract int size();
+
+    public abstract boolean isMissing(int row);
+
+    // Cell rendered back to text, "" when missing
+    public abstract String format(int row);
+
+    // Approximate heap (or mapped) bytes held by this column, including its dictionary
+    public abstract long memoryBytes();
+
+    // Number of distinct values for dictionary-encoded columns, -1 otherwise
+    public int distinctValues() {
+        return -1;
+    }
+
+    public int missingCount() {
+        int missing = 0;
+        for (int row = 0, n = size(); row < n; row++) {
+            if (isMissing(row)) missing++;
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,150 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes selected rows as RFC 4180 CSV (CRLF line ends, fields quoted only when they contain a comma,
+// quote or line break, quotes doubled). Cells are UTF-8 encoded straight into one fixed buffer that is
+// flushed to the stream whenever it fills, so memory use does not depend on the number of rows.
+public final class CohortCsvWriter {
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<CohortColumn> columns;
+    // Pre-escaped dictionary values of categorical columns, indexed [column][code]; null for other columns
+    private final byte[][][] encodedValues;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long bytesWritten;
+
+    // columns == null exports every column in dataset order
+    public CohortCsvWriter(CohortDataset dataset, List<String> columns) {
+        this.columns = new ArrayList<>();
+        if (columns == null || columns.isEmpty()) {
+            this.columns.addAll(dataset.getColumns());
+        } else {
+            for (String name : columns) {
+                CohortColumn column = dataset.column(name);
+                if (column == null) throw new IllegalArgumentException("Unknown column: " + name);
+                this.columns.add(column);
+            }
+        }
+        encodedValues = new byte[this.columns.size()][][];
+        for (int c = 0; c < this.columns.size(); c++) {
+            if (this.columns.get(c) instanceof CategoricalColumn) {
+                Dictionary dictionary = ((CategoricalColumn) this.columns.get(c)).getDictionary();
+                encodedValues[c] = new byte[dictionary.size()][];
+                for (int code = 0; code < dictionary.size(); code++) {
+                    encodedValues[c][code] = escape(dictionary.value(code)).getBytes(StandardCharsets.UTF_8);
+                }
+            }
+        }
+    }
+
+    // Returns the number of data rows written; the stream is flushed but not closed
+    public long write(RoaringBitmap rows, OutputStream out) throws IOException {
+        for (int c = 0; c < columns.size(); c++) {
+            if (c > 0) put((byte) ',', out);
+            putEscaped(columns.get(c).getName(), out);
+        }
+        putLineEnd(out);
+
+        long written = 0;
+        PeekableIntIterator it = rows.getIntIterator();
+        while (it.hasNext()) {
+            int row = it.next();
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) put((byte) ',', out);
+                CohortColumn column = columns.get(c);
+                if (encodedValues[c] != null) {
+                    int code = ((CategoricalColumn) column).code(row);
+                    if (code != CategoricalColumn.MISSING) putBytes(encodedValues[c][code], out);
+                } else if (!column.isMissing(row)) {
+                    putEscaped(column.format(row), out);
+                }
+            }
+            putLineEnd(out);
+            written++;
+        }
+        flush(out);
+        out.flush();
+        return written;
+    }
+
+    // Uncompressed CSV bytes produced so far
+    public long getBytesWritten() {
+        return bytesWritten + position;
+    }
+
+    static String escape(String value) {
+        if (!needsQuotes(value)) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+
+    private void putEscaped(String value, OutputStream out) throws IOException {
+        boolean quoted = needsQuotes(value);
+        if (quoted) put((byte) '"', out);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') put((byte) '"', out);
+                put((byte) c, out);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | (c >> 6)), out);
+                put((byte) (0x80 | (c & 0x3F)), out);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                put((byte) (0xF0 | (codePoint >> 18)), out);
+                put((byte) (0x80 | ((codePoint >> 12) & 0x3F)), out);
+                put((byte) (0x80 | ((codePoint >> 6) & 0x3F)), out);
+                put((byte) (0x80 | (codePoint & 0x3F)), out);
+            } else {
+                put((byte) (0xE0 | (c >> 12)), out);
+                put((byte) (0x80 | ((c >> 6) & 0x3F)), out);
+                put((byte) (0x80 | (c & 0x3F)), out);
+            }
+        }
+        if (quoted) put((byte) '"', out);
+    }
+
+    private void putLineEnd(OutputStream out) throws IOException {
+        put((byte) '\r', out);
+        put((byte) '\n', out);
+    }
+
+    private void putBytes(byte[] bytes, OutputStream out) throws IOException {
+        if (bytes.length > BUFFER_SIZE - position) flush(out);
+        if (bytes.length > BUFFER_SIZE) {
+            out.write(bytes);
+            bytesWritten += bytes.length;
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void put(byte b, OutputStream out) throws IOException {
+        if (position == BUFFER_SIZE) flush(out);
+        buffer[position++] = b;
+    }
+
+    private void flush(OutputStream out) throws IOException {
+        if (position == 0) return;
+        out.write(buffer, 0, position);
+        bytesWritten += position;
+        position = 0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Immutable, column-oriented cohort table with its filter and search indexes. Safe to share between request threads without locking.
+// Every append, delta or compaction produces a new dataset with the next version number; the store swaps it in whole.
+public class CohortDataset {
+    private final String id;
+    private final String name;
+    private final Instant createdAt;
+    private final long version;
+    private final int rowCount;
+    private final Map<String, CohortColumn> columns;
+    private final CohortIndex index;
+    // Built on first use for datasets opened from a snapshot
+    private volatile CohortSearchIndex searchIndex;
+    // Not a monitor: concurrent searches wait out the build without pinning virtual-thread carriers
+    private final ReentrantLock searchIndexLock = new ReentrantLock();
+    // Identity keys for delta uploads; built on the first delta, then carried from version to version
+    private volatile CohortKeys keys;
+
+    public CohortDataset(String id, String name, Instant createdAt, int rowCount, Map<String, CohortColumn> columns) {
+        this(id, name, createdAt, 1, rowCount, columns);
+    }
+
+    // Fully indexed dataset, e.g. the compacted successor of another version
+    CohortDataset(String id, String name, Instant createdAt, long version, int rowCount, Map<String, CohortColumn> columns) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableMap(columns);
+        this.index = new CohortIndex(rowCount, columns.values());
+        this.searchIndex = new CohortSearchIndex(rowCount, this.columns, index);
+    }
+
+    // Next version of base with rows appended to the same columns and deleted as its tombstones; indexes are
+    // extended, not rebuilt. keys may be null to build them on demand.
+    CohortDataset(CohortDataset base, int rowCount, Map<String, CohortColumn> columns, RoaringBitmap deleted, CohortKeys keys) {
+        this.id = base.id;
+        this.name = base.name;
+        this.createdAt = base.createdAt;
+        this.version = base.version + 1;
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableMap(columns);
+        this.index = new CohortIndex(base.index, rowCount, columns.values(), deleted);
+        this.searchIndex = new CohortSearchIndex(base.getSearchIndex(), rowCount, this.columns, index);
+        this.keys = keys;
+    }
+
+    // Dataset opened from a snapshot with its stored filter index; the search index is rebuilt lazily
+    CohortDataset(String id, String name, Instant createdAt, long version, int rowCount, Map<String, CohortColumn> columns,
+                  CohortIndex index) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableMap(columns);
+        this.index = index;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public Instant getCreatedAt() { return createdAt; }
+    public long getVersion() { return version; }
+    // Physical rows, tombstoned ones included; see getIndex().getLiveRowCount()
+    public int getRowCount() { return rowCount; }
+    public CohortIndex getIndex() { return index; }
+
+    public int getDeletedRowCount() {
+        return index.deletedRows().getCardinality();
+    }
+
+    // Shares the search index lock; both are one-off builds
+    public CohortKeys getKeys() {
+        CohortKeys built = keys;
+        if (built != null) return built;
+        searchIndexLock.lock();
+        try {
+            if (keys == null) keys = CohortKeys.build(this);
+            return keys;
+        } finally {
+            searchIndexLock.unlock();
+        }
+    }
+
+    public CohortSearchIndex getSearchIndex() {
+        CohortSearchIndex built = searchIndex;
+        if (built != null) return built;
+        searchIndexLock.lock();
+        try {
+            if (searchIndex == null) searchIndex = new CohortSearchIndex(rowCount, columns, index);
+            return searchIndex;
+        } finally {
+            searchIndexLock.unlock();
+        }
+    }
+
+    public boolean isSearchIndexBuilt() {
+        return searchIndex != null;
+    }
+
+    public Collection<CohortColumn> getColumns() {
+        return columns.values();
+    }
+
+    Map<String, CohortColumn> columnMap() {
+        return columns;
+    }
+
+    // Null when the upload had no such column
+    public CohortColumn column(String name) {
+        return columns.get(name);
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (CohortColumn column : columns.values()) bytes += column.memoryBytes();
+        return bytes;
+    }
+}
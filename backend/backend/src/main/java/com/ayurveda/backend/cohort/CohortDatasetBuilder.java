@@ -0,0 +1,472 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Accumulates CSV records column by column into growable primitive buffers, then freezes them
+// into an immutable CohortDataset. Raw row strings are never retained. When started from an existing
+// dataset, its columns are copied in and the new records are appended after them; when started from a
+// dataset and a set of rows, only those rows are copied (compaction).
+public class CohortDatasetBuilder {
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+        DateTimeFormatter.ISO_LOCAL_DATE,
+        DateTimeFormatter.ofPattern("d/M/yyyy"),
+        DateTimeFormatter.ofPattern("d-M-yyyy"),
+        DateTimeFormatter.ofPattern("d.M.yyyy")
+    };
+
+    private final List<ColumnBuilder> builders = new ArrayList<>();
+    // Record position feeding each builder, -1 when the CSV has no such column
+    private final int[] sources;
+    private final CohortDataset base;
+    private final boolean compacting;
+    private int rowCount;
+
+    public CohortDatasetBuilder(String[] header) {
+        List<CohortSchema.ColumnSpec> specs = CohortSchema.resolve(CohortSchema.mergeSplitHeaders(header));
+        sources = new int[specs.size()];
+        for (int i = 0; i < specs.size(); i++) {
+            builders.add(builderFor(specs.get(i)));
+            sources[i] = i;
+        }
+        base = null;
+        compacting = false;
+    }
+
+    // Appends to base; the CSV header may list the dataset's columns in any order or leave some out
+    public CohortDatasetBuilder(CohortDataset base, String[] header) {
+        Map<String, Integer> positions = new HashMap<>();
+        List<CohortSchema.ColumnSpec> specs = CohortSchema.resolve(CohortSchema.mergeSplitHeaders(header));
+        for (int i = 0; i < specs.size(); i++) positions.put(specs.get(i).getName(), i);
+
+        List<String> keys = new ArrayList<>();
+        for (CohortColumn column : base.getColumns()) {
+            if (column.getName().equals(CohortSchema.BP_DIASTOLIC)) continue;
+            if (column.getName().equals(CohortSchema.BP_SYSTOLIC)) {
+                builders.add(new BloodPressureBuilder((IntColumn) column, (IntColumn) base.column(CohortSchema.BP_DIASTOLIC)));
+                keys.add(CohortSchema.BLOOD_PRESSURE);
+            } else {
+                builders.add(seededBuilder(column));
+                keys.add(column.getName());
+            }
+        }
+        for (String name : positions.keySet()) {
+            if (!keys.contains(name)) throw new IllegalArgumentException("Column not in dataset: " + name);
+        }
+        sources = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) sources[i] = positions.getOrDefault(keys.get(i), -1);
+        this.base = base;
+        this.compacting = false;
+        this.rowCount = base.getRowCount();
+    }
+
+    // The given rows of source, renumbered densely in row order. Dictionaries are re-encoded, so values only
+    // dropped rows used disappear with them.
+    public CohortDatasetBuilder(CohortDataset source, RoaringBitmap rows) {
+        for (CohortColumn column : source.getColumns()) {
+            if (column.getName().equals(CohortSchema.BP_DIASTOLIC)) continue;
+            if (column.getName().equals(CohortSchema.BP_SYSTOLIC)) {
+                builders.add(new BloodPressureBuilder((IntColumn) column, (IntColumn) source.column(CohortSchema.BP_DIASTOLIC), rows));
+            } else {
+                builders.add(compactedBuilder(column, rows));
+            }
+        }
+        sources = new int[builders.size()];
+        Arrays.fill(sources, -1);
+        this.base = source;
+        this.compacting = true;
+        this.rowCount = rows.getCardinality();
+    }
+
+    // Columns missing at the end of a short record are treated as empty
+    public void addRecord(String[] record) {
+        for (int i = 0; i < builders.size(); i++) {
+            int source = sources[i];
+            builders.get(i).add(source >= 0 && source < record.length ? record[source].trim() : "");
+        }
+        rowCount++;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public CohortDataset build(String id, String name) {
+        return new CohortDataset(id, name, Instant.now(), rowCount, buildColumns());
+    }
+
+    // Next version of the base dataset; its indexes are extended with the appended rows only
+    public CohortDataset buildAppended() {
+        return buildAppended(base != null ? base.getIndex().deletedRows() : null, null);
+    }
+
+    // As buildAppended, with deleted replacing the base's tombstones and keys (null to build on demand) for the result
+    CohortDataset buildAppended(RoaringBitmap deleted, CohortKeys keys) {
+        if (base == null || compacting) throw new IllegalStateException("Builder was not started from a dataset");
+        return new CohortDataset(base, rowCount, buildColumns(), deleted, keys);
+    }
+
+    // Next version of the source dataset holding the selected rows, fully re-indexed
+    public CohortDataset buildCompacted() {
+        if (!compacting) throw new IllegalStateException("Builder was not started for compaction");
+        return new CohortDataset(base.getId(), base.getName(), base.getCreatedAt(), base.getVersion() + 1, rowCount, buildColumns());
+    }
+
+    private Map<String, CohortColumn> buildColumns() {
+        Map<String, CohortColumn> columns = new LinkedHashMap<>();
+        for (ColumnBuilder builder : builders) {
+            for (CohortColumn column : builder.build()) columns.put(column.getName(), column);
+        }
+        return columns;
+    }
+
+    private static ColumnBuilder builderFor(CohortSchema.ColumnSpec spec) {
+        if (spec.getName().startsWith(CohortSchema.BLOOD_PRESSURE)) return new BloodPressureBuilder();
+        switch (spec.getKind()) {
+            case CATEGORICAL: return new CategoricalBuilder(spec.getName());
+            case MULTI_CATEGORICAL: return new MultiCategoricalBuilder(spec.getName());
+            case INTEGER: return new IntBuilder(spec.getName(), ColumnKind.INTEGER);
+            case DATE: return new IntBuilder(spec.getName(), ColumnKind.DATE);
+            case DECIMAL: return new DecimalBuilder(spec.getName());
+            default: return new TextBuilder(spec.getName());
+        }
+    }
+
+    private static ColumnBuilder seededBuilder(CohortColumn column) {
+        if (column instanceof CategoricalColumn) return new CategoricalBuilder((CategoricalColumn) column);
+        if (column instanceof MultiCategoricalColumn) return new MultiCategoricalBuilder((MultiCategoricalColumn) column);
+        if (column instanceof IntColumn) return new IntBuilder((IntColumn) column);
+        if (column instanceof DecimalColumn) return new DecimalBuilder((DecimalColumn) column);
+        return new TextBuilder((TextColumn) column);
+    }
+
+    private static ColumnBuilder compactedBuilder(CohortColumn column, RoaringBitmap rows) {
+        if (column instanceof CategoricalColumn) return new CategoricalBuilder((CategoricalColumn) column, rows);
+        if (column instanceof MultiCategoricalColumn) return new MultiCategoricalBuilder((MultiCategoricalColumn) column, rows);
+        if (column instanceof IntColumn) return new IntBuilder((IntColumn) column, rows);
+        if (column instanceof DecimalColumn) return new DecimalBuilder((DecimalColumn) column, rows);
+        return new TextBuilder((TextColumn) column, rows);
+    }
+
+    // Code of from's value in to, looked up once per code through table (filled with -1)
+    private static int recode(int[] table, int code, Dictionary from, Dictionary to) {
+        if (table[code] < 0) table[code] = to.encode(from.value(code));
+        return table[code];
+    }
+
+    private static int[] recodeTable(Dictionary dictionary) {
+        int[] table = new int[dictionary.size()];
+        Arrays.fill(table, -1);
+        return table;
+    }
+
+    static int parseInt(String raw) {
+        double value = parseDecimal(raw);
+        return Double.isNaN(value) ? IntColumn.MISSING : (int) Math.round(value);
+    }
+
+    // Accepts plain numbers and a leading number followed by a unit ("72 kg", "110mg/dl")
+    static double parseDecimal(String raw) {
+        if (raw.isEmpty()) return Double.NaN;
+        try {
+            return Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            int end = 0;
+            while (end < raw.length() && (Character.isDigit(raw.charAt(end)) || raw.charAt(end) == '.'
+                    || (end == 0 && raw.charAt(end) == '-'))) {
+                end++;
+            }
+            try {
+                return end == 0 ? Double.NaN : Double.parseDouble(raw.substring(0, end));
+            } catch (NumberFormatException ignored) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    static int parseEpochDay(String raw) {
+        if (raw.isEmpty()) return IntColumn.MISSING;
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return (int) LocalDate.parse(raw, format).toEpochDay();
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        return IntColumn.MISSING;
+    }
+
+    private interface ColumnBuilder {
+        void add(String raw);
+
+        List<CohortColumn> build();
+    }
+
+    private static final class CategoricalBuilder implements ColumnBuilder {
+        private final String name;
+        private final Dictionary dictionary;
+        private final IntList codes;
+
+        CategoricalBuilder(String name) {
+            this.name = name;
+            this.dictionary = new Dictionary();
+            this.codes = new IntList();
+        }
+
+        // Existing codes stay valid: the dictionary copy only grows
+        CategoricalBuilder(CategoricalColumn column) {
+            this.name = column.getName();
+            this.dictionary = column.getDictionary().copy();
+            this.codes = new IntList(column.size() + 1024);
+            for (int row = 0, n = column.size(); row < n; row++) codes.add(column.code(row));
+        }
+
+        CategoricalBuilder(CategoricalColumn column, RoaringBitmap rows) {
+            this(column.getName());
+            int[] table = recodeTable(column.getDictionary());
+            for (int row : rows) {
+                int code = column.code(row);
+                codes.add(code == CategoricalColumn.MISSING ? code : recode(table, code, column.getDictionary(), dictionary));
+            }
+        }
+
+        @Override
+        public void add(String raw) {
+            codes.add(raw.isEmpty() ? CategoricalColumn.MISSING : dictionary.encode(raw));
+        }
+
+        @Override
+        public List<CohortColumn> build() {
+            return List.of(new CategoricalColumn(name, dictionary, codes.toArray()));
+        }
+    }
+
+    private static final class MultiCategoricalBuilder implements ColumnBuilder {
+        private final String name;
+        private final Dictionary dictionary;
+        private final IntList offsets;
+        private final IntList values;
+
+        MultiCategoricalBuilder(String name) {
+            this.name = name;
+            this.dictionary = new Dictionary();
+            this.offsets = new IntList();
+            this.values = new IntList();
+            offsets.add(0);
+        }
+
+        MultiCategoricalBuilder(MultiCategoricalColumn column) {
+            this.name = column.getName();
+            this.dictionary = column.getDictionary().copy();
+            this.offsets = new IntList(column.size() + 1024);
+            this.values = new IntList(column.size() > 0 ? column.end(column.size() - 1) + 1024 : 1024);
+            offsets.add(0);
+            for (int row = 0, n = column.size(); row < n; row++) {
+                for (int i = column.start(row), end = column.end(row); i < end; i++) values.add(column.codeAt(i));
+                offsets.add(values.size());
+            }
+        }
+
+        MultiCategoricalBuilder(MultiCategoricalColumn column, RoaringBitmap rows) {
+            this(column.getName());
+            int[] table = recodeTable(column.getDictionary());
+            for (int row : rows) {
+                for (int i = column.start(row), end = column.end(row); i < end; i++) {
+                    values.add(recode(table, column.codeAt(i), column.getDictionary(), dictionary));
+                }
+                offsets.add(values.size());
+            }
+        }
+
+        @Override
+        public void add(String raw) {
+            if (!raw.isEmpty()) {
+                for (String part : raw.split("[,;]")) {
+                    String value = part.trim();
+                    if (!value.isEmpty()) values.add(dictionary.encode(value));
+                }
+            }
+            offsets.add(values.size());
+        }
+
+        @Override
+        public List<CohortColumn> build() {
+            return List.of(new MultiCategoricalColumn(name, dictionary, offsets.toArray(), values.toArray()));
+        }
+    }
+
+    private static final class IntBuilder implements ColumnBuilder {
+        private final String name;
+        private final ColumnKind kind;
+        private final IntList values;
+
+        IntBuilder(String name, ColumnKind kind) {
+            this.name = name;
+            this.kind = kind;
+            this.values = new IntList();
+        }
+
+        IntBuilder(IntColumn column) {
+            this.name = column.getName();
+            this.kind = column.getKind();
+            this.values = new IntList(column.size() + 1024);
+            for (int row = 0, n = column.size(); row < n; row++) values.add(column.get(row));
+        }
+
+        IntBuilder(IntColumn column, RoaringBitmap rows) {
+            this(column.getName(), column.getKind());
+            for (int row : rows) values.add(column.get(row));
+        }
+
+        @Override
+        public void add(String raw) {
+            values.add(kind == ColumnKind.DATE ? parseEpochDay(raw) : parseInt(raw));
+        }
+
+        @Override
+        public List<CohortColumn> build() {
+            return List.of(new IntColumn(name, kind, values.toArray()));
+        }
+    }
+
+    // "140/90" -> systolic 140, diastolic 90
+    private static final class BloodPressureBuilder implements ColumnBuilder {
+        private final IntList systolic;
+        private final IntList diastolic;
+
+        BloodPressureBuilder() {
+            this.systolic = new IntList();
+            this.diastolic = new IntList();
+        }
+
+        BloodPressureBuilder(IntColumn systolicColumn, IntColumn diastolicColumn) {
+            this.systolic = new IntList(systolicColumn.size() + 1024);
+            this.diastolic = new IntList(diastolicColumn.size() + 1024);
+            for (int row = 0, n = systolicColumn.size(); row < n; row++) {
+                systolic.add(systolicColumn.get(row));
+                diastolic.add(diastolicColumn.get(row));
+            }
+        }
+
+        BloodPressureBuilder(IntColumn systolicColumn, IntColumn diastolicColumn, RoaringBitmap rows) {
+            this();
+            for (int row : rows) {
+                systolic.add(systolicColumn.get(row));
+                diastolic.add(diastolicColumn.get(row));
+            }
+        }
+
+        @Override
+        public void add(String raw) {
+            int slash = raw.indexOf('/');
+            if (slash < 0) {
+                systolic.add(parseInt(raw));
+                diastolic.add(IntColumn.MISSING);
+            } else {
+                systolic.add(parseInt(raw.substring(0, slash).trim()));
+                diastolic.add(parseInt(raw.substring(slash + 1).trim()));
+            }
+        }
+
+        @Override
+        public List<CohortColumn> build() {
+            return List.of(
+                new IntColumn(CohortSchema.BP_SYSTOLIC, ColumnKind.INTEGER, systolic.toArray()),
+                new IntColumn(CohortSchema.BP_DIASTOLIC, ColumnKind.INTEGER, diastolic.toArray()));
+        }
+    }
+
+    private static final class DecimalBuilder implements ColumnBuilder {
+        private final String name;
+        private double[] values = new double[1024];
+        private int size;
+
+        DecimalBuilder(String name) {
+            this.name = name;
+        }
+
+        DecimalBuilder(DecimalColumn column) {
+            this.name = column.getName();
+            this.values = new double[column.size() + 1024];
+            for (int row = 0, n = column.size(); row < n; row++) values[row] = column.get(row);
+            this.size = column.size();
+        }
+
+        DecimalBuilder(DecimalColumn column, RoaringBitmap rows) {
+            this.name = column.getName();
+            this.values = new double[Math.max(1024, rows.getCardinality())];
+            for (int row : rows) values[size++] = column.get(row);
+        }
+
+        @Override
+        public void add(String raw) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = parseDecimal(raw);
+        }
+
+        @Override
+        public List<CohortColumn> build() {
+            return List.of(new DecimalColumn(name, Arrays.copyOf(values, size)));
+        }
+    }
+
+    private static final class TextBuilder implements ColumnBuilder {
+        private final String name;
+        private final ByteArrayOutputStream bytes;
+        private final IntList offsets;
+
+        TextBuilder(String name) {
+            this.name = name;
+            this.bytes = new ByteArrayOutputStream(16 * 1024);
+            this.offsets = new IntList();
+            offsets.add(0);
+        }
+
+        TextBuilder(TextColumn column) {
+            this.name = column.getName();
+            this.bytes = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, column.memoryBytes() + 16 * 1024));
+            this.offsets = new IntList(column.size() + 1024);
+            // Cells are copied as bytes, not decoded and re-encoded row by row; the offsets include the leading 0
+            ByteBuffer cells = column.bytes().rewind();
+            if (cells.hasArray()) {
+                bytes.write(cells.array(), cells.arrayOffset() + cells.position(), cells.remaining());
+            } else {
+                byte[] copy = new byte[cells.remaining()];
+                cells.get(copy);
+                bytes.writeBytes(copy);
+            }
+            IntBuffer ends = column.offsets().rewind();
+            while (ends.hasRemaining()) offsets.add(ends.get());
+        }
+
+        TextBuilder(TextColumn column, RoaringBitmap rows) {
+            this(column.getName());
+            for (int row : rows) add(column.get(row));
+        }
+
+        @Override
+        public void add(String raw) {
+            bytes.writeBytes(raw.getBytes(StandardCharsets.UTF_8));
+            offsets.add(bytes.size());
+        }
+
+        @Override
+        public List<CohortColumn> build() {
+            return List.of(new TextColumn(name, bytes.toByteArray(), offsets.toArray()));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Applies one delta upload to a dataset version. Records are keyed by contact number plus patient name; an
+// optional "delta_op" column says what to do with each: "upsert" (the default) appends the record and tombstones
+// the rows it replaces, "delete" tombstones them. An update replaces the whole row, so columns the delta leaves
+// out become empty. Nothing is copied until the first upsert, and a delete-only delta shares the base's columns.
+public class CohortDeltaBuilder {
+    public static final String OP_COLUMN = "delta_op";
+    private static final int[] NONE = new int[0];
+
+    private final CohortDataset base;
+    private final CohortKeys keys;
+    private final String[] header;
+    // Record positions, before the op column is taken out (op) or after (contact, name)
+    private final int opSource;
+    private final int contactSource;
+    private final int nameSource;
+    // Rows per key touched by this delta; NONE once deleted
+    private final Map<String, int[]> changes = new HashMap<>();
+    private CohortDatasetBuilder rows;
+    private RoaringBitmap deleted;
+    private int records;
+    private int inserted;
+    private int updated;
+    private int removed;
+    private int unmatched;
+
+    public CohortDeltaBuilder(CohortDataset base, String[] header) {
+        String[] merged = CohortSchema.mergeSplitHeaders(header);
+        int op = -1;
+        for (int i = 0; i < merged.length && op < 0; i++) {
+            if (CohortSchema.normalize(merged[i]).equals(OP_COLUMN)) op = i;
+        }
+        this.opSource = op;
+        this.header = op < 0 ? merged : without(merged, op);
+
+        List<CohortSchema.ColumnSpec> specs = CohortSchema.resolve(this.header);
+        int contact = -1;
+        int name = -1;
+        for (int i = 0; i < specs.size(); i++) {
+            String column = specs.get(i).getName();
+            if (column.equals(CohortSchema.CONTACT_NUMBER)) contact = i;
+            if (column.equals(CohortSchema.PATIENT_NAME)) name = i;
+            String stored = column.equals(CohortSchema.BLOOD_PRESSURE) ? CohortSchema.BP_SYSTOLIC : column;
+            if (base.column(stored) == null) throw new IllegalArgumentException("Column not in dataset: " + column);
+        }
+        if (contact < 0 || name < 0) {
+            throw new IllegalArgumentException("A delta upload needs the contact number and patient name columns");
+        }
+        this.contactSource = contact;
+        this.nameSource = name;
+        this.base = base;
+        this.keys = base.getKeys();
+        this.deleted = base.getIndex().deletedRows();
+    }
+
+    // IllegalArgumentException for a record without a key or with an unknown op (records are numbered from 1)
+    public void addRecord(String[] record) {
+        records++;
+        String op = opSource >= 0 && opSource < record.length ? record[opSource].trim().toLowerCase(Locale.ROOT) : "";
+        String[] fields = opSource >= 0 && opSource < record.length ? without(record, opSource) : record;
+        String key = CohortKeys.key(field(fields, contactSource), field(fields, nameSource));
+        if (key == null) throw new IllegalArgumentException("Record " + records + " has neither a contact number nor a patient name");
+        int[] current = changes.containsKey(key) ? changes.get(key) : keys.rows(key);
+
+        switch (op) {
+            case "":
+            case "upsert":
+                if (rows == null) rows = new CohortDatasetBuilder(base, header);
+                int row = rows.getRowCount();
+                rows.addRecord(fields);
+                tombstone(current);
+                changes.put(key, new int[] {row});
+                if (current.length == 0) inserted++;
+                else updated++;
+                break;
+            case "delete":
+                if (current.length == 0) {
+                    unmatched++;
+                    break;
+                }
+                tombstone(current);
+                changes.put(key, NONE);
+                removed++;
+                break;
+            default:
+                throw new IllegalArgumentException("Record " + records + " has unknown " + OP_COLUMN + " '" + op
+                        + "', expected upsert or delete");
+        }
+    }
+
+    // The next version, or base itself when the delta changed nothing
+    public CohortDataset build() {
+        if (changes.isEmpty()) return base;
+        CohortKeys nextKeys = keys.with(changes);
+        if (rows == null) return new CohortDataset(base, base.getRowCount(), base.columnMap(), deleted, nextKeys);
+        return rows.buildAppended(deleted, nextKeys);
+    }
+
+    public int getRecords() { return records; }
+    public int getInserted() { return inserted; }
+    public int getUpdated() { return updated; }
+    public int getDeleted() { return removed; }
+    // Deletes of keys the dataset does not hold
+    public int getUnmatched() { return unmatched; }
+
+    // Copy-on-write: the base's tombstones are shared until this delta adds one
+    private void tombstone(int[] rowIds) {
+        if (rowIds.length == 0) return;
+        if (deleted == base.getIndex().deletedRows()) deleted = deleted.clone();
+        for (int row : rowIds) deleted.add(row);
+    }
+
+    private static String field(String[] fields, int position) {
+        return position < fields.length ? fields[position] : "";
+    }
+
+    private static String[] without(String[] values, int position) {
+        String[] rest = Arrays.copyOf(values, values.length - 1);
+        System.arraycopy(values, position + 1, rest, position, values.length - position - 1);
+        return rest;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Selected values per column (OR within a column, AND across columns) plus optional age brackets.
+// An empty selection, or one containing "All", leaves that column unconstrained.
+public class CohortFilter {
+    public static final String ALL = "All";
+
+    private final Map<String, List<String>> selections;
+    private final List<String> ageBrackets;
+
+    public CohortFilter(Map<String, List<String>> selections, List<String> ageBrackets) {
+        this.selections = selections != null ? new LinkedHashMap<>(selections) : Collections.emptyMap();
+        this.ageBrackets = ageBrackets != null ? ageBrackets : Collections.emptyList();
+    }
+
+    public static CohortFilter none() {
+        return new CohortFilter(null, null);
+    }
+
+    public Map<String, List<String>> getSelections() { return selections; }
+    public List<String> getAgeBrackets() { return ageBrackets; }
+
+    // True when no column or age bracket narrows the selection
+    public boolean isEmpty() {
+        for (List<String> values : selections.values()) {
+            if (!isUnconstrained(values)) return false;
+        }
+        return isUnconstrained(ageBrackets);
+    }
+
+    static boolean isUnconstrained(List<String> values) {
+        return values == null || values.isEmpty() || values.contains(ALL);
+    }
+}
@@ -0,0 +1,228 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One compressed (Roaring) bitmap of row ids per distinct value of every categorical and multi-select
+// column, plus one per age bracket. A filter is an OR of bitmaps within a column and an AND across
+// columns, so its cost depends on the number of selected values, not on the number of rows.
+// Rows tombstoned by a delta upload stay in the value bitmaps until compaction but are left out of allRows,
+// and every evaluation is intersected with it.
+public class CohortIndex {
+    private final int rowCount;
+    private final RoaringBitmap deleted;
+    private final RoaringBitmap allRows;
+    private final Map<String, Dictionary> dictionaries = new HashMap<>();
+    private final Map<String, RoaringBitmap[]> valueBitmaps = new HashMap<>();
+    private final RoaringBitmap[] ageBitmaps;
+
+    public CohortIndex(int rowCount, Iterable<CohortColumn> columns) {
+        this(null, rowCount, columns, new RoaringBitmap());
+    }
+
+    // Index over the same columns with rows appended: base bitmaps are copied and only the new rows are added.
+    // deleted holds every tombstoned row, the base's included; it must not be modified afterwards, as versions
+    // without new tombstones share it.
+    public CohortIndex(CohortIndex base, int rowCount, Iterable<CohortColumn> columns, RoaringBitmap deleted) {
+        int from = base != null ? base.rowCount : 0;
+        this.rowCount = rowCount;
+        this.deleted = deleted;
+        this.allRows = liveRows(rowCount, deleted);
+        RoaringBitmap[] ages = null;
+        for (CohortColumn column : columns) {
+            RoaringBitmap[] seed = base != null ? base.valueBitmaps.get(column.getName()) : null;
+            if (column instanceof CategoricalColumn) {
+                indexCategorical((CategoricalColumn) column, from, seed);
+            } else if (column instanceof MultiCategoricalColumn) {
+                indexMultiCategorical((MultiCategoricalColumn) column, from, seed);
+            } else if (column.getName().equals(CohortSchema.AGE) && column instanceof IntColumn) {
+                ages = indexAges((IntColumn) column, from, base != null ? base.ageBitmaps : null);
+            }
+        }
+        this.ageBitmaps = ages;
+    }
+
+    // Index restored from a snapshot: dictionaries come from the columns, bitmaps were stored per column
+    CohortIndex(int rowCount, Iterable<CohortColumn> columns, Map<String, RoaringBitmap[]> valueBitmaps, RoaringBitmap[] ageBitmaps,
+                RoaringBitmap deleted) {
+        this.rowCount = rowCount;
+        this.deleted = deleted;
+        this.allRows = liveRows(rowCount, deleted);
+        for (CohortColumn column : columns) {
+            RoaringBitmap[] bitmaps = valueBitmaps.get(column.getName());
+            if (bitmaps == null) continue;
+            Dictionary dictionary = column instanceof CategoricalColumn
+                    ? ((CategoricalColumn) column).getDictionary()
+                    : ((MultiCategoricalColumn) column).getDictionary();
+            if (bitmaps.length != dictionary.size()) {
+                throw new IllegalArgumentException("Index of column " + column.getName() + " does not match its dictionary");
+            }
+            dictionaries.put(column.getName(), dictionary);
+            this.valueBitmaps.put(column.getName(), bitmaps);
+        }
+        if (ageBitmaps != null && ageBitmaps.length != AgeBracket.values().length) {
+            throw new IllegalArgumentException("Age index does not match the age brackets");
+        }
+        this.ageBitmaps = ageBitmaps;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    // Rows matching the filter; the caller owns the returned bitmap
+    public RoaringBitmap evaluate(CohortFilter filter) {
+        List<RoaringBitmap> clauses = new ArrayList<>();
+        for (Map.Entry<String, List<String>> selection : filter.getSelections().entrySet()) {
+            if (CohortFilter.isUnconstrained(selection.getValue())) continue;
+            clauses.add(anyOf(selection.getKey(), selection.getValue()));
+        }
+        if (!filter.getAgeBrackets().isEmpty() && !CohortFilter.isUnconstrained(filter.getAgeBrackets())) {
+            if (ageBitmaps == null) throw new IllegalArgumentException("Dataset has no age column");
+            List<RoaringBitmap> brackets = new ArrayList<>();
+            for (String label : filter.getAgeBrackets()) brackets.add(ageBitmaps[AgeBracket.parse(label).ordinal()]);
+            clauses.add(or(brackets));
+        }
+        if (clauses.isEmpty()) return allRows.clone();
+        if (!deleted.isEmpty()) clauses.add(allRows);
+        // Intersect smallest first so the running result shrinks as early as possible
+        clauses.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap result = clauses.get(0).clone();
+        for (int i = 1; i < clauses.size() && !result.isEmpty(); i++) {
+            result.and(clauses.get(i));
+        }
+        return result;
+    }
+
+    public long count(CohortFilter filter) {
+        return evaluate(filter).getLongCardinality();
+    }
+
+    public boolean isIndexed(String column) {
+        return valueBitmaps.containsKey(column);
+    }
+
+    // Indexed column names; the snapshot writer stores their bitmaps
+    Iterable<String> indexedColumns() {
+        return valueBitmaps.keySet();
+    }
+
+    RoaringBitmap[] valueBitmaps(String column) {
+        return valueBitmaps.get(column);
+    }
+
+    public Dictionary dictionary(String column) {
+        return dictionaries.get(column);
+    }
+
+    // Rows holding the given dictionary code; shared, must not be modified
+    public RoaringBitmap valueBitmap(String column, int code) {
+        return valueBitmaps.get(column)[code];
+    }
+
+    // Rows in the given age bracket; shared, must not be modified. Null when the dataset has no age column.
+    public RoaringBitmap ageBitmap(AgeBracket bracket) {
+        return ageBitmaps == null ? null : ageBitmaps[bracket.ordinal()];
+    }
+
+    // Live rows only; shared, must not be modified
+    public RoaringBitmap allRows() {
+        return allRows;
+    }
+
+    // Tombstoned rows; shared, must not be modified
+    public RoaringBitmap deletedRows() {
+        return deleted;
+    }
+
+    public int getLiveRowCount() {
+        return allRows.getCardinality();
+    }
+
+    public long memoryBytes() {
+        long bytes = allRows.getLongSizeInBytes() + deleted.getLongSizeInBytes();
+        for (RoaringBitmap[] bitmaps : valueBitmaps.values()) {
+            for (RoaringBitmap bitmap : bitmaps) bytes += bitmap.getLongSizeInBytes();
+        }
+        if (ageBitmaps != null) {
+            for (RoaringBitmap bitmap : ageBitmaps) bytes += bitmap.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static RoaringBitmap liveRows(int rowCount, RoaringBitmap deleted) {
+        RoaringBitmap live = new RoaringBitmap();
+        live.add(0L, (long) rowCount);
+        if (!deleted.isEmpty()) live.andNot(deleted);
+        live.runOptimize();
+        return live;
+    }
+
+    private RoaringBitmap anyOf(String column, List<String> values) {
+        RoaringBitmap[] bitmaps = valueBitmaps.get(column);
+        if (bitmaps == null) throw new IllegalArgumentException("Column is not filterable: " + column);
+        Dictionary dictionary = dictionaries.get(column);
+        List<RoaringBitmap> selected = new ArrayList<>(values.size());
+        for (String value : values) {
+            int code = dictionary.code(value);
+            if (code >= 0) selected.add(bitmaps[code]);
+        }
+        return or(selected);
+    }
+
+    private static RoaringBitmap or(List<RoaringBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) return new RoaringBitmap();
+        if (bitmaps.size() == 1) return bitmaps.get(0);
+        return FastAggregation.or(bitmaps.iterator());
+    }
+
+    private void indexCategorical(CategoricalColumn column, int from, RoaringBitmap[] seed) {
+        RoaringBitmap[] bitmaps = newBitmaps(column.getDictionary().size(), seed);
+        for (int row = from, n = column.size(); row < n; row++) {
+            int code = column.code(row);
+            if (code != CategoricalColumn.MISSING) bitmaps[code].add(row);
+        }
+        register(column.getName(), column.getDictionary(), bitmaps);
+    }
+
+    private void indexMultiCategorical(MultiCategoricalColumn column, int from, RoaringBitmap[] seed) {
+        RoaringBitmap[] bitmaps = newBitmaps(column.getDictionary().size(), seed);
+        for (int row = from, n = column.size(); row < n; row++) {
+            for (int i = column.start(row), end = column.end(row); i < end; i++) {
+                bitmaps[column.codeAt(i)].add(row);
+            }
+        }
+        register(column.getName(), column.getDictionary(), bitmaps);
+    }
+
+    private static RoaringBitmap[] indexAges(IntColumn ages, int from, RoaringBitmap[] seed) {
+        RoaringBitmap[] bitmaps = newBitmaps(AgeBracket.values().length, seed);
+        for (int row = from, n = ages.size(); row < n; row++) {
+            AgeBracket bracket = AgeBracket.of(ages.get(row));
+            if (bracket != null) bitmaps[bracket.ordinal()].add(row);
+        }
+        for (RoaringBitmap bitmap : bitmaps) bitmap.runOptimize();
+        return bitmaps;
+    }
+
+    private void register(String column, Dictionary dictionary, RoaringBitmap[] bitmaps) {
+        for (RoaringBitmap bitmap : bitmaps) bitmap.runOptimize();
+        dictionaries.put(column, dictionary);
+        valueBitmaps.put(column, bitmaps);
+    }
+
+    // Copies of the seed bitmaps (shared ones are never mutated), then empty ones for codes the seed lacks
+    private static RoaringBitmap[] newBitmaps(int count, RoaringBitmap[] seed) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = seed != null && i < seed.length ? seed[i].clone() : new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+}
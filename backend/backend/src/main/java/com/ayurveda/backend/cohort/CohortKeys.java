@@ -0,0 +1,124 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Live rows of a dataset version by patient identity (contact number plus name), which delta uploads are keyed on.
+// Immutable: a delta layers its changes over the previous version's keys instead of copying them, so it costs what it
+// touches and older versions keep resolving keys as they were. Once the layers grow deep or large they are folded
+// into one map again; compaction starts over from the live rows.
+// Several rows share a key when the original upload repeated a patient; an update or tombstone replaces all of them.
+public final class CohortKeys {
+    private static final int[] NONE = new int[0];
+    private static final int MAX_LAYERS = 16;
+
+    // Keys of the folded base, or this layer's changes (NONE for a removed key) over parent
+    private final Map<String, int[]> rows;
+    private final CohortKeys parent;
+    private final int layers;
+    private final int layeredChanges;
+    private final int size;
+
+    private CohortKeys(Map<String, int[]> rows) {
+        this.rows = rows;
+        this.parent = null;
+        this.layers = 0;
+        this.layeredChanges = 0;
+        this.size = rows.size();
+    }
+
+    private CohortKeys(CohortKeys parent, Map<String, int[]> changes, int size) {
+        this.rows = changes;
+        this.parent = parent;
+        this.layers = parent.layers + 1;
+        this.layeredChanges = parent.layeredChanges + changes.size();
+        this.size = size;
+    }
+
+    // Keys of every live row that has one
+    static CohortKeys build(CohortDataset dataset) {
+        CohortColumn contacts = dataset.column(CohortSchema.CONTACT_NUMBER);
+        CohortColumn names = dataset.column(CohortSchema.PATIENT_NAME);
+        Map<String, int[]> rows = new HashMap<>();
+        if (contacts == null || names == null) return new CohortKeys(rows);
+        for (int row : dataset.getIndex().allRows()) {
+            String key = key(contacts.format(row), names.format(row));
+            if (key == null) continue;
+            int[] existing = rows.get(key);
+            if (existing == null) {
+                rows.put(key, new int[] {row});
+            } else {
+                int[] grown = Arrays.copyOf(existing, existing.length + 1);
+                grown[existing.length] = row;
+                rows.put(key, grown);
+            }
+        }
+        return new CohortKeys(rows);
+    }
+
+    // These keys with the given ones remapped; an empty array removes the key
+    CohortKeys with(Map<String, int[]> changes) {
+        int next = size;
+        for (Map.Entry<String, int[]> change : changes.entrySet()) {
+            boolean present = rows(change.getKey()).length > 0;
+            if (present && change.getValue().length == 0) next--;
+            if (!present && change.getValue().length > 0) next++;
+        }
+        CohortKeys layered = new CohortKeys(this, new HashMap<>(changes), next);
+        // Folding costs a pass over every key, so it waits until lookups walk many layers or the layers rival the base
+        return layered.layers > MAX_LAYERS || layered.layeredChanges > layered.baseSize() / 4 ? layered.fold() : layered;
+    }
+
+    // Live rows with the key, empty when none
+    public int[] rows(String key) {
+        for (CohortKeys keys = this; keys != null; keys = keys.parent) {
+            int[] found = keys.rows.get(key);
+            if (found != null) return found;
+        }
+        return NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Number of layered deltas over the folded base
+    int layers() {
+        return layers;
+    }
+
+    private int baseSize() {
+        CohortKeys keys = this;
+        while (keys.parent != null) keys = keys.parent;
+        return keys.rows.size();
+    }
+
+    // One map with every layer applied, oldest first
+    private CohortKeys fold() {
+        List<CohortKeys> chain = new ArrayList<>();
+        for (CohortKeys keys = this; keys != null; keys = keys.parent) chain.add(keys);
+        Map<String, int[]> folded = new HashMap<>(chain.get(chain.size() - 1).rows);
+        for (int i = chain.size() - 2; i >= 0; i--) {
+            for (Map.Entry<String, int[]> change : chain.get(i).rows.entrySet()) {
+                if (change.getValue().length == 0) folded.remove(change.getKey());
+                else folded.put(change.getKey(), change.getValue());
+            }
+        }
+        return new CohortKeys(folded);
+    }
+
+    // "+91 98220 12345" / "Sunita  Patil" -> "9822012345|sunita patil". Contacts compare on their last ten digits
+    // like search does; null when both parts are empty.
+    public static String key(String contact, String name) {
+        String number = contact.trim();
+        long digits = CohortSearchIndex.contactKey(number);
+        if (digits >= 0) number = Long.toString(digits);
+        String person = String.join(" ", CohortSearchIndex.tokenize(name, true));
+        if (number.isEmpty() && person.isEmpty()) return null;
+        return number.toLowerCase(Locale.ROOT) + "|" + person;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Maps the free-form survey headers ("Gender Of Patient", "Medicine/ Panchakarma", "blood_pressure", ...)
+// onto canonical column names and storage kinds. Unknown headers are kept as categorical columns.
+public final class CohortSchema {
+    public static final String VILLAGE = "village";
+    public static final String WARD = "ward";
+    public static final String PATIENT_NAME = "patient_name";
+    public static final String AGE = "age";
+    public static final String GENDER = "gender";
+    public static final String DISEASE = "disease";
+    public static final String EDUCATION = "education";
+    public static final String OCCUPATION = "occupation";
+    public static final String HEARD_ABOUT = "heard_about";
+    public static final String HEARD_SOURCE = "heard_source";
+    public static final String WEIGHT = "weight";
+    public static final String HEIGHT = "height";
+    public static final String DATE = "date";
+    public static final String BLOOD_PRESSURE = "blood_pressure";
+    public static final String BP_SYSTOLIC = "bp_systolic";
+    public static final String BP_DIASTOLIC = "bp_diastolic";
+    public static final String BLOOD_SUGAR = "blood_sugar";
+    public static final String CONTACT_NUMBER = "contact_number";
+    public static final String EMERGENCY_CONTACT = "emergency_contact";
+    public static final String MEDICINE_PANCHAKARMA = "medicine_panchakarma";
+    public static final String SURGERY = "surgery";
+    public static final String GYNECOLOGY = "gynecology";
+    public static final String PEDIATRICS = "pediatrics";
+    public static final String OPHTHALMOLOGY_ENT = "ophthalmology_ent";
+    public static final String OTHER_CONDITIONS = "other_conditions";
+
+    private CohortSchema() {}
+
+    public static final class ColumnSpec {
+        private final String name;
+        private final ColumnKind kind;
+
+        ColumnSpec(String name, ColumnKind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        public String getName() { return name; }
+        public ColumnKind getKind() { return kind; }
+    }
+
+    // One spec per header, in header order. blood_pressure is reported under its own name; the builder splits it.
+    public static List<ColumnSpec> resolve(String[] header) {
+        List<ColumnSpec> specs = new ArrayList<>(header.length);
+        Set<String> used = new HashSet<>();
+        for (String raw : header) {
+            ColumnSpec spec = resolve(raw);
+            String name = spec.name;
+            for (int suffix = 2; !used.add(name); suffix++) name = spec.name + "_" + suffix;
+            specs.add(name.equals(spec.name) ? spec : new ColumnSpec(name, spec.kind));
+        }
+        return specs;
+    }
+
+    // Survey exports sometimes leave a comma inside a parenthesised header unquoted, e.g.
+    // "Have you heard about ... (Wanadongri,Nagpur)"; rejoin such pieces so columns line up with the data
+    public static String[] mergeSplitHeaders(String[] header) {
+        List<String> merged = new ArrayList<>(header.length);
+        StringBuilder pending = null;
+        for (String field : header) {
+            if (pending != null) {
+                pending.append(',').append(field);
+                if (field.indexOf(')') >= 0) {
+                    merged.add(pending.toString());
+                    pending = null;
+                }
+            } else if (field.lastIndexOf('(') > field.lastIndexOf(')')) {
+                pending = new StringBuilder(field);
+            } else {
+                merged.add(field);
+            }
+        }
+        if (pending != null) merged.add(pending.toString());
+        return merged.toArray(new String[0]);
+    }
+
+    static ColumnSpec resolve(String rawHeader) {
+        String h = normalize(rawHeader);
+        if (h.equals("age") || h.startsWith("age_")) return new ColumnSpec(AGE, ColumnKind.INTEGER);
+        if (h.equals("date") || h.endsWith("_date") || h.startsWith("date_")) return new ColumnSpec(DATE, ColumnKind.DATE);
+        if (h.contains("village")) return new ColumnSpec(VILLAGE, ColumnKind.CATEGORICAL);
+        if (h.contains("ward")) return new ColumnSpec(WARD, ColumnKind.CATEGORICAL);
+        if (h.contains("patient_name") || h.equals("name")) return new ColumnSpec(PATIENT_NAME, ColumnKind.TEXT);
+        if (h.contains("gender") || h.equals("sex")) return new ColumnSpec(GENDER, ColumnKind.CATEGORICAL);
+        if (h.contains("education")) return new ColumnSpec(EDUCATION, ColumnKind.CATEGORICAL);
+        if (h.contains("occupation")) return new ColumnSpec(OCCUPATION, ColumnKind.CATEGORICAL);
+        if (h.contains("how_did_you_hear")) return new ColumnSpec(HEARD_SOURCE, ColumnKind.MULTI_CATEGORICAL);
+        if (h.contains("heard_about")) return new ColumnSpec(HEARD_ABOUT, ColumnKind.CATEGORICAL);
+        if (h.equals("disease") || h.equals("diagnosis")) return new ColumnSpec(DISEASE, ColumnKind.CATEGORICAL);
+        if (h.startsWith("weight")) return new ColumnSpec(WEIGHT, ColumnKind.DECIMAL);
+        if (h.startsWith("height")) return new ColumnSpec(HEIGHT, ColumnKind.DECIMAL);
+        if (h.contains("blood_pressure") || h.equals("bp")) return new ColumnSpec(BLOOD_PRESSURE, ColumnKind.INTEGER);
+        if (h.contains("blood_sugar") || h.equals("sugar")) return new ColumnSpec(BLOOD_SUGAR, ColumnKind.DECIMAL);
+        if (h.contains("emergency")) return new ColumnSpec(EMERGENCY_CONTACT, ColumnKind.TEXT);
+        if (h.contains("contact_number") || (h.contains("of_patient") && h.contains("mobile"))) {
+            return new ColumnSpec(CONTACT_NUMBER, ColumnKind.TEXT);
+        }
+        if (h.contains("medicine") || h.contains("panchakarma")) return new ColumnSpec(MEDICINE_PANCHAKARMA, ColumnKind.MULTI_CATEGORICAL);
+        if (h.equals("surgery")) return new ColumnSpec(SURGERY, ColumnKind.MULTI_CATEGORICAL);
+        if (h.startsWith("gyn")) return new ColumnSpec(GYNECOLOGY, ColumnKind.MULTI_CATEGORICAL);
+        if (h.startsWith("pediatric") || h.startsWith("paediatric")) return new ColumnSpec(PEDIATRICS, ColumnKind.MULTI_CATEGORICAL);
+        if (h.contains("ophthalmology") || h.equals("ent")) return new ColumnSpec(OPHTHALMOLOGY_ENT, ColumnKind.MULTI_CATEGORICAL);
+        if (h.equals("other")) return new ColumnSpec(OTHER_CONDITIONS, ColumnKind.MULTI_CATEGORICAL);
+        // Identifiers and contact details are high-cardinality; keep them out of dictionaries
+        if (h.contains("phone") || h.contains("mobile") || h.contains("email") || h.contains("roll") || h.endsWith("_id")) {
+            return new ColumnSpec(h, ColumnKind.TEXT);
+        }
+        return new ColumnSpec(h.isEmpty() ? "column" : h, ColumnKind.CATEGORICAL);
+    }
+
+    // "Gender Of Patient" -> "gender_of_patient"
+    public static String normalize(String header) {
+        StringBuilder out = new StringBuilder(header.length());
+        boolean pendingSeparator = false;
+        for (char c : header.trim().toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSeparator && out.length() > 0) out.append('_');
+                out.append(c);
+                pendingSeparator = false;
+            } else {
+                pendingSeparator = true;
+            }
+        }
+        return out.toString();
+    }
+}
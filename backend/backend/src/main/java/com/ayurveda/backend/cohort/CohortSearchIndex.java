@@ -0,0 +1,258 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Global search over a dataset: prefix and substring (trigram) matching on patient names and villages,
+// exact matching on contact numbers. Name and contact postings live in immutable segments, one per
+// ingest or append, so appending rows only indexes the new rows. Village terms map to dictionary codes
+// and reuse the filter index bitmaps.
+public class CohortSearchIndex {
+    private static final int MAX_SEGMENTS = 8;
+    private static final int MAX_QUERY_TOKENS = 6;
+
+    private final List<Segment> segments;
+    private final TermIndex villages;
+    private final CohortIndex index;
+
+    public CohortSearchIndex(int rowCount, Map<String, CohortColumn> columns, CohortIndex index) {
+        this(null, rowCount, columns, index);
+    }
+
+    // base must index a prefix of the same rows; only rows after it are tokenized
+    public CohortSearchIndex(CohortSearchIndex base, int rowCount, Map<String, CohortColumn> columns, CohortIndex index) {
+        List<Segment> segments = new ArrayList<>(base != null ? base.segments : List.of());
+        int from = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).end;
+        if (from < rowCount) segments.add(new Segment(columns, from, rowCount));
+        // Keep lookups bounded after many small appends: fold everything after the first segment into one
+        if (segments.size() > MAX_SEGMENTS) {
+            Segment first = segments.get(0);
+            segments = new ArrayList<>(List.of(first, new Segment(columns, first.end, rowCount)));
+        }
+        this.segments = segments;
+        this.index = index;
+        this.villages = buildVillageTerms(index.dictionary(CohortSchema.VILLAGE));
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long memoryBytes() {
+        long bytes = villages.memoryBytes();
+        for (Segment segment : segments) bytes += segment.memoryBytes();
+        return bytes;
+    }
+
+    // Every query token must match (AND); rows are ranked by the sum of their per-token scores,
+    // 3 for an exact term, 2 for a prefix and 1 for a substring match
+    public Ranking search(String query) {
+        List<String> tokens = queryTokens(query);
+        if (tokens.isEmpty()) return new Ranking(new int[0], new RoaringBitmap[0]);
+
+        RoaringBitmap matches = null;
+        List<RoaringBitmap> boosts = new ArrayList<>(2 * tokens.size());
+        for (String token : tokens) {
+            RoaringBitmap exact = new RoaringBitmap();
+            RoaringBitmap prefix = new RoaringBitmap();
+            RoaringBitmap contains = new RoaringBitmap();
+            matchToken(token, exact, prefix, contains);
+            matches = matches == null ? contains : RoaringBitmap.and(matches, contains);
+            if (matches.isEmpty()) return new Ranking(new int[0], new RoaringBitmap[0]);
+            boosts.add(prefix);
+            boosts.add(exact);
+        }
+        // Segments and village bitmaps still hold rows tombstoned by deltas
+        if (!index.deletedRows().isEmpty()) {
+            matches.and(index.allRows());
+            if (matches.isEmpty()) return new Ranking(new int[0], new RoaringBitmap[0]);
+        }
+
+        // atLeast[j] = matching rows that are in at least j of the boost bitmaps
+        RoaringBitmap[] atLeast = new RoaringBitmap[boosts.size() + 2];
+        atLeast[0] = matches;
+        for (int j = 1; j < atLeast.length; j++) atLeast[j] = new RoaringBitmap();
+        int processed = 0;
+        for (RoaringBitmap boost : boosts) {
+            processed++;
+            if (boost.isEmpty()) continue;
+            for (int j = processed; j >= 1; j--) {
+                if (!atLeast[j - 1].isEmpty()) atLeast[j].or(RoaringBitmap.and(atLeast[j - 1], boost));
+            }
+        }
+
+        int base = tokens.size();
+        List<Integer> scores = new ArrayList<>();
+        List<RoaringBitmap> buckets = new ArrayList<>();
+        for (int j = boosts.size(); j >= 0; j--) {
+            RoaringBitmap bucket = RoaringBitmap.andNot(atLeast[j], atLeast[j + 1]);
+            if (bucket.isEmpty()) continue;
+            scores.add(base + j);
+            buckets.add(bucket);
+        }
+        return new Ranking(scores.stream().mapToInt(Integer::intValue).toArray(), buckets.toArray(new RoaringBitmap[0]));
+    }
+
+    private void matchToken(String token, RoaringBitmap exact, RoaringBitmap prefix, RoaringBitmap contains) {
+        long number = contactKey(token);
+        if (number >= 0) {
+            RoaringBitmap rows = new RoaringBitmap();
+            for (Segment segment : segments) segment.matchContact(number, rows);
+            exact.or(rows);
+            prefix.or(rows);
+            contains.or(rows);
+            return;
+        }
+        for (Segment segment : segments) segment.names.match(token, exact, prefix, contains);
+
+        RoaringBitmap exactCodes = new RoaringBitmap();
+        RoaringBitmap prefixCodes = new RoaringBitmap();
+        RoaringBitmap containsCodes = new RoaringBitmap();
+        villages.match(token, exactCodes, prefixCodes, containsCodes);
+        // The code sets are nested, so each level only unions the villages the previous one lacks
+        containsCodes.andNot(prefixCodes);
+        prefixCodes.andNot(exactCodes);
+        RoaringBitmap rows = villageRows(exactCodes);
+        exact.or(rows);
+        rows.or(villageRows(prefixCodes));
+        prefix.or(rows);
+        rows.or(villageRows(containsCodes));
+        contains.or(rows);
+    }
+
+    private RoaringBitmap villageRows(RoaringBitmap codes) {
+        List<RoaringBitmap> rows = new ArrayList<>(codes.getCardinality());
+        for (int code : codes) rows.add(index.valueBitmap(CohortSchema.VILLAGE, code));
+        return rows.isEmpty() ? new RoaringBitmap() : FastAggregation.or(rows.iterator());
+    }
+
+    private static TermIndex buildVillageTerms(Dictionary villageDictionary) {
+        TermIndex.Builder builder = new TermIndex.Builder();
+        if (villageDictionary != null) {
+            for (int code = 0; code < villageDictionary.size(); code++) {
+                for (String term : tokenize(villageDictionary.value(code), false)) builder.add(term, code);
+            }
+        }
+        return builder.build();
+    }
+
+    // A query that is only a phone number (spaces, dashes and a +country code allowed) stays one token
+    static List<String> queryTokens(String query) {
+        if (query == null) return List.of();
+        String digits = query.replaceAll("[\\s()+-]", "");
+        if (digits.length() >= 6 && digits.chars().allMatch(Character::isDigit)) return List.of(digits);
+        List<String> tokens = tokenize(query, true);
+        return tokens.size() > MAX_QUERY_TOKENS ? tokens.subList(0, MAX_QUERY_TOKENS) : tokens;
+    }
+
+    // Lower-cased runs of letters and digits. Number-only tokens are dropped from indexed names;
+    // numbers are searched through the contact fields instead.
+    static List<String> tokenize(String text, boolean keepNumbers) {
+        List<String> tokens = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        boolean letters = false;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean part = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (part) {
+                if (start < 0) { start = i; letters = false; }
+                if (Character.isLetter(lower.charAt(i))) letters = true;
+            } else if (start >= 0) {
+                if (letters || keepNumbers) tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Digits only, last ten kept so "+91 98xxxxxxxx" and "98xxxxxxxx" match; -1 when not a phone number
+    static long contactKey(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') digits.append(c);
+            else if (Character.isLetter(c)) return -1;
+        }
+        if (digits.length() < 6) return -1;
+        String key = digits.length() > 10 ? digits.substring(digits.length() - 10) : digits.toString();
+        return Long.parseLong(key);
+    }
+
+    // Score buckets, highest score first; bucket bitmaps hold global row ids
+    public static final class Ranking {
+        private final int[] scores;
+        private final RoaringBitmap[] buckets;
+        private final long total;
+
+        Ranking(int[] scores, RoaringBitmap[] buckets) {
+            this.scores = scores;
+            this.buckets = buckets;
+            long sum = 0;
+            for (RoaringBitmap bucket : buckets) sum += bucket.getLongCardinality();
+            this.total = sum;
+        }
+
+        public int bucketCount() { return buckets.length; }
+        public int score(int bucket) { return scores[bucket]; }
+        public RoaringBitmap rows(int bucket) { return buckets[bucket]; }
+        public long getTotal() { return total; }
+    }
+
+    // Name terms and contact numbers for rows [start, end)
+    private static final class Segment {
+        // Contacts are packed as (number << ROW_BITS) | local row and sorted, so lookup is one binary search
+        private static final int ROW_BITS = 29;
+
+        private final int start;
+        private final int end;
+        private final TermIndex names;
+        private final long[] contacts;
+
+        Segment(Map<String, CohortColumn> columns, int start, int end) {
+            if (end - start >= (1 << ROW_BITS)) throw new IllegalArgumentException("Too many rows for one search segment");
+            this.start = start;
+            this.end = end;
+            TermIndex.Builder builder = new TermIndex.Builder();
+            CohortColumn name = columns.get(CohortSchema.PATIENT_NAME);
+            if (name != null) {
+                for (int row = start; row < end; row++) {
+                    for (String term : tokenize(name.format(row), false)) builder.add(term, row);
+                }
+            }
+            this.names = builder.build();
+
+            long[] packed = new long[2 * (end - start)];
+            int n = 0;
+            for (String field : new String[] {CohortSchema.CONTACT_NUMBER, CohortSchema.EMERGENCY_CONTACT}) {
+                CohortColumn contact = columns.get(field);
+                if (contact == null) continue;
+                for (int row = start; row < end; row++) {
+                    if (contact.isMissing(row)) continue;
+                    long key = contactKey(contact.format(row));
+                    if (key >= 0) packed[n++] = (key << ROW_BITS) | (row - start);
+                }
+            }
+            this.contacts = Arrays.copyOf(packed, n);
+            Arrays.sort(contacts);
+        }
+
+        void matchContact(long number, RoaringBitmap into) {
+            long low = number << ROW_BITS;
+            int at = Arrays.binarySearch(contacts, low);
+            if (at < 0) at = -at - 1;
+            for (; at < contacts.length && (contacts[at] >>> ROW_BITS) == number; at++) {
+                into.add(start + (int) (contacts[at] & ((1L << ROW_BITS) - 1)));
+            }
+        }
+
+        long memoryBytes() {
+            return 32L + names.memoryBytes() + 8L * contacts.length;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sketches of one upload's rows (a dataset's first upload, or the rows an append or delta added), one group per
+// village: distinct patients (HyperLogLog over the contact number plus name key deltas use), a quantile sketch per
+// vital and a heavy-hitters sketch per categorical column. Each group has a fixed size whatever the row count,
+// never changes once built, and merges with any other group built with the same settings.
+public final class CohortSketches {
+    // Group of the rows without a village; counted in totals, never listed as a village
+    public static final String NO_VILLAGE = "";
+    public static final List<String> VITALS = List.of(CohortSchema.AGE, CohortSchema.WEIGHT, CohortSchema.HEIGHT,
+            CohortSchema.BLOOD_SUGAR, CohortSchema.BP_SYSTOLIC, CohortSchema.BP_DIASTOLIC);
+
+    public static final class Settings {
+        private final int precision;
+        private final double relativeAccuracy;
+        private final int maxBuckets;
+        private final int heavyHitters;
+
+        public Settings(int precision, double relativeAccuracy, int maxBuckets, int heavyHitters) {
+            this.precision = precision;
+            this.relativeAccuracy = relativeAccuracy;
+            this.maxBuckets = maxBuckets;
+            this.heavyHitters = heavyHitters;
+        }
+
+        public int getPrecision() { return precision; }
+        public double getRelativeAccuracy() { return relativeAccuracy; }
+        public int getMaxBuckets() { return maxBuckets; }
+        public int getHeavyHitters() { return heavyHitters; }
+    }
+
+    // One village's sketches; queries also use an empty group to merge the selected ones into
+    public static final class Group {
+        private final Settings settings;
+        private final HyperLogLog patients;
+        private final Map<String, QuantileSketch> vitals = new LinkedHashMap<>();
+        private final Map<String, HeavyHitters> categories = new LinkedHashMap<>();
+        private long rows;
+
+        public Group(Settings settings) {
+            this.settings = settings;
+            this.patients = new HyperLogLog(settings.precision);
+        }
+
+        public void merge(Group other) {
+            merge(other, other.vitals.keySet(), other.categories.keySet());
+        }
+
+        // Merges only the named vitals and categories, which is all a query reads
+        public void merge(Group other, Collection<String> vitalNames, Collection<String> categoryNames) {
+            rows += other.rows;
+            patients.merge(other.patients);
+            for (String name : vitalNames) {
+                QuantileSketch sketch = other.vitals.get(name);
+                if (sketch != null) vitals.computeIfAbsent(name, n -> newQuantileSketch()).merge(sketch);
+            }
+            for (String name : categoryNames) {
+                HeavyHitters sketch = other.categories.get(name);
+                if (sketch != null) categories.computeIfAbsent(name, n -> new HeavyHitters(settings.heavyHitters)).merge(sketch);
+            }
+        }
+
+        public long getRows() { return rows; }
+        public HyperLogLog getPatients() { return patients; }
+        public QuantileSketch vital(String name) { return vitals.get(name); }
+        public HeavyHitters category(String name) { return categories.get(name); }
+
+        public long memoryBytes() {
+            long bytes = patients.memoryBytes();
+            for (QuantileSketch sketch : vitals.values()) bytes += sketch.memoryBytes();
+            for (HeavyHitters sketch : categories.values()) bytes += sketch.memoryBytes();
+            return bytes;
+        }
+
+        private QuantileSketch newQuantileSketch() {
+            return new QuantileSketch(settings.relativeAccuracy, settings.maxBuckets);
+        }
+    }
+
+    private final Map<String, Group> villages;
+    private final long rows;
+
+    private CohortSketches(Map<String, Group> villages) {
+        this.villages = villages;
+        long total = 0;
+        for (Group group : villages.values()) total += group.rows;
+        this.rows = total;
+    }
+
+    // Sketches the given rows of the dataset in one pass
+    public static CohortSketches build(CohortDataset dataset, RoaringBitmap rows, Settings settings) {
+        CohortColumn villageColumn = dataset.column(CohortSchema.VILLAGE);
+        CategoricalColumn village = villageColumn instanceof CategoricalColumn ? (CategoricalColumn) villageColumn : null;
+        CohortColumn contacts = dataset.column(CohortSchema.CONTACT_NUMBER);
+        CohortColumn names = dataset.column(CohortSchema.PATIENT_NAME);
+        List<String> vitalNames = new ArrayList<>();
+        List<CohortColumn> vitalColumns = new ArrayList<>();
+        for (String name : VITALS) {
+            CohortColumn column = dataset.column(name);
+            if (column instanceof DecimalColumn || (column instanceof IntColumn && column.getKind() == ColumnKind.INTEGER)) {
+                vitalNames.add(name);
+                vitalColumns.add(column);
+            }
+        }
+        List<CohortColumn> categoryColumns = new ArrayList<>();
+        for (CohortColumn column : dataset.getColumns()) {
+            if (isCategory(column)) categoryColumns.add(column);
+        }
+
+        // Categories are counted exactly per village code while scanning, then summarised
+        int villageCount = village != null ? village.getDictionary().size() : 0;
+        Group[] groups = new Group[villageCount + 1];
+        long[][][] categoryCounts = new long[categoryColumns.size()][villageCount + 1][];
+        for (int row : rows) {
+            int code = village != null ? village.code(row) : CategoricalColumn.MISSING;
+            int g = code == CategoricalColumn.MISSING ? villageCount : code;
+            if (groups[g] == null) groups[g] = new Group(settings);
+            Group group = groups[g];
+            group.rows++;
+            if (contacts != null && names != null) {
+                String key = CohortKeys.key(contacts.format(row), names.format(row));
+                if (key != null) group.patients.add(key);
+            }
+            for (int v = 0; v < vitalColumns.size(); v++) {
+                CohortColumn column = vitalColumns.get(v);
+                if (column.isMissing(row)) continue;
+                double value = column instanceof IntColumn ? ((IntColumn) column).get(row) : ((DecimalColumn) column).get(row);
+                group.vitals.computeIfAbsent(vitalNames.get(v), n -> group.newQuantileSketch()).add(value);
+            }
+            for (int c = 0; c < categoryColumns.size(); c++) {
+                CohortColumn column = categoryColumns.get(c);
+                if (column instanceof CategoricalColumn) {
+                    CategoricalColumn single = (CategoricalColumn) column;
+                    int value = single.code(row);
+                    if (value != CategoricalColumn.MISSING) counts(categoryCounts[c], g, single.getDictionary())[value]++;
+                } else {
+                    MultiCategoricalColumn multi = (MultiCategoricalColumn) column;
+                    for (int p = multi.start(row); p < multi.end(row); p++) counts(categoryCounts[c], g, multi.getDictionary())[multi.codeAt(p)]++;
+                }
+            }
+        }
+
+        Map<String, Group> villages = new HashMap<>();
+        for (int g = 0; g < groups.length; g++) {
+            if (groups[g] == null) continue;
+            for (int c = 0; c < categoryColumns.size(); c++) {
+                long[] counts = categoryCounts[c][g];
+                if (counts == null) continue;
+                Dictionary dictionary = dictionary(categoryColumns.get(c));
+                Map<String, Long> exact = new HashMap<>();
+                for (int value = 0; value < counts.length; value++) {
+                    if (counts[value] > 0) exact.put(dictionary.value(value), counts[value]);
+                }
+                groups[g].categories.put(categoryColumns.get(c).getName(), HeavyHitters.of(exact, settings.heavyHitters));
+            }
+            villages.put(g == villageCount ? NO_VILLAGE : village.getDictionary().value(g), groups[g]);
+        }
+        return new CohortSketches(villages);
+    }
+
+    // One set covering both uploads, used to fold old uploads together
+    public static CohortSketches combine(CohortSketches older, CohortSketches newer, Settings settings) {
+        Map<String, Group> villages = new HashMap<>();
+        for (CohortSketches sketches : List.of(older, newer)) {
+            for (Map.Entry<String, Group> entry : sketches.villages.entrySet()) {
+                villages.computeIfAbsent(entry.getKey(), v -> new Group(settings)).merge(entry.getValue());
+            }
+        }
+        return new CohortSketches(villages);
+    }
+
+    public static boolean isCategory(CohortColumn column) {
+        if (column == null || column.getName().equals(CohortSchema.VILLAGE) || column.getName().equals(CohortSchema.WARD)) return false;
+        return column instanceof CategoricalColumn || column instanceof MultiCategoricalColumn;
+    }
+
+    public Map<String, Group> getVillages() { return villages; }
+    public long getRows() { return rows; }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Group group : villages.values()) bytes += group.memoryBytes();
+        return bytes;
+    }
+
+    private static long[] counts(long[][] perGroup, int group, Dictionary dictionary) {
+        if (perGroup[group] == null) perGroup[group] = new long[dictionary.size()];
+        return perGroup[group];
+    }
+
+    private static Dictionary dictionary(CohortColumn column) {
+        if (column instanceof CategoricalColumn) return ((CategoricalColumn) column).getDictionary();
+        return ((MultiCategoricalColumn) column).getDictionary();
+    }
+}
@@ -0,0 +1,469 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+// On-disk snapshot of one dataset, kept in its own directory:
+//   snapshot.meta        header: magic, format version, generation, dataset fields, and for every column its
+//                        kind and data files with their lengths and CRC32s; ends with a CRC32 of itself
+//   g<n>-c<i>-<part>.bin column data (little-endian ints and doubles, UTF-8 bytes) and dictionaries
+//   g<n>-index.bin       the filter index bitmaps and the rows tombstoned by delta uploads, so they need not be
+//                        rebuilt on open
+// A write puts a new generation of data files next to the current one and then atomically replaces the
+// header, so a crash mid-write leaves the previous snapshot readable. Opening maps the data files
+// read-only and the columns read straight from the mapping; only dictionaries and bitmaps go on the heap.
+public final class CohortSnapshot {
+    // 2 added the dataset version and the tombstones; version 1 snapshots still open (as version 1, no tombstones)
+    public static final int FORMAT_VERSION = 2;
+
+    static final String HEADER = "snapshot.meta";
+    private static final long MAGIC = 0x4159434f484f5254L; // "AYCOHORT"
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CohortSnapshot() {
+    }
+
+    public static void write(CohortDataset dataset, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Header previous = Files.exists(dir.resolve(HEADER)) ? readHeader(dir) : null;
+        Header header = new Header();
+        header.generation = previous != null ? previous.generation + 1 : 1;
+        header.id = dataset.getId();
+        header.name = dataset.getName();
+        header.createdAt = dataset.getCreatedAt();
+        header.version = dataset.getVersion();
+        header.rowCount = dataset.getRowCount();
+
+        String prefix = "g" + header.generation + "-";
+        int c = 0;
+        for (CohortColumn column : dataset.getColumns()) {
+            ColumnEntry entry = new ColumnEntry(column.getName(), column.getKind());
+            String stem = prefix + "c" + c++ + "-";
+            if (column instanceof CategoricalColumn) {
+                CategoricalColumn categorical = (CategoricalColumn) column;
+                entry.parts.put("dictionary", writeDictionary(dir, stem + "dictionary.bin", categorical.getDictionary()));
+                try (DataFile file = new DataFile(dir, stem + "codes.bin")) {
+                    file.putInts(categorical.codes());
+                    entry.parts.put("codes", file.finish());
+                }
+            } else if (column instanceof MultiCategoricalColumn) {
+                MultiCategoricalColumn multi = (MultiCategoricalColumn) column;
+                entry.parts.put("dictionary", writeDictionary(dir, stem + "dictionary.bin", multi.getDictionary()));
+                try (DataFile file = new DataFile(dir, stem + "offsets.bin")) {
+                    file.putInts(multi.offsets());
+                    entry.parts.put("offsets", file.finish());
+                }
+                try (DataFile file = new DataFile(dir, stem + "values.bin")) {
+                    file.putInts(multi.values());
+                    entry.parts.put("values", file.finish());
+                }
+            } else if (column instanceof IntColumn) {
+                try (DataFile file = new DataFile(dir, stem + "values.bin")) {
+                    file.putInts(((IntColumn) column).values());
+                    entry.parts.put("values", file.finish());
+                }
+            } else if (column instanceof DecimalColumn) {
+                try (DataFile file = new DataFile(dir, stem + "values.bin")) {
+                    file.putDoubles(((DecimalColumn) column).values());
+                    entry.parts.put("values", file.finish());
+                }
+            } else {
+                TextColumn text = (TextColumn) column;
+                try (DataFile file = new DataFile(dir, stem + "offsets.bin")) {
+                    file.putInts(text.offsets());
+                    entry.parts.put("offsets", file.finish());
+                }
+                try (DataFile file = new DataFile(dir, stem + "bytes.bin")) {
+                    file.putBytes(text.bytes());
+                    entry.parts.put("bytes", file.finish());
+                }
+            }
+            header.columns.add(entry);
+        }
+        header.index = writeIndex(dir, prefix + "index.bin", dataset.getIndex());
+
+        Path staged = dir.resolve(HEADER + ".tmp");
+        try (FileChannel channel = FileChannel.open(staged, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(encodeHeader(header));
+            while (bytes.hasRemaining()) channel.write(bytes);
+            channel.force(true);
+        }
+        Files.move(staged, dir.resolve(HEADER), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        removeUnreferenced(dir, header);
+    }
+
+    // Null when the directory holds no committed snapshot (e.g. the first write never finished).
+    // IOException when the header or a data file is damaged or from an unknown format version.
+    public static CohortDataset open(Path dir, boolean verifyChecksums) throws IOException {
+        if (!Files.exists(dir.resolve(HEADER))) return null;
+        Header header = readHeader(dir);
+        Map<String, CohortColumn> columns = new LinkedHashMap<>();
+        for (ColumnEntry entry : header.columns) {
+            CohortColumn column = openColumn(dir, entry, verifyChecksums);
+            if (column.size() != header.rowCount) {
+                throw new IOException("Column " + entry.name + " has " + column.size() + " rows, expected " + header.rowCount);
+            }
+            columns.put(entry.name, column);
+        }
+        ByteBuffer indexFile = map(dir, header.index, verifyChecksums);
+        CohortIndex index;
+        try {
+            index = readIndex(indexFile, header.rowCount, columns, header.formatVersion);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IOException("Snapshot index is damaged: " + ex.getMessage(), ex);
+        }
+        removeUnreferenced(dir, header);
+        return new CohortDataset(header.id, header.name, header.createdAt, header.version, header.rowCount, columns, index);
+    }
+
+    private static CohortColumn openColumn(Path dir, ColumnEntry entry, boolean verify) throws IOException {
+        switch (entry.kind) {
+            case CATEGORICAL:
+                return new CategoricalColumn(entry.name, readDictionary(map(dir, entry.part("dictionary"), verify)),
+                        map(dir, entry.part("codes"), verify).asIntBuffer());
+            case MULTI_CATEGORICAL:
+                return new MultiCategoricalColumn(entry.name, readDictionary(map(dir, entry.part("dictionary"), verify)),
+                        map(dir, entry.part("offsets"), verify).asIntBuffer(), map(dir, entry.part("values"), verify).asIntBuffer());
+            case INTEGER:
+            case DATE:
+                return new IntColumn(entry.name, entry.kind, map(dir, entry.part("values"), verify).asIntBuffer());
+            case DECIMAL:
+                return new DecimalColumn(entry.name, map(dir, entry.part("values"), verify).asDoubleBuffer());
+            default:
+                return new TextColumn(entry.name, map(dir, entry.part("bytes"), verify),
+                        map(dir, entry.part("offsets"), verify).asIntBuffer());
+        }
+    }
+
+    // The mapping stays valid after the channel is closed
+    private static ByteBuffer map(Path dir, FileEntry entry, boolean verify) throws IOException {
+        if (entry.length > Integer.MAX_VALUE) throw new IOException("Snapshot file too large to map: " + entry.file);
+        try (FileChannel channel = FileChannel.open(dir.resolve(entry.file), StandardOpenOption.READ)) {
+            if (channel.size() != entry.length) {
+                throw new IOException("Snapshot file " + entry.file + " is " + channel.size() + " bytes, expected " + entry.length);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.length).order(ORDER);
+            if (verify) {
+                CRC32 crc = new CRC32();
+                crc.update(buffer.duplicate());
+                if (crc.getValue() != entry.crc) throw new IOException("Checksum mismatch in snapshot file " + entry.file);
+            }
+            return buffer;
+        }
+    }
+
+    private static FileEntry writeDictionary(Path dir, String name, Dictionary dictionary) throws IOException {
+        try (DataFile file = new DataFile(dir, name)) {
+            file.putInt(dictionary.size());
+            for (String value : dictionary.values()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                file.putInt(bytes.length);
+                file.putBytes(ByteBuffer.wrap(bytes));
+            }
+            return file.finish();
+        }
+    }
+
+    private static Dictionary readDictionary(ByteBuffer buffer) {
+        int size = buffer.getInt(0);
+        List<String> values = new ArrayList<>(size);
+        int at = 4;
+        for (int i = 0; i < size; i++) {
+            int length = buffer.getInt(at);
+            byte[] bytes = new byte[length];
+            buffer.get(at + 4, bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+            at += 4 + length;
+        }
+        return new Dictionary(values);
+    }
+
+    // Column count, then per column its name and bitmaps by dictionary code; then the age bracket bitmaps (0 if none)
+    // and the tombstoned rows
+    private static FileEntry writeIndex(Path dir, String name, CohortIndex index) throws IOException {
+        try (DataFile file = new DataFile(dir, name)) {
+            List<String> columns = new ArrayList<>();
+            for (String column : index.indexedColumns()) columns.add(column);
+            file.putInt(columns.size());
+            for (String column : columns) {
+                byte[] bytes = column.getBytes(StandardCharsets.UTF_8);
+                file.putInt(bytes.length);
+                file.putBytes(ByteBuffer.wrap(bytes));
+                RoaringBitmap[] bitmaps = index.valueBitmaps(column);
+                file.putInt(bitmaps.length);
+                for (RoaringBitmap bitmap : bitmaps) file.putBitmap(bitmap);
+            }
+            boolean ages = index.ageBitmap(AgeBracket.values()[0]) != null;
+            file.putInt(ages ? AgeBracket.values().length : 0);
+            if (ages) {
+                for (AgeBracket bracket : AgeBracket.values()) file.putBitmap(index.ageBitmap(bracket));
+            }
+            file.putBitmap(index.deletedRows());
+            return file.finish();
+        }
+    }
+
+    private static CohortIndex readIndex(ByteBuffer buffer, int rowCount, Map<String, CohortColumn> columns, int formatVersion)
+            throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ORDER);
+        Map<String, RoaringBitmap[]> valueBitmaps = new HashMap<>();
+        int columnCount = in.getInt();
+        for (int c = 0; c < columnCount; c++) {
+            byte[] name = new byte[in.getInt()];
+            in.get(name);
+            RoaringBitmap[] bitmaps = new RoaringBitmap[in.getInt()];
+            for (int i = 0; i < bitmaps.length; i++) bitmaps[i] = readBitmap(in);
+            valueBitmaps.put(new String(name, StandardCharsets.UTF_8), bitmaps);
+        }
+        int ageCount = in.getInt();
+        RoaringBitmap[] ageBitmaps = ageCount > 0 ? new RoaringBitmap[ageCount] : null;
+        for (int i = 0; i < ageCount; i++) ageBitmaps[i] = readBitmap(in);
+        RoaringBitmap deleted = formatVersion >= 2 ? readBitmap(in) : new RoaringBitmap();
+        return new CohortIndex(rowCount, columns.values(), valueBitmaps, ageBitmaps, deleted);
+    }
+
+    private static RoaringBitmap readBitmap(ByteBuffer in) throws IOException {
+        int size = in.getInt();
+        ByteBuffer serialized = in.slice().limit(size);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.deserialize(serialized);
+        in.position(in.position() + size);
+        return bitmap;
+    }
+
+    private static byte[] encodeHeader(Header header) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(header.generation);
+        out.writeUTF(header.id);
+        out.writeUTF(header.name != null ? header.name : "");
+        out.writeLong(header.createdAt.getEpochSecond());
+        out.writeInt(header.createdAt.getNano());
+        out.writeLong(header.version);
+        out.writeInt(header.rowCount);
+        out.writeInt(header.columns.size());
+        for (ColumnEntry column : header.columns) {
+            out.writeUTF(column.name);
+            out.writeUTF(column.kind.name());
+            out.writeInt(column.parts.size());
+            for (Map.Entry<String, FileEntry> part : column.parts.entrySet()) {
+                out.writeUTF(part.getKey());
+                writeFileEntry(out, part.getValue());
+            }
+        }
+        writeFileEntry(out, header.index);
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    private static Header readHeader(Path dir) throws IOException {
+        byte[] bytes = Files.readAllBytes(dir.resolve(HEADER));
+        if (bytes.length < 20) throw new IOException("Snapshot header is truncated");
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong()) {
+            throw new IOException("Checksum mismatch in snapshot header");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+        if (in.readLong() != MAGIC) throw new IOException("Not a cohort snapshot");
+        int formatVersion = in.readInt();
+        if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + formatVersion);
+        }
+        Header header = new Header();
+        header.formatVersion = formatVersion;
+        header.generation = in.readInt();
+        header.id = in.readUTF();
+        header.name = in.readUTF();
+        header.createdAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        header.version = formatVersion >= 2 ? in.readLong() : 1;
+        header.rowCount = in.readInt();
+        int columnCount = in.readInt();
+        for (int c = 0; c < columnCount; c++) {
+            ColumnEntry column = new ColumnEntry(in.readUTF(), ColumnKind.valueOf(in.readUTF()));
+            int parts = in.readInt();
+            for (int p = 0; p < parts; p++) column.parts.put(in.readUTF(), readFileEntry(in));
+            header.columns.add(column);
+        }
+        header.index = readFileEntry(in);
+        return header;
+    }
+
+    private static void writeFileEntry(DataOutputStream out, FileEntry entry) throws IOException {
+        out.writeUTF(entry.file);
+        out.writeLong(entry.length);
+        out.writeLong(entry.crc);
+    }
+
+    private static FileEntry readFileEntry(DataInputStream in) throws IOException {
+        return new FileEntry(in.readUTF(), in.readLong(), in.readLong());
+    }
+
+    // Data files of older generations and leftovers of interrupted writes
+    private static void removeUnreferenced(Path dir, Header header) throws IOException {
+        Set<String> referenced = new HashSet<>();
+        referenced.add(HEADER);
+        referenced.add(header.index.file);
+        for (ColumnEntry column : header.columns) {
+            for (FileEntry part : column.parts.values()) referenced.add(part.file);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (!referenced.contains(file.getFileName().toString())) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static final class Header {
+        private int formatVersion = FORMAT_VERSION;
+        private int generation;
+        private String id;
+        private String name;
+        private Instant createdAt;
+        private long version;
+        private int rowCount;
+        private final List<ColumnEntry> columns = new ArrayList<>();
+        private FileEntry index;
+    }
+
+    private static final class ColumnEntry {
+        private final String name;
+        private final ColumnKind kind;
+        private final Map<String, FileEntry> parts = new LinkedHashMap<>();
+
+        private ColumnEntry(String name, ColumnKind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        private FileEntry part(String part) throws IOException {
+            FileEntry entry = parts.get(part);
+            if (entry == null) throw new IOException("Snapshot column " + name + " has no " + part + " file");
+            return entry;
+        }
+    }
+
+    private static final class FileEntry {
+        private final String file;
+        private final long length;
+        private final long crc;
+
+        private FileEntry(String file, long length, long crc) {
+            this.file = file;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+
+    // Sequential little-endian writer with a running CRC32; data is staged in one fixed direct buffer
+    private static final class DataFile implements Closeable {
+        private final String name;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+        private final CRC32 crc = new CRC32();
+        private long length;
+
+        private DataFile(Path dir, String name) throws IOException {
+            this.name = name;
+            this.channel = FileChannel.open(dir.resolve(name), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) drain();
+            buffer.putInt(value);
+        }
+
+        void putInts(IntBuffer values) throws IOException {
+            IntBuffer source = values.duplicate().rewind();
+            while (source.hasRemaining()) {
+                if (buffer.remaining() < 4) drain();
+                IntBuffer view = buffer.asIntBuffer();
+                int n = Math.min(view.remaining(), source.remaining());
+                view.put(source.slice().limit(n));
+                source.position(source.position() + n);
+                buffer.position(buffer.position() + 4 * n);
+            }
+        }
+
+        void putDoubles(DoubleBuffer values) throws IOException {
+            DoubleBuffer source = values.duplicate().rewind();
+            while (source.hasRemaining()) {
+                if (buffer.remaining() < 8) drain();
+                DoubleBuffer view = buffer.asDoubleBuffer();
+                int n = Math.min(view.remaining(), source.remaining());
+                view.put(source.slice().limit(n));
+                source.position(source.position() + n);
+                buffer.position(buffer.position() + 8 * n);
+            }
+        }
+
+        void putBytes(ByteBuffer bytes) throws IOException {
+            ByteBuffer source = bytes.duplicate().rewind();
+            while (source.hasRemaining()) {
+                if (!buffer.hasRemaining()) drain();
+                int n = Math.min(buffer.remaining(), source.remaining());
+                buffer.put(source.slice().limit(n));
+                source.position(source.position() + n);
+            }
+        }
+
+        void putBitmap(RoaringBitmap bitmap) throws IOException {
+            ByteBuffer serialized = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+            bitmap.serialize(serialized);
+            putInt(serialized.capacity());
+            putBytes(serialized);
+        }
+
+        FileEntry finish() throws IOException {
+            drain();
+            channel.force(false);
+            return new FileEntry(name, length, crc.getValue());
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) length += channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ayurveda.backend.cohort;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory registry of ingested cohort datasets; replacing a dataset is a single map write, so readers take
+// whichever version is current without locking and keep it for the whole request
+@Component
+public class CohortStore {
+    private final ConcurrentHashMap<String, CohortDataset> datasets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ReentrantLock> writeLocks = new ConcurrentHashMap<>();
+
+    public void put(CohortDataset dataset) {
+        datasets.put(dataset.getId(), dataset);
+    }
+
+    public CohortDataset get(String id) {
+        return datasets.get(id);
+    }
+
+    // Swaps in a new version only if the dataset is still the expected one (and was not deleted meanwhile)
+    public boolean replace(CohortDataset expected, CohortDataset updated) {
+        return datasets.replace(expected.getId(), expected, updated);
+    }
+
+    // The write lock entry stays: a writer may still hold or wait on it, and dropping it would let the next writer
+    // take a fresh lock alongside them. Dataset ids are never reused, so a stale entry is only an idle lock.
+    public boolean remove(String id) {
+        return datasets.remove(id) != null;
+    }
+
+    // Serializes the writers of one dataset (appends, deltas, compaction swaps) so a version is never built from a
+    // stale base. Readers never take it.
+    public ReentrantLock writeLock(String id) {
+        return writeLocks.computeIfAbsent(id, key -> new ReentrantLock());
+    }
+
+    public List<CohortDataset> list() {
+        List<CohortDataset> all = new ArrayList<>(datasets.values());
+        all.sort(Comparator.comparing(CohortDataset::getCreatedAt));
+        return all;
+    }
+}
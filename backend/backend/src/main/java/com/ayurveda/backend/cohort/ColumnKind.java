@@ -0,0 +1,14 @@
+package com.ayurveda.backend.cohort;
+
+public enum ColumnKind {
+    // Low-cardinality strings, dictionary-encoded to int codes (village, gender, disease, ...)
+    CATEGORICAL,
+    // Cells holding several dictionary-encoded values (multi-select condition lists)
+    MULTI_CATEGORICAL,
+    INTEGER,
+    DECIMAL,
+    // Stored as epoch days in an int column
+    DATE,
+    // High-cardinality strings kept as UTF-8 bytes (names, contact numbers)
+    TEXT
+}
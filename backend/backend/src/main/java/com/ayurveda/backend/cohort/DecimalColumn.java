@@ -0,0 +1,47 @@
+package com.ayurveda.backend.cohort;
+
+import java.nio.DoubleBuffer;
+
+// Missing values are NaN
+public class DecimalColumn extends CohortColumn {
+    private final DoubleBuffer values;
+
+    public DecimalColumn(String name, double[] values) {
+        this(name, DoubleBuffer.wrap(values));
+    }
+
+    public DecimalColumn(String name, DoubleBuffer values) {
+        super(name, ColumnKind.DECIMAL);
+        this.values = values;
+    }
+
+    public double get(int row) {
+        return values.get(row);
+    }
+
+    DoubleBuffer values() {
+        return values.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return values.capacity();
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return Double.isNaN(values.get(row));
+    }
+
+    @Override
+    public String format(int row) {
+        double value = values.get(row);
+        if (Double.isNaN(value)) return "";
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 16L + 8L * values.capacity();
+    }
+}
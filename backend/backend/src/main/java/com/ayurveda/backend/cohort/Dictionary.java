@@ -0,0 +1,64 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Value <-> code mapping for dictionary-encoded columns; codes are assigned in first-seen order
+public class Dictionary {
+    private final List<String> values;
+    private final Map<String, Integer> codes;
+
+    public Dictionary() {
+        this(new ArrayList<>());
+    }
+
+    public Dictionary(List<String> values) {
+        this.values = new ArrayList<>(values);
+        this.codes = new HashMap<>(values.size() * 2);
+        for (int i = 0; i < values.size(); i++) codes.put(values.get(i), i);
+    }
+
+    // Code for the value, adding it if unseen (builders only)
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) return code;
+        int next = values.size();
+        values.add(value);
+        codes.put(value, next);
+        return next;
+    }
+
+    // Code for the value, or -1 when it does not occur in the column
+    public int code(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    public String value(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public List<String> values() {
+        return Collections.unmodifiableList(values);
+    }
+
+    public Dictionary copy() {
+        return new Dictionary(values);
+    }
+
+    public long memoryBytes() {
+        long bytes = 64;
+        for (String value : values) {
+            // String header + backing array, plus a HashMap node and a list slot
+            bytes += 40 + value.length() + 48 + 8;
+        }
+        return bytes;
+    }
+}
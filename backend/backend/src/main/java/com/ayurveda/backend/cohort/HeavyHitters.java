@@ -0,0 +1,67 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Frequent-values sketch (a mergeable Misra-Gries summary) holding at most `capacity` counters. A counter never
+// exceeds its value's true count, and undercounts it by at most maxError; a value without a counter occurs at
+// most maxError times. Merging adds counters and, past capacity, subtracts the (capacity+1)-th largest from all
+// of them, which keeps maxError within total / (capacity + 1) however many summaries are combined.
+public final class HeavyHitters {
+    private final int capacity;
+    private final Map<String, Long> counters = new HashMap<>();
+    private long maxError;
+    private long total;
+
+    public HeavyHitters(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("A heavy-hitters sketch needs at least one counter");
+        this.capacity = capacity;
+    }
+
+    // Summary of exact counts: the `capacity` most frequent values keep their counts, the rest are dropped
+    public static HeavyHitters of(Map<String, Long> exactCounts, int capacity) {
+        HeavyHitters sketch = new HeavyHitters(capacity);
+        for (long n : exactCounts.values()) sketch.total += n;
+        List<Map.Entry<String, Long>> sorted = sortedDescending(exactCounts);
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i < capacity) sketch.counters.put(sorted.get(i).getKey(), sorted.get(i).getValue());
+            else sketch.maxError = Math.max(sketch.maxError, sorted.get(i).getValue());
+        }
+        return sketch;
+    }
+
+    public void merge(HeavyHitters other) {
+        for (Map.Entry<String, Long> counter : other.counters.entrySet()) counters.merge(counter.getKey(), counter.getValue(), Long::sum);
+        maxError += other.maxError;
+        total += other.total;
+        if (counters.size() <= capacity) return;
+        long cut = sortedDescending(counters).get(capacity).getValue();
+        counters.replaceAll((value, n) -> n - cut);
+        counters.values().removeIf(n -> n <= 0);
+        maxError += cut;
+    }
+
+    // Up to limit values, most frequent first, each with the count it is known to reach
+    public List<Map.Entry<String, Long>> top(int limit) {
+        List<Map.Entry<String, Long>> sorted = sortedDescending(counters);
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    public long getMaxError() { return maxError; }
+    public long getTotal() { return total; }
+
+    public long memoryBytes() {
+        long bytes = 48;
+        for (String value : counters.keySet()) bytes += 64 + 2L * value.length();
+        return bytes;
+    }
+
+    private static List<Map.Entry<String, Long>> sortedDescending(Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(counts.entrySet());
+        sorted.sort(Collections.reverseOrder(Map.Entry.<String, Long>comparingByValue()).thenComparing(Map.Entry.comparingByKey()));
+        return sorted;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ayurveda.backend.cohort;
+
+// Distinct-count sketch: 2^precision one-byte registers, so its size never depends on how many values were added.
+// Sketches of the same precision merge by taking the larger register, which equals the sketch of the union.
+// The estimate uses Ertl's improved estimator (no bias tables, accurate from empty to billions); its relative
+// standard error is 1.04 / sqrt(2^precision), about 1.6% at the default precision of 12.
+public final class HyperLogLog {
+    private static final double ALPHA_INFINITY = 0.5 / Math.log(2);
+    // lower()/upper() span three standard errors either side, which holds the true count about 99.7% of the time
+    private static final int INTERVAL_STANDARD_ERRORS = 3;
+    public static final double INTERVAL_CONFIDENCE = 0.997;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[register]) registers[register] = (byte) rank;
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of different precision");
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    public double estimate() {
+        int q = 64 - precision;
+        int m = registers.length;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) histogram[register]++;
+        double z = m * tau(1.0 - (double) histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) z = 0.5 * (z + histogram[k]);
+        z += m * sigma((double) histogram[0] / m);
+        return ALPHA_INFINITY * m * m / z;
+    }
+
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    // Bounds around an estimate() of this sketch, holding the true count with INTERVAL_CONFIDENCE
+    public double lower(double estimate) {
+        return Math.floor(estimate * (1 - INTERVAL_STANDARD_ERRORS * relativeStandardError()));
+    }
+
+    public double upper(double estimate) {
+        return Math.ceil(estimate * (1 + INTERVAL_STANDARD_ERRORS * relativeStandardError()));
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public long memoryBytes() {
+        return registers.length + 16;
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with MurmurHash3's fmix64 so every bit is usable
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static double sigma(double x) {
+        if (x == 1) return Double.POSITIVE_INFINITY;
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) return 0;
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ayurveda.backend.cohort;
+
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+
+// INTEGER values, or DATE values as epoch days
+public class IntColumn extends CohortColumn {
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final IntBuffer values;
+
+    public IntColumn(String name, ColumnKind kind, int[] values) {
+        this(name, kind, IntBuffer.wrap(values));
+    }
+
+    public IntColumn(String name, ColumnKind kind, IntBuffer values) {
+        super(name, kind);
+        this.values = values;
+    }
+
+    public int get(int row) {
+        return values.get(row);
+    }
+
+    IntBuffer values() {
+        return values.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return values.capacity();
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return values.get(row) == MISSING;
+    }
+
+    @Override
+    public String format(int row) {
+        int value = values.get(row);
+        if (value == MISSING) return "";
+        return getKind() == ColumnKind.DATE ? LocalDate.ofEpochDay(value).toString() : Integer.toString(value);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 16L + 4L * values.capacity();
+    }
+}
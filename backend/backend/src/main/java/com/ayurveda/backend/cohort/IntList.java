@@ -0,0 +1,38 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.Arrays;
+
+// Growable int[] for builders; avoids boxing while columns and postings are accumulated
+final class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(1024);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int last() {
+        return values[size - 1];
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ayurveda.backend.cohort;
+
+import java.nio.IntBuffer;
+
+// CSR layout: the codes of row r are values[offsets[r] .. offsets[r + 1])
+public class MultiCategoricalColumn extends CohortColumn {
+    private final Dictionary dictionary;
+    private final IntBuffer offsets;
+    private final IntBuffer values;
+
+    public MultiCategoricalColumn(String name, Dictionary dictionary, int[] offsets, int[] values) {
+        this(name, dictionary, IntBuffer.wrap(offsets), IntBuffer.wrap(values));
+    }
+
+    public MultiCategoricalColumn(String name, Dictionary dictionary, IntBuffer offsets, IntBuffer values) {
+        super(name, ColumnKind.MULTI_CATEGORICAL);
+        this.dictionary = dictionary;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    public Dictionary getDictionary() { return dictionary; }
+
+    public int start(int row) {
+        return offsets.get(row);
+    }
+
+    public int end(int row) {
+        return offsets.get(row + 1);
+    }
+
+    public int codeAt(int position) {
+        return values.get(position);
+    }
+
+    IntBuffer offsets() {
+        return offsets.duplicate();
+    }
+
+    IntBuffer values() {
+        return values.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return offsets.capacity() - 1;
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return offsets.get(row) == offsets.get(row + 1);
+    }
+
+    @Override
+    public String format(int row) {
+        StringBuilder out = new StringBuilder();
+        for (int i = offsets.get(row), end = offsets.get(row + 1); i < end; i++) {
+            if (out.length() > 0) out.append(", ");
+            out.append(dictionary.value(values.get(i)));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 32L + 4L * offsets.capacity() + 4L * values.capacity() + dictionary.memoryBytes();
+    }
+
+    @Override
+    public int distinctValues() {
+        return dictionary.size();
+    }
+}
@@ -0,0 +1,123 @@
+package com.ayurveda.backend.cohort;
+
+// Quantile sketch with a relative-error guarantee (the DDSketch layout): a value v lands in bucket
+// ceil(log_gamma(v)) with gamma = (1 + a) / (1 - a), and every quantile is answered with a value within a
+// relative accuracy a of the true one. Sketches of the same accuracy merge by adding bucket counts.
+// At most maxBuckets buckets are kept; past that the lowest ones are folded together, which only loosens the
+// lowest quantiles of data spanning many orders of magnitude (2048 buckets at 1% cover a ratio of 10^17).
+// Values at or below zero are counted together and answered as zero.
+public final class QuantileSketch {
+    private static final int INITIAL_BUCKETS = 32;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+    private long[] counts = new long[0];
+    // Bucket index of counts[0]; minIndex..maxIndex are the buckets in use
+    private int offset;
+    private int minIndex = Integer.MAX_VALUE;
+    private int maxIndex = Integer.MIN_VALUE;
+    // Set once low buckets were folded: indexes below it are counted in it
+    private int floor = Integer.MIN_VALUE;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        if (maxBuckets < 2) throw new IllegalArgumentException("A quantile sketch needs at least two buckets");
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value <= 0) zeroCount++;
+        else addToBucket((int) Math.ceil(Math.log(value) / logGamma), 1);
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) throw new IllegalArgumentException("Cannot merge quantile sketches of different accuracy");
+        if (other.count == 0) return;
+        for (int index = other.minIndex; index <= other.maxIndex; index++) {
+            long n = other.counts[index - other.offset];
+            if (n > 0) addToBucket(index, n);
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    // Value at quantile q (0..1), within the relative accuracy of the true one; NaN when empty
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        double rank = q * (count - 1);
+        long seen = zeroCount;
+        if (rank < seen) return 0;
+        for (int index = minIndex; index <= maxIndex; index++) {
+            seen += counts[index - offset];
+            if (rank < seen) {
+                double value = 2 * Math.exp(index * logGamma) / (gamma + 1);
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() { return count; }
+    public double getMin() { return min; }
+    public double getMax() { return max; }
+    public double getRelativeAccuracy() { return relativeAccuracy; }
+
+    public long memoryBytes() {
+        return counts.length * 8L + 96;
+    }
+
+    private void addToBucket(int index, long n) {
+        if (index < floor) index = floor;
+        if (index < offset || index >= offset + counts.length) {
+            cover(index);
+            if (index < floor) index = floor;
+        }
+        counts[index - offset] += n;
+        minIndex = Math.min(minIndex, index);
+        maxIndex = Math.max(maxIndex, index);
+    }
+
+    // Regrows the bucket array to take index, folding the lowest buckets together past maxBuckets
+    private void cover(int index) {
+        boolean empty = minIndex > maxIndex;
+        int low = empty ? index : Math.min(minIndex, index);
+        int high = empty ? index : Math.max(maxIndex, index);
+        if ((long) high - low + 1 > maxBuckets) {
+            low = high - maxBuckets + 1;
+            floor = low;
+        }
+        int length = (int) Math.min(maxBuckets, Math.max((long) high - low + 1, Math.max(INITIAL_BUCKETS, counts.length * 2L)));
+        // Spare room goes on the side the sketch is growing towards
+        int start = !empty && index < minIndex ? high - length + 1 : low;
+        long[] grown = new long[length];
+        int foldedMin = Integer.MAX_VALUE;
+        for (int i = minIndex; i <= maxIndex && !empty; i++) {
+            long n = counts[i - offset];
+            if (n == 0) continue;
+            int target = Math.max(i, low);
+            grown[target - start] += n;
+            foldedMin = Math.min(foldedMin, target);
+        }
+        counts = grown;
+        offset = start;
+        if (!empty) {
+            minIndex = foldedMin;
+            maxIndex = Math.min(maxIndex, high);
+        }
+    }
+}
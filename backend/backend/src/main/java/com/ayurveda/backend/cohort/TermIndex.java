@@ -0,0 +1,175 @@
+package com.ayurveda.backend.cohort;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Immutable inverted index: a sorted term dictionary with CSR postings (ascending ids per term) and a
+// trigram index over the terms. Exact and prefix lookups binary-search the sorted terms; substring
+// lookups intersect the trigram lists of the query and verify the surviving candidates.
+final class TermIndex {
+    // Terms with at least this many postings keep them as a bitmap, which unions much faster than an int run
+    private static final int DENSE_POSTINGS = 4096;
+
+    private final String[] terms;
+    private final int[] offsets;
+    private final int[] postings;
+    private final RoaringBitmap[] dense;
+    private final Map<Long, int[]> trigrams;
+
+    private TermIndex(String[] terms, int[] offsets, int[] postings, RoaringBitmap[] dense, Map<Long, int[]> trigrams) {
+        this.terms = terms;
+        this.offsets = offsets;
+        this.postings = postings;
+        this.dense = dense;
+        this.trigrams = trigrams;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    // Adds the ids of terms equal to, starting with, and containing the token. Each result includes the
+    // previous one, so the three bitmaps are nested: exact <= prefix <= contains.
+    void match(String token, RoaringBitmap exact, RoaringBitmap prefix, RoaringBitmap contains) {
+        int from = lowerBound(token);
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(token)) to++;
+        if (from < to && terms[from].equals(token)) addPostings(from, exact);
+        IntList matched = new IntList(Math.max(1, to - from));
+        for (int t = from; t < to; t++) matched.add(t);
+        addPostings(matched, prefix);
+        contains.or(prefix);
+        if (token.length() < 3) return;
+        matched = new IntList(16);
+        for (int t : substringCandidates(token)) {
+            if ((t < from || t >= to) && terms[t].contains(token)) matched.add(t);
+        }
+        addPostings(matched, contains);
+    }
+
+    long memoryBytes() {
+        long bytes = 64L + 4L * offsets.length + 4L * postings.length + 8L * dense.length;
+        for (String term : terms) bytes += 48 + term.length();
+        for (RoaringBitmap bitmap : dense) {
+            if (bitmap != null) bytes += bitmap.getLongSizeInBytes();
+        }
+        for (int[] list : trigrams.values()) bytes += 64 + 4L * list.length;
+        return bytes;
+    }
+
+    private void addPostings(int term, RoaringBitmap into) {
+        if (dense[term] != null) {
+            into.or(dense[term]);
+        } else if (offsets[term + 1] > offsets[term]) {
+            into.addN(postings, offsets[term], offsets[term + 1] - offsets[term]);
+        }
+    }
+
+    // Short prefixes match hundreds of terms: gather their sparse postings and build one bitmap from them
+    // instead of inserting each term's run into the result in turn
+    private void addPostings(IntList matched, RoaringBitmap into) {
+        if (matched.size() <= 1) {
+            if (matched.size() == 1) addPostings(matched.get(0), into);
+            return;
+        }
+        int size = 0;
+        for (int i = 0; i < matched.size(); i++) {
+            int t = matched.get(i);
+            if (dense[t] == null) size += offsets[t + 1] - offsets[t];
+        }
+        int[] ids = new int[size];
+        int n = 0;
+        for (int i = 0; i < matched.size(); i++) {
+            int t = matched.get(i);
+            if (dense[t] != null) {
+                into.or(dense[t]);
+            } else {
+                System.arraycopy(postings, offsets[t], ids, n, offsets[t + 1] - offsets[t]);
+                n += offsets[t + 1] - offsets[t];
+            }
+        }
+        if (size > 0) into.or(RoaringBitmap.bitmapOfUnordered(ids));
+    }
+
+    private int lowerBound(String token) {
+        int lo = 0;
+        int hi = terms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[mid].compareTo(token) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // Terms holding every trigram of the token, ascending; a superset of the terms containing it
+    private int[] substringCandidates(String token) {
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            int[] list = trigrams.get(trigram(token, i));
+            if (list == null) return new int[0];
+            candidates = candidates == null ? list : intersect(candidates, list);
+            if (candidates.length == 0) break;
+        }
+        return candidates;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long trigram(String term, int at) {
+        return ((long) term.charAt(at) << 32) | ((long) term.charAt(at + 1) << 16) | term.charAt(at + 2);
+    }
+
+    static final class Builder {
+        private final Map<String, IntList> postings = new HashMap<>();
+
+        // Ids must be added in ascending order; repeats of the last id for a term are dropped
+        void add(String term, int id) {
+            IntList list = postings.computeIfAbsent(term, t -> new IntList(4));
+            if (list.size() == 0 || list.last() != id) list.add(id);
+        }
+
+        TermIndex build() {
+            String[] terms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int[] offsets = new int[terms.length + 1];
+            RoaringBitmap[] dense = new RoaringBitmap[terms.length];
+            int total = 0;
+            for (int t = 0; t < terms.length; t++) {
+                int size = postings.get(terms[t]).size();
+                if (size < DENSE_POSTINGS) total += size;
+                offsets[t + 1] = total;
+            }
+            int[] flat = new int[total];
+            Map<Long, IntList> grams = new HashMap<>();
+            for (int t = 0; t < terms.length; t++) {
+                IntList list = postings.get(terms[t]);
+                if (list.size() >= DENSE_POSTINGS) {
+                    dense[t] = RoaringBitmap.bitmapOf(list.toArray());
+                    dense[t].runOptimize();
+                } else {
+                    for (int i = 0; i < list.size(); i++) flat[offsets[t] + i] = list.get(i);
+                }
+                String term = terms[t];
+                for (int i = 0; i + 3 <= term.length(); i++) {
+                    IntList termIds = grams.computeIfAbsent(trigram(term, i), g -> new IntList(4));
+                    if (termIds.size() == 0 || termIds.last() != t) termIds.add(t);
+                }
+            }
+            Map<Long, int[]> trigrams = new HashMap<>(grams.size() * 2);
+            for (Map.Entry<Long, IntList> entry : grams.entrySet()) trigrams.put(entry.getKey(), entry.getValue().toArray());
+            return new TermIndex(terms, offsets, flat, dense, trigrams);
+        }
+    }
+}
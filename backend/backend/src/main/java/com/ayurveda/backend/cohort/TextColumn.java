@@ -0,0 +1,58 @@
+package com.ayurveda.backend.cohort;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+// All cells concatenated as UTF-8; row r is bytes[offsets[r] .. offsets[r + 1]). Empty means missing.
+public class TextColumn extends CohortColumn {
+    private final ByteBuffer bytes;
+    private final IntBuffer offsets;
+
+    public TextColumn(String name, byte[] bytes, int[] offsets) {
+        this(name, ByteBuffer.wrap(bytes), IntBuffer.wrap(offsets));
+    }
+
+    public TextColumn(String name, ByteBuffer bytes, IntBuffer offsets) {
+        super(name, ColumnKind.TEXT);
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    public String get(int row) {
+        int start = offsets.get(row);
+        int length = offsets.get(row + 1) - start;
+        if (bytes.hasArray()) return new String(bytes.array(), bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        byte[] cell = new byte[length];
+        bytes.get(start, cell);
+        return new String(cell, StandardCharsets.UTF_8);
+    }
+
+    ByteBuffer bytes() {
+        return bytes.duplicate();
+    }
+
+    IntBuffer offsets() {
+        return offsets.duplicate();
+    }
+
+    @Override
+    public int size() {
+        return offsets.capacity() - 1;
+    }
+
+    @Override
+    public boolean isMissing(int row) {
+        return offsets.get(row) == offsets.get(row + 1);
+    }
+
+    @Override
+    public String format(int row) {
+        return get(row);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 32L + bytes.capacity() + 4L * offsets.capacity();
+    }
+}
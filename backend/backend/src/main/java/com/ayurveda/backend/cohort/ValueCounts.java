@@ -0,0 +1,116 @@
+package com.ayurveda.backend.cohort;
+
+import java.util.Arrays;
+
+// Count per long key in an open-addressing table; used for mergeable exact distributions (quantised
+// measurements, months). Partial counts from parallel chunks are combined with merge().
+public final class ValueCounts {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+    private long total;
+
+    public ValueCounts() {
+        this(16);
+    }
+
+    public ValueCounts(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public void add(long key) {
+        add(key, 1);
+    }
+
+    public void add(long key, long count) {
+        if (key == EMPTY) throw new IllegalArgumentException("Key out of range");
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                resize();
+                slot = slot(key);
+            }
+        }
+        counts[slot] += count;
+        total += count;
+    }
+
+    public void merge(ValueCounts other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) add(other.keys[i], other.counts[i]);
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Keys ascending, with their counts at the same index
+    public long[][] sorted() {
+        long[] packedKeys = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) packedKeys[n++] = key;
+        }
+        Arrays.sort(packedKeys);
+        long[] sortedCounts = new long[size];
+        for (int i = 0; i < size; i++) sortedCounts[i] = counts[slot(packedKeys[i])];
+        return new long[][] {packedKeys, sortedCounts};
+    }
+
+    // Nearest-rank quantile for each q in [0, 1]; keys of an empty distribution are undefined (0)
+    public long[] quantiles(double[] qs) {
+        long[] result = new long[qs.length];
+        if (total == 0) return result;
+        long[][] sorted = sorted();
+        for (int j = 0; j < qs.length; j++) {
+            long rank = Math.max(1, (long) Math.ceil(qs[j] * total));
+            long seen = 0;
+            for (int i = 0; i < sorted[0].length; i++) {
+                seen += sorted[1][i];
+                if (seen >= rank) {
+                    result[j] = sorted[0][i];
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
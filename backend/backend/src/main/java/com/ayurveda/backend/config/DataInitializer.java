@@ -4,13 +4,49 @@ import com.ayurveda.backend.entity.Role;
 import com.ayurveda.backend.entity.User;
 import com.ayurveda.backend.repository.RoleRepository;
 import com.ayurveda.backend.repository.UserRepository;
+import com.ayurveda.backend.service.PasswordHashingService;
+import com.ayurveda.backend.service.RoleRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class DataInitializer implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
+
+    private static final String[] ROLES = {"SUPER_ADMIN", "COLLEGE_ADMIN", "FACULTY", "DATA_ANALYST", "VIEWER"};
+
+    // username, password, BCrypt hash of the password, first name, last name, email, phone, role. Hashing is nearly
+    // all of the seeding time, so the hashes are precomputed; a row without one (null) is hashed at startup.
+    private static final String[][] DEMO_USERS = {
+        // Demo SUPER_ADMIN and COLLEGE_ADMIN users
+        {"admin@ayurveda.com", "admin123", "$2a$10$FlmJD2CbwO5zfaz2ZmUf2.ruKrMO5oAZMzaz0tyeJS9/vV5ZaqUEy",
+            "Super", "Admin", "admin@ayurveda.com", "1234567890", "SUPER_ADMIN"},
+        {"Admin12", "Admin@123", "$2a$10$iSSupbr0bdNHJcZizpG6duPZy4f9/s1NIVjCBCsVttM3H0NxmPBPq",
+            "Admin", "Twelve", "admin12@test.com", "1234567892", "SUPER_ADMIN"},
+        {"college@ayurveda.com", "college123", "$2a$10$BgGmrBBeXzAbNHGGt3tuHeA8EaYWZEqK2PxMjSHv/ye6IBQulAIlO",
+            "College", "Admin", "college@ayurveda.com", "1234567893", "COLLEGE_ADMIN"},
+        {"admin@demo.com", "Admin@2024", "$2a$10$Fy6AHO3LHO1tKkZn/qZmg.hzjRs52.ZevQcWrNafoFp3uddeorM0i",
+            "Demo", "Administrator", "admin@demo.com", "1234567894", "COLLEGE_ADMIN"},
+        // Demo regular users
+        {"user@ayurveda.com", "user123", "$2a$10$IL/pUO65jkha/mtTLb37SelwQDIdIc.cdGYXQr7fTCmfErk3FfQQa",
+            "Demo", "User", "user@ayurveda.com", "9876543210", "FACULTY"},
+        {"Anchal", "Anchal@123", "$2a$10$6JpeULkBvjFMVCqElrJcs.PBG.6sLOuqg2vdxk5RmwB7.aOngLsFe",
+            "Anchal", "User", "anchal@test.com", "1234567891", "FACULTY"},
+        {"doctor@test.com", "Doctor@123", "$2a$10$MTIH11uilCwZi3e7IsfXIOikg/rYEXxUB4pzQubDstoO0t9jnlmEm",
+            "Dr. Priya", "Sharma", "doctor@test.com", "9876543211", "FACULTY"},
+        {"analyst@test.com", "Analyst@123", "$2a$10$5tADeV.c1M1HnAVDbd08sOauzpAxkvOOuXiJN5ugssvZNpyzexfkG",
+            "Data", "Analyst", "analyst@test.com", "9876543212", "DATA_ANALYST"},
+        {"viewer@test.com", "Viewer@123", "$2a$10$uNW8EYsgf3HuZMkmJasp0.lrWTxzvJ3EVB6FjARyHQuYJoo1NguZS",
+            "Data", "Viewer", "viewer@test.com", "9876543213", "VIEWER"},
+        {"faculty@test.com", "Faculty@123", "$2a$10$bMG1mXPJ3ibEbn20JjRAmOM4jumtDBE7c0VgXdLMDVrdJBnE649P6",
+            "Faculty", "Member", "faculty@test.com", "9876543214", "FACULTY"},
+    };
 
     @Autowired
     private RoleRepository roleRepository;
@@ -19,147 +55,59 @@ public class DataInitializer implements CommandLineRunner {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
 
     @Override
     public void run(String... args) throws Exception {
-        // Initialize roles if they don't exist
-        if (roleRepository.findAll().isEmpty()) {
-            Role superAdmin = new Role();
-            superAdmin.setName("SUPER_ADMIN");
-            roleRepository.save(superAdmin);
-
-            Role collegeAdmin = new Role();
-            collegeAdmin.setName("COLLEGE_ADMIN");
-            roleRepository.save(collegeAdmin);
-
-            Role faculty = new Role();
-            faculty.setName("FACULTY");
-            roleRepository.save(faculty);
-
-            Role dataAnalyst = new Role();
-            dataAnalyst.setName("DATA_ANALYST");
-            roleRepository.save(dataAnalyst);
-
-            Role viewer = new Role();
-            viewer.setName("VIEWER");
-            roleRepository.save(viewer);
+        long startedAt = System.nanoTime();
+        // Emptiness checks are one count(*) each; nothing is loaded on a restart with existing data
+        if (roleRepository.count() == 0) {
+            List<Role> roles = new ArrayList<>(ROLES.length);
+            for (String name : ROLES) {
+                Role role = new Role();
+                role.setName(name);
+                roles.add(role);
+            }
+            roleRepository.saveAll(roles);
         }
-
-        // Initialize demo users if they don't exist
-        if (userRepository.findAll().isEmpty()) {
-            // Create demo SUPER_ADMIN users
-            User superAdmin = new User();
-            superAdmin.setUsername("admin@ayurveda.com");
-            superAdmin.setPassword(passwordEncoder.encode("admin123"));
-            superAdmin.setFirstName("Super");
-            superAdmin.setLastName("Admin");
-            superAdmin.setEmail("admin@ayurveda.com");
-            superAdmin.setPhone("1234567890");
-            superAdmin.setStatus(User.Status.ACTIVE);
-            superAdmin.setRole(roleRepository.findByName("SUPER_ADMIN"));
-            userRepository.save(superAdmin);
-
-            User admin1 = new User();
-            admin1.setUsername("Admin12");
-            admin1.setPassword(passwordEncoder.encode("Admin@123"));
-            admin1.setFirstName("Admin");
-            admin1.setLastName("Twelve");
-            admin1.setEmail("admin12@test.com");
-            admin1.setPhone("1234567892");
-            admin1.setStatus(User.Status.ACTIVE);
-            admin1.setRole(roleRepository.findByName("SUPER_ADMIN"));
-            userRepository.save(admin1);
-
-            User admin2 = new User();
-            admin2.setUsername("college@ayurveda.com");
-            admin2.setPassword(passwordEncoder.encode("college123"));
-            admin2.setFirstName("College");
-            admin2.setLastName("Admin");
-            admin2.setEmail("college@ayurveda.com");
-            admin2.setPhone("1234567893");
-            admin2.setStatus(User.Status.ACTIVE);
-            admin2.setRole(roleRepository.findByName("COLLEGE_ADMIN"));
-            userRepository.save(admin2);
-
-            User admin3 = new User();
-            admin3.setUsername("admin@demo.com");
-            admin3.setPassword(passwordEncoder.encode("Admin@2024"));
-            admin3.setFirstName("Demo");
-            admin3.setLastName("Administrator");
-            admin3.setEmail("admin@demo.com");
-            admin3.setPhone("1234567894");
-            admin3.setStatus(User.Status.ACTIVE);
-            admin3.setRole(roleRepository.findByName("COLLEGE_ADMIN"));
-            userRepository.save(admin3);
-
-            // Create demo regular users
-            User user1 = new User();
-            user1.setUsername("user@ayurveda.com");
-            user1.setPassword(passwordEncoder.encode("user123"));
-            user1.setFirstName("Demo");
-            user1.setLastName("User");
-            user1.setEmail("user@ayurveda.com");
-            user1.setPhone("9876543210");
-            user1.setStatus(User.Status.ACTIVE);
-            user1.setRole(roleRepository.findByName("FACULTY"));
-            userRepository.save(user1);
-
-            User user2 = new User();
-            user2.setUsername("Anchal");
-            user2.setPassword(passwordEncoder.encode("Anchal@123"));
-            user2.setFirstName("Anchal");
-            user2.setLastName("User");
-            user2.setEmail("anchal@test.com");
-            user2.setPhone("1234567891");
-            user2.setStatus(User.Status.ACTIVE);
-            user2.setRole(roleRepository.findByName("FACULTY"));
-            userRepository.save(user2);
-
-            User user3 = new User();
-            user3.setUsername("doctor@test.com");
-            user3.setPassword(passwordEncoder.encode("Doctor@123"));
-            user3.setFirstName("Dr. Priya");
-            user3.setLastName("Sharma");
-            user3.setEmail("doctor@test.com");
-            user3.setPhone("9876543211");
-            user3.setStatus(User.Status.ACTIVE);
-            user3.setRole(roleRepository.findByName("FACULTY"));
-            userRepository.save(user3);
-
-            User user4 = new User();
-            user4.setUsername("analyst@test.com");
-            user4.setPassword(passwordEncoder.encode("Analyst@123"));
-            user4.setFirstName("Data");
-            user4.setLastName("Analyst");
-            user4.setEmail("analyst@test.com");
-            user4.setPhone("9876543212");
-            user4.setStatus(User.Status.ACTIVE);
-            user4.setRole(roleRepository.findByName("DATA_ANALYST"));
-            userRepository.save(user4);
-
-            User user5 = new User();
-            user5.setUsername("viewer@test.com");
-            user5.setPassword(passwordEncoder.encode("Viewer@123"));
-            user5.setFirstName("Data");
-            user5.setLastName("Viewer");
-            user5.setEmail("viewer@test.com");
-            user5.setPhone("9876543213");
-            user5.setStatus(User.Status.ACTIVE);
-            user5.setRole(roleRepository.findByName("VIEWER"));
-            userRepository.save(user5);
-
-            User user6 = new User();
-            user6.setUsername("faculty@test.com");
-            user6.setPassword(passwordEncoder.encode("Faculty@123"));
-            user6.setFirstName("Faculty");
-            user6.setLastName("Member");
-            user6.setEmail("faculty@test.com");
-            user6.setPhone("9876543214");
-            user6.setStatus(User.Status.ACTIVE);
-            user6.setRole(roleRepository.findByName("FACULTY"));
-            userRepository.save(user6);
+        roleRegistry.refresh();
+
+        if (userRepository.count() == 0) {
+            List<String> hashes = new ArrayList<>(DEMO_USERS.length);
+            List<Integer> unhashed = new ArrayList<>();
+            List<String> passwords = new ArrayList<>();
+            for (int i = 0; i < DEMO_USERS.length; i++) {
+                hashes.add(DEMO_USERS[i][2]);
+                if (DEMO_USERS[i][2] == null) {
+                    unhashed.add(i);
+                    passwords.add(DEMO_USERS[i][1]);
+                }
+            }
+            if (!passwords.isEmpty()) {
+                // In parallel on the bulk hashing pool, like the bulk import
+                List<String> computed = passwordHashingService.encodeAll(passwords);
+                for (int j = 0; j < unhashed.size(); j++) hashes.set(unhashed.get(j), computed.get(j));
+            }
+            List<User> users = new ArrayList<>(DEMO_USERS.length);
+            for (int i = 0; i < DEMO_USERS.length; i++) {
+                String[] demo = DEMO_USERS[i];
+                User user = new User();
+                user.setUsername(demo[0]);
+                user.setPassword(hashes.get(i));
+                user.setFirstName(demo[3]);
+                user.setLastName(demo[4]);
+                user.setEmail(demo[5]);
+                user.setPhone(demo[6]);
+                user.setStatus(User.Status.ACTIVE);
+                // Role ids come from the registry, not a findByName round trip per user
+                user.setRole(roleRepository.getReferenceById(roleRegistry.findByName(demo[7]).getId()));
+                users.add(user);
+            }
+            userRepository.saveAll(users);
+            logger.info("Seeded {} demo users in {} ms", users.size(), (System.nanoTime() - startedAt) / 1_000_000);
         }
     }
 }
-
@@ -0,0 +1,27 @@
+package com.ayurveda.backend.config;
+
+import com.ayurveda.backend.metrics.QueryCounter;
+import com.ayurveda.backend.metrics.TimedJacksonConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+// Wiring for the instrumentation in the metrics package. Request latency, repository invocations, Hibernate
+// statistics and the Hikari pool are measured by Spring Boot Actuator; everything is scraped at /actuator/prometheus.
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+
+    // Replaces Spring Boot's default Jackson converter
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new TimedJacksonConverter(objectMapper, meterRegistry);
+    }
+}
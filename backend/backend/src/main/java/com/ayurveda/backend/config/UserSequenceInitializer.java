@@ -0,0 +1,53 @@
+package com.ayurveda.backend.config;
+
+import com.ayurveda.backend.entity.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// User ids moved from IDENTITY to the pooled users_seq. On a users table created before that, Hibernate creates the
+// sequence starting at 1 and would hand out ids that already exist. Before the application takes any request (and
+// after the schema update), the sequence is advanced past max(id) plus one allocation block; it is never moved back,
+// since another instance may be using a block above it.
+@Component
+@DependsOn("entityManagerFactory")
+public class UserSequenceInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(UserSequenceInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    @PostConstruct
+    void advancePastExistingIds() throws Exception {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        if (maxId == null) return;
+        // With the pooled optimizer a sequence value v hands out ids up to v, from v - allocation size + 1
+        long floor = maxId + User.ID_ALLOCATION_SIZE;
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> metaData.getDatabaseProductName());
+        if (product.contains("MySQL") || product.contains("MariaDB")) {
+            // Hibernate emulates the sequence with a one-row table
+            List<Long> next = jdbcTemplate.queryForList("SELECT next_val FROM " + User.ID_SEQUENCE, Long.class);
+            if (next.isEmpty() || next.get(0) >= floor) return;
+            jdbcTemplate.update("UPDATE " + User.ID_SEQUENCE + " SET next_val = ?", floor);
+            logger.info("Advanced {} from {} to {} past existing user ids", User.ID_SEQUENCE, next.get(0), floor);
+        } else if (product.contains("H2")) {
+            List<Long> next = jdbcTemplate.queryForList("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = ?",
+                    Long.class, User.ID_SEQUENCE.toUpperCase());
+            if (next.isEmpty() || next.get(0) >= floor) return;
+            jdbcTemplate.execute("ALTER SEQUENCE " + User.ID_SEQUENCE + " RESTART WITH " + floor);
+            logger.info("Advanced {} from {} to {} past existing user ids", User.ID_SEQUENCE, next.get(0), floor);
+        } else {
+            logger.warn("Cannot check {} on {}; make sure it is past the largest user id ({})", User.ID_SEQUENCE, product, maxId);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.audit.AuditEventType;
+import com.ayurveda.backend.dto.AuditEventDTO;
+import com.ayurveda.backend.dto.AuditEventPageDTO;
+import com.ayurveda.backend.service.AuditService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/audit-events")
+public class AuditController {
+    @Autowired
+    private AuditService auditService;
+    @Value("${audit.page.default-limit:50}")
+    private int defaultPageLimit;
+    @Value("${audit.page.max-limit:500}")
+    private int maxPageLimit;
+
+    // Newest first. Optional filters: type, username and an ISO-8601 [from, to) window; pass back
+    // nextCursor for older events until it is null. Events show up after the writer's next flush.
+    @GetMapping
+    public ResponseEntity<?> getEvents(@RequestParam(required = false) String type,
+                                       @RequestParam(required = false) String username,
+                                       @RequestParam(required = false) String from,
+                                       @RequestParam(required = false) String to,
+                                       @RequestParam(required = false) Integer limit,
+                                       @RequestParam(required = false) String cursor) {
+        AuditEventType eventType;
+        Instant fromInstant;
+        Instant toInstant;
+        Long beforeId;
+        try {
+            eventType = type != null && !type.isBlank() ? AuditEventType.valueOf(type.trim().toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Unknown event type: " + type);
+        }
+        try {
+            fromInstant = from != null && !from.isBlank() ? Instant.parse(from.trim()) : null;
+            toInstant = to != null && !to.isBlank() ? Instant.parse(to.trim()) : null;
+        } catch (DateTimeParseException ex) {
+            return ResponseEntity.badRequest().body("from and to must be ISO-8601 instants, e.g. 2025-01-31T09:00:00Z");
+        }
+        try {
+            beforeId = decodeCursor(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        int pageLimit = Math.max(1, Math.min(limit != null ? limit : defaultPageLimit, maxPageLimit));
+        List<AuditEventDTO> items = auditService.getEventsBefore(beforeId, eventType,
+                username != null && !username.isBlank() ? username.trim() : null, fromInstant, toInstant, pageLimit);
+        String nextCursor = items.size() == pageLimit ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return ResponseEntity.ok(new AuditEventPageDTO(items, nextCursor, pageLimit));
+    }
+
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        try {
+            return Long.parseLong(decoded);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
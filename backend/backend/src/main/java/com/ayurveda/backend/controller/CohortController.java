@@ -0,0 +1,287 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.cohort.CohortColumn;
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.dto.CohortAggregationDTO;
+import com.ayurveda.backend.dto.CohortAggregationRequestDTO;
+import com.ayurveda.backend.dto.CohortAnalyticsDTO;
+import com.ayurveda.backend.dto.CohortAnalyticsRequestDTO;
+import com.ayurveda.backend.dto.CohortColumnStatsDTO;
+import com.ayurveda.backend.dto.CohortDatasetDTO;
+import com.ayurveda.backend.dto.CohortDeltaResultDTO;
+import com.ayurveda.backend.dto.CohortFilterRequestDTO;
+import com.ayurveda.backend.dto.CohortFilterResultDTO;
+import com.ayurveda.backend.dto.CohortSearchResultDTO;
+import com.ayurveda.backend.service.CohortAggregationService;
+import com.ayurveda.backend.service.CohortAnalyticsService;
+import com.ayurveda.backend.service.CohortDeltaService;
+import com.ayurveda.backend.service.CohortExportService;
+import com.ayurveda.backend.service.CohortService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/cohorts")
+public class CohortController {
+    private static final Logger logger = LoggerFactory.getLogger(CohortController.class);
+    @Autowired
+    private CohortService cohortService;
+    @Autowired
+    private CohortAggregationService cohortAggregationService;
+    @Autowired
+    private CohortExportService cohortExportService;
+    @Autowired
+    private CohortDeltaService cohortDeltaService;
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadCohortFile(@RequestParam("file") MultipartFile file,
+                                              @RequestParam(required = false) String name) {
+        String datasetName = name != null ? name : file.getOriginalFilename();
+        try (InputStream csv = file.getInputStream()) {
+            return ingest(datasetName, csv);
+        } catch (IOException ex) {
+            logger.error("Cohort upload failed: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
+    @PostMapping(consumes = "text/csv")
+    public ResponseEntity<?> uploadCohortCsv(@RequestParam(required = false) String name, InputStream csv) {
+        return ingest(name != null ? name : "cohort", csv);
+    }
+
+    @PostMapping(value = "/{id}/rows", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> appendCohortFile(@PathVariable String id, @RequestParam("file") MultipartFile file) {
+        try (InputStream csv = file.getInputStream()) {
+            return append(id, csv);
+        } catch (IOException ex) {
+            logger.error("Cohort append failed: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/{id}/rows", consumes = "text/csv")
+    public ResponseEntity<?> appendCohortCsv(@PathVariable String id, InputStream csv) {
+        return append(id, csv);
+    }
+
+    // Upserts and deletes keyed by contact number plus patient name; an optional delta_op column holds upsert or delete
+    @PostMapping(value = "/{id}/deltas", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> applyCohortDeltaFile(@PathVariable String id, @RequestParam("file") MultipartFile file) {
+        try (InputStream csv = file.getInputStream()) {
+            return applyDelta(id, csv);
+        } catch (IOException ex) {
+            logger.error("Cohort delta failed: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/{id}/deltas", consumes = "text/csv")
+    public ResponseEntity<?> applyCohortDeltaCsv(@PathVariable String id, InputStream csv) {
+        return applyDelta(id, csv);
+    }
+
+    // Merges tombstoned rows out now instead of waiting for the background compaction
+    @PostMapping("/{id}/compact")
+    public ResponseEntity<?> compactCohort(@PathVariable String id) {
+        try {
+            CohortDataset dataset = cohortDeltaService.compact(id);
+            if (dataset == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(toDTO(dataset));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        }
+    }
+
+    // Searches every dataset, or only ?dataset=<id>
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCohorts(@RequestParam("q") String query,
+                                           @RequestParam(required = false) String dataset,
+                                           @RequestParam(required = false) Integer offset,
+                                           @RequestParam(required = false) Integer limit) {
+        if (query.isBlank()) return ResponseEntity.badRequest().body("Query is required");
+        CohortSearchResultDTO result = cohortService.search(dataset, query, offset, limit);
+        if (result == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/{id}/search")
+    public ResponseEntity<?> searchCohort(@PathVariable String id, @RequestParam("q") String query,
+                                          @RequestParam(required = false) Integer offset,
+                                          @RequestParam(required = false) Integer limit) {
+        return searchCohorts(query, id, offset, limit);
+    }
+
+    @GetMapping
+    public List<CohortDatasetDTO> getCohorts() {
+        return cohortService.getDatasets().stream().map(this::toDTO).collect(Collectors.toList());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CohortDatasetDTO> getCohort(@PathVariable String id) {
+        CohortDataset dataset = cohortService.getDataset(id);
+        if (dataset == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(toDTO(dataset));
+    }
+
+    @PostMapping("/{id}/filter")
+    public ResponseEntity<?> filterCohort(@PathVariable String id, @RequestBody CohortFilterRequestDTO request) {
+        try {
+            CohortFilterResultDTO result = cohortService.filter(id, request);
+            if (result == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // Streams the filtered rows as CSV (?gzip=true for a .csv.gz); the body takes the same filters as /filter
+    @PostMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportCohort(@PathVariable String id,
+                                                              @RequestBody(required = false) CohortFilterRequestDTO request,
+                                                              @RequestParam(defaultValue = "false") boolean gzip) {
+        CohortExportService.Export export;
+        try {
+            export = cohortExportService.prepare(id, request);
+        } catch (IllegalArgumentException ex) {
+            byte[] message = ex.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(out -> out.write(message));
+        }
+        if (export == null) return ResponseEntity.notFound().build();
+        String filename = exportFilename(export.getDatasetName()) + (gzip ? ".csv.gz" : ".csv");
+        StreamingResponseBody body = out -> cohortExportService.write(export, out, gzip);
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header("X-Total-Count", Long.toString(export.getRowCount()))
+                .body(body);
+    }
+
+    // Dashboard rollup materialized at upload
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<CohortAggregationDTO> getCohortSummary(@PathVariable String id) {
+        CohortAggregationDTO summary = cohortAggregationService.getSummary(id);
+        if (summary == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(summary);
+    }
+
+    @PostMapping("/{id}/aggregate")
+    public ResponseEntity<?> aggregateCohort(@PathVariable String id, @RequestBody CohortAggregationRequestDTO request) {
+        try {
+            CohortAggregationDTO result = cohortAggregationService.aggregate(id, request);
+            if (result == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    // Approximate rollup across datasets (all of them unless datasetIds names some), merged from per-village sketches
+    @PostMapping("/analytics")
+    public ResponseEntity<?> analyzeCohorts(@RequestBody CohortAnalyticsRequestDTO request) {
+        try {
+            CohortAnalyticsDTO result = cohortAnalyticsService.analyze(request);
+            if (result == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/analytics")
+    public ResponseEntity<?> analyzeCohort(@PathVariable String id, @RequestBody CohortAnalyticsRequestDTO request) {
+        request.setDatasetIds(List.of(id));
+        return analyzeCohorts(request);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteCohort(@PathVariable String id) {
+        if (!cohortService.deleteDataset(id)) return ResponseEntity.notFound().build();
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<?> ingest(String name, InputStream csv) {
+        try {
+            return ResponseEntity.ok(toDTO(cohortService.ingest(name, csv)));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (IOException ex) {
+            logger.error("Cohort upload failed: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> append(String id, InputStream csv) {
+        try {
+            CohortDataset dataset = cohortService.append(id, csv);
+            if (dataset == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(toDTO(dataset));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IOException ex) {
+            logger.error("Cohort append failed: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> applyDelta(String id, InputStream csv) {
+        try {
+            CohortDeltaResultDTO result = cohortDeltaService.apply(id, csv);
+            if (result == null) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+        } catch (IOException ex) {
+            logger.error("Cohort delta failed: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
+    private static String exportFilename(String datasetName) {
+        String base = datasetName == null ? "cohort" : datasetName.replaceFirst("(?i)\\.csv$", "");
+        base = base.replaceAll("[^A-Za-z0-9._-]", "_");
+        return base.isEmpty() ? "cohort" : base;
+    }
+
+    // Helper method to map a dataset to its summary with per-column memory stats
+    private CohortDatasetDTO toDTO(CohortDataset dataset) {
+        CohortDatasetDTO dto = new CohortDatasetDTO();
+        dto.setId(dataset.getId());
+        dto.setName(dataset.getName());
+        dto.setCreatedAt(dataset.getCreatedAt().toString());
+        dto.setVersion(dataset.getVersion());
+        dto.setRowCount(dataset.getRowCount());
+        dto.setLiveRowCount(dataset.getIndex().getLiveRowCount());
+        dto.setDeletedRowCount(dataset.getDeletedRowCount());
+        dto.setMemoryBytes(dataset.memoryBytes());
+        dto.setIndexBytes(dataset.getIndex().memoryBytes());
+        dto.setSearchIndexBytes(dataset.isSearchIndexBuilt() ? dataset.getSearchIndex().memoryBytes() : 0);
+        List<CohortColumnStatsDTO> columns = new ArrayList<>();
+        for (CohortColumn column : dataset.getColumns()) {
+            columns.add(new CohortColumnStatsDTO(column.getName(), column.getKind().name(),
+                    column.distinctValues(), column.missingCount(), column.memoryBytes()));
+        }
+        dto.setColumns(columns);
+        return dto;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.dto.OutboxSendRequestDTO;
+import com.ayurveda.backend.dto.OutboxSendStatusDTO;
+import com.ayurveda.backend.service.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/outbox")
+public class OutboxController {
+    @Autowired
+    private OutboxService outboxService;
+
+    // Queues one message per matching user and returns at once (202); delivery happens in the background
+    @PostMapping("/sends")
+    public ResponseEntity<?> createSend(@RequestBody OutboxSendRequestDTO request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(outboxService.send(request));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    @GetMapping("/sends/{sendId}")
+    public ResponseEntity<OutboxSendStatusDTO> getSend(@PathVariable String sendId) {
+        OutboxSendStatusDTO status = outboxService.getStatus(sendId);
+        if (status == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(status);
+    }
+}
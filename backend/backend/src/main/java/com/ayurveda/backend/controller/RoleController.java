@@ -1,21 +1,59 @@
 package com.ayurveda.backend.controller;
 
-import com.ayurveda.backend.entity.Role;
-import com.ayurveda.backend.repository.RoleRepository;
+import com.ayurveda.backend.cache.UserListVersion;
+import com.ayurveda.backend.cache.UserNearCache;
+import com.ayurveda.backend.service.RoleRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
+
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/roles")
 public class RoleController {
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private UserNearCache userNearCache;
+    @Autowired
+    private UserListVersion userListVersion;
 
+    @Value("${roles.cache.max-age-seconds:300}")
+    private long maxAgeSeconds;
+    @Value("${roles.cache.stale-while-revalidate-seconds:86400}")
+    private long staleWhileRevalidateSeconds;
+
+    // Served from the registry's pre-serialized bytes: no database query and no Jackson work per request.
+    // Browsers and shared caches keep the list for a day, but past max-age-seconds they revalidate it with the
+    // ETag in the background, so a refresh reaches clients within max-age-seconds.
     @GetMapping
-    public List<Role> getAllRoles() {
-        return roleRepository.findAll();
+    public ResponseEntity<byte[]> getAllRoles(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic()
+                .staleWhileRevalidate(staleWhileRevalidateSeconds, TimeUnit.SECONDS);
+        // Tag before body: if a refresh lands in between, the new body goes out under the old tag and is
+        // fetched again on the next revalidation, rather than the old body being pinned under the new tag
+        String etag = roleRegistry.getRolesEtag();
+        if (ConditionalRequests.matches(ifNoneMatch, etag)) return ConditionalRequests.notModified(etag, cacheControl);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).contentType(MediaType.APPLICATION_JSON)
+                .body(roleRegistry.getRolesJson());
+    }
+
+    // Reload the registry after roles have been added or renamed in the database (SUPER_ADMIN only, see
+    // SecurityConfig). Cached users and the user listing carry role names, so both are invalidated too.
+    @PostMapping("/refresh")
+    public ResponseEntity<byte[]> refreshRoles() {
+        roleRegistry.refresh();
+        userNearCache.invalidateAll();
+        userListVersion.changed();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(roleRegistry.getRolesJson());
     }
-} 
\ No newline at end of file
+}
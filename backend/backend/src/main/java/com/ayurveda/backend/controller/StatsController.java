@@ -0,0 +1,108 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.cache.UserNearCache;
+import com.ayurveda.backend.hierarchy.OrgHierarchyService;
+import com.ayurveda.backend.metrics.QueryCountingFilter;
+import com.ayurveda.backend.metrics.VirtualThreadPinningMonitor;
+import com.ayurveda.backend.security.JwtClaimsCache;
+import com.ayurveda.backend.security.LoginRateLimiter;
+import com.ayurveda.backend.service.AuditService;
+import com.ayurveda.backend.service.CohortAnalyticsService;
+import com.ayurveda.backend.service.CohortDeltaService;
+import com.ayurveda.backend.service.CohortExportService;
+import com.ayurveda.backend.service.OutboxDispatcher;
+import com.ayurveda.backend.service.PasswordHashingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private CohortExportService cohortExportService;
+    @Autowired
+    private CohortDeltaService cohortDeltaService;
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+    @Autowired
+    private AuditService auditService;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private VirtualThreadPinningMonitor virtualThreadPinningMonitor;
+    @Autowired
+    private QueryCountingFilter queryCountingFilter;
+    @Autowired
+    private UserNearCache userNearCache;
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @GetMapping("/jwt-cache")
+    public Map<String, Object> getJwtCacheStats() {
+        return jwtClaimsCache.stats();
+    }
+
+    @GetMapping("/password-hashing")
+    public Map<String, Object> getPasswordHashingStats() {
+        return passwordHashingService.stats();
+    }
+
+    @GetMapping("/cohort-exports")
+    public Map<String, Object> getCohortExportStats() {
+        return cohortExportService.stats();
+    }
+
+    @GetMapping("/cohort-deltas")
+    public Map<String, Object> getCohortDeltaStats() {
+        return cohortDeltaService.stats();
+    }
+
+    @GetMapping("/cohort-sketches")
+    public Map<String, Object> getCohortSketchStats() {
+        return cohortAnalyticsService.stats();
+    }
+
+    @GetMapping("/outbox")
+    public Map<String, Object> getOutboxStats() {
+        return outboxDispatcher.stats();
+    }
+
+    @GetMapping("/audit")
+    public Map<String, Object> getAuditStats() {
+        return auditService.stats();
+    }
+
+    @GetMapping("/login-limiter")
+    public Map<String, Object> getLoginLimiterStats() {
+        return loginRateLimiter.stats();
+    }
+
+    @GetMapping("/threads")
+    public Map<String, Object> getThreadStats() {
+        return virtualThreadPinningMonitor.stats();
+    }
+
+    @GetMapping("/queries")
+    public Map<String, Object> getQueryStats() {
+        return queryCountingFilter.stats();
+    }
+
+    @GetMapping("/user-cache")
+    public Map<String, Object> getUserCacheStats() {
+        return userNearCache.stats();
+    }
+
+    @GetMapping("/hierarchy")
+    public Map<String, Object> getHierarchyStats() {
+        return orgHierarchyService.stats();
+    }
+}
@@ -1,112 +1,335 @@
 package com.ayurveda.backend.controller;
 
+import com.ayurveda.backend.audit.AuditEventType;
+import com.ayurveda.backend.cache.CachedUser;
+import com.ayurveda.backend.cache.UserListVersion;
+import com.ayurveda.backend.dto.BulkImportReportDTO;
+import com.ayurveda.backend.dto.ReportCountDTO;
+import com.ayurveda.backend.hierarchy.OrgHierarchyService;
+import com.ayurveda.backend.service.AuditService;
+import com.ayurveda.backend.service.BulkUserImportService;
+import com.ayurveda.backend.service.HashingCapacityExceededException;
+import com.ayurveda.backend.service.PasswordHashingService;
+import com.ayurveda.backend.service.RoleRegistry;
 import com.ayurveda.backend.service.UserService;
 import com.ayurveda.backend.entity.User;
 import com.ayurveda.backend.security.JwtUtil;
+import com.ayurveda.backend.security.LoginRateLimiter;
+import com.ayurveda.backend.dto.UserPageDTO;
 import com.ayurveda.backend.dto.UserRequestDTO;
 import com.ayurveda.backend.dto.UserResponseDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    // Clients may keep the listing but must revalidate it (cheaply, with If-None-Match) before each use
+    private static final CacheControl LISTING_CACHE = CacheControl.noCache().cachePrivate();
     @Autowired
     private UserService userService;
     @Autowired
     private JwtUtil jwtUtil;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private BulkUserImportService bulkUserImportService;
+    @Autowired
+    private AuditService auditService;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+    @Autowired
+    private UserListVersion userListVersion;
+    @Value("${users.page.default-limit:50}")
+    private int defaultPageLimit;
+    @Value("${users.page.max-limit:200}")
+    private int maxPageLimit;
+
+    // Without paging parameters: the full list as a JSON array, streamed row by row from a database cursor.
+    // Both listings carry the users table version as ETag; a matching If-None-Match gets a 304 straight away.
+    @GetMapping(params = {"!limit", "!cursor"})
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = userListVersion.etag();
+        if (ConditionalRequests.matches(ifNoneMatch, etag)) return ConditionalRequests.notModified(etag, LISTING_CACHE);
+        return ResponseEntity.ok().eTag(etag).cacheControl(LISTING_CACHE).contentType(MediaType.APPLICATION_JSON)
+                .body(streamUsers(false));
+    }
 
+    // Keyset page: ?limit=N for the first page, then pass back nextCursor until it is null
     @GetMapping
-    public List<UserResponseDTO> getAllUsers() {
-        return userService.getAllUsers().stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
+    public ResponseEntity<?> getUserPage(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = userListVersion.etag();
+        if (ConditionalRequests.matches(ifNoneMatch, etag)) return ConditionalRequests.notModified(etag, LISTING_CACHE);
+        Long afterId;
+        try {
+            afterId = decodeCursor(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        int pageLimit = Math.max(1, Math.min(limit != null ? limit : defaultPageLimit, maxPageLimit));
+        List<UserResponseDTO> items = userService.getUserViewsAfter(afterId, pageLimit);
+        String nextCursor = items.size() == pageLimit ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(LISTING_CACHE).body(new UserPageDTO(items, nextCursor, pageLimit));
+    }
+
+    // Full export as newline-delimited JSON; memory use does not depend on the number of users
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(streamUsers(true));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDTO> getUserById(@PathVariable Long id) {
-        User user = userService.getUserById(id);
+        UserResponseDTO user = userService.getUserViewById(id);
         if (user == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(toResponseDTO(user));
+        return ResponseEntity.ok(user);
+    }
+
+    // Everyone under the user, directly or not, in org-chart order (depth-first, reports by id). Paged like
+    // GET /api/users: ?limit=N, then pass back nextCursor until it is null.
+    @GetMapping("/{id}/reports")
+    public ResponseEntity<?> getReports(@PathVariable Long id, @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor) {
+        int pageLimit = Math.max(1, Math.min(limit != null ? limit : defaultPageLimit, maxPageLimit));
+        long[] ids;
+        try {
+            Long afterId = decodeCursor(cursor);
+            ids = orgHierarchyService.reportsPage(id, afterId != 0 ? afterId : null, pageLimit);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        if (ids == null) return ResponseEntity.notFound().build();
+        String nextCursor = ids.length == pageLimit ? encodeCursor(ids[ids.length - 1]) : null;
+        return ResponseEntity.ok(new UserPageDTO(userService.getUserViews(ids), nextCursor, pageLimit));
+    }
+
+    @GetMapping("/{id}/reports/count")
+    public ResponseEntity<ReportCountDTO> countReports(@PathVariable Long id) {
+        ReportCountDTO count = orgHierarchyService.countReports(id);
+        if (count == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(count);
+    }
+
+    // Whether reportId is somewhere under the user in the reporting hierarchy
+    @GetMapping("/{id}/reports/{reportId}")
+    public ResponseEntity<?> isReport(@PathVariable Long id, @PathVariable Long reportId) {
+        Boolean under = orgHierarchyService.isUnder(reportId, id);
+        if (under == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(Map.of("managerId", id, "userId", reportId, "under", under));
     }
 
     @PostMapping
-    public ResponseEntity<?> createUser(@RequestBody UserRequestDTO userRequestDTO) {
+    public ResponseEntity<?> createUser(@RequestBody UserRequestDTO userRequestDTO, HttpServletRequest request) {
         logger.info("Registration attempt: username={}, email={}", userRequestDTO.getUsername(), userRequestDTO.getEmail());
         String error = validateUserRequest(userRequestDTO, false);
         if (error != null) {
             logger.warn("Registration failed validation: {}", error);
+            audit(AuditEventType.USER_CREATE_FAILED, userRequestDTO.getUsername(), request, error);
             return ResponseEntity.badRequest().body(error);
         }
-        if (userService.getUserByUsername(userRequestDTO.getUsername()) != null) {
+        if (userService.getCachedUser(userRequestDTO.getUsername()) != null) {
             logger.warn("Registration failed: username '{}' already exists", userRequestDTO.getUsername());
+            audit(AuditEventType.USER_CREATE_FAILED, userRequestDTO.getUsername(), request, "Username already exists");
             return ResponseEntity.badRequest().body("Username already exists");
         }
         try {
             User user = userService.createUser(userRequestDTO);
             logger.info("Registration successful: username={}", user.getUsername());
+            audit(AuditEventType.USER_CREATED, user.getUsername(), request, "id=" + user.getId());
             return ResponseEntity.ok(toResponseDTO(user));
+        } catch (HashingCapacityExceededException ex) {
+            logger.warn("Registration rejected: password hashing pool saturated");
+            return hashingUnavailable(ex);
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Registration failed: {}", ex.getMessage());
+            audit(AuditEventType.USER_CREATE_FAILED, userRequestDTO.getUsername(), request, ex.getMessage());
+            return ResponseEntity.badRequest().body(ex.getMessage());
         } catch (Exception ex) {
             logger.error("Registration failed due to server error: {}", ex.getMessage(), ex);
             return ResponseEntity.status(500).body("Registration failed due to a server error. Please try again or contact support.");
         }
     }
 
+    // Bulk creation from a streamed CSV (header row with UserRequestDTO field names) or NDJSON body
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> bulkImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body,
+                                        HttpServletRequest request) {
+        try {
+            BulkImportReportDTO report = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? bulkUserImportService.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8), dto -> validateUserRequest(dto, false))
+                    : bulkUserImportService.importNdjson(body, dto -> validateUserRequest(dto, false));
+            audit(AuditEventType.USERS_BULK_IMPORTED, null, request,
+                    "created=" + report.getCreated() + " rejected=" + report.getRejected());
+            return ResponseEntity.ok(report);
+        } catch (IOException | UncheckedIOException ex) {
+            logger.error("Bulk import failed while reading the upload: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body("Could not read upload: " + ex.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody UserRequestDTO userRequestDTO) {
+    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody UserRequestDTO userRequestDTO,
+                                        HttpServletRequest request) {
         String error = validateUserRequest(userRequestDTO, true);
         if (error != null) {
             return ResponseEntity.badRequest().body(error);
         }
-        User user = userService.updateUser(id, userRequestDTO);
+        User user;
+        try {
+            user = userService.updateUser(id, userRequestDTO);
+        } catch (HashingCapacityExceededException ex) {
+            return hashingUnavailable(ex);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
         if (user == null) return ResponseEntity.notFound().build();
+        audit(AuditEventType.USER_UPDATED, user.getUsername(), request, "id=" + id);
         return ResponseEntity.ok(toResponseDTO(user));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteUser(@PathVariable Long id, HttpServletRequest request) {
         userService.deleteUser(id);
+        audit(AuditEventType.USER_DELETED, null, request, "id=" + id);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/by-username/{username}")
     public ResponseEntity<UserResponseDTO> getUserByUsername(@PathVariable String username) {
-        User user = userService.getUserByUsername(username);
+        UserResponseDTO user = userService.getUserViewByUsername(username);
         if (user == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(toResponseDTO(user));
+        return ResponseEntity.ok(user);
     }
 
+    // BCrypt runs on the hashing pool; the request thread is released while the hash is computed
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody UserRequestDTO loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody UserRequestDTO loginRequest, HttpServletRequest request) {
         logger.info("Login attempt: username={}", loginRequest.getUsername());
-        User user = userService.getUserByUsername(loginRequest.getUsername());
+        // Read on the request thread: the outcome is recorded from the hashing pool
+        String clientIp = request.getRemoteAddr();
+        // Throttled before the user lookup and the BCrypt check, so floods cost neither
+        long retryAfterMillis = loginRateLimiter.tryAcquire(loginRequest.getUsername(), clientIp);
+        if (retryAfterMillis > 0) {
+            logger.warn("Login throttled: username={}, ip={}", loginRequest.getUsername(), clientIp);
+            auditService.record(AuditEventType.LOGIN_REJECTED, loginRequest.getUsername(), null, clientIp, "Too many attempts");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                    .body(Map.of("error", "Too many login attempts, please retry later")));
+        }
+        CachedUser user = userService.getCachedUser(loginRequest.getUsername());
         if (user == null) {
             logger.warn("Login failed: user '{}' not found", loginRequest.getUsername());
-            return ResponseEntity.status(401).body(Map.of("error", "User not found"));
+            auditService.record(AuditEventType.LOGIN_FAILED, loginRequest.getUsername(), null, clientIp, "User not found");
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body(Map.of("error", "User not found")));
         }
-        if (!userService.getPasswordEncoder().matches(loginRequest.getPassword(), user.getPassword())) {
-            logger.warn("Login failed: incorrect password for user '{}'", loginRequest.getUsername());
-            return ResponseEntity.status(401).body(Map.of("error", "Incorrect password"));
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = passwordHashingService.matchesAsync(loginRequest.getPassword(), user.getPasswordHash());
+        } catch (HashingCapacityExceededException ex) {
+            logger.warn("Login rejected: password hashing pool saturated");
+            auditService.record(AuditEventType.LOGIN_REJECTED, loginRequest.getUsername(), null, clientIp, "Hashing pool saturated");
+            return CompletableFuture.completedFuture(hashingUnavailable(ex));
         }
-        logger.info("Login successful: username={}", user.getUsername());
-        return ResponseEntity.ok(Map.of(
-            "message", "Login successful",
-            "username", user.getUsername(),
-            "role", user.getRole() != null ? user.getRole().getName() : null,
-            "id", user.getId(),
-            "token", jwtUtil.generateToken(user.getUsername(), user.getRole() != null ? user.getRole().getName() : null)
-        ));
-    }
-
-    // Manual validation method
-    private String validateUserRequest(UserRequestDTO dto, boolean isUpdate) {
+        return matches.thenApply(ok -> {
+            if (!ok) {
+                logger.warn("Login failed: incorrect password for user '{}'", loginRequest.getUsername());
+                auditService.record(AuditEventType.LOGIN_FAILED, user.getUsername(), null, clientIp, "Incorrect password");
+                return ResponseEntity.status(401).body(Map.of("error", "Incorrect password"));
+            }
+            logger.info("Login successful: username={}", user.getUsername());
+            auditService.record(AuditEventType.LOGIN_SUCCEEDED, user.getUsername(), null, clientIp, null);
+            String roleName = user.getRoleName();
+            return ResponseEntity.ok(Map.of(
+                "message", "Login successful",
+                "username", user.getUsername(),
+                "role", roleName,
+                "id", user.getId(),
+                "token", jwtUtil.generateToken(user.getUsername(), roleName)
+            ));
+        });
+    }
+
+    // The actor is the authenticated caller, if any (registration is open)
+    private void audit(AuditEventType type, String username, HttpServletRequest request, String detail) {
+        String actor = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : null;
+        auditService.record(type, username, actor, request.getRemoteAddr(), detail);
+    }
+
+    private ResponseEntity<?> hashingUnavailable(HashingCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "Server is busy, please retry shortly"));
+    }
+
+    private StreamingResponseBody streamUsers(boolean ndjson) {
+        return out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                if (ndjson) json.setRootValueSeparator(null);
+                else json.writeStartArray();
+                userService.streamAllUserViews(user -> {
+                    try {
+                        json.writeObject(user);
+                        if (ndjson) json.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) json.writeEndArray();
+            }
+        };
+    }
+
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return 0L;
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        try {
+            return Long.parseLong(decoded);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    // Manual validation method (package-private, like the helpers below, for the JMH benchmarks)
+    static String validateUserRequest(UserRequestDTO dto, boolean isUpdate) {
         if (dto.getUsername() == null || dto.getUsername().trim().isEmpty()) return "Username is required";
         if (!isUpdate || (dto.getPassword() != null && !dto.getPassword().isEmpty())) {
             if (!isStrongPassword(dto.getPassword())) return "Password must be at least 8 characters and include uppercase, lowercase, number, and symbol (e.g. Ashok@1234).";
@@ -117,7 +340,7 @@ public class UserController {
     }
 
     // Helper for strong password validation
-    private boolean isStrongPassword(String password) {
+    static boolean isStrongPassword(String password) {
         if (password == null || password.length() < 8) return false;
         boolean hasUpper = false, hasLower = false, hasDigit = false, hasSymbol = false;
         for (char c : password.toCharArray()) {
@@ -130,7 +353,7 @@ public class UserController {
     }
 
     // Helper method to map User to UserResponseDTO
-    private UserResponseDTO toResponseDTO(User user) {
+    UserResponseDTO toResponseDTO(User user) {
         UserResponseDTO dto = new UserResponseDTO();
         dto.setId(user.getId());
         dto.setUsername(user.getUsername());
@@ -141,8 +364,10 @@ public class UserController {
         dto.setDepartment(user.getDepartment());
         dto.setEmployeeId(user.getEmployeeId());
         dto.setReportingManager(user.getReportingManager());
+        // Reading the id of a lazy proxy does not load the manager
+        dto.setManagerId(user.getManager() != null ? user.getManager().getId() : null);
         dto.setStatus(user.getStatus() != null ? user.getStatus().name() : null);
-        dto.setRoleName(user.getRole() != null ? user.getRole().getName() : null);
+        dto.setRoleName(roleRegistry.nameOf(user.getRole()));
         return dto;
     }
 } 
\ No newline at end of file
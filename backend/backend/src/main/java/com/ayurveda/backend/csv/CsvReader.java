@@ -0,0 +1,107 @@
+package com.ayurveda.backend.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming RFC-4180 reader: quoted fields, doubled quotes, embedded separators and newlines, CRLF or LF.
+// Reads through a fixed char buffer, so memory does not depend on the size of the input.
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long recordNumber;
+    private final StringBuilder field = new StringBuilder(64);
+    private final List<String> fields = new ArrayList<>();
+
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    // Next record, or null at end of input. Blank lines are skipped.
+    public String[] readRecord() throws IOException {
+        while (true) {
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean sawAny = false;
+            int c;
+            while ((c = next()) != -1) {
+                sawAny = true;
+                if (quoted) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            next();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r' && peek() == '\n') next();
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!sawAny) return null;
+            fields.add(field.toString());
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                if (c == -1) return null;
+                continue;
+            }
+            recordNumber++;
+            // Drop a UTF-8 byte order mark left on the first field by spreadsheet exports
+            if (recordNumber == 1 && !fields.get(0).isEmpty() && fields.get(0).charAt(0) == '\uFEFF') {
+                fields.set(0, fields.get(0).substring(1));
+            }
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    // 1-based number of the record most recently returned
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int next() throws IOException {
+        if (position >= limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ayurveda.backend.dto;
+
+import com.ayurveda.backend.audit.AuditEventType;
+import java.sql.Timestamp;
+
+public class AuditEventDTO {
+    private Long id;
+    private String occurredAt;
+    private AuditEventType type;
+    private String username;
+    private String actor;
+    private String clientIp;
+    private String detail;
+
+    public AuditEventDTO() {}
+
+    // Used by the JPQL constructor projection in AuditEventRepository
+    public AuditEventDTO(Long id, Timestamp occurredAt, AuditEventType type, String username, String actor,
+                         String clientIp, String detail) {
+        this.id = id;
+        this.occurredAt = occurredAt.toInstant().toString();
+        this.type = type;
+        this.username = username;
+        this.actor = actor;
+        this.clientIp = clientIp;
+        this.detail = detail;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(String occurredAt) { this.occurredAt = occurredAt; }
+    public AuditEventType getType() { return type; }
+    public void setType(AuditEventType type) { this.type = type; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+    public String getClientIp() { return clientIp; }
+    public void setClientIp(String clientIp) { this.clientIp = clientIp; }
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
+}
@@ -0,0 +1,24 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class AuditEventPageDTO {
+    private List<AuditEventDTO> items;
+    private String nextCursor;
+    private int limit;
+
+    public AuditEventPageDTO() {}
+
+    public AuditEventPageDTO(List<AuditEventDTO> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<AuditEventDTO> getItems() { return items; }
+    public void setItems(List<AuditEventDTO> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
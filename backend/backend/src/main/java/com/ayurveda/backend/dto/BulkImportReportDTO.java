@@ -0,0 +1,26 @@
+package com.ayurveda.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportReportDTO {
+    private int total;
+    private int created;
+    private int rejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<BulkImportRowResultDTO> rows = new ArrayList<>();
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+    public List<BulkImportRowResultDTO> getRows() { return rows; }
+    public void setRows(List<BulkImportRowResultDTO> rows) { this.rows = rows; }
+}
@@ -0,0 +1,30 @@
+package com.ayurveda.backend.dto;
+
+public class BulkImportRowResultDTO {
+    private long row;
+    private String username;
+    private String status;
+    private Long id;
+    private String error;
+
+    public BulkImportRowResultDTO() {}
+
+    public BulkImportRowResultDTO(long row, String username, String status, Long id, String error) {
+        this.row = row;
+        this.username = username;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public long getRow() { return row; }
+    public void setRow(long row) { this.row = row; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
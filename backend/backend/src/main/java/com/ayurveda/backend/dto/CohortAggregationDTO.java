@@ -0,0 +1,36 @@
+package com.ayurveda.backend.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CohortAggregationDTO {
+    private long count;
+    private long elapsedMicros;
+    // True when served from the rollup materialized at upload
+    private boolean materialized;
+    private Map<String, Map<String, Long>> groups = new LinkedHashMap<>();
+    private Map<String, Long> ageHistogram;
+    private Map<String, CohortNumericStatsDTO> stats = new LinkedHashMap<>();
+    private List<CohortCrossTabDTO> crossTabs = new ArrayList<>();
+    // Row count per month (yyyy-MM) of the date column
+    private Map<String, Long> trend;
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public long getElapsedMicros() { return elapsedMicros; }
+    public void setElapsedMicros(long elapsedMicros) { this.elapsedMicros = elapsedMicros; }
+    public boolean isMaterialized() { return materialized; }
+    public void setMaterialized(boolean materialized) { this.materialized = materialized; }
+    public Map<String, Map<String, Long>> getGroups() { return groups; }
+    public void setGroups(Map<String, Map<String, Long>> groups) { this.groups = groups; }
+    public Map<String, Long> getAgeHistogram() { return ageHistogram; }
+    public void setAgeHistogram(Map<String, Long> ageHistogram) { this.ageHistogram = ageHistogram; }
+    public Map<String, CohortNumericStatsDTO> getStats() { return stats; }
+    public void setStats(Map<String, CohortNumericStatsDTO> stats) { this.stats = stats; }
+    public List<CohortCrossTabDTO> getCrossTabs() { return crossTabs; }
+    public void setCrossTabs(List<CohortCrossTabDTO> crossTabs) { this.crossTabs = crossTabs; }
+    public Map<String, Long> getTrend() { return trend; }
+    public void setTrend(Map<String, Long> trend) { this.trend = trend; }
+}
@@ -0,0 +1,34 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Leaving every aggregation field empty requests the default dashboard rollup
+public class CohortAggregationRequestDTO {
+    private Map<String, List<String>> filters;
+    private List<String> ageBrackets;
+    private List<String> groupBy;
+    private Boolean ageHistogram;
+    private List<String> stats;
+    private List<Double> percentiles;
+    // Pairs of [row column, column column]; "age_bracket" may be used as a dimension
+    private List<List<String>> crossTabs;
+    private Boolean trend;
+
+    public Map<String, List<String>> getFilters() { return filters; }
+    public void setFilters(Map<String, List<String>> filters) { this.filters = filters; }
+    public List<String> getAgeBrackets() { return ageBrackets; }
+    public void setAgeBrackets(List<String> ageBrackets) { this.ageBrackets = ageBrackets; }
+    public List<String> getGroupBy() { return groupBy; }
+    public void setGroupBy(List<String> groupBy) { this.groupBy = groupBy; }
+    public Boolean getAgeHistogram() { return ageHistogram; }
+    public void setAgeHistogram(Boolean ageHistogram) { this.ageHistogram = ageHistogram; }
+    public List<String> getStats() { return stats; }
+    public void setStats(List<String> stats) { this.stats = stats; }
+    public List<Double> getPercentiles() { return percentiles; }
+    public void setPercentiles(List<Double> percentiles) { this.percentiles = percentiles; }
+    public List<List<String>> getCrossTabs() { return crossTabs; }
+    public void setCrossTabs(List<List<String>> crossTabs) { this.crossTabs = crossTabs; }
+    public Boolean getTrend() { return trend; }
+    public void setTrend(Boolean trend) { this.trend = trend; }
+}
@@ -0,0 +1,30 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class CohortAnalyticsDTO {
+    private int datasets;
+    private long rows;
+    // Rows tombstoned by deltas that the sketches still count (until the next compaction)
+    private long staleRows;
+    private long sketchBytes;
+    private long elapsedMicros;
+    private CohortSketchSummaryDTO overall;
+    // Only when requested, by village name
+    private List<CohortSketchSummaryDTO> villages;
+
+    public int getDatasets() { return datasets; }
+    public void setDatasets(int datasets) { this.datasets = datasets; }
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+    public long getStaleRows() { return staleRows; }
+    public void setStaleRows(long staleRows) { this.staleRows = staleRows; }
+    public long getSketchBytes() { return sketchBytes; }
+    public void setSketchBytes(long sketchBytes) { this.sketchBytes = sketchBytes; }
+    public long getElapsedMicros() { return elapsedMicros; }
+    public void setElapsedMicros(long elapsedMicros) { this.elapsedMicros = elapsedMicros; }
+    public CohortSketchSummaryDTO getOverall() { return overall; }
+    public void setOverall(CohortSketchSummaryDTO overall) { this.overall = overall; }
+    public List<CohortSketchSummaryDTO> getVillages() { return villages; }
+    public void setVillages(List<CohortSketchSummaryDTO> villages) { this.villages = villages; }
+}
@@ -0,0 +1,34 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class CohortAnalyticsRequestDTO {
+    // Datasets to combine; null or empty means every dataset
+    private List<String> datasetIds;
+    // Only these villages; null or empty means all of them
+    private List<String> villages;
+    // Also answer for each village separately
+    private Boolean perVillage;
+    // Vitals to summarise (age, weight, height, blood_sugar, bp_systolic, bp_diastolic); default all
+    private List<String> vitals;
+    // Between 0 and 1; default 0.5 and 0.9
+    private List<Double> quantiles;
+    // Categorical columns to rank; default disease
+    private List<String> categories;
+    private Integer topK;
+
+    public List<String> getDatasetIds() { return datasetIds; }
+    public void setDatasetIds(List<String> datasetIds) { this.datasetIds = datasetIds; }
+    public List<String> getVillages() { return villages; }
+    public void setVillages(List<String> villages) { this.villages = villages; }
+    public Boolean getPerVillage() { return perVillage; }
+    public void setPerVillage(Boolean perVillage) { this.perVillage = perVillage; }
+    public List<String> getVitals() { return vitals; }
+    public void setVitals(List<String> vitals) { this.vitals = vitals; }
+    public List<Double> getQuantiles() { return quantiles; }
+    public void setQuantiles(List<Double> quantiles) { this.quantiles = quantiles; }
+    public List<String> getCategories() { return categories; }
+    public void setCategories(List<String> categories) { this.categories = categories; }
+    public Integer getTopK() { return topK; }
+    public void setTopK(Integer topK) { this.topK = topK; }
+}
@@ -0,0 +1,30 @@
+package com.ayurveda.backend.dto;
+
+public class CohortColumnStatsDTO {
+    private String name;
+    private String kind;
+    private int distinctValues;
+    private int missing;
+    private long memoryBytes;
+
+    public CohortColumnStatsDTO() {}
+
+    public CohortColumnStatsDTO(String name, String kind, int distinctValues, int missing, long memoryBytes) {
+        this.name = name;
+        this.kind = kind;
+        this.distinctValues = distinctValues;
+        this.missing = missing;
+        this.memoryBytes = memoryBytes;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    public int getDistinctValues() { return distinctValues; }
+    public void setDistinctValues(int distinctValues) { this.distinctValues = distinctValues; }
+    public int getMissing() { return missing; }
+    public void setMissing(int missing) { this.missing = missing; }
+    public long getMemoryBytes() { return memoryBytes; }
+    public void setMemoryBytes(long memoryBytes) { this.memoryBytes = memoryBytes; }
+}
@@ -0,0 +1,23 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class CohortCrossTabDTO {
+    private String rowColumn;
+    private String columnColumn;
+    private List<String> rowValues;
+    private List<String> columnValues;
+    // counts[i][j] = rows with rowValues[i] and columnValues[j]
+    private long[][] counts;
+
+    public String getRowColumn() { return rowColumn; }
+    public void setRowColumn(String rowColumn) { this.rowColumn = rowColumn; }
+    public String getColumnColumn() { return columnColumn; }
+    public void setColumnColumn(String columnColumn) { this.columnColumn = columnColumn; }
+    public List<String> getRowValues() { return rowValues; }
+    public void setRowValues(List<String> rowValues) { this.rowValues = rowValues; }
+    public List<String> getColumnValues() { return columnValues; }
+    public void setColumnValues(List<String> columnValues) { this.columnValues = columnValues; }
+    public long[][] getCounts() { return counts; }
+    public void setCounts(long[][] counts) { this.counts = counts; }
+}
@@ -0,0 +1,40 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class CohortDatasetDTO {
+    private String id;
+    private String name;
+    private String createdAt;
+    private long version;
+    private int rowCount;
+    private int liveRowCount;
+    private int deletedRowCount;
+    private long memoryBytes;
+    private long indexBytes;
+    private long searchIndexBytes;
+    private List<CohortColumnStatsDTO> columns;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public int getRowCount() { return rowCount; }
+    public void setRowCount(int rowCount) { this.rowCount = rowCount; }
+    public int getLiveRowCount() { return liveRowCount; }
+    public void setLiveRowCount(int liveRowCount) { this.liveRowCount = liveRowCount; }
+    public int getDeletedRowCount() { return deletedRowCount; }
+    public void setDeletedRowCount(int deletedRowCount) { this.deletedRowCount = deletedRowCount; }
+    public long getMemoryBytes() { return memoryBytes; }
+    public void setMemoryBytes(long memoryBytes) { this.memoryBytes = memoryBytes; }
+    public long getIndexBytes() { return indexBytes; }
+    public void setIndexBytes(long indexBytes) { this.indexBytes = indexBytes; }
+    public long getSearchIndexBytes() { return searchIndexBytes; }
+    public void setSearchIndexBytes(long searchIndexBytes) { this.searchIndexBytes = searchIndexBytes; }
+    public List<CohortColumnStatsDTO> getColumns() { return columns; }
+    public void setColumns(List<CohortColumnStatsDTO> columns) { this.columns = columns; }
+}
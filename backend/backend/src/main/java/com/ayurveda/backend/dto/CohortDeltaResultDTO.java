@@ -0,0 +1,41 @@
+package com.ayurveda.backend.dto;
+
+public class CohortDeltaResultDTO {
+    private String datasetId;
+    private long version;
+    private int records;
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int unmatchedDeletes;
+    private int rowCount;
+    private int liveRowCount;
+    private int deletedRowCount;
+    private boolean compactionScheduled;
+    private long elapsedMillis;
+
+    public String getDatasetId() { return datasetId; }
+    public void setDatasetId(String datasetId) { this.datasetId = datasetId; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public int getRecords() { return records; }
+    public void setRecords(int records) { this.records = records; }
+    public int getInserted() { return inserted; }
+    public void setInserted(int inserted) { this.inserted = inserted; }
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+    public int getDeleted() { return deleted; }
+    public void setDeleted(int deleted) { this.deleted = deleted; }
+    public int getUnmatchedDeletes() { return unmatchedDeletes; }
+    public void setUnmatchedDeletes(int unmatchedDeletes) { this.unmatchedDeletes = unmatchedDeletes; }
+    public int getRowCount() { return rowCount; }
+    public void setRowCount(int rowCount) { this.rowCount = rowCount; }
+    public int getLiveRowCount() { return liveRowCount; }
+    public void setLiveRowCount(int liveRowCount) { this.liveRowCount = liveRowCount; }
+    public int getDeletedRowCount() { return deletedRowCount; }
+    public void setDeletedRowCount(int deletedRowCount) { this.deletedRowCount = deletedRowCount; }
+    public boolean isCompactionScheduled() { return compactionScheduled; }
+    public void setCompactionScheduled(boolean compactionScheduled) { this.compactionScheduled = compactionScheduled; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
@@ -0,0 +1,18 @@
+package com.ayurveda.backend.dto;
+
+public class CohortEstimateDTO {
+    private double estimate;
+    // The true value lies between lower and upper with the given confidence (1 for guaranteed bounds)
+    private double lower;
+    private double upper;
+    private double confidence;
+
+    public double getEstimate() { return estimate; }
+    public void setEstimate(double estimate) { this.estimate = estimate; }
+    public double getLower() { return lower; }
+    public void setLower(double lower) { this.lower = lower; }
+    public double getUpper() { return upper; }
+    public void setUpper(double upper) { this.upper = upper; }
+    public double getConfidence() { return confidence; }
+    public void setConfidence(double confidence) { this.confidence = confidence; }
+}
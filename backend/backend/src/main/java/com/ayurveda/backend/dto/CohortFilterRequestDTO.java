@@ -0,0 +1,29 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class CohortFilterRequestDTO {
+    // column name -> selected values; "All" or an empty list leaves the column unconstrained
+    private Map<String, List<String>> filters;
+    private List<String> ageBrackets;
+    // "count" (default), "ids" or "rows"
+    private String include;
+    private Integer offset;
+    private Integer limit;
+    // Export only: columns to write, in order; null or empty writes every column
+    private List<String> columns;
+
+    public Map<String, List<String>> getFilters() { return filters; }
+    public void setFilters(Map<String, List<String>> filters) { this.filters = filters; }
+    public List<String> getAgeBrackets() { return ageBrackets; }
+    public void setAgeBrackets(List<String> ageBrackets) { this.ageBrackets = ageBrackets; }
+    public String getInclude() { return include; }
+    public void setInclude(String include) { this.include = include; }
+    public Integer getOffset() { return offset; }
+    public void setOffset(Integer offset) { this.offset = offset; }
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+    public List<String> getColumns() { return columns; }
+    public void setColumns(List<String> columns) { this.columns = columns; }
+}
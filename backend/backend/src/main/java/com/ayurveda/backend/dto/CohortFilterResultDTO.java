@@ -0,0 +1,23 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class CohortFilterResultDTO {
+    private long count;
+    private long elapsedMicros;
+    private List<Integer> ids;
+    private List<Map<String, String>> rows;
+    private Integer nextOffset;
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public long getElapsedMicros() { return elapsedMicros; }
+    public void setElapsedMicros(long elapsedMicros) { this.elapsedMicros = elapsedMicros; }
+    public List<Integer> getIds() { return ids; }
+    public void setIds(List<Integer> ids) { this.ids = ids; }
+    public List<Map<String, String>> getRows() { return rows; }
+    public void setRows(List<Map<String, String>> rows) { this.rows = rows; }
+    public Integer getNextOffset() { return nextOffset; }
+    public void setNextOffset(Integer nextOffset) { this.nextOffset = nextOffset; }
+}
@@ -0,0 +1,25 @@
+package com.ayurveda.backend.dto;
+
+import java.util.Map;
+
+public class CohortNumericStatsDTO {
+    private long count;
+    private long missing;
+    private Double mean;
+    private Double min;
+    private Double max;
+    private Map<String, Double> percentiles;
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public long getMissing() { return missing; }
+    public void setMissing(long missing) { this.missing = missing; }
+    public Double getMean() { return mean; }
+    public void setMean(Double mean) { this.mean = mean; }
+    public Double getMin() { return min; }
+    public void setMin(Double min) { this.min = min; }
+    public Double getMax() { return max; }
+    public void setMax(Double max) { this.max = max; }
+    public Map<String, Double> getPercentiles() { return percentiles; }
+    public void setPercentiles(Map<String, Double> percentiles) { this.percentiles = percentiles; }
+}
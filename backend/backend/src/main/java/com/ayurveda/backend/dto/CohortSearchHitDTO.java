@@ -0,0 +1,28 @@
+package com.ayurveda.backend.dto;
+
+import java.util.Map;
+
+public class CohortSearchHitDTO {
+    private String datasetId;
+    private int row;
+    private int score;
+    private Map<String, String> fields;
+
+    public CohortSearchHitDTO() {}
+
+    public CohortSearchHitDTO(String datasetId, int row, int score, Map<String, String> fields) {
+        this.datasetId = datasetId;
+        this.row = row;
+        this.score = score;
+        this.fields = fields;
+    }
+
+    public String getDatasetId() { return datasetId; }
+    public void setDatasetId(String datasetId) { this.datasetId = datasetId; }
+    public int getRow() { return row; }
+    public void setRow(int row) { this.row = row; }
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+    public Map<String, String> getFields() { return fields; }
+    public void setFields(Map<String, String> fields) { this.fields = fields; }
+}
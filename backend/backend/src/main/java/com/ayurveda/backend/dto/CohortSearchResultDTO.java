@@ -0,0 +1,23 @@
+package com.ayurveda.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CohortSearchResultDTO {
+    private String query;
+    private long total;
+    private long elapsedMicros;
+    private List<CohortSearchHitDTO> hits = new ArrayList<>();
+    private Integer nextOffset;
+
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public long getElapsedMicros() { return elapsedMicros; }
+    public void setElapsedMicros(long elapsedMicros) { this.elapsedMicros = elapsedMicros; }
+    public List<CohortSearchHitDTO> getHits() { return hits; }
+    public void setHits(List<CohortSearchHitDTO> hits) { this.hits = hits; }
+    public Integer getNextOffset() { return nextOffset; }
+    public void setNextOffset(Integer nextOffset) { this.nextOffset = nextOffset; }
+}
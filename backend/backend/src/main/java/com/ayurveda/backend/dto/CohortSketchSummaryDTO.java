@@ -0,0 +1,23 @@
+package com.ayurveda.backend.dto;
+
+import java.util.Map;
+
+public class CohortSketchSummaryDTO {
+    // Null for the overall summary
+    private String village;
+    private long rows;
+    private CohortEstimateDTO distinctPatients;
+    private Map<String, CohortVitalSketchDTO> vitals;
+    private Map<String, CohortTopValuesDTO> topValues;
+
+    public String getVillage() { return village; }
+    public void setVillage(String village) { this.village = village; }
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+    public CohortEstimateDTO getDistinctPatients() { return distinctPatients; }
+    public void setDistinctPatients(CohortEstimateDTO distinctPatients) { this.distinctPatients = distinctPatients; }
+    public Map<String, CohortVitalSketchDTO> getVitals() { return vitals; }
+    public void setVitals(Map<String, CohortVitalSketchDTO> vitals) { this.vitals = vitals; }
+    public Map<String, CohortTopValuesDTO> getTopValues() { return topValues; }
+    public void setTopValues(Map<String, CohortTopValuesDTO> topValues) { this.topValues = topValues; }
+}
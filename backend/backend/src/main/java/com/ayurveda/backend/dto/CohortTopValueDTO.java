@@ -0,0 +1,15 @@
+package com.ayurveda.backend.dto;
+
+public class CohortTopValueDTO {
+    private String value;
+    // The true count lies between count and upperBound
+    private long count;
+    private long upperBound;
+
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public long getUpperBound() { return upperBound; }
+    public void setUpperBound(long upperBound) { this.upperBound = upperBound; }
+}
@@ -0,0 +1,17 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class CohortTopValuesDTO {
+    private long total;
+    // Counts are at most this much below the true ones; a value not listed occurs at most this often
+    private long maxError;
+    private List<CohortTopValueDTO> values;
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public long getMaxError() { return maxError; }
+    public void setMaxError(long maxError) { this.maxError = maxError; }
+    public List<CohortTopValueDTO> getValues() { return values; }
+    public void setValues(List<CohortTopValueDTO> values) { this.values = values; }
+}
@@ -0,0 +1,24 @@
+package com.ayurveda.backend.dto;
+
+import java.util.Map;
+
+public class CohortVitalSketchDTO {
+    private long count;
+    private double min;
+    private double max;
+    // Each quantile is within this fraction of the true value
+    private double relativeError;
+    // "p50", "p90", ...
+    private Map<String, CohortEstimateDTO> quantiles;
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+    public double getMin() { return min; }
+    public void setMin(double min) { this.min = min; }
+    public double getMax() { return max; }
+    public void setMax(double max) { this.max = max; }
+    public double getRelativeError() { return relativeError; }
+    public void setRelativeError(double relativeError) { this.relativeError = relativeError; }
+    public Map<String, CohortEstimateDTO> getQuantiles() { return quantiles; }
+    public void setQuantiles(Map<String, CohortEstimateDTO> quantiles) { this.quantiles = quantiles; }
+}
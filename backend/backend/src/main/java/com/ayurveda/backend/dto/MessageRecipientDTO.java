@@ -0,0 +1,27 @@
+package com.ayurveda.backend.dto;
+
+// Fields an outbox message template can use; built by the JPQL projection in UserRepository
+public class MessageRecipientDTO {
+    private final Long id;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final String phone;
+    private final String department;
+
+    public MessageRecipientDTO(Long id, String username, String firstName, String lastName, String phone, String department) {
+        this.id = id;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phone = phone;
+        this.department = department;
+    }
+
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getPhone() { return phone; }
+    public String getDepartment() { return department; }
+}
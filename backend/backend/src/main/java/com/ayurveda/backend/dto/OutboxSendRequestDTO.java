@@ -0,0 +1,27 @@
+package com.ayurveda.backend.dto;
+
+import java.util.List;
+
+public class OutboxSendRequestDTO {
+    // Sink channel, e.g. "whatsapp" or "stub"
+    private String channel;
+    // Supports {{name}}, {{firstName}}, {{lastName}}, {{username}}, {{department}} and {{phone}}
+    private String message;
+    // Role names; null or empty targets every role
+    private List<String> roles;
+    // Null or empty targets every department
+    private List<String> departments;
+    // ISO-8601 instant for a scheduled send; null sends now
+    private String scheduledAt;
+
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    public List<String> getRoles() { return roles; }
+    public void setRoles(List<String> roles) { this.roles = roles; }
+    public List<String> getDepartments() { return departments; }
+    public void setDepartments(List<String> departments) { this.departments = departments; }
+    public String getScheduledAt() { return scheduledAt; }
+    public void setScheduledAt(String scheduledAt) { this.scheduledAt = scheduledAt; }
+}
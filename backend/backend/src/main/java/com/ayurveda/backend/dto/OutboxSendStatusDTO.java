@@ -0,0 +1,37 @@
+package com.ayurveda.backend.dto;
+
+public class OutboxSendStatusDTO {
+    private String sendId;
+    private String channel;
+    private long total;
+    private long pending;
+    private long sending;
+    private long sent;
+    private long failed;
+    private String scheduledAt;
+    // Only set on the response to the send request
+    private Long enqueueMillis;
+    // Creation of the first row to delivery of the last one, once nothing is pending
+    private Long drainMillis;
+
+    public String getSendId() { return sendId; }
+    public void setSendId(String sendId) { this.sendId = sendId; }
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public long getPending() { return pending; }
+    public void setPending(long pending) { this.pending = pending; }
+    public long getSending() { return sending; }
+    public void setSending(long sending) { this.sending = sending; }
+    public long getSent() { return sent; }
+    public void setSent(long sent) { this.sent = sent; }
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    public String getScheduledAt() { return scheduledAt; }
+    public void setScheduledAt(String scheduledAt) { this.scheduledAt = scheduledAt; }
+    public Long getEnqueueMillis() { return enqueueMillis; }
+    public void setEnqueueMillis(Long enqueueMillis) { this.enqueueMillis = enqueueMillis; }
+    public Long getDrainMillis() { return drainMillis; }
+    public void setDrainMillis(Long drainMillis) { this.drainMillis = drainMillis; }
+}
@@ -0,0 +1,26 @@
+package com.ayurveda.backend.dto;
+
+public class ReportCountDTO {
+    private long userId;
+    private Long managerId;
+    private int directReports;
+    private int totalReports;
+
+    public ReportCountDTO() {}
+
+    public ReportCountDTO(long userId, Long managerId, int directReports, int totalReports) {
+        this.userId = userId;
+        this.managerId = managerId;
+        this.directReports = directReports;
+        this.totalReports = totalReports;
+    }
+
+    public long getUserId() { return userId; }
+    public void setUserId(long userId) { this.userId = userId; }
+    public Long getManagerId() { return managerId; }
+    public void setManagerId(Long managerId) { this.managerId = managerId; }
+    public int getDirectReports() { return directReports; }
+    public void setDirectReports(int directReports) { this.directReports = directReports; }
+    public int getTotalReports() { return totalReports; }
+    public void setTotalReports(int totalReports) { this.totalReports = totalReports; }
+}
@@ -10,6 +10,7 @@ public class UserRequestDTO {
     private String department;
     private String employeeId;
     private String reportingManager;
+    private Long managerId;
     private String status;
     private Integer roleId;
 
@@ -31,6 +32,8 @@ public class UserRequestDTO {
     public void setEmployeeId(String employeeId) { this.employeeId = employeeId; }
     public String getReportingManager() { return reportingManager; }
     public void setReportingManager(String reportingManager) { this.reportingManager = reportingManager; }
+    public Long getManagerId() { return managerId; }
+    public void setManagerId(Long managerId) { this.managerId = managerId; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     public Integer getRoleId() { return roleId; }
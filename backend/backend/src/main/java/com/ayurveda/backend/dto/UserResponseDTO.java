@@ -1,5 +1,7 @@
 package com.ayurveda.backend.dto;
 
+import com.ayurveda.backend.entity.User;
+
 public class UserResponseDTO {
     private Long id;
     private String username;
@@ -10,11 +12,30 @@ public class UserResponseDTO {
     private String department;
     private String employeeId;
     private String reportingManager;
+    private Long managerId;
     private String status;
     private String roleName;
 
     public UserResponseDTO() {}
 
+    // Used by the JPQL constructor projections in UserRepository
+    public UserResponseDTO(Long id, String username, String firstName, String lastName, String email, String phone,
+                           String department, String employeeId, String reportingManager, Long managerId, User.Status status,
+                           String roleName) {
+        this.id = id;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+        this.department = department;
+        this.employeeId = employeeId;
+        this.reportingManager = reportingManager;
+        this.managerId = managerId;
+        this.status = status != null ? status.name() : null;
+        this.roleName = roleName;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getUsername() { return username; }
@@ -33,6 +54,8 @@ public class UserResponseDTO {
     public void setEmployeeId(String employeeId) { this.employeeId = employeeId; }
     public String getReportingManager() { return reportingManager; }
     public void setReportingManager(String reportingManager) { this.reportingManager = reportingManager; }
+    public Long getManagerId() { return managerId; }
+    public void setManagerId(Long managerId) { this.managerId = managerId; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
     public String getRoleName() { return roleName; }
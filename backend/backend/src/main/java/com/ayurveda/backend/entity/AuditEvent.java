@@ -0,0 +1,52 @@
+package com.ayurveda.backend.entity;
+
+import com.ayurveda.backend.audit.AuditEventType;
+import jakarta.persistence.*;
+
+// Append-only access log and audit trail. Rows are inserted by AuditService's writer in JDBC batches
+// and never updated; the entity maps the table for schema generation and queries.
+@Entity
+@Table(name = "audit_events", indexes = {
+    @Index(name = "idx_audit_time", columnList = "occurred_at"),
+    @Index(name = "idx_audit_username", columnList = "username, occurred_at"),
+    @Index(name = "idx_audit_type", columnList = "event_type, occurred_at")
+})
+public class AuditEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private java.sql.Timestamp occurredAt;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    @Enumerated(EnumType.STRING)
+    private AuditEventType type;
+
+    @Column(length = 255)
+    private String username;
+
+    @Column(length = 255)
+    private String actor;
+
+    @Column(name = "client_ip", length = 45)
+    private String clientIp;
+
+    @Column(length = 500)
+    private String detail;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public java.sql.Timestamp getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(java.sql.Timestamp occurredAt) { this.occurredAt = occurredAt; }
+    public AuditEventType getType() { return type; }
+    public void setType(AuditEventType type) { this.type = type; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+    public String getClientIp() { return clientIp; }
+    public void setClientIp(String clientIp) { this.clientIp = clientIp; }
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
+}
@@ -0,0 +1,84 @@
+package com.ayurveda.backend.entity;
+
+import jakarta.persistence.*;
+
+// One message to one recipient. Rows are written when a send is requested and are the dispatcher's
+// durable queue: a message is only marked SENT after the gateway accepted it, so a crash mid-send
+// resumes where it stopped (a message being sent at the time of the crash may go out twice).
+@Entity
+@Table(name = "outbox_messages", indexes = {
+    @Index(name = "idx_outbox_due", columnList = "channel, status, next_attempt_at"),
+    @Index(name = "idx_outbox_send", columnList = "send_id")
+})
+public class OutboxMessage {
+    // Pooled sequence sized to the JDBC batch so a 100k-recipient send is written in batched INSERTs
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "send_id", nullable = false, length = 36)
+    private String sendId;
+
+    @Column(nullable = false, length = 32)
+    private String channel;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false, length = 32)
+    private String recipient;
+
+    @Column(nullable = false, length = 4096)
+    private String body;
+
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    // PENDING: waiting to be sent; SENDING: claimed by the dispatcher until next_attempt_at (lease)
+    public enum Status { PENDING, SENDING, SENT, FAILED }
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Scheduled time for the first attempt, then the backoff time for retries
+    @Column(name = "next_attempt_at", nullable = false)
+    private java.sql.Timestamp nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private java.sql.Timestamp createdAt;
+
+    @Column(name = "sent_at")
+    private java.sql.Timestamp sentAt;
+
+    public OutboxMessage() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getSendId() { return sendId; }
+    public void setSendId(String sendId) { this.sendId = sendId; }
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public java.sql.Timestamp getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(java.sql.Timestamp nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public java.sql.Timestamp getCreatedAt() { return createdAt; }
+    public void setCreatedAt(java.sql.Timestamp createdAt) { this.createdAt = createdAt; }
+    public java.sql.Timestamp getSentAt() { return sentAt; }
+    public void setSentAt(java.sql.Timestamp sentAt) { this.sentAt = sentAt; }
+}
@@ -7,10 +7,16 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_manager", columnList = "manager_id"))
 public class User {
+    public static final String ID_SEQUENCE = "users_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence with a pooled allocation so Hibernate can batch INSERTs (IDENTITY forces one round trip per row).
+    // Tables created under the old IDENTITY ids get the sequence moved past them by UserSequenceInitializer.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -40,13 +46,20 @@ public class User {
     @Column
     private String reportingManager;
 
+    // The reporting line as a relationship (reportingManager stays a free-text label); the org-tree queries are
+    // served from OrgHierarchyService, which is built from this column
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "manager_id")
+    private User manager;
+
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private Status status = Status.ACTIVE;
 
     public enum Status { ACTIVE, INACTIVE, PENDING }
 
-    @ManyToOne
+    // Lazy: role names are resolved through RoleRegistry by id, so reads never join or fetch roles
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "role_id", nullable = false)
     private Role role;
 
@@ -80,6 +93,8 @@ public class User {
     public void setEmployeeId(String employeeId) { this.employeeId = employeeId; }
     public String getReportingManager() { return reportingManager; }
     public void setReportingManager(String reportingManager) { this.reportingManager = reportingManager; }
+    public User getManager() { return manager; }
+    public void setManager(User manager) { this.manager = manager; }
     public Status getStatus() { return status; }
     public void setStatus(Status status) { this.status = status; }
     public Role getRole() { return role; }
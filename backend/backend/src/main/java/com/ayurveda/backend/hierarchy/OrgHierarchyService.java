@@ -0,0 +1,201 @@
+package com.ayurveda.backend.hierarchy;
+
+import com.ayurveda.backend.dto.ReportCountDTO;
+import com.ayurveda.backend.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// The reporting hierarchy (users.manager_id) held in memory as an OrgTree, behind the org-tree endpoints.
+// Loaded from the table on first use, then kept current by UserService and the bulk import after each committed
+// write, so subtree pages, report counts and "is X under Y" never walk the table. Every update is idempotent,
+// which makes a write that raced the initial load harmless. If the tree ever disagrees with the table (two
+// concurrent moves that together form a cycle), it is dropped and reloaded on next use.
+@Service
+public class OrgHierarchyService {
+    private static final Logger logger = LoggerFactory.getLogger(OrgHierarchyService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Reads share the lock; writes, the load and renumbering take it exclusively
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private OrgTree tree;
+    private volatile long loads;
+    private Timer loadTimer;
+    private Timer renumberTimer;
+
+    @PostConstruct
+    void start() {
+        loadTimer = Timer.builder("users.hierarchy.load").register(meterRegistry);
+        renumberTimer = Timer.builder("users.hierarchy.renumber").register(meterRegistry);
+        Gauge.builder("users.hierarchy.size", this, OrgHierarchyService::loadedSize).register(meterRegistry);
+        FunctionCounter.builder("users.hierarchy.loads", this, service -> service.loads).register(meterRegistry);
+    }
+
+    public boolean exists(long id) {
+        return read(tree -> tree.contains(id));
+    }
+
+    // Throws IllegalArgumentException for an unknown manager or one that would close a cycle
+    public void checkManager(Long id, Long managerId) {
+        if (managerId == null) return;
+        read(tree -> {
+            if (!tree.contains(managerId)) throw new IllegalArgumentException("Invalid manager ID");
+            if (id != null && (id.equals(managerId) || tree.isUnder(managerId, id))) {
+                throw new IllegalArgumentException("A user cannot report to themselves or to one of their reports");
+            }
+            return null;
+        });
+    }
+
+    // After a create or update is committed
+    public void userSaved(long id, Long managerId) {
+        write(tree -> {
+            try {
+                tree.put(id, managerId);
+            } catch (IllegalArgumentException ex) {
+                logger.warn("Reporting hierarchy out of step with the table ({}), reloading on next use", ex.getMessage());
+                this.tree = null;
+            }
+            return null;
+        });
+    }
+
+    // After a delete is committed; the user's reports move up to its manager, as they did in the table
+    public void userDeleted(long id) {
+        write(tree -> tree.remove(id));
+    }
+
+    // Null when the user is unknown
+    public ReportCountDTO countReports(long id) {
+        return read(tree -> tree.contains(id)
+                ? new ReportCountDTO(id, tree.managerOf(id), tree.directReports(id), tree.allReports(id))
+                : null);
+    }
+
+    // Null when either user is unknown
+    public Boolean isUnder(long id, long managerId) {
+        return read(tree -> tree.contains(id) && tree.contains(managerId) ? tree.isUnder(id, managerId) : null);
+    }
+
+    // A page of the manager's subtree in org-chart order; null when the manager is unknown
+    public long[] reportsPage(long managerId, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            if (tree != null && tree.isNumbered()) return tree.reportsPage(managerId, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // First listing since a change: renumber, then downgrade so other readers can proceed
+        lock.writeLock().lock();
+        try {
+            OrgTree current = loaded();
+            if (!current.isNumbered()) renumberTimer.record(current::renumber);
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return tree.reportsPage(managerId, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Scrapes must not trigger the load
+    private int loadedSize() {
+        lock.readLock().lock();
+        try {
+            return tree != null ? tree.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("loaded", tree != null);
+            stats.put("users", tree != null ? tree.size() : 0);
+            stats.put("topLevelUsers", tree != null ? tree.getRoots() : 0);
+            stats.put("numbered", tree != null && tree.isNumbered());
+            stats.put("renumberings", tree != null ? tree.getRenumberings() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("loads", loads);
+        stats.put("loadMillis", loadTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("renumberMillis", renumberTimer.mean(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    private <T> T read(Function<OrgTree, T> query) {
+        lock.readLock().lock();
+        try {
+            if (tree != null) return query.apply(tree);
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            return query.apply(loaded());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Before the first load there is nothing to update: the load reads the committed row
+    private <T> T write(Function<OrgTree, T> update) {
+        lock.writeLock().lock();
+        try {
+            return tree != null ? update.apply(tree) : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private OrgTree loaded() {
+        if (tree == null) tree = loadTimer.record(this::load);
+        return tree;
+    }
+
+    private OrgTree load() {
+        List<Object[]> lines = userRepository.findAllReportingLines();
+        OrgTree loaded = new OrgTree();
+        // Every user first, so a manager with a higher id than its report is already there when linked
+        List<Object[]> managed = new ArrayList<>();
+        for (Object[] line : lines) {
+            loaded.put((Long) line[0], null);
+            if (line[1] != null) managed.add(line);
+        }
+        for (Object[] line : managed) {
+            try {
+                loaded.put((Long) line[0], (Long) line[1]);
+            } catch (IllegalArgumentException ex) {
+                logger.warn("User {} left at top level: manager {} ({})", line[0], line[1], ex.getMessage());
+            }
+        }
+        loads++;
+        logger.info("Reporting hierarchy loaded: {} users, {} with a manager", loaded.size(), managed.size());
+        return loaded;
+    }
+}
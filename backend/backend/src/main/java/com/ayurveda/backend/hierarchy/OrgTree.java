@@ -0,0 +1,190 @@
+package com.ayurveda.backend.hierarchy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reporting lines over user ids: a forest where each user has at most one manager. Subtree sizes are kept current
+// on every change (O(depth)), so report counts are O(1). For listing, users are numbered in pre-order, which makes
+// a manager's whole subtree the contiguous range [pre, pre + size); the numbering is rebuilt in one O(n) pass by
+// the first listing after a change, and while it is current "is X under Y" is a range check instead of a walk.
+// Not thread-safe: OrgHierarchyService guards it.
+public class OrgTree {
+    private static final Comparator<Node> BY_ID = Comparator.comparingLong(node -> node.id);
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private long[] order = new long[0];
+    private boolean numbered = true;
+    private int roots;
+    private long renumberings;
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(long id) {
+        return nodes.containsKey(id);
+    }
+
+    // Adds the user, or moves it with its whole subtree; a null manager makes it a top-level user
+    public void put(long id, Long managerId) {
+        Node manager = null;
+        if (managerId != null) {
+            manager = nodes.get(managerId);
+            if (manager == null) throw new IllegalArgumentException("Unknown manager " + managerId);
+        }
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id);
+            nodes.put(id, node);
+        } else {
+            if (node.parent == manager) return;
+            if (manager != null && isSelfOrUnder(manager, node)) {
+                throw new IllegalArgumentException("A user cannot report to themselves or to one of their reports");
+            }
+            detach(node);
+        }
+        attach(node, manager);
+        numbered = false;
+    }
+
+    // The user's direct reports move up to its manager; returns their ids
+    public List<Long> remove(long id) {
+        Node node = nodes.remove(id);
+        if (node == null) return List.of();
+        Node manager = node.parent;
+        detach(node);
+        List<Long> moved = new ArrayList<>(node.children.size());
+        for (Node child : node.children) {
+            child.parent = null;
+            attach(child, manager);
+            moved.add(child.id);
+        }
+        node.children.clear();
+        numbered = false;
+        return moved;
+    }
+
+    // Null when the user is unknown or has no manager
+    public Long managerOf(long id) {
+        Node node = nodes.get(id);
+        return node != null && node.parent != null ? node.parent.id : null;
+    }
+
+    public int directReports(long id) {
+        Node node = nodes.get(id);
+        return node != null ? node.children.size() : 0;
+    }
+
+    // Everyone under the user, directly or not
+    public int allReports(long id) {
+        Node node = nodes.get(id);
+        return node != null ? node.size - 1 : 0;
+    }
+
+    // True when managerId is somewhere in id's management chain (false for id == managerId)
+    public boolean isUnder(long id, long managerId) {
+        Node node = nodes.get(id);
+        Node manager = nodes.get(managerId);
+        return node != null && manager != null && node != manager && isSelfOrUnder(node, manager);
+    }
+
+    public boolean isNumbered() {
+        return numbered;
+    }
+
+    // One iterative depth-first pass over the forest; reports are visited in id order so pages are stable
+    public void renumber() {
+        if (order.length != nodes.size()) order = new long[nodes.size()];
+        List<Node> top = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (node.parent == null) top.add(node);
+        }
+        top.sort(BY_ID);
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        int next = 0;
+        for (Node root : top) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                node.pre = next;
+                order[next++] = node.id;
+                List<Node> children = node.children;
+                // Nearly always sorted already (ids grow), which TimSort handles in one pass
+                children.sort(BY_ID);
+                for (int i = children.size() - 1; i >= 0; i--) stack.push(children.get(i));
+            }
+        }
+        roots = top.size();
+        numbered = true;
+        renumberings++;
+    }
+
+    // Up to limit ids of the manager's subtree in pre-order, after the report afterId (null: from the start).
+    // Requires a current numbering; null when the manager is unknown.
+    public long[] reportsPage(long managerId, Long afterId, int limit) {
+        if (!numbered) throw new IllegalStateException("Renumber before listing");
+        Node manager = nodes.get(managerId);
+        if (manager == null) return null;
+        int end = manager.pre + manager.size;
+        int start = manager.pre + 1;
+        if (afterId != null) {
+            Node after = nodes.get(afterId);
+            // The cursor user has since left this subtree (moved or deleted)
+            if (after == null || after.pre <= manager.pre || after.pre >= end) throw new IllegalArgumentException("Invalid cursor");
+            start = after.pre + 1;
+        }
+        return Arrays.copyOfRange(order, start, Math.max(start, Math.min(end, start + limit)));
+    }
+
+    public int getRoots() {
+        return roots;
+    }
+
+    public long getRenumberings() {
+        return renumberings;
+    }
+
+    private boolean isSelfOrUnder(Node node, Node manager) {
+        if (numbered && node.pre >= 0 && manager.pre >= 0) {
+            return node.pre >= manager.pre && node.pre < manager.pre + manager.size;
+        }
+        for (Node n = node; n != null; n = n.parent) {
+            if (n == manager) return true;
+        }
+        return false;
+    }
+
+    private static void attach(Node node, Node manager) {
+        node.parent = manager;
+        if (manager == null) return;
+        manager.children.add(node);
+        for (Node n = manager; n != null; n = n.parent) n.size += node.size;
+    }
+
+    private static void detach(Node node) {
+        Node manager = node.parent;
+        if (manager == null) return;
+        manager.children.remove(node);
+        for (Node n = manager; n != null; n = n.parent) n.size -= node.size;
+        node.parent = null;
+    }
+
+    private static final class Node {
+        private final long id;
+        private Node parent;
+        private final List<Node> children = new ArrayList<>(0);
+        // Users in this subtree, including this one
+        private int size = 1;
+        // Position in the pre-order numbering, -1 until numbered
+        private int pre = -1;
+
+        private Node(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ayurveda.backend.messaging;
+
+// Thrown by a sink when the gateway did not accept a message. Retryable failures (timeouts, throttling,
+// 5xx) are tried again with backoff; permanent ones (invalid number, rejected content) fail the message.
+public class MessageDeliveryException extends Exception {
+    private final boolean retryable;
+
+    public MessageDeliveryException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public MessageDeliveryException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
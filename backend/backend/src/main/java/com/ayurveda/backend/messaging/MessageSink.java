@@ -0,0 +1,9 @@
+package com.ayurveda.backend.messaging;
+
+// A delivery channel for outbox messages. Every Spring bean implementing this is picked up by the
+// dispatcher and addressed by its channel name; send() is called from several worker threads at once.
+public interface MessageSink {
+    String getChannel();
+
+    void send(OutgoingMessage message) throws MessageDeliveryException;
+}
@@ -0,0 +1,22 @@
+package com.ayurveda.backend.messaging;
+
+// What a sink needs to deliver one outbox row; attempt is 1 for the first try
+public class OutgoingMessage {
+    private final Long id;
+    private final String recipient;
+    private final String body;
+    private final int attempt;
+
+    // Used by the JPQL constructor projection in OutboxMessageRepository
+    public OutgoingMessage(Long id, String recipient, String body, int attempts) {
+        this.id = id;
+        this.recipient = recipient;
+        this.body = body;
+        this.attempt = attempts + 1;
+    }
+
+    public Long getId() { return id; }
+    public String getRecipient() { return recipient; }
+    public String getBody() { return body; }
+    public int getAttempt() { return attempt; }
+}
@@ -0,0 +1,53 @@
+package com.ayurveda.backend.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local stand-in for a messaging gateway ("stub" channel): accepts every message after an optional
+// simulated latency, and fails a configurable share of them with a retryable error. Nothing leaves the server.
+@Component
+public class StubMessageSink implements MessageSink {
+    public static final String CHANNEL = "stub";
+
+    @Value("${outbox.stub.latency-ms:0}")
+    private long latencyMillis;
+
+    @Value("${outbox.stub.failure-rate:0}")
+    private double failureRate;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Override
+    public String getChannel() {
+        return CHANNEL;
+    }
+
+    @Override
+    public void send(OutgoingMessage message) throws MessageDeliveryException {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MessageDeliveryException("Interrupted", true, e);
+            }
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failed.increment();
+            throw new MessageDeliveryException("Simulated gateway failure", true);
+        }
+        delivered.increment();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package com.ayurveda.backend.messaging;
+
+// Token bucket: refills at ratePerSecond up to burst tokens. Callers take as many tokens as are
+// available (up to what they want) and hand back the ones they could not use.
+public class TokenBucket {
+    private final double ratePerSecond;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        if (ratePerSecond <= 0 || burst < 1) throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    public synchronized int tryAcquireUpTo(int wanted) {
+        refill();
+        int granted = (int) Math.min(wanted, Math.floor(tokens));
+        tokens -= granted;
+        return granted;
+    }
+
+    public synchronized void release(int unused) {
+        tokens = Math.min(burst, tokens + unused);
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerSecond / 1e9);
+        refilledAt = now;
+    }
+}
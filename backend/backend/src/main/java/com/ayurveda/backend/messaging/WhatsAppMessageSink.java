@@ -0,0 +1,73 @@
+package com.ayurveda.backend.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+// WhatsApp Cloud API text messages ("whatsapp" channel), the same call the bulk messenger's server.js made.
+// Only registered when outbox.whatsapp.access-token is set.
+@Component
+@ConditionalOnExpression("!'${outbox.whatsapp.access-token:}'.isEmpty()")
+public class WhatsAppMessageSink implements MessageSink {
+    public static final String CHANNEL = "whatsapp";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${outbox.whatsapp.phone-number-id}")
+    private String phoneNumberId;
+
+    @Value("${outbox.whatsapp.access-token}")
+    private String accessToken;
+
+    @Value("${outbox.whatsapp.api-url:https://graph.facebook.com/v20.0}")
+    private String apiUrl;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    @Override
+    public String getChannel() {
+        return CHANNEL;
+    }
+
+    @Override
+    public void send(OutgoingMessage message) throws MessageDeliveryException {
+        HttpResponse<String> response;
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(Map.of(
+                    "messaging_product", "whatsapp",
+                    "to", message.getRecipient(),
+                    "type", "text",
+                    "text", Map.of("body", message.getBody())));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(apiUrl + "/" + phoneNumberId + "/messages"))
+                    .timeout(Duration.ofSeconds(20))
+                    .header("Authorization", "Bearer " + accessToken)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                    .build();
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new MessageDeliveryException("Gateway unreachable: " + e.getMessage(), true, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageDeliveryException("Interrupted", true, e);
+        }
+        int status = response.statusCode();
+        if (status / 100 == 2) return;
+        // Throttling and server errors are worth retrying; other 4xx (bad number, bad token) are not
+        boolean retryable = status == 429 || status >= 500;
+        String body = response.body();
+        throw new MessageDeliveryException("Gateway returned " + status + ": "
+                + (body.length() > 500 ? body.substring(0, 500) : body), retryable);
+    }
+}
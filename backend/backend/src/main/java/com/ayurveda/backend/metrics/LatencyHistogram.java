@@ -0,0 +1,79 @@
+package com.ayurveda.backend.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram with power-of-two microsecond buckets (1us .. ~35min).
+// Percentiles are reported as the upper bound of the bucket they fall in, so they are at most 2x pessimistic.
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets[bucketOf(micros)].increment();
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    // Upper bound (in microseconds) of the bucket holding the given quantile
+    public long percentileMicros(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBoundMicros(i), maxMicros.get());
+        }
+        return maxMicros.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long n = count.sum();
+        snapshot.put("count", n);
+        snapshot.put("meanMicros", n == 0 ? 0 : totalMicros.sum() / n);
+        snapshot.put("p50Micros", percentileMicros(0.50));
+        snapshot.put("p90Micros", percentileMicros(0.90));
+        snapshot.put("p99Micros", percentileMicros(0.99));
+        snapshot.put("maxMicros", maxMicros.get());
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = buckets[i].sum();
+            if (c > 0) histogram.put("le_" + upperBoundMicros(i) + "us", c);
+        }
+        snapshot.put("buckets", histogram);
+        return snapshot;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros <= 1) return 0;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros - 1));
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ayurveda.backend.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Registered with Hibernate as its statement inspector (see MetricsConfig): counts the statements prepared on the
+// current thread while a scope is open, per distinct SQL text. The text still has its ? placeholders, so one query
+// repeated for each row of an earlier result (the N+1 pattern) shows up as a single text with a high count.
+@Component
+public class QueryCounter implements StatementInspector {
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = current.get();
+        if (scope != null) scope.count(sql);
+        return sql;
+    }
+
+    public Scope open() {
+        Scope scope = new Scope();
+        current.set(scope);
+        return scope;
+    }
+
+    public void close() {
+        current.remove();
+    }
+
+    public static final class Scope {
+        private int total;
+        private final Map<String, Integer> bySql = new HashMap<>();
+
+        private void count(String sql) {
+            total++;
+            bySql.merge(sql, 1, Integer::sum);
+        }
+
+        public int getTotal() { return total; }
+
+        public Map<String, Integer> getBySql() { return bySql; }
+    }
+}
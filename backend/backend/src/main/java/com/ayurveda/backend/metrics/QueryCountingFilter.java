@@ -0,0 +1,120 @@
+package com.ayurveda.backend.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Records the number of SQL statements each request ran (http.server.requests.queries, by method and URI pattern)
+// and flags likely N+1 queries: one statement repeated metrics.n-plus-one.threshold times or more in a request.
+// Only statements on the request thread count; streamed responses that query from an async thread are not included.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryCountingFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountingFilter.class);
+    private static final int MAX_SITES = 200;
+
+    @Autowired
+    private QueryCounter queryCounter;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${metrics.n-plus-one.threshold:10}")
+    private int nPlusOneThreshold;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder nPlusOneRequests = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> nPlusOneSites = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter.Scope scope = queryCounter.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queryCounter.close();
+            record(request, scope);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        requests.increment();
+        statements.add(scope.getTotal());
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("SQL statements run per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.getTotal());
+
+        boolean flagged = false;
+        for (Map.Entry<String, Integer> entry : scope.getBySql().entrySet()) {
+            if (entry.getValue() < nPlusOneThreshold) continue;
+            flagged = true;
+            String site = request.getMethod() + " " + uri + ": " + entry.getKey();
+            LongAdder count = nPlusOneSites.get(site);
+            if (count == null) {
+                if (nPlusOneSites.size() >= MAX_SITES) site = "(other)";
+                else logger.atWarn().addKeyValue("method", request.getMethod()).addKeyValue("uri", uri)
+                        .addKeyValue("executions", entry.getValue()).addKeyValue("sql", entry.getKey())
+                        .log("Likely N+1 query: {} {} ran the same statement {} times: {}",
+                                request.getMethod(), uri, entry.getValue(), entry.getKey());
+                count = nPlusOneSites.computeIfAbsent(site, key -> new LongAdder());
+            }
+            count.increment();
+        }
+        if (flagged) {
+            nPlusOneRequests.increment();
+            Counter.builder("hibernate.n_plus_one")
+                    .description("Requests that repeated one SQL statement at least metrics.n-plus-one.threshold times")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long n = requests.sum();
+        stats.put("requests", n);
+        stats.put("statements", statements.sum());
+        stats.put("meanStatementsPerRequest", n == 0 ? 0 : (double) statements.sum() / n);
+        stats.put("nPlusOneThreshold", nPlusOneThreshold);
+        stats.put("nPlusOneRequests", nPlusOneRequests.sum());
+        List<Map.Entry<String, LongAdder>> top = nPlusOneSites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(20)
+                .collect(Collectors.toList());
+        Map<String, Long> topSites = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : top) topSites.put(entry.getKey(), entry.getValue().sum());
+        stats.put("nPlusOneSites", topSites);
+        return stats;
+    }
+}
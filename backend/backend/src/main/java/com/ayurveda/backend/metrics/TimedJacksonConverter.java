@@ -0,0 +1,37 @@
+package com.ayurveda.backend.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+// Jackson converter for controller return values that times each write (http.server.serialization, by body type).
+// Output goes to Tomcat's response buffer, so the time of a large body includes flushing it to the client.
+// Streamed responses (StreamingResponseBody) serialize on their own and are not included.
+public class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+    private final MeterRegistry meterRegistry;
+
+    public TimedJacksonConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        long startedAt = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            Timer.builder("http.server.serialization")
+                    .description("Jackson serialization of response bodies")
+                    .tag("type", object.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ayurveda.backend.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// In virtual-thread mode, streams the JFR jdk.VirtualThreadPinned event (Java 21+): a virtual thread that blocks
+// while pinned to its carrier (inside synchronized, or in native code) holds a platform thread for the whole wait.
+// Events are grouped by the frame that pinned, preferably one of ours, and the first sighting of each is logged.
+@Component
+public class VirtualThreadPinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 200;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${virtual-threads.pinning.threshold-ms:20}")
+    private long thresholdMillis;
+
+    private RecordingStream stream;
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> sites = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        if (!isVirtualThreadMode()) return;
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Reporting virtual threads pinned for more than {} ms", thresholdMillis);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) stream.close();
+    }
+
+    // The property is ignored by Spring Boot below Java 21, so check the runtime too
+    public boolean isVirtualThreadMode() {
+        return virtualThreadsEnabled && Runtime.version().feature() >= 21;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+        String site = siteOf(event.getStackTrace());
+        LongAdder count = sites.get(site);
+        if (count == null) {
+            if (sites.size() >= MAX_SITES) site = "(other)";
+            else logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+            count = sites.computeIfAbsent(site, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    // First application frame if there is one, else the innermost frame outside the JDK
+    private static String siteOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) return "(no stack trace)";
+        RecordedFrame library = null;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) continue;
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("com.ayurveda.")) return describe(frame);
+            if (library == null && !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) library = frame;
+        }
+        return library != null ? describe(library) : describe(stackTrace.getFrames().get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    public Map<String, Object> stats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", isVirtualThreadMode() ? "virtual" : "platform");
+        stats.put("javaVersion", Runtime.version().toString());
+        stats.put("platformThreads", threads.getThreadCount());
+        stats.put("peakPlatformThreads", threads.getPeakThreadCount());
+        stats.put("pinnedEvents", pinnedEvents.sum());
+        stats.put("pinnedMillis", pinnedNanos.sum() / 1_000_000);
+        stats.put("pinningThresholdMillis", thresholdMillis);
+        List<Map.Entry<String, LongAdder>> top = sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(20)
+                .collect(Collectors.toList());
+        Map<String, Long> topSites = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : top) topSites.put(entry.getKey(), entry.getValue().sum());
+        stats.put("pinnedSites", topSites);
+        return stats;
+    }
+}
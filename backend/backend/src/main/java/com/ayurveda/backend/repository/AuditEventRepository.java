@@ -0,0 +1,27 @@
+package com.ayurveda.backend.repository;
+
+import com.ayurveda.backend.audit.AuditEventType;
+import com.ayurveda.backend.dto.AuditEventDTO;
+import com.ayurveda.backend.entity.AuditEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface AuditEventRepository extends JpaRepository<AuditEvent, Long> {
+    // Newest first, keyset-paged on id (rows are inserted in publication order). Callers pass
+    // anyType/anyUsername = true (and a placeholder value) when not filtering on that field.
+    @Query("select new com.ayurveda.backend.dto.AuditEventDTO(e.id, e.occurredAt, e.type, e.username, e.actor, e.clientIp, e.detail) "
+            + "from AuditEvent e where e.id < :beforeId "
+            + "and (:anyType = true or e.type = :type) "
+            + "and (:anyUsername = true or e.username = :username) "
+            + "and e.occurredAt >= :from and e.occurredAt < :to order by e.id desc")
+    List<AuditEventDTO> findPageBefore(@Param("beforeId") Long beforeId,
+                                       @Param("anyType") boolean anyType, @Param("type") AuditEventType type,
+                                       @Param("anyUsername") boolean anyUsername, @Param("username") String username,
+                                       @Param("from") Timestamp from, @Param("to") Timestamp to, Limit limit);
+}
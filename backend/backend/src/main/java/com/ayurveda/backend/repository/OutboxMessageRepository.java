@@ -0,0 +1,50 @@
+package com.ayurveda.backend.repository;
+
+import com.ayurveda.backend.entity.OutboxMessage;
+import com.ayurveda.backend.messaging.OutgoingMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    // Due messages of a channel, oldest first: pending ones and claims whose lease ran out (a dispatcher died)
+    @Query("select m.id from OutboxMessage m where m.channel = :channel and m.status in :statuses "
+            + "and m.nextAttemptAt <= :now order by m.nextAttemptAt, m.id")
+    List<Long> findDueIds(@Param("channel") String channel, @Param("statuses") Collection<OutboxMessage.Status> statuses,
+                          @Param("now") Timestamp now, Limit limit);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :status, m.nextAttemptAt = :leaseUntil where m.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") OutboxMessage.Status status,
+              @Param("leaseUntil") Timestamp leaseUntil);
+
+    @Query("select new com.ayurveda.backend.messaging.OutgoingMessage(m.id, m.recipient, m.body, m.attempts) "
+            + "from OutboxMessage m where m.id in :ids")
+    List<OutgoingMessage> findOutgoing(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :status, m.sentAt = :sentAt, m.attempts = m.attempts + 1, "
+            + "m.lastError = null where m.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("status") OutboxMessage.Status status,
+                 @Param("sentAt") Timestamp sentAt);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :status, m.attempts = m.attempts + 1, m.nextAttemptAt = :nextAttemptAt, "
+            + "m.lastError = :error where m.id = :id")
+    int markFailedAttempt(@Param("id") Long id, @Param("status") OutboxMessage.Status status,
+                          @Param("nextAttemptAt") Timestamp nextAttemptAt, @Param("error") String error);
+
+    @Query("select m.status, count(m) from OutboxMessage m where m.sendId = :sendId group by m.status")
+    List<Object[]> countByStatus(@Param("sendId") String sendId);
+
+    // Channel, first creation time and last delivery time of a send
+    @Query("select min(m.channel), min(m.createdAt), max(m.sentAt) from OutboxMessage m where m.sendId = :sendId")
+    List<Object[]> findSendSummary(@Param("sendId") String sendId);
+}
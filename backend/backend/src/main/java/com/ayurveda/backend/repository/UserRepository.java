@@ -1,11 +1,88 @@
 package com.ayurveda.backend.repository;
 
+import com.ayurveda.backend.cache.CachedUser;
+import com.ayurveda.backend.dto.MessageRecipientDTO;
+import com.ayurveda.backend.dto.UserResponseDTO;
 import com.ayurveda.backend.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
-} 
\ No newline at end of file
+    // Read-side projection: only the response columns plus the role name, never the password, no managed entities
+    String VIEW = "select new com.ayurveda.backend.dto.UserResponseDTO(u.id, u.username, u.firstName, u.lastName, "
+            + "u.email, u.phone, u.department, u.employeeId, u.reportingManager, u.manager.id, u.status, r.name) "
+            + "from User u left join u.role r ";
+
+    // One round trip per import batch: which of these usernames or emails are already taken. A union rather than
+    // an OR, so each half is a lookup on its unique index instead of a scan of the whole table.
+    @Query("select u.username, u.email from User u where u.username in :usernames "
+            + "union select u.username, u.email from User u where u.email in :emails")
+    List<Object[]> findTakenUsernamesAndEmails(@Param("usernames") Collection<String> usernames,
+                                               @Param("emails") Collection<String> emails);
+
+    // Near cache entries (UserNearCache): the view columns plus the password hash, in one round trip
+    String CACHED = "select new com.ayurveda.backend.cache.CachedUser(u.id, u.username, u.password, u.firstName, "
+            + "u.lastName, u.email, u.phone, u.department, u.employeeId, u.reportingManager, u.manager.id, u.status, r.name) "
+            + "from User u left join u.role r ";
+
+    @Query(CACHED + "where u.id = :id")
+    Optional<CachedUser> findCachedById(@Param("id") Long id);
+
+    @Query(CACHED + "where u.username = :username")
+    Optional<CachedUser> findCachedByUsername(@Param("username") String username);
+
+    // Keyset page: seek past the last id of the previous page instead of OFFSET scanning
+    @Query(VIEW + "where u.id > :afterId order by u.id")
+    List<UserResponseDTO> findViewPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // One page of an org-tree listing; the caller restores the hierarchy order
+    @Query(VIEW + "where u.id in :ids")
+    List<UserResponseDTO> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    // Every reporting line, to build the in-memory hierarchy (OrgHierarchyService)
+    @Query("select u.id, u.manager.id from User u")
+    List<Object[]> findAllReportingLines();
+
+    @Query("select u.id from User u where u.manager.id = :id")
+    List<Long> findReportIds(@Param("id") Long id);
+
+    // Before a delete: the user's reports move up to the user's own manager (null: they become top-level)
+    @Modifying
+    @Query("update User u set u.manager = :manager where u.manager.id = :id")
+    int reassignReports(@Param("id") Long id, @Param("manager") User manager);
+
+    // Forward-only cursor over the whole table; rows are fetched from the driver in chunks
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(VIEW + "order by u.id")
+    Stream<UserResponseDTO> streamAllViews();
+
+    // Outbox recipients: active users, optionally restricted to some roles and departments. Callers pass
+    // anyRole/anyDepartment = true (and a placeholder list) when not filtering on that field.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.ayurveda.backend.dto.MessageRecipientDTO(u.id, u.username, u.firstName, u.lastName, u.phone, u.department) "
+            + "from User u where u.status = :status "
+            + "and (:anyRole = true or u.role.id in :roleIds) "
+            + "and (:anyDepartment = true or u.department in :departments) order by u.id")
+    Stream<MessageRecipientDTO> streamRecipients(@Param("status") User.Status status,
+                                                 @Param("anyRole") boolean anyRole, @Param("roleIds") Collection<Integer> roleIds,
+                                                 @Param("anyDepartment") boolean anyDepartment,
+                                                 @Param("departments") Collection<String> departments);
+}
@@ -0,0 +1,22 @@
+package com.ayurveda.backend.security;
+
+// Verified subset of a token's claims, parsed once and shared by everything that handles the request
+public final class JwtClaims {
+    private final String username;
+    private final String role;
+    private final long expiresAtMillis;
+
+    public JwtClaims(String username, String role, long expiresAtMillis) {
+        this.username = username;
+        this.role = role;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ayurveda.backend.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded cache of already-verified tokens so a polling client is not re-verified (HS512 + JSON parse) on every request.
+// Keyed by a SHA-256 digest of the token so raw bearer tokens are never retained; entries die at the token's exp.
+@Component
+public class JwtClaimsCache {
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, JwtClaims> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        // Time of a full verification (signature + parse), on cache misses only
+        verifiedTimer = Timer.builder("auth.token.verify").tag("outcome", "valid").register(meterRegistry);
+        rejectedTimer = Timer.builder("auth.token.verify").tag("outcome", "invalid").register(meterRegistry);
+        FunctionCounter.builder("auth.token.cache", hits, LongAdder::sum).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("auth.token.cache", misses, LongAdder::sum).tag("result", "miss").register(meterRegistry);
+        Gauge.builder("auth.token.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    // Returns the verified claims for the token, or null when it is invalid or expired
+    public JwtClaims getOrVerify(String token) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        JwtClaims cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.increment();
+                return cached;
+            }
+            if (entries.remove(key, cached)) evictions.increment();
+        }
+        misses.increment();
+        long startedAt = System.nanoTime();
+        JwtClaims claims = jwtUtil.parseClaims(token);
+        (claims != null ? verifiedTimer : rejectedTimer).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (claims != null) {
+            if (entries.size() >= maxEntries) makeRoom(now);
+            entries.put(key, claims);
+        }
+        return claims;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    // Drop expired tokens first; if the cache is still full, shed arbitrary entries down to 90% so the sweep is amortized
+    private void makeRoom(long now) {
+        entries.forEach((key, claims) -> {
+            if (claims.isExpired(now) && entries.remove(key, claims)) evictions.increment();
+        });
+        Iterator<String> keys = entries.keySet().iterator();
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -6,8 +6,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,28 +18,26 @@ import java.util.Collections;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
     @Autowired
-    private JwtUtil jwtUtil;
+    private JwtClaimsCache jwtClaimsCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
+        JwtClaims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            if (jwtUtil.validateToken(jwt)) {
-                username = jwtUtil.extractUsername(jwt);
-            }
+            // Verified once per request (or served from the cache); username and role come from the same parse
+            claims = jwtClaimsCache.getOrVerify(authHeader.substring(7));
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // No user details service, so just set username and role
-            String role = jwtUtil.extractRole(jwt);
+        if (claims != null && claims.getUsername() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // No user details service, so just set username and role (as ROLE_<name>, for hasRole rules)
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    username, null, Collections.emptyList());
+                    claims.getUsername(), null, claims.getRole() == null ? Collections.emptyList()
+                            : Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + claims.getRole())));
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            request.setAttribute(JwtClaims.class.getName(), claims);
             SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         filterChain.doFilter(request, response);
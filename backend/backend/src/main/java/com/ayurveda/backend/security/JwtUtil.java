@@ -42,6 +42,18 @@ public class JwtUtil {
         }
     }
 
+    // Verifies the signature and parses the body once; returns null for invalid or expired tokens
+    public JwtClaims parseClaims(String token) {
+        try {
+            Claims claims = getClaims(token);
+            Date expiration = claims.getExpiration();
+            if (expiration == null || expiration.before(new Date())) return null;
+            return new JwtClaims(claims.getSubject(), (String) claims.get("role"), expiration.getTime());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private Claims getClaims(String token) {
         return Jwts.parser()
                 .setSigningKey(SECRET_KEY)
@@ -0,0 +1,82 @@
+package com.ayurveda.backend.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Admission control in front of login: attempts are limited per client IP and per username over a sliding
+// window, and over-limit attempts are turned away before the user lookup and the BCrypt check.
+@Component
+public class LoginRateLimiter {
+    @Value("${login.limit.window-seconds:60}")
+    private long windowSeconds;
+
+    @Value("${login.limit.per-username:10}")
+    private int perUsername;
+
+    @Value("${login.limit.per-ip:100}")
+    private int perIp;
+
+    @Value("${login.limit.max-keys:100000}")
+    private int maxKeys;
+
+    private SlidingWindowLimiter byUsername;
+    private SlidingWindowLimiter byIp;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        long windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+        byUsername = new SlidingWindowLimiter(windowMillis, perUsername, maxKeys);
+        byIp = new SlidingWindowLimiter(windowMillis, perIp, maxKeys);
+    }
+
+    // 0 when the attempt may proceed, otherwise the milliseconds the client should wait
+    public long tryAcquire(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        long wait = byIp.tryAcquire(clientIp != null ? clientIp : "", now);
+        if (wait > 0) {
+            rejectedByIp.increment();
+            return wait;
+        }
+        wait = byUsername.tryAcquire(username != null ? username.toLowerCase(Locale.ROOT) : "", now);
+        if (wait > 0) {
+            rejectedByUsername.increment();
+            return wait;
+        }
+        admitted.increment();
+        return 0;
+    }
+
+    @Scheduled(fixedDelayString = "${login.limit.eviction-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        evicted.add(byUsername.evictIdle(now) + byIp.evictIdle(now));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("admitted", admitted.sum());
+        stats.put("rejectedByIp", rejectedByIp.sum());
+        stats.put("rejectedByUsername", rejectedByUsername.sum());
+        stats.put("trackedUsernames", byUsername.size());
+        stats.put("trackedIps", byIp.size());
+        stats.put("untracked", byUsername.getUntracked() + byIp.getUntracked());
+        stats.put("evicted", evicted.sum());
+        stats.put("windowSeconds", windowSeconds);
+        stats.put("perUsername", perUsername);
+        stats.put("perIp", perIp);
+        return stats;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ayurveda.backend.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,9 +35,15 @@ public class SecurityConfig {
             .cors(cors -> {})
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses finish on an async dispatch; the request was already authorized and
+                // there is no session to restore the JWT authentication from
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/users/login").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/users").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/roles").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/roles/refresh").hasRole("SUPER_ADMIN")
+                // Health checks carry no JWT; the other actuator endpoints, /actuator/prometheus included, need one
+                .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/users").authenticated()
                 .anyRequest().authenticated()
             );
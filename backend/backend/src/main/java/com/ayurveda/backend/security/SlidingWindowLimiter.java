@@ -0,0 +1,96 @@
+package com.ayurveda.backend.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sliding-window attempt limiter per key: the count of the previous fixed window, weighted by how much of it
+// still overlaps the sliding window, plus the count of the current one. Each key's state is one AtomicLong
+// (window number, previous count, current count) updated with CAS, so checks never take a lock.
+// Only admitted attempts are counted. Keys idle for two windows are dropped by evictIdle.
+public class SlidingWindowLimiter {
+    private final long windowMillis;
+    private final int limit;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+
+    public SlidingWindowLimiter(long windowMillis, int limit, int maxKeys) {
+        if (windowMillis <= 0 || limit < 1 || limit > 0xFFFF) throw new IllegalArgumentException("Invalid window or limit");
+        this.windowMillis = windowMillis;
+        this.limit = limit;
+        this.maxKeys = maxKeys;
+    }
+
+    // 0 when the attempt is admitted (and counted), otherwise the milliseconds until one would be
+    public long tryAcquire(String key, long now) {
+        Window window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxKeys) {
+                // Table full of live keys (e.g. a spray of random usernames): admit without tracking rather than
+                // grow without bound; the other limiter (per IP) still applies
+                untracked.increment();
+                return 0;
+            }
+            window = windows.computeIfAbsent(key, k -> new Window());
+        }
+        return window.tryAcquire(now);
+    }
+
+    public int evictIdle(long now) {
+        long current = now / windowMillis;
+        int before = windows.size();
+        // An attempt racing with its key's removal may go uncounted; acceptable for a limiter
+        windows.values().removeIf(window -> window.isIdle(current));
+        return before - windows.size();
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public long getUntracked() {
+        return untracked.sum();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    private final class Window {
+        // window number (high 32 bits) | previous window's count (16 bits) | current window's count (16 bits)
+        private final AtomicLong state = new AtomicLong();
+
+        long tryAcquire(long now) {
+            long number = (now / windowMillis) & 0xFFFFFFFFL;
+            long offset = now % windowMillis;
+            while (true) {
+                long packed = state.get();
+                long stateNumber = packed >>> 32;
+                int previous = (int) (packed >>> 16) & 0xFFFF;
+                int current = (int) packed & 0xFFFF;
+                if (stateNumber != number) {
+                    previous = ((number - stateNumber) & 0xFFFFFFFFL) == 1 ? current : 0;
+                    current = 0;
+                }
+                double weight = 1 - (double) offset / windowMillis;
+                if (previous * weight + current + 1 > limit) return retryAfter(previous, current, offset);
+                if (state.compareAndSet(packed, (number << 32) | ((long) previous << 16) | (current + 1))) return 0;
+            }
+        }
+
+        // Until the previous window's weighted share has decayed enough. When the current window is full that
+        // happens in the next one, where today's count becomes the decaying previous count.
+        private long retryAfter(int previous, int current, long offset) {
+            if (current + 1 > limit) {
+                return windowMillis - offset + (long) Math.ceil(windowMillis * (1 - (double) (limit - 1) / current));
+            }
+            double decayedAt = windowMillis * (1 - (double) (limit - 1 - current) / previous);
+            return Math.max(1, (long) Math.ceil(decayedAt - offset));
+        }
+
+        boolean isIdle(long currentNumber) {
+            return (((currentNumber & 0xFFFFFFFFL) - (state.get() >>> 32)) & 0xFFFFFFFFL) >= 2;
+        }
+    }
+}
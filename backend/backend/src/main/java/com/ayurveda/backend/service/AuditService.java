@@ -0,0 +1,158 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.audit.AuditEventType;
+import com.ayurveda.backend.audit.AuditRecord;
+import com.ayurveda.backend.audit.MpscRingBuffer;
+import com.ayurveda.backend.dto.AuditEventDTO;
+import com.ayurveda.backend.metrics.LatencyHistogram;
+import com.ayurveda.backend.repository.AuditEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Access log and audit trail. Request threads publish into a lock-free ring buffer and return at once;
+// a single writer thread drains it every audit.flush-interval-ms and appends the events to audit_events
+// in JDBC batches. When the buffer is full the event is dropped and counted instead of slowing the request.
+@Service
+public class AuditService {
+    private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
+    private static final String INSERT = "INSERT INTO audit_events (occurred_at, event_type, username, actor, client_ip, detail) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_DETAIL_LENGTH = 500;
+
+    @Autowired
+    private AuditEventRepository auditEventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${audit.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${audit.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    private MpscRingBuffer<AuditRecord> buffer;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LatencyHistogram batchWriteTime = new LatencyHistogram();
+
+    @PostConstruct
+    void start() {
+        // Rounded up to a power of two
+        buffer = new MpscRingBuffer<>(Integer.highestOneBit(Math.max(1, bufferCapacity - 1)) << 1);
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Stops the writer after it has flushed what is still buffered
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // Never blocks; false when the event was dropped because the buffer is full
+    public boolean record(AuditEventType type, String username, String actor, String clientIp, String detail) {
+        if (buffer.offer(new AuditRecord(System.currentTimeMillis(), type, username, actor, clientIp, detail))) {
+            published.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public List<AuditEventDTO> getEventsBefore(Long beforeId, AuditEventType type, String username, Instant from, Instant to, int limit) {
+        return auditEventRepository.findPageBefore(beforeId != null ? beforeId : Long.MAX_VALUE,
+                type == null, type, username == null, username != null ? username : "",
+                Timestamp.from(from != null ? from : Instant.EPOCH),
+                Timestamp.from(to != null ? to : Instant.parse("9999-12-31T00:00:00Z")), Limit.of(limit));
+    }
+
+    private void writeLoop() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = !running;
+            buffer.drain(batch::add, batchSize);
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+                // A full batch means more is probably waiting
+                if (buffer.size() >= batchSize) continue;
+            }
+            if (stopping) {
+                if (buffer.size() == 0) return;
+                continue;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        long startedAt = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, record) -> {
+                statement.setTimestamp(1, new Timestamp(record.getOccurredAt()));
+                statement.setString(2, record.getType().name());
+                setNullable(statement, 3, record.getUsername(), 255);
+                setNullable(statement, 4, record.getActor(), 255);
+                setNullable(statement, 5, record.getClientIp(), 45);
+                setNullable(statement, 6, record.getDetail(), MAX_DETAIL_LENGTH);
+            });
+            written.add(batch.size());
+        } catch (DataAccessException ex) {
+            // Not retried: a failing database must not make the writer fall behind indefinitely
+            lost.add(batch.size());
+            logger.error("Could not write {} audit events: {}", batch.size(), ex.getMessage());
+        } finally {
+            batchWriteTime.record(System.nanoTime() - startedAt);
+        }
+    }
+
+    private static void setNullable(PreparedStatement statement, int index, String value, int maxLength) throws SQLException {
+        if (value == null) statement.setNull(index, Types.VARCHAR);
+        else statement.setString(index, value.length() > maxLength ? value.substring(0, maxLength) : value);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        stats.put("lostOnWriteFailure", lost.sum());
+        stats.put("buffered", buffer.size());
+        stats.put("bufferCapacity", buffer.capacity());
+        stats.put("batchWriteTime", batchWriteTime.snapshot());
+        return stats;
+    }
+}
@@ -0,0 +1,354 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cache.UserListVersion;
+import com.ayurveda.backend.csv.CsvReader;
+import com.ayurveda.backend.dto.BulkImportReportDTO;
+import com.ayurveda.backend.dto.BulkImportRowResultDTO;
+import com.ayurveda.backend.dto.UserRequestDTO;
+import com.ayurveda.backend.entity.User;
+import com.ayurveda.backend.hierarchy.OrgHierarchyService;
+import com.ayurveda.backend.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+// Bulk user creation: rows are read as a stream and processed in fixed-size batches. Each batch costs one
+// uniqueness query, one parallel hashing pass and one batched INSERT, instead of all of that per user.
+@Service
+public class BulkUserImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkUserImportService.class);
+    // VARCHAR length of the users columns (JPA default)
+    private static final int MAX_COLUMN_LENGTH = 255;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+    @Autowired
+    private UserListVersion userListVersion;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${users.bulk.batch-size:500}")
+    private int batchSize;
+
+    public BulkImportReportDTO importCsv(Reader csv, Function<UserRequestDTO, String> validator) throws IOException {
+        try (CsvReader reader = new CsvReader(csv)) {
+            String[] header = reader.readRecord();
+            if (header == null) return importRows(Collections.emptyIterator(), validator);
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.length; i++) columns.put(normalize(header[i]), i);
+            return importRows(new Iterator<>() {
+                private String[] nextRecord = read();
+
+                @Override
+                public boolean hasNext() {
+                    return nextRecord != null;
+                }
+
+                @Override
+                public Row next() {
+                    if (nextRecord == null) throw new NoSuchElementException();
+                    Row row = toRow(reader.getRecordNumber(), nextRecord, columns);
+                    nextRecord = read();
+                    return row;
+                }
+
+                private String[] read() {
+                    try {
+                        return reader.readRecord();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }, validator);
+        }
+    }
+
+    // One JSON object per line; a malformed line is reported as a rejected row and the next line is read as usual
+    public BulkImportReportDTO importNdjson(InputStream ndjson, Function<UserRequestDTO, String> validator) throws IOException {
+        ObjectReader rowReader = objectMapper.readerFor(UserRequestDTO.class);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            return importRows(new Iterator<>() {
+                private long lineNumber;
+                private String nextLine = read();
+
+                @Override
+                public boolean hasNext() {
+                    return nextLine != null;
+                }
+
+                @Override
+                public Row next() {
+                    if (nextLine == null) throw new NoSuchElementException();
+                    long line = lineNumber;
+                    String json = nextLine;
+                    nextLine = read();
+                    try {
+                        UserRequestDTO dto = rowReader.readValue(json);
+                        return dto != null ? new Row(line, dto, null) : new Row(line, null, "Expected a JSON object");
+                    } catch (JsonProcessingException e) {
+                        return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+                    }
+                }
+
+                // Next non-blank line
+                private String read() {
+                    try {
+                        String line;
+                        do {
+                            line = lines.readLine();
+                            lineNumber++;
+                        } while (line != null && line.isBlank());
+                        return line;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }, validator);
+        }
+    }
+
+    private BulkImportReportDTO importRows(Iterator<Row> rows, Function<UserRequestDTO, String> validator) {
+        long startedAt = System.nanoTime();
+        BulkImportReportDTO report = new BulkImportReportDTO();
+        List<Row> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() == batchSize) {
+                processBatch(batch, validator, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) processBatch(batch, validator, report);
+        long elapsedNanos = System.nanoTime() - startedAt;
+        report.setElapsedMillis(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getTotal() * 1e9 / elapsedNanos);
+        logger.info("Bulk import finished: total={}, created={}, rejected={}, {} rows/s",
+                report.getTotal(), report.getCreated(), report.getRejected(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private void processBatch(List<Row> batch, Function<UserRequestDTO, String> validator, BulkImportReportDTO report) {
+        BulkImportRowResultDTO[] results = new BulkImportRowResultDTO[batch.size()];
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Row row = batch.get(i);
+            String error = row.error != null ? row.error : validate(row.dto, validator);
+            if (error == null && !usernames.add(row.dto.getUsername())) error = "Duplicate username in upload";
+            if (error == null && !emails.add(row.dto.getEmail())) error = "Duplicate email in upload";
+            if (error != null) {
+                results[i] = rejected(row, error);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> takenUsernames = new HashSet<>();
+            Set<String> takenEmails = new HashSet<>();
+            for (Object[] taken : userRepository.findTakenUsernamesAndEmails(usernames, emails)) {
+                takenUsernames.add((String) taken[0]);
+                takenEmails.add((String) taken[1]);
+            }
+            candidates.removeIf(i -> {
+                UserRequestDTO dto = batch.get(i).dto;
+                if (takenUsernames.contains(dto.getUsername())) {
+                    results[i] = rejected(batch.get(i), "Username already exists");
+                    return true;
+                }
+                if (takenEmails.contains(dto.getEmail())) {
+                    results[i] = rejected(batch.get(i), "Email already exists");
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        if (!candidates.isEmpty()) {
+            List<String> rawPasswords = new ArrayList<>(candidates.size());
+            for (int i : candidates) rawPasswords.add(batch.get(i).dto.getPassword());
+            List<String> hashes = passwordHashingService.encodeAll(rawPasswords);
+            int createdBefore = report.getCreated();
+            try {
+                List<User> saved = insert(batch, candidates, hashes);
+                for (int c = 0; c < candidates.size(); c++) created(batch.get(candidates.get(c)), saved.get(c), results, candidates.get(c), report);
+            } catch (RuntimeException ex) {
+                // A concurrent registration can still win a unique constraint, which rolls the whole batch back;
+                // the rows are retried one by one so only the offending ones are rejected
+                logger.warn("Bulk import batch failed, retrying its {} rows one by one: {}", candidates.size(), ex.getMessage());
+                for (int c = 0; c < candidates.size(); c++) {
+                    int i = candidates.get(c);
+                    try {
+                        created(batch.get(i), insert(batch, List.of(i), List.of(hashes.get(c))).get(0), results, i, report);
+                    } catch (RuntimeException rowFailure) {
+                        results[i] = rejected(batch.get(i), "Insert failed: " + rootCause(rowFailure).getMessage());
+                    }
+                }
+            }
+            if (report.getCreated() > createdBefore) userListVersion.changed();
+        }
+
+        for (BulkImportRowResultDTO result : results) {
+            if ("REJECTED".equals(result.getStatus())) report.setRejected(report.getRejected() + 1);
+            report.getRows().add(result);
+        }
+        report.setTotal(report.getTotal() + batch.size());
+    }
+
+    // One transaction: a batched INSERT of the given rows, all or nothing
+    private List<User> insert(List<Row> batch, List<Integer> rows, List<String> hashes) {
+        return transactionTemplate.execute(status -> {
+            List<User> users = new ArrayList<>(rows.size());
+            for (int c = 0; c < rows.size(); c++) users.add(userService.buildUser(batch.get(rows.get(c)).dto, hashes.get(c)));
+            List<User> persisted = userRepository.saveAll(users);
+            entityManager.flush();
+            entityManager.clear();
+            return persisted;
+        });
+    }
+
+    private void created(Row row, User user, BulkImportRowResultDTO[] results, int index, BulkImportReportDTO report) {
+        orgHierarchyService.userSaved(user.getId(), row.dto.getManagerId());
+        results[index] = new BulkImportRowResultDTO(row.line, row.dto.getUsername(), "CREATED", user.getId(), null);
+        report.setCreated(report.getCreated() + 1);
+    }
+
+    private static Throwable rootCause(Throwable ex) {
+        while (ex.getCause() != null && ex.getCause() != ex) ex = ex.getCause();
+        return ex;
+    }
+
+    // Everything the users table would refuse is caught here, so a batch only fails on a race with another writer
+    private String validate(UserRequestDTO dto, Function<UserRequestDTO, String> validator) {
+        String error = validator.apply(dto);
+        if (error != null) return error;
+        if (dto.getFirstName() == null || dto.getFirstName().isBlank()) return "First name is required";
+        if (dto.getLastName() == null || dto.getLastName().isBlank()) return "Last name is required";
+        if (dto.getRoleId() == null) return "Role is required";
+        String[] values = {dto.getUsername(), dto.getFirstName(), dto.getLastName(), dto.getEmail(), dto.getPhone(),
+                dto.getDepartment(), dto.getEmployeeId(), dto.getReportingManager()};
+        for (String value : values) {
+            if (value != null && value.length() > MAX_COLUMN_LENGTH) return "Values are limited to " + MAX_COLUMN_LENGTH + " characters";
+        }
+        if (roleRegistry.findById(dto.getRoleId()) == null) return "Invalid role ID";
+        // Managers must already exist: a row cannot report to another row of the same upload
+        if (dto.getManagerId() != null && !orgHierarchyService.exists(dto.getManagerId())) return "Invalid manager ID";
+        if (dto.getStatus() != null) {
+            try {
+                User.Status.valueOf(dto.getStatus());
+            } catch (IllegalArgumentException e) {
+                return "Invalid status";
+            }
+        }
+        return null;
+    }
+
+    private static BulkImportRowResultDTO rejected(Row row, String error) {
+        return new BulkImportRowResultDTO(row.line, row.dto != null ? row.dto.getUsername() : null, "REJECTED", null, error);
+    }
+
+    private Row toRow(long line, String[] record, Map<String, Integer> columns) {
+        UserRequestDTO dto = new UserRequestDTO();
+        dto.setUsername(field(record, columns, "username"));
+        dto.setPassword(field(record, columns, "password"));
+        dto.setFirstName(field(record, columns, "firstname"));
+        dto.setLastName(field(record, columns, "lastname"));
+        dto.setEmail(field(record, columns, "email"));
+        dto.setPhone(field(record, columns, "phone"));
+        dto.setDepartment(field(record, columns, "department"));
+        dto.setEmployeeId(field(record, columns, "employeeid"));
+        dto.setReportingManager(field(record, columns, "reportingmanager"));
+        String status = field(record, columns, "status");
+        dto.setStatus(status != null ? status.toUpperCase(Locale.ROOT) : null);
+        String managerId = field(record, columns, "managerid");
+        if (managerId != null) {
+            try {
+                dto.setManagerId(Long.valueOf(managerId));
+            } catch (NumberFormatException e) {
+                return new Row(line, dto, "Invalid manager ID");
+            }
+        }
+        String roleId = field(record, columns, "roleid");
+        String roleName = field(record, columns, "role");
+        if (roleName == null) roleName = field(record, columns, "rolename");
+        if (roleId != null) {
+            try {
+                dto.setRoleId(Integer.valueOf(roleId));
+            } catch (NumberFormatException e) {
+                return new Row(line, dto, "Invalid role ID");
+            }
+        } else if (roleName != null && roleRegistry.findByName(roleName.toUpperCase(Locale.ROOT)) != null) {
+            dto.setRoleId(roleRegistry.findByName(roleName.toUpperCase(Locale.ROOT)).getId());
+        }
+        return new Row(line, dto, null);
+    }
+
+    private static String field(String[] record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.length) return null;
+        String value = record[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // "First Name", "first_name" and "firstName" all map to "firstname"
+    private static String normalize(String header) {
+        StringBuilder normalized = new StringBuilder(header.length());
+        for (char c : header.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) normalized.append(Character.toLowerCase(c));
+        }
+        return normalized.toString();
+    }
+
+    private static final class Row {
+        private final long line;
+        private final UserRequestDTO dto;
+        private final String error;
+
+        private Row(long line, UserRequestDTO dto, String error) {
+            this.line = line;
+            this.dto = dto;
+            this.error = error;
+        }
+    }
+}
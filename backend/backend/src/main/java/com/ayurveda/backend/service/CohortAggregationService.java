@@ -0,0 +1,573 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cohort.AgeBracket;
+import com.ayurveda.backend.cohort.CategoricalColumn;
+import com.ayurveda.backend.cohort.CohortColumn;
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.cohort.CohortFilter;
+import com.ayurveda.backend.cohort.CohortSchema;
+import com.ayurveda.backend.cohort.CohortStore;
+import com.ayurveda.backend.cohort.ColumnKind;
+import com.ayurveda.backend.cohort.DecimalColumn;
+import com.ayurveda.backend.cohort.IntColumn;
+import com.ayurveda.backend.cohort.MultiCategoricalColumn;
+import com.ayurveda.backend.cohort.ValueCounts;
+import com.ayurveda.backend.dto.CohortAggregationDTO;
+import com.ayurveda.backend.dto.CohortAggregationRequestDTO;
+import com.ayurveda.backend.dto.CohortCrossTabDTO;
+import com.ayurveda.backend.dto.CohortNumericStatsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Dashboard aggregations (group-by counts, age histogram, numeric stats, cross-tabs, monthly trend) over a
+// filtered selection. Rows are split into 64K-row chunks aggregated in parallel on a fork-join pool, and the
+// per-chunk partials are merged pairwise. The default rollup of every dataset is materialized at upload.
+@Service
+public class CohortAggregationService {
+    private static final Logger logger = LoggerFactory.getLogger(CohortAggregationService.class);
+
+    // Chunk boundaries follow Roaring's 2^16-row containers
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final double[] DEFAULT_PERCENTILES = {0.25, 0.5, 0.75, 0.9, 0.95};
+    // Measurements are counted at 0.01 resolution, so percentiles are exact to two decimals
+    private static final double VALUE_SCALE = 100;
+    public static final String AGE_BRACKET = "age_bracket";
+
+    @Autowired
+    private CohortStore cohortStore;
+
+    @Value("${cohort.aggregation.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private final ConcurrentHashMap<String, Rollup> rollups = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdown();
+    }
+
+    // Precomputes the default rollup so the dashboard's first load is a lookup
+    public void materialize(CohortDataset dataset) {
+        rollupOf(dataset);
+    }
+
+    public void evict(String datasetId) {
+        rollups.remove(datasetId);
+    }
+
+    // Default rollup of the whole dataset; null when the dataset does not exist
+    public CohortAggregationDTO getSummary(String datasetId) {
+        CohortDataset dataset = cohortStore.get(datasetId);
+        if (dataset == null) return null;
+        Rollup rollup = currentRollup(dataset);
+        CohortAggregationDTO result = project(rollup.result, rollup.spec);
+        result.setElapsedMicros(0);
+        return result;
+    }
+
+    // Null when the dataset does not exist; IllegalArgumentException for unknown or unsuitable columns
+    public CohortAggregationDTO aggregate(String datasetId, CohortAggregationRequestDTO request) {
+        CohortDataset dataset = cohortStore.get(datasetId);
+        if (dataset == null) return null;
+        long startedAt = System.nanoTime();
+        Spec spec = requestedSpec(dataset, request);
+        CohortFilter filter = new CohortFilter(request.getFilters(), request.getAgeBrackets());
+
+        CohortAggregationDTO result;
+        Rollup rollup = filter.isEmpty() ? currentRollup(dataset) : null;
+        if (rollup != null && rollup.spec.covers(spec)) {
+            result = project(rollup.result, spec);
+        } else {
+            result = run(dataset, dataset.getIndex().evaluate(filter), spec);
+        }
+        result.setElapsedMicros((System.nanoTime() - startedAt) / 1_000);
+        return result;
+    }
+
+    private Rollup currentRollup(CohortDataset dataset) {
+        Rollup rollup = rollups.get(dataset.getId());
+        return rollup != null && rollup.dataset == dataset ? rollup : rollupOf(dataset);
+    }
+
+    // Writers call this after releasing the dataset's write lock, so versions may arrive out of order: the rollup is
+    // only kept while its version is the current one, never over a newer version's or for a deleted dataset
+    private Rollup rollupOf(CohortDataset dataset) {
+        long startedAt = System.nanoTime();
+        Spec spec = defaultSpec(dataset);
+        Rollup rollup = new Rollup(dataset, spec, run(dataset, dataset.getIndex().allRows(), spec));
+        rollups.compute(dataset.getId(), (id, existing) -> cohortStore.get(id) == dataset ? rollup : existing);
+        logger.info("Cohort '{}' rollup materialized in {} ms", dataset.getName(), (System.nanoTime() - startedAt) / 1_000_000);
+        return rollup;
+    }
+
+    private CohortAggregationDTO run(CohortDataset dataset, RoaringBitmap selection, Spec spec) {
+        Plan plan = new Plan(dataset, spec);
+        Partial total = pool.invoke(new ChunkTask(plan, selection, 0, dataset.getRowCount()));
+        return plan.finish(total);
+    }
+
+    // Copy of a rollup restricted to the requested parts
+    private static CohortAggregationDTO project(CohortAggregationDTO rollup, Spec spec) {
+        CohortAggregationDTO result = new CohortAggregationDTO();
+        result.setCount(rollup.getCount());
+        result.setMaterialized(true);
+        for (String column : spec.groupBy) result.getGroups().put(column, rollup.getGroups().get(column));
+        if (spec.ageHistogram) result.setAgeHistogram(rollup.getAgeHistogram());
+        for (String column : spec.stats) result.getStats().put(column, rollup.getStats().get(column));
+        for (String[] pair : spec.crossTabs) {
+            for (CohortCrossTabDTO crossTab : rollup.getCrossTabs()) {
+                if (crossTab.getRowColumn().equals(pair[0]) && crossTab.getColumnColumn().equals(pair[1])) {
+                    result.getCrossTabs().add(crossTab);
+                }
+            }
+        }
+        if (spec.trend) result.setTrend(rollup.getTrend());
+        return result;
+    }
+
+    private static Spec defaultSpec(CohortDataset dataset) {
+        Spec spec = new Spec();
+        for (CohortColumn column : dataset.getColumns()) {
+            if (column instanceof CategoricalColumn || column instanceof MultiCategoricalColumn) {
+                spec.groupBy.add(column.getName());
+            }
+        }
+        spec.ageHistogram = dataset.column(CohortSchema.AGE) instanceof IntColumn;
+        for (String name : new String[] {CohortSchema.AGE, CohortSchema.WEIGHT, CohortSchema.HEIGHT, CohortSchema.BLOOD_SUGAR,
+                CohortSchema.BP_SYSTOLIC, CohortSchema.BP_DIASTOLIC}) {
+            if (isNumeric(dataset.column(name))) spec.stats.add(name);
+        }
+        String[][] crossTabs = {
+            {CohortSchema.DISEASE, CohortSchema.VILLAGE},
+            {CohortSchema.DISEASE, AGE_BRACKET},
+            {CohortSchema.GENDER, AGE_BRACKET}
+        };
+        for (String[] pair : crossTabs) {
+            if (isDimension(dataset, pair[0]) && isDimension(dataset, pair[1])) spec.crossTabs.add(pair);
+        }
+        CohortColumn date = dataset.column(CohortSchema.DATE);
+        spec.trend = date != null && date.getKind() == ColumnKind.DATE;
+        return spec;
+    }
+
+    private static Spec requestedSpec(CohortDataset dataset, CohortAggregationRequestDTO request) {
+        boolean anyRequested = notEmpty(request.getGroupBy()) || Boolean.TRUE.equals(request.getAgeHistogram())
+                || notEmpty(request.getStats()) || notEmpty(request.getCrossTabs()) || Boolean.TRUE.equals(request.getTrend());
+        Spec spec = anyRequested ? new Spec() : defaultSpec(dataset);
+        if (anyRequested) {
+            if (request.getGroupBy() != null) spec.groupBy.addAll(request.getGroupBy());
+            spec.ageHistogram = Boolean.TRUE.equals(request.getAgeHistogram());
+            if (request.getStats() != null) spec.stats.addAll(request.getStats());
+            if (request.getCrossTabs() != null) {
+                for (List<String> pair : request.getCrossTabs()) {
+                    if (pair == null || pair.size() != 2) throw new IllegalArgumentException("Each cross-tab needs exactly two columns");
+                    spec.crossTabs.add(new String[] {pair.get(0), pair.get(1)});
+                }
+            }
+            spec.trend = Boolean.TRUE.equals(request.getTrend());
+        }
+        if (notEmpty(request.getPercentiles())) {
+            spec.percentiles = new double[request.getPercentiles().size()];
+            for (int i = 0; i < spec.percentiles.length; i++) {
+                Double q = request.getPercentiles().get(i);
+                if (q == null || q < 0 || q > 1) throw new IllegalArgumentException("Percentiles must be between 0 and 1");
+                spec.percentiles[i] = q;
+            }
+        }
+        return spec;
+    }
+
+    private static boolean notEmpty(List<?> values) {
+        return values != null && !values.isEmpty();
+    }
+
+    private static boolean isNumeric(CohortColumn column) {
+        return column instanceof DecimalColumn || (column instanceof IntColumn && column.getKind() == ColumnKind.INTEGER);
+    }
+
+    private static boolean isDimension(CohortDataset dataset, String name) {
+        if (name.equals(AGE_BRACKET)) return dataset.column(CohortSchema.AGE) instanceof IntColumn;
+        CohortColumn column = dataset.column(name);
+        return column instanceof CategoricalColumn || column instanceof MultiCategoricalColumn;
+    }
+
+    private static final class Spec {
+        private final List<String> groupBy = new ArrayList<>();
+        private boolean ageHistogram;
+        private final List<String> stats = new ArrayList<>();
+        private double[] percentiles = DEFAULT_PERCENTILES;
+        private final List<String[]> crossTabs = new ArrayList<>();
+        private boolean trend;
+
+        boolean covers(Spec other) {
+            if (!groupBy.containsAll(other.groupBy) || !stats.containsAll(other.stats)) return false;
+            if ((other.ageHistogram && !ageHistogram) || (other.trend && !trend)) return false;
+            if (!Arrays.equals(percentiles, other.percentiles)) return false;
+            for (String[] pair : other.crossTabs) {
+                if (crossTabs.stream().noneMatch(own -> Arrays.equals(own, pair))) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Rollup {
+        private final CohortDataset dataset;
+        private final Spec spec;
+        private final CohortAggregationDTO result;
+
+        private Rollup(CohortDataset dataset, Spec spec, CohortAggregationDTO result) {
+            this.dataset = dataset;
+            this.spec = spec;
+            this.result = result;
+        }
+    }
+
+    // A grouping axis: each row holds zero or more codes in [0, size())
+    private abstract static class Dimension {
+        final String name;
+
+        Dimension(String name) {
+            this.name = name;
+        }
+
+        abstract int size();
+
+        abstract String label(int code);
+
+        abstract int count(int row);
+
+        abstract int code(int row, int i);
+
+        static Dimension of(CohortDataset dataset, String name) {
+            if (name.equals(AGE_BRACKET)) {
+                if (!(dataset.column(CohortSchema.AGE) instanceof IntColumn)) throw new IllegalArgumentException("Dataset has no age column");
+                IntColumn age = (IntColumn) dataset.column(CohortSchema.AGE);
+                AgeBracket[] brackets = AgeBracket.values();
+                return new Dimension(name) {
+                    int size() { return brackets.length; }
+                    String label(int code) { return brackets[code].getLabel(); }
+                    int count(int row) { return AgeBracket.of(age.get(row)) == null ? 0 : 1; }
+                    int code(int row, int i) { return AgeBracket.of(age.get(row)).ordinal(); }
+                };
+            }
+            CohortColumn column = dataset.column(name);
+            if (column instanceof CategoricalColumn) {
+                CategoricalColumn categorical = (CategoricalColumn) column;
+                return new Dimension(name) {
+                    int size() { return categorical.getDictionary().size(); }
+                    String label(int code) { return categorical.getDictionary().value(code); }
+                    int count(int row) { return categorical.isMissing(row) ? 0 : 1; }
+                    int code(int row, int i) { return categorical.code(row); }
+                };
+            }
+            if (column instanceof MultiCategoricalColumn) {
+                MultiCategoricalColumn multi = (MultiCategoricalColumn) column;
+                return new Dimension(name) {
+                    int size() { return multi.getDictionary().size(); }
+                    String label(int code) { return multi.getDictionary().value(code); }
+                    int count(int row) { return multi.end(row) - multi.start(row); }
+                    int code(int row, int i) { return multi.codeAt(multi.start(row) + i); }
+                };
+            }
+            if (column == null) throw new IllegalArgumentException("Unknown column: " + name);
+            throw new IllegalArgumentException("Column cannot be grouped: " + name);
+        }
+    }
+
+    private interface Measure {
+        // NaN when missing
+        double get(int row);
+    }
+
+    // Columns resolved once per request; scan() aggregates one chunk of the selection
+    private static final class Plan {
+        private final Spec spec;
+        private final Dimension[] groups;
+        private final IntColumn age;
+        private final Measure[] measures;
+        private final Dimension[][] crossTabs;
+        private final IntColumn date;
+
+        Plan(CohortDataset dataset, Spec spec) {
+            this.spec = spec;
+            groups = new Dimension[spec.groupBy.size()];
+            for (int i = 0; i < groups.length; i++) groups[i] = Dimension.of(dataset, spec.groupBy.get(i));
+            if (spec.ageHistogram && !(dataset.column(CohortSchema.AGE) instanceof IntColumn)) {
+                throw new IllegalArgumentException("Dataset has no age column");
+            }
+            age = spec.ageHistogram ? (IntColumn) dataset.column(CohortSchema.AGE) : null;
+            measures = new Measure[spec.stats.size()];
+            for (int i = 0; i < measures.length; i++) measures[i] = measure(dataset, spec.stats.get(i));
+            crossTabs = new Dimension[spec.crossTabs.size()][];
+            for (int i = 0; i < crossTabs.length; i++) {
+                String[] pair = spec.crossTabs.get(i);
+                crossTabs[i] = new Dimension[] {Dimension.of(dataset, pair[0]), Dimension.of(dataset, pair[1])};
+            }
+            CohortColumn dateColumn = dataset.column(CohortSchema.DATE);
+            if (spec.trend && (dateColumn == null || dateColumn.getKind() != ColumnKind.DATE)) {
+                throw new IllegalArgumentException("Dataset has no date column");
+            }
+            date = spec.trend ? (IntColumn) dateColumn : null;
+        }
+
+        private static Measure measure(CohortDataset dataset, String name) {
+            CohortColumn column = dataset.column(name);
+            if (column == null) throw new IllegalArgumentException("Unknown column: " + name);
+            if (column instanceof DecimalColumn) return ((DecimalColumn) column)::get;
+            if (column instanceof IntColumn && column.getKind() == ColumnKind.INTEGER) {
+                IntColumn ints = (IntColumn) column;
+                return row -> {
+                    int value = ints.get(row);
+                    return value == IntColumn.MISSING ? Double.NaN : value;
+                };
+            }
+            throw new IllegalArgumentException("Column is not numeric: " + name);
+        }
+
+        Partial newPartial() {
+            return new Partial(this);
+        }
+
+        Partial scan(RoaringBitmap selection, int from, int to) {
+            Partial partial = newPartial();
+            PeekableIntIterator rows = selection.getIntIterator();
+            rows.advanceIfNeeded(from);
+            while (rows.hasNext() && rows.peekNext() < to) {
+                int row = rows.next();
+                partial.count++;
+                for (int g = 0; g < groups.length; g++) {
+                    Dimension dimension = groups[g];
+                    long[] counts = partial.groups[g];
+                    for (int i = 0, n = dimension.count(row); i < n; i++) counts[dimension.code(row, i)]++;
+                }
+                if (age != null) {
+                    AgeBracket bracket = AgeBracket.of(age.get(row));
+                    if (bracket != null) partial.ages[bracket.ordinal()]++;
+                }
+                for (int m = 0; m < measures.length; m++) {
+                    double value = measures[m].get(row);
+                    if (!Double.isNaN(value)) partial.numerics[m].add(value);
+                }
+                for (int c = 0; c < crossTabs.length; c++) {
+                    Dimension rowsDim = crossTabs[c][0];
+                    Dimension colsDim = crossTabs[c][1];
+                    long[] cells = partial.crossTabs[c];
+                    int width = colsDim.size();
+                    for (int i = 0, n = rowsDim.count(row); i < n; i++) {
+                        int base = rowsDim.code(row, i) * width;
+                        for (int j = 0, k = colsDim.count(row); j < k; j++) cells[base + colsDim.code(row, j)]++;
+                    }
+                }
+                // Counted per day (a few hundred distinct keys) and folded into months once at the end
+                if (date != null && !date.isMissing(row)) partial.days.add(date.get(row));
+            }
+            return partial;
+        }
+
+        CohortAggregationDTO finish(Partial total) {
+            CohortAggregationDTO result = new CohortAggregationDTO();
+            result.setCount(total.count);
+            for (int g = 0; g < groups.length; g++) {
+                result.getGroups().put(groups[g].name, labelledCounts(groups[g], total.groups[g]));
+            }
+            if (age != null) {
+                Map<String, Long> histogram = new LinkedHashMap<>();
+                for (AgeBracket bracket : AgeBracket.values()) histogram.put(bracket.getLabel(), total.ages[bracket.ordinal()]);
+                result.setAgeHistogram(histogram);
+            }
+            for (int m = 0; m < measures.length; m++) {
+                result.getStats().put(spec.stats.get(m), total.numerics[m].toDTO(total.count, spec.percentiles));
+            }
+            for (int c = 0; c < crossTabs.length; c++) {
+                result.getCrossTabs().add(crossTabDTO(crossTabs[c][0], crossTabs[c][1], total.crossTabs[c]));
+            }
+            if (date != null) {
+                Map<String, Long> trend = new LinkedHashMap<>();
+                long[][] days = total.days.sorted();
+                for (int i = 0; i < days[0].length; i++) {
+                    LocalDate day = LocalDate.ofEpochDay(days[0][i]);
+                    trend.merge(String.format("%04d-%02d", day.getYear(), day.getMonthValue()), days[1][i], Long::sum);
+                }
+                result.setTrend(trend);
+            }
+            return result;
+        }
+
+        // Largest groups first; values absent from the selection are left out
+        private static Map<String, Long> labelledCounts(Dimension dimension, long[] counts) {
+            Integer[] order = new Integer[counts.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+            Map<String, Long> labelled = new LinkedHashMap<>();
+            for (int code : order) {
+                if (counts[code] > 0) labelled.put(dimension.label(code), counts[code]);
+            }
+            return labelled;
+        }
+
+        // Rows and columns that are entirely zero are dropped
+        private static CohortCrossTabDTO crossTabDTO(Dimension rowsDim, Dimension colsDim, long[] cells) {
+            int width = colsDim.size();
+            List<Integer> rowCodes = new ArrayList<>();
+            List<Integer> colCodes = new ArrayList<>();
+            long[] colTotals = new long[width];
+            for (int r = 0; r < rowsDim.size(); r++) {
+                long rowTotal = 0;
+                for (int c = 0; c < width; c++) {
+                    rowTotal += cells[r * width + c];
+                    colTotals[c] += cells[r * width + c];
+                }
+                if (rowTotal > 0) rowCodes.add(r);
+            }
+            for (int c = 0; c < width; c++) {
+                if (colTotals[c] > 0) colCodes.add(c);
+            }
+            long[][] counts = new long[rowCodes.size()][colCodes.size()];
+            List<String> rowValues = new ArrayList<>(rowCodes.size());
+            List<String> colValues = new ArrayList<>(colCodes.size());
+            for (int i = 0; i < rowCodes.size(); i++) {
+                rowValues.add(rowsDim.label(rowCodes.get(i)));
+                for (int j = 0; j < colCodes.size(); j++) counts[i][j] = cells[rowCodes.get(i) * width + colCodes.get(j)];
+            }
+            for (int code : colCodes) colValues.add(colsDim.label(code));
+            CohortCrossTabDTO dto = new CohortCrossTabDTO();
+            dto.setRowColumn(rowsDim.name);
+            dto.setColumnColumn(colsDim.name);
+            dto.setRowValues(rowValues);
+            dto.setColumnValues(colValues);
+            dto.setCounts(counts);
+            return dto;
+        }
+    }
+
+    private static final class Partial {
+        private long count;
+        private final long[][] groups;
+        private final long[] ages;
+        private final NumericPartial[] numerics;
+        private final long[][] crossTabs;
+        private final ValueCounts days;
+
+        Partial(Plan plan) {
+            groups = new long[plan.groups.length][];
+            for (int g = 0; g < groups.length; g++) groups[g] = new long[plan.groups[g].size()];
+            ages = new long[AgeBracket.values().length];
+            numerics = new NumericPartial[plan.measures.length];
+            for (int m = 0; m < numerics.length; m++) numerics[m] = new NumericPartial();
+            crossTabs = new long[plan.crossTabs.length][];
+            for (int c = 0; c < crossTabs.length; c++) crossTabs[c] = new long[plan.crossTabs[c][0].size() * plan.crossTabs[c][1].size()];
+            days = new ValueCounts();
+        }
+
+        Partial merge(Partial other) {
+            count += other.count;
+            for (int g = 0; g < groups.length; g++) addAll(groups[g], other.groups[g]);
+            addAll(ages, other.ages);
+            for (int m = 0; m < numerics.length; m++) numerics[m].merge(other.numerics[m]);
+            for (int c = 0; c < crossTabs.length; c++) addAll(crossTabs[c], other.crossTabs[c]);
+            days.merge(other.days);
+            return this;
+        }
+
+        private static void addAll(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) into[i] += from[i];
+        }
+    }
+
+    private static final class NumericPartial {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private final ValueCounts values = new ValueCounts();
+
+        void add(double value) {
+            count++;
+            sum += value;
+            if (value < min) min = value;
+            if (value > max) max = value;
+            values.add(Math.round(value * VALUE_SCALE));
+        }
+
+        void merge(NumericPartial other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            values.merge(other.values);
+        }
+
+        CohortNumericStatsDTO toDTO(long selected, double[] percentiles) {
+            CohortNumericStatsDTO dto = new CohortNumericStatsDTO();
+            dto.setCount(count);
+            dto.setMissing(selected - count);
+            Map<String, Double> quantiles = new LinkedHashMap<>();
+            if (count > 0) {
+                dto.setMean(sum / count);
+                dto.setMin(min);
+                dto.setMax(max);
+                long[] keys = values.quantiles(percentiles);
+                for (int i = 0; i < percentiles.length; i++) quantiles.put(percentileLabel(percentiles[i]), keys[i] / VALUE_SCALE);
+            }
+            dto.setPercentiles(quantiles);
+            return dto;
+        }
+
+        // 0.5 -> "p50", 0.999 -> "p99.9"
+        private static String percentileLabel(double q) {
+            return "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+        private final Plan plan;
+        private final RoaringBitmap selection;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Plan plan, RoaringBitmap selection, int from, int to) {
+            this.plan = plan;
+            this.selection = selection;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= CHUNK_ROWS) {
+                return selection.rangeCardinality(from, to) == 0 ? plan.newPartial() : plan.scan(selection, from, to);
+            }
+            // Split on a chunk boundary so each leaf covers whole containers
+            int chunks = (to - from + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            int mid = from + (chunks / 2) * CHUNK_ROWS;
+            ChunkTask left = new ChunkTask(plan, selection, from, mid);
+            left.fork();
+            Partial right = new ChunkTask(plan, selection, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.cohort.CohortSchema;
+import com.ayurveda.backend.cohort.CohortSketches;
+import com.ayurveda.backend.cohort.CohortStore;
+import com.ayurveda.backend.cohort.HeavyHitters;
+import com.ayurveda.backend.cohort.HyperLogLog;
+import com.ayurveda.backend.cohort.QuantileSketch;
+import com.ayurveda.backend.dto.CohortAnalyticsDTO;
+import com.ayurveda.backend.dto.CohortAnalyticsRequestDTO;
+import com.ayurveda.backend.dto.CohortEstimateDTO;
+import com.ayurveda.backend.dto.CohortSketchSummaryDTO;
+import com.ayurveda.backend.dto.CohortTopValueDTO;
+import com.ayurveda.backend.dto.CohortTopValuesDTO;
+import com.ayurveda.backend.dto.CohortVitalSketchDTO;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Approximate district rollups from mergeable sketches: distinct patients, vital quantiles and the most frequent
+// categories, overall and per village, across any number of datasets. Each upload's rows are sketched once
+// (ingest, append, delta) and queries only merge the per-village sketches, so they cost the same however many
+// rows sit behind them. Every answer comes with its error bound.
+// Sketches cannot take rows back: rows tombstoned by a delta stay counted until a compaction rebuilds the sketches
+// from the live rows, and responses report how many such stale rows are included.
+@Service
+public class CohortAnalyticsService {
+    private static final Logger logger = LoggerFactory.getLogger(CohortAnalyticsService.class);
+    private static final List<Double> DEFAULT_QUANTILES = List.of(0.5, 0.9);
+    private static final List<String> DEFAULT_CATEGORIES = List.of(CohortSchema.DISEASE);
+
+    @Autowired
+    private CohortStore cohortStore;
+
+    @Value("${cohort.sketch.hll-precision:12}")
+    private int hllPrecision;
+
+    @Value("${cohort.sketch.relative-accuracy:0.01}")
+    private double relativeAccuracy;
+
+    @Value("${cohort.sketch.max-buckets:2048}")
+    private int maxBuckets;
+
+    @Value("${cohort.sketch.heavy-hitters:64}")
+    private int heavyHitters;
+
+    @Value("${cohort.sketch.max-uploads:32}")
+    private int maxUploads;
+
+    @Value("${cohort.analytics.default-top-k:10}")
+    private int defaultTopK;
+
+    private CohortSketches.Settings settings;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder sketchedRows = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private volatile long lastBuildMillis;
+    private volatile long lastQueryMicros;
+
+    // Sketches of one dataset version: one set per upload, oldest first
+    private static final class Entry {
+        private final CohortDataset dataset;
+        private final List<CohortSketches> uploads;
+
+        Entry(CohortDataset dataset, List<CohortSketches> uploads) {
+            this.dataset = dataset;
+            this.uploads = uploads;
+        }
+
+        long rows() {
+            long rows = 0;
+            for (CohortSketches upload : uploads) rows += upload.getRows();
+            return rows;
+        }
+
+        long memoryBytes() {
+            long bytes = 0;
+            for (CohortSketches upload : uploads) bytes += upload.memoryBytes();
+            return bytes;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (hllPrecision < 4 || hllPrecision > 18) throw new IllegalArgumentException("cohort.sketch.hll-precision must be between 4 and 18");
+        if (maxUploads < 1) throw new IllegalArgumentException("cohort.sketch.max-uploads must be at least 1");
+        settings = new CohortSketches.Settings(hllPrecision, relativeAccuracy, maxBuckets, heavyHitters);
+    }
+
+    // Sketches a whole dataset version from its live rows (after an upload or a compaction)
+    public void datasetLoaded(CohortDataset dataset) {
+        entries.compute(dataset.getId(), (id, entry) -> isNewer(entry, dataset) ? entry : rebuild(dataset));
+    }
+
+    // Sketches only the rows an append or delta added on top of base; the older uploads' sketches are kept.
+    // Falls back to a rebuild at the next query if the sketches were not of base.
+    public void datasetExtended(CohortDataset base, CohortDataset next) {
+        entries.compute(next.getId(), (id, entry) -> {
+            if (isNewer(entry, next)) return entry;
+            if (entry == null || entry.dataset != base) return null;
+            long startedAt = System.nanoTime();
+            List<CohortSketches> uploads = new ArrayList<>(entry.uploads);
+            // Rows a later record of the same delta replaced are already tombstoned and left out
+            RoaringBitmap added = RoaringBitmap.and(next.getIndex().allRows(), rangeOf(base.getRowCount(), next.getRowCount()));
+            if (!added.isEmpty()) {
+                uploads.add(CohortSketches.build(next, added, settings));
+                builds.increment();
+                sketchedRows.add(added.getLongCardinality());
+                lastBuildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            }
+            // Past the limit the two oldest uploads are folded into one, so memory stays bounded
+            while (uploads.size() > maxUploads) {
+                uploads.set(0, CohortSketches.combine(uploads.get(0), uploads.get(1), settings));
+                uploads.remove(1);
+            }
+            return new Entry(next, uploads);
+        });
+    }
+
+    public void evict(String datasetId) {
+        entries.remove(datasetId);
+    }
+
+    // Datasets from the request (every dataset when none are named). Null when a named dataset does not exist;
+    // IllegalArgumentException for unknown vitals or categories, or quantiles outside 0..1.
+    public CohortAnalyticsDTO analyze(CohortAnalyticsRequestDTO request) {
+        List<CohortDataset> datasets = new ArrayList<>();
+        if (request.getDatasetIds() == null || request.getDatasetIds().isEmpty()) {
+            datasets.addAll(cohortStore.list());
+        } else {
+            for (String id : request.getDatasetIds()) {
+                CohortDataset dataset = cohortStore.get(id);
+                if (dataset == null) return null;
+                datasets.add(dataset);
+            }
+        }
+        long startedAt = System.nanoTime();
+        List<String> vitals = request.getVitals() != null && !request.getVitals().isEmpty() ? request.getVitals() : CohortSketches.VITALS;
+        for (String vital : vitals) {
+            if (!CohortSketches.VITALS.contains(vital)) throw new IllegalArgumentException("Not a sketched vital: " + vital + ", expected one of " + CohortSketches.VITALS);
+        }
+        boolean categoriesRequested = request.getCategories() != null && !request.getCategories().isEmpty();
+        List<String> categories = categoriesRequested ? request.getCategories() : DEFAULT_CATEGORIES;
+        if (categoriesRequested && !datasets.isEmpty()) {
+            for (String category : categories) {
+                boolean known = false;
+                for (CohortDataset dataset : datasets) known |= CohortSketches.isCategory(dataset.column(category));
+                if (!known) throw new IllegalArgumentException("Not a sketched category column: " + category);
+            }
+        }
+        List<Double> quantiles = request.getQuantiles() != null && !request.getQuantiles().isEmpty() ? request.getQuantiles() : DEFAULT_QUANTILES;
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+        }
+        int topK = request.getTopK() != null ? Math.min(Math.max(1, request.getTopK()), heavyHitters) : Math.min(defaultTopK, heavyHitters);
+        Set<String> villageFilter = null;
+        if (request.getVillages() != null && !request.getVillages().isEmpty()) {
+            villageFilter = new HashSet<>();
+            for (String village : request.getVillages()) villageFilter.add(village.trim().toLowerCase(Locale.ROOT));
+        }
+        boolean perVillage = Boolean.TRUE.equals(request.getPerVillage());
+
+        CohortSketches.Group overall = new CohortSketches.Group(settings);
+        Map<String, CohortSketches.Group> villages = new TreeMap<>();
+        long staleRows = 0;
+        long sketchBytes = 0;
+        for (CohortDataset dataset : datasets) {
+            Entry entry = current(dataset);
+            staleRows += entry.rows() - dataset.getIndex().getLiveRowCount();
+            sketchBytes += entry.memoryBytes();
+            for (CohortSketches upload : entry.uploads) {
+                for (Map.Entry<String, CohortSketches.Group> village : upload.getVillages().entrySet()) {
+                    String name = village.getKey();
+                    if (villageFilter != null && !villageFilter.contains(name.trim().toLowerCase(Locale.ROOT))) continue;
+                    overall.merge(village.getValue(), vitals, categories);
+                    if (perVillage && !name.equals(CohortSketches.NO_VILLAGE)) {
+                        villages.computeIfAbsent(name, v -> new CohortSketches.Group(settings)).merge(village.getValue(), vitals, categories);
+                    }
+                }
+            }
+        }
+
+        CohortAnalyticsDTO result = new CohortAnalyticsDTO();
+        result.setDatasets(datasets.size());
+        result.setRows(overall.getRows());
+        result.setStaleRows(Math.max(0, staleRows));
+        result.setSketchBytes(sketchBytes);
+        result.setOverall(summarize(null, overall, vitals, categories, quantiles, topK));
+        if (perVillage) {
+            List<CohortSketchSummaryDTO> summaries = new ArrayList<>();
+            for (Map.Entry<String, CohortSketches.Group> village : villages.entrySet()) {
+                summaries.add(summarize(village.getKey(), village.getValue(), vitals, categories, quantiles, topK));
+            }
+            result.setVillages(summaries);
+        }
+        result.setElapsedMicros((System.nanoTime() - startedAt) / 1_000);
+        queries.increment();
+        lastQueryMicros = result.getElapsedMicros();
+        return result;
+    }
+
+    // Sketches matching the dataset's current version; rebuilt when missing (e.g. a snapshot reopened at startup)
+    private Entry current(CohortDataset dataset) {
+        Entry entry = entries.get(dataset.getId());
+        if (entry != null && entry.dataset == dataset) return entry;
+        return entries.compute(dataset.getId(), (id, existing) ->
+                existing != null && (existing.dataset == dataset || isNewer(existing, dataset)) ? existing : rebuild(dataset));
+    }
+
+    private Entry rebuild(CohortDataset dataset) {
+        long startedAt = System.nanoTime();
+        List<CohortSketches> uploads = new ArrayList<>();
+        uploads.add(CohortSketches.build(dataset, dataset.getIndex().allRows(), settings));
+        rebuilds.increment();
+        sketchedRows.add(dataset.getIndex().getLiveRowCount());
+        lastBuildMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        logger.info("Cohort '{}' sketched: {} rows in {} ms", dataset.getName(), dataset.getIndex().getLiveRowCount(), lastBuildMillis);
+        return new Entry(dataset, uploads);
+    }
+
+    // True when the cached sketches already belong to a later version, e.g. a slower writer's hook running late
+    private static boolean isNewer(Entry entry, CohortDataset dataset) {
+        return entry != null && entry.dataset.getVersion() > dataset.getVersion();
+    }
+
+    private static RoaringBitmap rangeOf(int from, int to) {
+        RoaringBitmap range = new RoaringBitmap();
+        range.add((long) from, (long) to);
+        return range;
+    }
+
+    private CohortSketchSummaryDTO summarize(String village, CohortSketches.Group group, List<String> vitals,
+                                             List<String> categories, List<Double> quantiles, int topK) {
+        CohortSketchSummaryDTO summary = new CohortSketchSummaryDTO();
+        summary.setVillage(village);
+        summary.setRows(group.getRows());
+
+        HyperLogLog patients = group.getPatients();
+        double estimate = patients.estimate();
+        CohortEstimateDTO distinct = new CohortEstimateDTO();
+        distinct.setEstimate(Math.round(estimate));
+        distinct.setLower(patients.lower(estimate));
+        distinct.setUpper(patients.upper(estimate));
+        distinct.setConfidence(HyperLogLog.INTERVAL_CONFIDENCE);
+        summary.setDistinctPatients(distinct);
+
+        Map<String, CohortVitalSketchDTO> vitalSummaries = new LinkedHashMap<>();
+        for (String name : vitals) {
+            QuantileSketch sketch = group.vital(name);
+            if (sketch == null) continue;
+            CohortVitalSketchDTO vital = new CohortVitalSketchDTO();
+            vital.setCount(sketch.getCount());
+            vital.setMin(sketch.getMin());
+            vital.setMax(sketch.getMax());
+            vital.setRelativeError(sketch.getRelativeAccuracy());
+            Map<String, CohortEstimateDTO> values = new LinkedHashMap<>();
+            for (double q : quantiles) {
+                double value = sketch.quantile(q);
+                CohortEstimateDTO bounded = new CohortEstimateDTO();
+                bounded.setEstimate(value);
+                // The true quantile x satisfies |value - x| <= a * x
+                bounded.setLower(Math.max(sketch.getMin(), value / (1 + sketch.getRelativeAccuracy())));
+                bounded.setUpper(Math.min(sketch.getMax(), value / (1 - sketch.getRelativeAccuracy())));
+                bounded.setConfidence(1);
+                values.put(percentileLabel(q), bounded);
+            }
+            vital.setQuantiles(values);
+            vitalSummaries.put(name, vital);
+        }
+        summary.setVitals(vitalSummaries);
+
+        Map<String, CohortTopValuesDTO> topValues = new LinkedHashMap<>();
+        for (String name : categories) {
+            HeavyHitters sketch = group.category(name);
+            if (sketch == null) continue;
+            CohortTopValuesDTO top = new CohortTopValuesDTO();
+            top.setTotal(sketch.getTotal());
+            top.setMaxError(sketch.getMaxError());
+            List<CohortTopValueDTO> values = new ArrayList<>();
+            for (Map.Entry<String, Long> counter : sketch.top(topK)) {
+                CohortTopValueDTO value = new CohortTopValueDTO();
+                value.setValue(counter.getKey());
+                value.setCount(counter.getValue());
+                value.setUpperBound(counter.getValue() + sketch.getMaxError());
+                values.add(value);
+            }
+            top.setValues(values);
+            topValues.put(name, top);
+        }
+        summary.setTopValues(topValues);
+        return summary;
+    }
+
+    // 0.5 -> "p50", 0.999 -> "p99.9"
+    private static String percentileLabel(double q) {
+        return "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+    }
+
+    public Map<String, Object> stats() {
+        long bytes = 0;
+        int uploads = 0;
+        for (Entry entry : entries.values()) {
+            bytes += entry.memoryBytes();
+            uploads += entry.uploads.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("datasets", entries.size());
+        stats.put("uploads", uploads);
+        stats.put("sketchBytes", bytes);
+        stats.put("builds", builds.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("sketchedRows", sketchedRows.sum());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("queries", queries.sum());
+        stats.put("lastQueryMicros", lastQueryMicros);
+        return stats;
+    }
+}
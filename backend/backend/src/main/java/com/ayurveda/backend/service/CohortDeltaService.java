@@ -0,0 +1,234 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.cohort.CohortDatasetBuilder;
+import com.ayurveda.backend.cohort.CohortDeltaBuilder;
+import com.ayurveda.backend.cohort.CohortStore;
+import com.ayurveda.backend.csv.CsvReader;
+import com.ayurveda.backend.dto.CohortDeltaResultDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Delta uploads (upserts and tombstones keyed by contact number plus patient name) and their compaction.
+// Each delta is published as a new immutable dataset version in one store swap, so filters, searches and
+// exports never wait for it: they finish on the version they started with. Tombstoned rows stay in the
+// columns until a background compaction rewrites the live rows into a fresh base and swaps that in.
+@Service
+public class CohortDeltaService {
+    private static final Logger logger = LoggerFactory.getLogger(CohortDeltaService.class);
+    private static final int MAX_COMPACTION_ATTEMPTS = 3;
+
+    @Autowired
+    private CohortStore cohortStore;
+    @Autowired
+    private CohortSnapshotService cohortSnapshotService;
+    @Autowired
+    private CohortAggregationService cohortAggregationService;
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Value("${cohort.delta.max-records:200000}")
+    private int maxRecords;
+
+    @Value("${cohort.delta.compaction.dead-ratio:0.2}")
+    private double compactionDeadRatio;
+
+    @Value("${cohort.delta.compaction.min-dead-rows:1000}")
+    private int compactionMinDeadRows;
+
+    private ExecutorService compactor;
+    private final Set<String> compactionsPending = ConcurrentHashMap.newKeySet();
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder compactionsSuperseded = new LongAdder();
+    private final LongAdder compactedRows = new LongAdder();
+    private volatile long lastCompactionMillis;
+
+    @PostConstruct
+    void start() {
+        compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "cohort-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        compactor.shutdownNow();
+    }
+
+    // Null when the dataset does not exist; IllegalArgumentException for a bad upload (nothing is applied then);
+    // IllegalStateException if another version was swapped in meanwhile
+    public CohortDeltaResultDTO apply(String id, InputStream csv) throws IOException {
+        if (cohortStore.get(id) == null) return null;
+        long startedAt = System.nanoTime();
+        // Parsed before taking the write lock, so a slow upload does not hold up other writers
+        String[] header;
+        List<String[]> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            header = reader.readRecord();
+            if (header == null) throw new IllegalArgumentException("CSV upload is empty");
+            String[] record;
+            while ((record = reader.readRecord()) != null) {
+                if (records.size() == maxRecords) {
+                    throw new IllegalArgumentException("A delta may hold at most " + maxRecords + " records; append larger uploads");
+                }
+                records.add(record);
+            }
+        }
+
+        CohortDeltaBuilder delta;
+        CohortDataset base;
+        CohortDataset dataset;
+        ReentrantLock lock = cohortStore.writeLock(id);
+        lock.lock();
+        try {
+            base = cohortStore.get(id);
+            if (base == null) return null;
+            delta = new CohortDeltaBuilder(base, header);
+            for (String[] record : records) delta.addRecord(record);
+            dataset = delta.build();
+            if (dataset != base && !cohortStore.replace(base, dataset)) {
+                if (cohortStore.get(id) == null) return null;
+                throw new IllegalStateException("Dataset was modified concurrently, retry the delta");
+            }
+            // Incremental and order-sensitive, so applied in version order under the lock
+            if (dataset != base) cohortAnalyticsService.datasetExtended(base, dataset);
+        } finally {
+            lock.unlock();
+        }
+        // Whole-dataset work, kept off the lock; both skip a version that was superseded or deleted meanwhile
+        if (dataset != base) {
+            cohortSnapshotService.save(dataset);
+            cohortAggregationService.materialize(dataset);
+        }
+        deltas.increment();
+        inserted.add(delta.getInserted());
+        updated.add(delta.getUpdated());
+        deleted.add(delta.getDeleted());
+        boolean compactionScheduled = compactInBackground(dataset);
+
+        CohortDeltaResultDTO result = new CohortDeltaResultDTO();
+        result.setDatasetId(id);
+        result.setVersion(dataset.getVersion());
+        result.setRecords(delta.getRecords());
+        result.setInserted(delta.getInserted());
+        result.setUpdated(delta.getUpdated());
+        result.setDeleted(delta.getDeleted());
+        result.setUnmatchedDeletes(delta.getUnmatched());
+        result.setRowCount(dataset.getRowCount());
+        result.setLiveRowCount(dataset.getIndex().getLiveRowCount());
+        result.setDeletedRowCount(dataset.getDeletedRowCount());
+        result.setCompactionScheduled(compactionScheduled);
+        result.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+        logger.info("Cohort '{}' delta applied as version {}: {} inserted, {} updated, {} deleted, {} of {} rows tombstoned in {} ms",
+                dataset.getName(), dataset.getVersion(), delta.getInserted(), delta.getUpdated(), delta.getDeleted(),
+                dataset.getDeletedRowCount(), dataset.getRowCount(), result.getElapsedMillis());
+        return result;
+    }
+
+    // Rewrites the live rows of the current version into a fresh one. The rewrite, snapshot and rollup run without the
+    // write lock (the swap and its sketches take it); if a writer published a newer version meanwhile, the result is
+    // dropped and IllegalStateException thrown.
+    // Null when the dataset does not exist.
+    public CohortDataset compact(String id) {
+        CohortDataset source = cohortStore.get(id);
+        if (source == null) return null;
+        if (source.getDeletedRowCount() == 0) return source;
+        long startedAt = System.nanoTime();
+        CohortDataset compacted = new CohortDatasetBuilder(source, source.getIndex().allRows()).buildCompacted();
+        // So the next delta finds its keys ready
+        compacted.getKeys();
+
+        ReentrantLock lock = cohortStore.writeLock(id);
+        lock.lock();
+        try {
+            if (!cohortStore.replace(source, compacted)) {
+                compactionsSuperseded.increment();
+                if (cohortStore.get(id) == null) return null;
+                throw new IllegalStateException("Dataset changed during compaction, retry");
+            }
+            // Sketches cannot drop tombstoned rows, so the compacted version is sketched afresh
+            cohortAnalyticsService.datasetLoaded(compacted);
+        } finally {
+            lock.unlock();
+        }
+        cohortSnapshotService.save(compacted);
+        cohortAggregationService.materialize(compacted);
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        compactions.increment();
+        compactedRows.add(source.getDeletedRowCount());
+        lastCompactionMillis = elapsedMillis;
+        logger.info("Cohort '{}' compacted to version {}: {} -> {} rows in {} ms", compacted.getName(), compacted.getVersion(),
+                source.getRowCount(), compacted.getRowCount(), elapsedMillis);
+        return compacted;
+    }
+
+    // Queues a compaction once enough of the dataset is tombstoned; at most one per dataset is queued.
+    // A compaction that loses to a newer delta is retried on the newer version a few times, then left to the next delta.
+    private boolean compactInBackground(CohortDataset dataset) {
+        if (!needsCompaction(dataset)) return false;
+        if (!compactionsPending.add(dataset.getId())) return true;
+        compactor.execute(() -> {
+            try {
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        compact(dataset.getId());
+                        break;
+                    } catch (IllegalStateException superseded) {
+                        CohortDataset current = cohortStore.get(dataset.getId());
+                        if (attempt == MAX_COMPACTION_ATTEMPTS || current == null || !needsCompaction(current)) break;
+                    }
+                }
+            } catch (RuntimeException ex) {
+                logger.error("Compaction of cohort {} failed: {}", dataset.getId(), ex.getMessage(), ex);
+            } finally {
+                compactionsPending.remove(dataset.getId());
+            }
+        });
+        return true;
+    }
+
+    private boolean needsCompaction(CohortDataset dataset) {
+        int dead = dataset.getDeletedRowCount();
+        return dead >= compactionMinDeadRows && dead >= compactionDeadRatio * dataset.getRowCount();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("deltas", deltas.sum());
+        stats.put("inserted", inserted.sum());
+        stats.put("updated", updated.sum());
+        stats.put("deleted", deleted.sum());
+        stats.put("compactions", compactions.sum());
+        stats.put("compactionsSuperseded", compactionsSuperseded.sum());
+        stats.put("compactionsPending", compactionsPending.size());
+        stats.put("compactedRows", compactedRows.sum());
+        stats.put("lastCompactionMillis", lastCompactionMillis);
+        return stats;
+    }
+}
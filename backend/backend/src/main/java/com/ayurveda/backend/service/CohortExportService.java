@@ -0,0 +1,98 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cohort.CohortCsvWriter;
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.cohort.CohortFilter;
+import com.ayurveda.backend.cohort.CohortStore;
+import com.ayurveda.backend.dto.CohortFilterRequestDTO;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+// CSV export of filtered cohort subsets. The selection is only a bitmap of row ids; rows are encoded
+// one at a time into a fixed buffer, so heap use stays flat however many rows are exported.
+@Service
+public class CohortExportService {
+    private static final Logger logger = LoggerFactory.getLogger(CohortExportService.class);
+
+    @Autowired
+    private CohortStore cohortStore;
+
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private volatile long lastRowsPerSecond;
+
+    // Resolves the dataset, filter and columns before any output is written, so bad requests can still
+    // get a 400. Null when the dataset does not exist; IllegalArgumentException for unknown columns or brackets.
+    public Export prepare(String id, CohortFilterRequestDTO request) {
+        CohortDataset dataset = cohortStore.get(id);
+        if (dataset == null) return null;
+        CohortFilterRequestDTO spec = request != null ? request : new CohortFilterRequestDTO();
+        RoaringBitmap rows = dataset.getIndex().evaluate(new CohortFilter(spec.getFilters(), spec.getAgeBrackets()));
+        return new Export(dataset, rows, new CohortCsvWriter(dataset, spec.getColumns()));
+    }
+
+    public void write(Export export, OutputStream out, boolean gzip) throws IOException {
+        long startedAt = System.nanoTime();
+        long rows;
+        try {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, CohortCsvWriter.BUFFER_SIZE);
+                rows = export.writer.write(export.rows, compressed);
+                compressed.finish();
+            } else {
+                rows = export.writer.write(export.rows, out);
+            }
+        } catch (IOException ex) {
+            // Usually the client went away mid-download
+            failed.increment();
+            logger.warn("Cohort '{}' export aborted after {} bytes: {}", export.dataset.getName(),
+                    export.writer.getBytesWritten(), ex.getMessage());
+            throw ex;
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+        long rowsPerSecond = rows * 1_000_000_000L / elapsedNanos;
+        exports.increment();
+        rowsWritten.add(rows);
+        bytesWritten.add(export.writer.getBytesWritten());
+        lastRowsPerSecond = rowsPerSecond;
+        logger.info("Cohort '{}' exported: {} rows, {} KB{} in {} ms ({} rows/s)", export.dataset.getName(), rows,
+                export.writer.getBytesWritten() / 1024, gzip ? " before gzip" : "", elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("exports", exports.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rows", rowsWritten.sum());
+        stats.put("bytes", bytesWritten.sum());
+        stats.put("lastRowsPerSecond", lastRowsPerSecond);
+        return stats;
+    }
+
+    public static final class Export {
+        private final CohortDataset dataset;
+        private final RoaringBitmap rows;
+        private final CohortCsvWriter writer;
+
+        private Export(CohortDataset dataset, RoaringBitmap rows, CohortCsvWriter writer) {
+            this.dataset = dataset;
+            this.rows = rows;
+            this.writer = writer;
+        }
+
+        public String getDatasetName() { return dataset.getName(); }
+        public long getRowCount() { return rows.getLongCardinality(); }
+    }
+}
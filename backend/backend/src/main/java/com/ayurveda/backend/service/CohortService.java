@@ -0,0 +1,263 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.cohort.CohortColumn;
+import com.ayurveda.backend.cohort.CohortDatasetBuilder;
+import com.ayurveda.backend.cohort.CohortFilter;
+import com.ayurveda.backend.cohort.CohortSearchIndex;
+import com.ayurveda.backend.cohort.CohortStore;
+import com.ayurveda.backend.csv.CsvReader;
+import com.ayurveda.backend.dto.CohortFilterRequestDTO;
+import com.ayurveda.backend.dto.CohortFilterResultDTO;
+import com.ayurveda.backend.dto.CohortSearchHitDTO;
+import com.ayurveda.backend.dto.CohortSearchResultDTO;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class CohortService {
+    private static final Logger logger = LoggerFactory.getLogger(CohortService.class);
+
+    @Autowired
+    private CohortStore cohortStore;
+    @Autowired
+    private CohortAggregationService cohortAggregationService;
+    @Autowired
+    private CohortSnapshotService cohortSnapshotService;
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Value("${cohort.filter.default-limit:100}")
+    private int defaultLimit;
+
+    @Value("${cohort.filter.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${cohort.search.default-limit:20}")
+    private int searchDefaultLimit;
+
+    @Value("${cohort.search.max-limit:100}")
+    private int searchMaxLimit;
+
+    // Parses the CSV record by record straight into column buffers; the upload is never held as text
+    public CohortDataset ingest(String name, InputStream csv) throws IOException {
+        long startedAt = System.nanoTime();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String[] header = reader.readRecord();
+            if (header == null) throw new IllegalArgumentException("CSV upload is empty");
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(header);
+            String[] record;
+            while ((record = reader.readRecord()) != null) {
+                builder.addRecord(record);
+            }
+            CohortDataset dataset = builder.build(UUID.randomUUID().toString(), name);
+            cohortStore.put(dataset);
+            cohortSnapshotService.save(dataset);
+            cohortAggregationService.materialize(dataset);
+            cohortAnalyticsService.datasetLoaded(dataset);
+            logger.info("Cohort '{}' ingested: {} rows, {} columns, {} KB in {} ms", name, dataset.getRowCount(),
+                    dataset.getColumns().size(), dataset.memoryBytes() / 1024, (System.nanoTime() - startedAt) / 1_000_000);
+            return dataset;
+        }
+    }
+
+    // Appends records to an existing dataset. The filter and search indexes are extended with the new
+    // rows only; readers keep using the previous version until the new one is swapped in. The upload is parsed
+    // before the dataset's write lock is taken; under it the records are added to the current version and swapped in,
+    // so deltas and compaction swaps wait for that instead of failing it.
+    // Null when the dataset does not exist; IllegalStateException if it changed while appending.
+    public CohortDataset append(String id, InputStream csv) throws IOException {
+        if (cohortStore.get(id) == null) return null;
+        long startedAt = System.nanoTime();
+        String[] header;
+        List<String[]> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            header = reader.readRecord();
+            if (header == null) throw new IllegalArgumentException("CSV upload is empty");
+            String[] record;
+            while ((record = reader.readRecord()) != null) {
+                records.add(record);
+            }
+        }
+
+        CohortDataset base;
+        CohortDataset dataset;
+        ReentrantLock lock = cohortStore.writeLock(id);
+        lock.lock();
+        try {
+            base = cohortStore.get(id);
+            if (base == null) return null;
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(base, header);
+            for (String[] record : records) builder.addRecord(record);
+            dataset = builder.buildAppended();
+            if (!cohortStore.replace(base, dataset)) {
+                if (cohortStore.get(id) == null) return null;
+                throw new IllegalStateException("Dataset was modified concurrently, retry the append");
+            }
+            // Incremental and order-sensitive, so applied in version order under the lock
+            cohortAnalyticsService.datasetExtended(base, dataset);
+        } finally {
+            lock.unlock();
+        }
+        // Whole-dataset work; both skip a version that was superseded or deleted meanwhile
+        cohortSnapshotService.save(dataset);
+        cohortAggregationService.materialize(dataset);
+        logger.info("Cohort '{}' appended: {} -> {} rows, {} search segments in {} ms", dataset.getName(),
+                base.getRowCount(), dataset.getRowCount(), dataset.getSearchIndex().getSegmentCount(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+        return dataset;
+    }
+
+    public CohortDataset getDataset(String id) {
+        return cohortStore.get(id);
+    }
+
+    public List<CohortDataset> getDatasets() {
+        return cohortStore.list();
+    }
+
+    // Under the write lock, so no writer's sketches land after the delete. Snapshots and rollups are written outside
+    // it and skip datasets no longer in the store, so it is removed from the store before they are dropped.
+    public boolean deleteDataset(String id) {
+        ReentrantLock lock = cohortStore.writeLock(id);
+        lock.lock();
+        try {
+            boolean removed = cohortStore.remove(id);
+            cohortAggregationService.evict(id);
+            cohortAnalyticsService.evict(id);
+            if (!removed) return false;
+            cohortSnapshotService.delete(id);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Null when the dataset does not exist; IllegalArgumentException for unknown columns or brackets
+    public CohortFilterResultDTO filter(String id, CohortFilterRequestDTO request) {
+        CohortDataset dataset = cohortStore.get(id);
+        if (dataset == null) return null;
+        String include = request.getInclude() != null ? request.getInclude() : "count";
+        if (!include.equals("count") && !include.equals("ids") && !include.equals("rows")) {
+            throw new IllegalArgumentException("include must be one of count, ids, rows");
+        }
+
+        long startedAt = System.nanoTime();
+        RoaringBitmap matches = dataset.getIndex().evaluate(new CohortFilter(request.getFilters(), request.getAgeBrackets()));
+        CohortFilterResultDTO result = new CohortFilterResultDTO();
+        result.setCount(matches.getLongCardinality());
+        result.setElapsedMicros((System.nanoTime() - startedAt) / 1_000);
+        if (include.equals("count")) return result;
+
+        int offset = request.getOffset() != null ? Math.max(0, request.getOffset()) : 0;
+        int limit = request.getLimit() != null ? Math.min(Math.max(1, request.getLimit()), maxLimit) : defaultLimit;
+        List<Integer> page = page(matches, offset, limit);
+        if (offset + page.size() < result.getCount()) result.setNextOffset(offset + page.size());
+        if (include.equals("ids")) {
+            result.setIds(page);
+        } else {
+            List<Map<String, String>> rows = new ArrayList<>(page.size());
+            for (int row : page) {
+                Map<String, String> values = new LinkedHashMap<>();
+                values.put("id", Integer.toString(row));
+                values.putAll(formatRow(dataset, row));
+                rows.add(values);
+            }
+            result.setRows(rows);
+        }
+        return result;
+    }
+
+    // Searches one dataset, or every dataset when datasetId is null. Hits are ordered by score, then by
+    // dataset upload order and row. Null when the requested dataset does not exist.
+    public CohortSearchResultDTO search(String datasetId, String query, Integer offset, Integer limit) {
+        List<CohortDataset> datasets;
+        if (datasetId != null) {
+            CohortDataset dataset = cohortStore.get(datasetId);
+            if (dataset == null) return null;
+            datasets = List.of(dataset);
+        } else {
+            datasets = cohortStore.list();
+        }
+        int from = offset != null ? Math.max(0, offset) : 0;
+        int size = limit != null ? Math.min(Math.max(1, limit), searchMaxLimit) : searchDefaultLimit;
+
+        long startedAt = System.nanoTime();
+        List<RankedBucket> buckets = new ArrayList<>();
+        long total = 0;
+        for (CohortDataset dataset : datasets) {
+            CohortSearchIndex.Ranking ranking = dataset.getSearchIndex().search(query);
+            for (int b = 0; b < ranking.bucketCount(); b++) {
+                buckets.add(new RankedBucket(dataset, ranking.score(b), ranking.rows(b)));
+            }
+            total += ranking.getTotal();
+        }
+        // Stable sort keeps upload order among equal scores
+        buckets.sort(Comparator.comparingInt((RankedBucket bucket) -> bucket.score).reversed());
+
+        CohortSearchResultDTO result = new CohortSearchResultDTO();
+        result.setQuery(query);
+        result.setTotal(total);
+        long skip = from;
+        for (RankedBucket bucket : buckets) {
+            if (result.getHits().size() == size) break;
+            long cardinality = bucket.rows.getLongCardinality();
+            if (skip >= cardinality) {
+                skip -= cardinality;
+                continue;
+            }
+            for (int row : page(bucket.rows, (int) skip, size - result.getHits().size())) {
+                result.getHits().add(new CohortSearchHitDTO(bucket.dataset.getId(), row, bucket.score, formatRow(bucket.dataset, row)));
+            }
+            skip = 0;
+        }
+        result.setElapsedMicros((System.nanoTime() - startedAt) / 1_000);
+        if (from + result.getHits().size() < total) result.setNextOffset(from + result.getHits().size());
+        return result;
+    }
+
+    private static Map<String, String> formatRow(CohortDataset dataset, int row) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (CohortColumn column : dataset.getColumns()) values.put(column.getName(), column.format(row));
+        return values;
+    }
+
+    // Jumps straight to the offset-th match (rank select) instead of walking the skipped rows
+    private static List<Integer> page(RoaringBitmap matches, int offset, int limit) {
+        List<Integer> ids = new ArrayList<>(limit);
+        if (offset >= matches.getLongCardinality()) return ids;
+        PeekableIntIterator it = matches.getIntIterator();
+        it.advanceIfNeeded(matches.select(offset));
+        while (it.hasNext() && ids.size() < limit) ids.add(it.next());
+        return ids;
+    }
+
+    private static final class RankedBucket {
+        private final CohortDataset dataset;
+        private final int score;
+        private final RoaringBitmap rows;
+
+        private RankedBucket(CohortDataset dataset, int score, RoaringBitmap rows) {
+            this.dataset = dataset;
+            this.score = score;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.cohort.CohortDataset;
+import com.ayurveda.backend.cohort.CohortSnapshot;
+import com.ayurveda.backend.cohort.CohortStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps a memory-mapped snapshot of every dataset under cohort.snapshot.dir and reopens them at startup,
+// so datasets survive restarts without re-parsing their CSVs. Disabled when the directory is blank.
+@Service
+public class CohortSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(CohortSnapshotService.class);
+
+    @Autowired
+    private CohortStore cohortStore;
+
+    @Value("${cohort.snapshot.dir:}")
+    private String snapshotDir;
+
+    @Value("${cohort.snapshot.verify-checksums:true}")
+    private boolean verifyChecksums;
+
+    private ExecutorService warmup;
+    // Serializes writes and deletes; a lock rather than synchronized so file I/O does not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @PostConstruct
+    void load() throws IOException {
+        if (!isEnabled()) return;
+        Path root = Paths.get(snapshotDir);
+        Files.createDirectories(root);
+        long startedAt = System.nanoTime();
+        List<CohortDataset> opened = new ArrayList<>();
+        long rows = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                try {
+                    CohortDataset dataset = CohortSnapshot.open(dir, verifyChecksums);
+                    if (dataset == null) {
+                        logger.warn("Removing incomplete cohort snapshot {}", dir);
+                        FileSystemUtils.deleteRecursively(dir);
+                        continue;
+                    }
+                    cohortStore.put(dataset);
+                    opened.add(dataset);
+                    rows += dataset.getRowCount();
+                } catch (IOException | IllegalArgumentException ex) {
+                    logger.error("Skipping cohort snapshot {}: {}", dir, ex.getMessage());
+                }
+            }
+        }
+        logger.info("Opened {} cohort snapshots ({} rows) from {} in {} ms", opened.size(), rows, root.toAbsolutePath(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+
+        // Search indexes are rebuilt off the startup path; a search that arrives first builds its index itself
+        warmup = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "cohort-snapshot-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (CohortDataset dataset : opened) {
+            warmup.submit(() -> {
+                long warmupStartedAt = System.nanoTime();
+                dataset.getSearchIndex();
+                logger.info("Cohort '{}' search index rebuilt in {} ms", dataset.getName(),
+                        (System.nanoTime() - warmupStartedAt) / 1_000_000);
+            });
+        }
+        warmup.shutdown();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (warmup != null) warmup.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return snapshotDir != null && !snapshotDir.isBlank();
+    }
+
+    // Writes the dataset unless a newer version (or a delete) has superseded it. Failures are logged;
+    // the dataset keeps being served from memory.
+    public void save(CohortDataset dataset) {
+        if (!isEnabled()) return;
+        lock.lock();
+        try {
+            if (cohortStore.get(dataset.getId()) != dataset) return;
+            long startedAt = System.nanoTime();
+            CohortSnapshot.write(dataset, Paths.get(snapshotDir, dataset.getId()));
+            logger.info("Cohort '{}' snapshot written: {} rows in {} ms", dataset.getName(), dataset.getRowCount(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (IOException ex) {
+            logger.error("Could not write snapshot of cohort '{}': {}", dataset.getName(), ex.getMessage(), ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void delete(String datasetId) {
+        if (!isEnabled()) return;
+        lock.lock();
+        try {
+            FileSystemUtils.deleteRecursively(Paths.get(snapshotDir, datasetId));
+        } catch (IOException ex) {
+            logger.error("Could not delete snapshot of cohort {}: {}", datasetId, ex.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ayurveda.backend.service;
+
+// Thrown when the password hashing pool and its queue are full; callers answer 503 with Retry-After
+public class HashingCapacityExceededException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public HashingCapacityExceededException(int retryAfterSeconds) {
+        super("Password hashing capacity exceeded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+}
\ No newline at end of file
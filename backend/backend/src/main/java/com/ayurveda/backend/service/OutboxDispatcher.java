@@ -0,0 +1,223 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.entity.OutboxMessage;
+import com.ayurveda.backend.messaging.MessageDeliveryException;
+import com.ayurveda.backend.messaging.MessageSink;
+import com.ayurveda.backend.messaging.OutgoingMessage;
+import com.ayurveda.backend.messaging.TokenBucket;
+import com.ayurveda.backend.metrics.LatencyHistogram;
+import com.ayurveda.backend.repository.OutboxMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drains the outbox. Each tick, per channel: take as many tokens as the channel's bucket allows (up to a
+// batch), claim that many due rows under a lease, deliver them on the bounded worker pool, then record
+// the outcomes with one UPDATE for the delivered rows. Failed rows are retried with exponential backoff
+// and jitter until outbox.retry.max-attempts. Assumes one dispatching instance per database.
+@Service
+public class OutboxDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final List<OutboxMessage.Status> DUE = List.of(OutboxMessage.Status.PENDING, OutboxMessage.Status.SENDING);
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private List<MessageSink> sinks;
+    @Autowired
+    private Environment environment;
+
+    @Value("${outbox.dispatch.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.dispatch.workers:16}")
+    private int workers;
+
+    @Value("${outbox.dispatch.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${outbox.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry.initial-delay-ms:2000}")
+    private long initialRetryDelayMillis;
+
+    @Value("${outbox.retry.max-delay-ms:600000}")
+    private long maxRetryDelayMillis;
+
+    @Value("${outbox.rate.default:20}")
+    private double defaultRate;
+
+    private final Map<String, Channel> channels = new LinkedHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram sendTime = new LatencyHistogram();
+
+    @PostConstruct
+    void start() {
+        for (MessageSink sink : sinks) {
+            // Per-channel limits: outbox.rate.<channel> messages/s, outbox.burst.<channel> tokens (default one second's worth)
+            double rate = environment.getProperty("outbox.rate." + sink.getChannel(), Double.class, defaultRate);
+            double burst = environment.getProperty("outbox.burst." + sink.getChannel(), Double.class, Math.max(1, rate));
+            channels.put(sink.getChannel(), new Channel(sink, new TokenBucket(rate, burst)));
+        }
+        AtomicInteger threads = new AtomicInteger();
+        // The queue holds one batch; the dispatcher waits for a batch before claiming the next, so it never fills up
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, batchSize)),
+                task -> new Thread(task, "outbox-sender-" + threads.incrementAndGet()), new ThreadPoolExecutor.CallerRunsPolicy());
+        logger.info("Outbox channels: {}", channels.keySet());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public Set<String> getChannels() {
+        return channels.keySet();
+    }
+
+    // Keeps draining while some channel still fills whole batches; otherwise waits for the next tick
+    @Scheduled(fixedDelayString = "${outbox.dispatch.poll-interval-ms:500}")
+    public void dispatch() {
+        boolean more = true;
+        while (more) {
+            more = false;
+            for (Channel channel : channels.values()) {
+                try {
+                    more |= dispatchBatch(channel);
+                } catch (RuntimeException ex) {
+                    logger.error("Outbox dispatch on '{}' failed: {}", channel.sink.getChannel(), ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    private boolean dispatchBatch(Channel channel) {
+        int permits = channel.bucket.tryAcquireUpTo(batchSize);
+        if (permits == 0) return false;
+        Timestamp now = Timestamp.from(Instant.now());
+        List<OutgoingMessage> messages = transactionTemplate.execute(status -> {
+            List<Long> ids = outboxMessageRepository.findDueIds(channel.sink.getChannel(), DUE, now, Limit.of(permits));
+            if (ids.isEmpty()) return List.<OutgoingMessage>of();
+            outboxMessageRepository.claim(ids, OutboxMessage.Status.SENDING, Timestamp.from(now.toInstant().plusSeconds(leaseSeconds)));
+            return outboxMessageRepository.findOutgoing(ids);
+        });
+        if (messages.size() < permits) channel.bucket.release(permits - messages.size());
+        if (messages.isEmpty()) return false;
+
+        List<CompletableFuture<MessageDeliveryException>> results = new ArrayList<>(messages.size());
+        for (OutgoingMessage message : messages) {
+            results.add(CompletableFuture.supplyAsync(() -> deliver(channel.sink, message), executor));
+        }
+        List<Long> sent = new ArrayList<>(messages.size());
+        Map<OutgoingMessage, MessageDeliveryException> failures = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            MessageDeliveryException error = results.get(i).join();
+            if (error == null) sent.add(messages.get(i).getId()); else failures.put(messages.get(i), error);
+        }
+
+        Timestamp finishedAt = Timestamp.from(Instant.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) outboxMessageRepository.markSent(sent, OutboxMessage.Status.SENT, finishedAt);
+            for (Map.Entry<OutgoingMessage, MessageDeliveryException> failure : failures.entrySet()) {
+                recordFailure(failure.getKey(), failure.getValue(), finishedAt);
+            }
+        });
+        delivered.add(sent.size());
+        return messages.size() == permits;
+    }
+
+    // Null when the sink accepted the message
+    private MessageDeliveryException deliver(MessageSink sink, OutgoingMessage message) {
+        long startedAt = System.nanoTime();
+        try {
+            sink.send(message);
+            return null;
+        } catch (MessageDeliveryException ex) {
+            return ex;
+        } catch (RuntimeException ex) {
+            return new MessageDeliveryException(ex.toString(), true, ex);
+        } finally {
+            sendTime.record(System.nanoTime() - startedAt);
+        }
+    }
+
+    private void recordFailure(OutgoingMessage message, MessageDeliveryException error, Timestamp now) {
+        String reason = error.getMessage() != null && error.getMessage().length() > 1000
+                ? error.getMessage().substring(0, 1000) : error.getMessage();
+        if (!error.isRetryable() || message.getAttempt() >= maxAttempts) {
+            failed.increment();
+            outboxMessageRepository.markFailedAttempt(message.getId(), OutboxMessage.Status.FAILED, now, reason);
+            logger.warn("Outbox message {} to {} failed after {} attempts: {}", message.getId(), message.getRecipient(),
+                    message.getAttempt(), reason);
+        } else {
+            retried.increment();
+            outboxMessageRepository.markFailedAttempt(message.getId(), OutboxMessage.Status.PENDING,
+                    Timestamp.from(now.toInstant().plusMillis(retryDelayMillis(message.getAttempt()))), reason);
+        }
+    }
+
+    // initial * 2^(attempt-1), capped, with +-20% jitter so retries of one failed batch spread out
+    long retryDelayMillis(int attempt) {
+        double delay = Math.min(maxRetryDelayMillis, initialRetryDelayMillis * Math.pow(2, Math.min(30, attempt - 1)));
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("delivered", delivered.sum());
+        stats.put("retried", retried.sum());
+        stats.put("failed", failed.sum());
+        stats.put("workers", workers);
+        stats.put("activeWorkers", executor.getActiveCount());
+        Map<String, Object> rates = new LinkedHashMap<>();
+        for (Map.Entry<String, Channel> channel : channels.entrySet()) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("ratePerSecond", channel.getValue().bucket.getRatePerSecond());
+            bucket.put("availableTokens", Math.floor(channel.getValue().bucket.available()));
+            rates.put(channel.getKey(), bucket);
+        }
+        stats.put("channels", rates);
+        stats.put("sendTime", sendTime.snapshot());
+        return stats;
+    }
+
+    private static final class Channel {
+        private final MessageSink sink;
+        private final TokenBucket bucket;
+
+        private Channel(MessageSink sink, TokenBucket bucket) {
+            this.sink = sink;
+            this.bucket = bucket;
+        }
+    }
+}
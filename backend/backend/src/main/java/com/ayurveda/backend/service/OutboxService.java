@@ -0,0 +1,201 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.dto.MessageRecipientDTO;
+import com.ayurveda.backend.dto.OutboxSendRequestDTO;
+import com.ayurveda.backend.dto.OutboxSendStatusDTO;
+import com.ayurveda.backend.entity.OutboxMessage;
+import com.ayurveda.backend.entity.Role;
+import com.ayurveda.backend.entity.User;
+import com.ayurveda.backend.repository.OutboxMessageRepository;
+import com.ayurveda.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Turns a send request into outbox rows: recipients are streamed from the user table, the template is
+// rendered per user and the rows are inserted in JDBC batches, all in one transaction so a send is
+// either fully queued or not at all. Delivery is left to OutboxDispatcher.
+@Service
+public class OutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*(\\w+)\\s*\\}\\}");
+    private static final int MAX_BODY_LENGTH = 4096;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+    @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${outbox.enqueue.batch-size:500}")
+    private int batchSize;
+
+    // IllegalArgumentException for an unknown channel or role, an empty message or a bad schedule
+    public OutboxSendStatusDTO send(OutboxSendRequestDTO request) {
+        String channel = request.getChannel() != null ? request.getChannel().trim().toLowerCase(Locale.ROOT) : "";
+        if (!outboxDispatcher.getChannels().contains(channel)) {
+            throw new IllegalArgumentException("Unknown channel '" + channel + "'; available: " + outboxDispatcher.getChannels());
+        }
+        if (request.getMessage() == null || request.getMessage().isBlank()) throw new IllegalArgumentException("Message is required");
+        List<Object> template = parseTemplate(request.getMessage().trim());
+        Instant scheduledAt = parseSchedule(request.getScheduledAt());
+
+        List<Integer> roleIds = new ArrayList<>();
+        if (request.getRoles() != null) {
+            for (String name : request.getRoles()) {
+                Role role = roleRegistry.findByName(name.trim().toUpperCase(Locale.ROOT));
+                if (role == null) throw new IllegalArgumentException("Unknown role: " + name);
+                roleIds.add(role.getId());
+            }
+        }
+        List<String> departments = request.getDepartments() != null ? request.getDepartments() : List.of();
+
+        long startedAt = System.nanoTime();
+        String sendId = UUID.randomUUID().toString();
+        Timestamp now = Timestamp.from(Instant.now());
+        Timestamp firstAttempt = Timestamp.from(scheduledAt != null ? scheduledAt : now.toInstant());
+        long queued = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<MessageRecipientDTO> recipients = userRepository.streamRecipients(User.Status.ACTIVE,
+                    roleIds.isEmpty(), roleIds.isEmpty() ? List.of(-1) : roleIds,
+                    departments.isEmpty(), departments.isEmpty() ? List.of("") : departments)) {
+                for (MessageRecipientDTO recipient : (Iterable<MessageRecipientDTO>) recipients::iterator) {
+                    String address = recipient.getPhone() != null ? recipient.getPhone().replaceAll("\\D+", "") : "";
+                    if (address.isEmpty()) continue;
+                    OutboxMessage message = new OutboxMessage();
+                    message.setSendId(sendId);
+                    message.setChannel(channel);
+                    message.setUserId(recipient.getId());
+                    message.setRecipient(address.length() > 32 ? address.substring(0, 32) : address);
+                    message.setBody(render(template, recipient));
+                    message.setNextAttemptAt(firstAttempt);
+                    message.setCreatedAt(now);
+                    entityManager.persist(message);
+                    if (++count % batchSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return count;
+        });
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        logger.info("Outbox send {} queued: {} messages on '{}'{} in {} ms", sendId, queued, channel,
+                scheduledAt != null ? " for " + scheduledAt : "", elapsedMillis);
+
+        OutboxSendStatusDTO result = new OutboxSendStatusDTO();
+        result.setSendId(sendId);
+        result.setChannel(channel);
+        result.setTotal(queued);
+        result.setPending(queued);
+        result.setScheduledAt(scheduledAt != null ? scheduledAt.toString() : null);
+        result.setEnqueueMillis(elapsedMillis);
+        return result;
+    }
+
+    // Null when no such send exists
+    public OutboxSendStatusDTO getStatus(String sendId) {
+        List<Object[]> counts = outboxMessageRepository.countByStatus(sendId);
+        if (counts.isEmpty()) return null;
+        OutboxSendStatusDTO result = new OutboxSendStatusDTO();
+        result.setSendId(sendId);
+        for (Object[] row : counts) {
+            long count = (Long) row[1];
+            result.setTotal(result.getTotal() + count);
+            switch ((OutboxMessage.Status) row[0]) {
+                case PENDING: result.setPending(count); break;
+                case SENDING: result.setSending(count); break;
+                case SENT: result.setSent(count); break;
+                default: result.setFailed(count);
+            }
+        }
+        Object[] summary = outboxMessageRepository.findSendSummary(sendId).get(0);
+        result.setChannel((String) summary[0]);
+        if (result.getPending() == 0 && result.getSending() == 0 && summary[2] != null) {
+            result.setDrainMillis(((Timestamp) summary[2]).getTime() - ((Timestamp) summary[1]).getTime());
+        }
+        return result;
+    }
+
+    // Literal text and placeholder names, so rendering 100k bodies does not re-run the regex
+    private static List<Object> parseTemplate(String message) {
+        List<Object> parts = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(message);
+        int at = 0;
+        while (matcher.find()) {
+            if (matcher.start() > at) parts.add(message.substring(at, matcher.start()));
+            parts.add(new Placeholder(matcher.group(1)));
+            at = matcher.end();
+        }
+        if (at < message.length()) parts.add(message.substring(at));
+        return parts;
+    }
+
+    private static String render(List<Object> template, MessageRecipientDTO recipient) {
+        StringBuilder body = new StringBuilder();
+        for (Object part : template) {
+            if (part instanceof Placeholder) {
+                String value = ((Placeholder) part).valueFor(recipient);
+                if (value != null) body.append(value);
+            } else {
+                body.append((String) part);
+            }
+        }
+        return body.length() > MAX_BODY_LENGTH ? body.substring(0, MAX_BODY_LENGTH) : body.toString();
+    }
+
+    private static Instant parseSchedule(String scheduledAt) {
+        if (scheduledAt == null || scheduledAt.isBlank()) return null;
+        try {
+            return Instant.parse(scheduledAt.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("scheduledAt must be an ISO-8601 instant, e.g. 2025-01-31T09:00:00Z");
+        }
+    }
+
+    private static final class Placeholder {
+        private final String name;
+
+        private Placeholder(String name) {
+            this.name = name;
+        }
+
+        // Unknown placeholders render empty, as in the old bulk messenger
+        private String valueFor(MessageRecipientDTO recipient) {
+            switch (name) {
+                case "name": return recipient.getFirstName() + " " + recipient.getLastName();
+                case "firstName": return recipient.getFirstName();
+                case "lastName": return recipient.getLastName();
+                case "username": return recipient.getUsername();
+                case "department": return recipient.getDepartment();
+                case "phone": return recipient.getPhone();
+                default: return null;
+            }
+        }
+    }
+}
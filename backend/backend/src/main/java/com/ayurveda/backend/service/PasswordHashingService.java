@@ -0,0 +1,202 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.metrics.LatencyHistogram;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runs BCrypt encode/matches on a dedicated bounded pool so hashing bursts cannot occupy every Tomcat thread.
+// When the pool and its queue are full, work is rejected immediately instead of queueing without bound.
+@Service
+public class PasswordHashingService {
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${password.hashing.threads:0}")
+    private int threads;
+
+    @Value("${password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${password.hashing.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${password.hashing.bulk-threads:0}")
+    private int bulkThreads;
+
+    @Value("${password.hashing.bulk-concurrency:1}")
+    private int bulkConcurrency;
+
+    private ThreadPoolExecutor executor;
+    private ThreadPoolExecutor bulkExecutor;
+    // Admission for bulk batches: each takes a permit and queues at most one task per bulk thread
+    private Semaphore bulkPermits;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram hashTime = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer queueWaitTimer;
+
+    @PostConstruct
+    void start() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // Half the cores by default, so a large import leaves the rest to the login pool
+        int bulkPoolSize = bulkThreads > 0 ? bulkThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger bulkThreadIndex = new AtomicInteger();
+        bulkExecutor = new ThreadPoolExecutor(bulkPoolSize, bulkPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bulkPoolSize * Math.max(1, bulkConcurrency)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-bulk-" + bulkThreadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        bulkPermits = new Semaphore(Math.max(1, bulkConcurrency), true);
+
+        encodeTimer = Timer.builder("password.hashing").tag("operation", "encode").register(meterRegistry);
+        matchesTimer = Timer.builder("password.hashing").tag("operation", "matches").register(meterRegistry);
+        queueWaitTimer = Timer.builder("password.hashing.queue.wait").register(meterRegistry);
+        FunctionCounter.builder("password.hashing.rejected", rejected, LongAdder::sum).register(meterRegistry);
+        // Pool size, active threads, queue depth and completed tasks (executor_* with name=password.hashing)
+        new ExecutorServiceMetrics(executor, "password.hashing", List.of()).bindTo(meterRegistry);
+        new ExecutorServiceMetrics(bulkExecutor, "password.hashing.bulk", List.of()).bindTo(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+    }
+
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    // Blocking variant for callers that still need the hash inline (user create/update)
+    public String encode(String rawPassword) {
+        try {
+            return encodeAsync(rawPassword).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    // Bulk imports hash a whole batch at once on their own capped pool, so the login pool's threads and queue bound
+    // are untouched. Batches beyond password.hashing.bulk-concurrency wait their turn.
+    public List<String> encodeAll(List<String> rawPasswords) {
+        if (rawPasswords.isEmpty()) return List.of();
+        int chunks = Math.min(bulkExecutor.getMaximumPoolSize(), rawPasswords.size());
+        String[] hashes = new String[rawPasswords.size()];
+        try {
+            bulkPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to hash passwords", e);
+        }
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                int from = c * rawPasswords.size() / chunks;
+                int to = (c + 1) * rawPasswords.size() / chunks;
+                futures.add(bulkExecutor.submit(() -> {
+                    for (int i = from; i < to; i++) {
+                        long startedAt = System.nanoTime();
+                        hashes[i] = passwordEncoder.encode(rawPasswords.get(i));
+                        long elapsed = System.nanoTime() - startedAt;
+                        hashTime.record(elapsed);
+                        encodeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            bulkPermits.release();
+        }
+        return Arrays.asList(hashes);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.sum());
+        stats.put("bulkPoolSize", bulkExecutor.getMaximumPoolSize());
+        stats.put("bulkActiveThreads", bulkExecutor.getActiveCount());
+        stats.put("bulkWaiting", bulkPermits.getQueueLength());
+        stats.put("queueWait", queueWait.snapshot());
+        stats.put("hashTime", hashTime.snapshot());
+        return stats;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work, Timer timer) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - enqueuedAt);
+                queueWaitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return work.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashTime.record(elapsed);
+                    timer.record(elapsed, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+    }
+}
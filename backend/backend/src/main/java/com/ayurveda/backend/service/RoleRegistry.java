@@ -0,0 +1,128 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.entity.Role;
+import com.ayurveda.backend.repository.RoleRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+// Immutable in-memory copy of the roles table. The table only holds the seeded roles, so lookups and the
+// GET /api/roles payload are served from here; call refresh() after roles are added or renamed.
+@Component
+public class RoleRegistry {
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+    // A lock rather than synchronized: the query would pin a virtual thread's carrier while holding a monitor
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            load();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void load() {
+        List<Role> roles = roleRepository.findAll(Sort.by("id")).stream()
+                .map(RoleRegistry::copyOf)
+                .collect(Collectors.toUnmodifiableList());
+        Map<Integer, Role> byId = new LinkedHashMap<>();
+        Map<String, Role> byName = new LinkedHashMap<>();
+        for (Role role : roles) {
+            byId.put(role.getId(), role);
+            byName.put(role.getName(), role);
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(roles);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize roles", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        String etag = "W/\"roles-" + Long.toHexString(crc.getValue()) + "\"";
+        snapshot = new Snapshot(roles, Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byName), json, etag);
+    }
+
+    public Role findById(Integer id) {
+        return id == null ? null : current().byId.get(id);
+    }
+
+    public Role findByName(String name) {
+        return name == null ? null : current().byName.get(name);
+    }
+
+    // Resolves the name through the id so a lazy role proxy on a User is never initialized
+    public String nameOf(Role role) {
+        if (role == null) return null;
+        Role known = findById(role.getId());
+        if (known != null) return known.getName();
+        // Added since the last refresh. Outside a session (e.g. on the hashing pool) an uninitialized proxy
+        // throws, so only a loaded role is read directly; otherwise the name is looked up by id.
+        if (Hibernate.isInitialized(role)) return role.getName();
+        return roleRepository.findById(role.getId()).map(Role::getName).orElse(null);
+    }
+
+    public List<Role> getRoles() {
+        return current().roles;
+    }
+
+    // Pre-serialized JSON array of all roles
+    public byte[] getRolesJson() {
+        return current().json;
+    }
+
+    // Derived from the serialized roles, so it changes exactly when the payload does
+    public String getRolesEtag() {
+        return current().etag;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static Role copyOf(Role role) {
+        Role copy = new Role();
+        copy.setId(role.getId());
+        copy.setName(role.getName());
+        return copy;
+    }
+
+    private static final class Snapshot {
+        private final List<Role> roles;
+        private final Map<Integer, Role> byId;
+        private final Map<String, Role> byName;
+        private final byte[] json;
+        private final String etag;
+
+        private Snapshot(List<Role> roles, Map<Integer, Role> byId, Map<String, Role> byName, byte[] json, String etag) {
+            this.roles = roles;
+            this.byId = byId;
+            this.byName = byName;
+            this.json = json;
+            this.etag = etag;
+        }
+    }
+}
@@ -1,26 +1,87 @@
 package com.ayurveda.backend.service;
 
+import com.ayurveda.backend.cache.CachedUser;
+import com.ayurveda.backend.cache.UserListVersion;
+import com.ayurveda.backend.cache.UserNearCache;
 import com.ayurveda.backend.entity.User;
+import com.ayurveda.backend.hierarchy.OrgHierarchyService;
 import com.ayurveda.backend.repository.UserRepository;
 import com.ayurveda.backend.dto.UserRequestDTO;
+import com.ayurveda.backend.dto.UserResponseDTO;
 import com.ayurveda.backend.entity.Role;
 import com.ayurveda.backend.repository.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     @Autowired
     private RoleRepository roleRepository;
+    @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private UserNearCache userNearCache;
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+    @Autowired
+    private UserListVersion userListVersion;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Transactional(readOnly = true)
+    public List<UserResponseDTO> getUserViewsAfter(Long afterId, int limit) {
+        return userRepository.findViewPageAfter(afterId != null ? afterId : 0L, Limit.of(limit));
+    }
+
+    // Hands every user to the consumer in id order without materializing the whole list
+    @Transactional(readOnly = true)
+    public void streamAllUserViews(Consumer<UserResponseDTO> consumer) {
+        try (Stream<UserResponseDTO> users = userRepository.streamAllViews()) {
+            users.forEach(consumer);
+        }
+    }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public UserResponseDTO getUserViewById(Long id) {
+        CachedUser user = userNearCache.getById(id, () -> userRepository.findCachedById(id).orElse(null));
+        return user != null ? user.getView() : null;
+    }
+
+    public UserResponseDTO getUserViewByUsername(String username) {
+        CachedUser user = getCachedUser(username);
+        return user != null ? user.getView() : null;
+    }
+
+    // Login and the duplicate-username check: served from the near cache, one projection query on a miss
+    public CachedUser getCachedUser(String username) {
+        return userNearCache.getByUsername(username, () -> userRepository.findCachedByUsername(username).orElse(null));
+    }
+
+    // Views in the order of the ids (an org-tree page); users deleted in the meantime are skipped
+    @Transactional(readOnly = true)
+    public List<UserResponseDTO> getUserViews(long[] ids) {
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) idList.add(id);
+        Map<Long, UserResponseDTO> byId = new HashMap<>();
+        for (UserResponseDTO view : userRepository.findViewsByIds(idList)) byId.put(view.getId(), view);
+        List<UserResponseDTO> views = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            UserResponseDTO view = byId.get(id);
+            if (view != null) views.add(view);
+        }
+        return views;
     }
 
     public User getUserById(Long id) {
@@ -28,9 +89,17 @@ public class UserService {
     }
 
     public User createUser(UserRequestDTO dto) {
+        User user = userRepository.save(buildUser(dto, passwordHashingService.encode(dto.getPassword())));
+        orgHierarchyService.userSaved(user.getId(), dto.getManagerId());
+        userListVersion.changed();
+        return user;
+    }
+
+    // Unsaved User from a validated request; shared by single registration and bulk import
+    public User buildUser(UserRequestDTO dto, String encodedPassword) {
         User user = new User();
         user.setUsername(dto.getUsername());
-        user.setPassword(passwordEncoder.encode(dto.getPassword()));
+        user.setPassword(encodedPassword);
         user.setFirstName(dto.getFirstName());
         user.setLastName(dto.getLastName());
         user.setEmail(dto.getEmail());
@@ -38,18 +107,19 @@ public class UserService {
         user.setDepartment(dto.getDepartment());
         user.setEmployeeId(dto.getEmployeeId());
         user.setReportingManager(dto.getReportingManager());
+        user.setManager(resolveManager(null, dto.getManagerId()));
         user.setStatus(User.Status.valueOf(dto.getStatus() != null ? dto.getStatus() : "ACTIVE"));
-        Role role = roleRepository.findById(dto.getRoleId()).orElseThrow(() -> new IllegalArgumentException("Invalid role ID"));
-        user.setRole(role);
-        return userRepository.save(user);
+        user.setRole(resolveRole(dto.getRoleId()));
+        return user;
     }
 
     public User updateUser(Long id, UserRequestDTO dto) {
         User user = userRepository.findById(id).orElse(null);
         if (user == null) return null;
+        String previousUsername = user.getUsername();
         user.setUsername(dto.getUsername());
         if (dto.getPassword() != null && !dto.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(dto.getPassword()));
+            user.setPassword(passwordHashingService.encode(dto.getPassword()));
         }
         user.setFirstName(dto.getFirstName());
         user.setLastName(dto.getLastName());
@@ -58,21 +128,44 @@ public class UserService {
         user.setDepartment(dto.getDepartment());
         user.setEmployeeId(dto.getEmployeeId());
         user.setReportingManager(dto.getReportingManager());
+        user.setManager(resolveManager(id, dto.getManagerId()));
         user.setStatus(User.Status.valueOf(dto.getStatus() != null ? dto.getStatus() : "ACTIVE"));
-        Role role = roleRepository.findById(dto.getRoleId()).orElseThrow(() -> new IllegalArgumentException("Invalid role ID"));
-        user.setRole(role);
-        return userRepository.save(user);
+        user.setRole(resolveRole(dto.getRoleId()));
+        User saved = userRepository.save(user);
+        userNearCache.invalidate(id, previousUsername);
+        orgHierarchyService.userSaved(id, dto.getManagerId());
+        userListVersion.changed();
+        return saved;
     }
 
+    // The user's reports move up to the user's own manager, in the same transaction as the delete
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        List<Long> reports = transactionTemplate.execute(status -> {
+            User user = userRepository.findById(id).orElse(null);
+            if (user == null) return List.<Long>of();
+            List<Long> reportIds = userRepository.findReportIds(id);
+            if (!reportIds.isEmpty()) userRepository.reassignReports(id, user.getManager());
+            userRepository.delete(user);
+            return reportIds;
+        });
+        userNearCache.invalidate(id, null);
+        // Their cached views carry the old managerId
+        for (Long report : reports) userNearCache.invalidate(report, null);
+        orgHierarchyService.userDeleted(id);
+        userListVersion.changed();
     }
 
-    public User getUserByUsername(String username) {
-        return userRepository.findByUsername(username).orElse(null);
+    // Checked against the in-memory hierarchy: the manager must exist and must not be the user or one of its reports
+    private User resolveManager(Long id, Long managerId) {
+        if (managerId == null) return null;
+        orgHierarchyService.checkManager(id, managerId);
+        return userRepository.getReferenceById(managerId);
     }
 
-    public PasswordEncoder getPasswordEncoder() {
-        return passwordEncoder;
+    // Validates against the in-memory registry and links a reference, so no roles query is issued on writes
+    private Role resolveRole(Integer roleId) {
+        Role role = roleRegistry.findById(roleId);
+        if (role == null) throw new IllegalArgumentException("Invalid role ID");
+        return roleRepository.getReferenceById(role.getId());
     }
 } 
\ No newline at end of file
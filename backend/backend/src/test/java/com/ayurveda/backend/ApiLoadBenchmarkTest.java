@@ -0,0 +1,314 @@
+package com.ayurveda.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// End-to-end load test: boots the application on in-memory H2, seeds loadtest.users synthetic users next to the
+// demo users, then keeps loadtest.concurrency closed-loop clients busy with a weighted mix of login, paged list,
+// lookups by id and username, registration and update. Reports throughput and p50/p95/p99/p99.9 per endpoint,
+// writes them to target/api-load-result.properties and fails when they regress past api-load-baseline.properties
+// (by more than loadtest.tolerance). Baselines only hold for the configuration they were recorded with; runs with
+// other settings are reported but not compared. To re-baseline, copy the result file over the baseline.
+// Run with: mvn test -Pbenchmark -Dtest=ApiLoadBenchmarkTest [-Dloadtest.concurrency=32 -Dloadtest.duration-seconds=60 ...]
+@Tag("benchmark")
+class ApiLoadBenchmarkTest {
+    private static final String PASSWORD = "Load@1234";
+    private static final long FIRST_ID = 1_000_000L;
+    private static final List<String> ENDPOINTS = List.of("login", "list", "get", "by-username", "create", "update");
+    private static final String DEFAULT_MIX = "login:10,list:30,get:25,by-username:15,create:10,update:10";
+
+    private final int users = Integer.getInteger("loadtest.users", 10_000);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+    private final long warmupSeconds = Long.getLong("loadtest.warmup-seconds", 5);
+    private final long durationSeconds = Long.getLong("loadtest.duration-seconds", 20);
+    private final String mix = System.getProperty("loadtest.mix", DEFAULT_MIX);
+    private final double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.25"));
+    private final String baseline = System.getProperty("loadtest.baseline", "");
+
+    private final AtomicLong created = new AtomicLong();
+    private HttpClient client;
+    private String baseUrl;
+    private String token;
+    private Integer roleId;
+
+    @Test
+    void staysWithinBaseline() throws Exception {
+        Map<String, Integer> weights = parseMix(mix);
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BackendApplication.class).properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:api-load",
+                "spring.jpa.show-sql=false",
+                "cohort.snapshot.dir=",
+                "logging.level.root=WARN",
+                // Every client logs in from 127.0.0.1; the suite measures the endpoints, not the throttle
+                "login.limit.per-ip=65535",
+                "login.limit.per-username=65535");
+        ExecutorService clientPool = Executors.newFixedThreadPool(4);
+        try (ConfigurableApplicationContext context = builder.run()) {
+            long seedStartedAt = System.nanoTime();
+            seed(context.getBean(JdbcTemplate.class));
+            System.out.printf("Seeded %,d users in %,d ms%n", users, (System.nanoTime() - seedStartedAt) / 1_000_000);
+
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/users";
+            client = HttpClient.newBuilder().executor(clientPool).connectTimeout(Duration.ofSeconds(10)).build();
+            HttpResponse<String> login = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(json("{\"username\":\"Admin12\",\"password\":\"Admin@123\"}")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, login.statusCode(), login.body());
+            token = (String) new ObjectMapper().readValue(login.body(), Map.class).get("token");
+
+            run(weights, warmupSeconds);
+            Map<String, Samples> results = run(weights, durationSeconds);
+            Properties measured = report(results);
+            Path resultFile = Paths.get("target", "api-load-result.properties");
+            // Sorted, unlike Properties.store, so that baselines diff cleanly
+            try (Writer out = Files.newBufferedWriter(resultFile, StandardCharsets.UTF_8)) {
+                out.write("# ApiLoadBenchmarkTest results, " + Instant.now() + ", Java " + Runtime.version() + ", "
+                        + Runtime.getRuntime().availableProcessors() + " CPUs\n");
+                for (String key : new TreeSet<>(measured.stringPropertyNames())) out.write(key + "=" + measured.getProperty(key) + "\n");
+            }
+            System.out.println("Results written to " + resultFile.toAbsolutePath());
+            compare(measured);
+        } finally {
+            clientPool.shutdownNow();
+        }
+    }
+
+    // Synthetic users load<i> with ids FIRST_ID + i, all sharing one BCrypt hash (cost 10, as in SecurityConfig)
+    private void seed(JdbcTemplate jdbcTemplate) {
+        roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'FACULTY'", Integer.class);
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[] {FIRST_ID + i, "load" + i, hash, "Load", "User " + i, "load" + i + "@example.com",
+                    "+91 90000 " + String.format("%05d", i % 100_000), i % 2 == 0 ? "Kayachikitsa" : "Shalya", "ACTIVE", roleId, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "status, role_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private HttpResponse<String> send(String endpoint) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(users);
+        HttpRequest.Builder request;
+        switch (endpoint) {
+            case "login" -> request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                    .POST(json("{\"username\":\"load" + user + "\",\"password\":\"" + PASSWORD + "\"}"));
+            case "list" -> request = HttpRequest.newBuilder(URI.create(baseUrl + "?limit=50"));
+            case "get" -> request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + (FIRST_ID + user)));
+            case "by-username" -> request = HttpRequest.newBuilder(URI.create(baseUrl + "/by-username/load" + user));
+            case "create" -> {
+                long n = created.incrementAndGet();
+                request = HttpRequest.newBuilder(URI.create(baseUrl)).POST(json("{\"username\":\"new" + n + "\",\"password\":\""
+                        + PASSWORD + "\",\"firstName\":\"New\",\"lastName\":\"User " + n + "\",\"email\":\"new" + n
+                        + "@example.com\",\"phone\":\"+91 91111 11111\",\"department\":\"Shalya\",\"roleId\":" + roleId + "}"));
+            }
+            case "update" -> request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + (FIRST_ID + user))).PUT(json(
+                    "{\"username\":\"load" + user + "\",\"firstName\":\"Load\",\"lastName\":\"User " + user + "\",\"email\":\"load"
+                            + user + "@example.com\",\"phone\":\"+91 90000 00000\",\"department\":\"Panchakarma\",\"roleId\":" + roleId + "}"));
+            default -> throw new IllegalArgumentException(endpoint);
+        }
+        return client.send(request.header("Authorization", "Bearer " + token).header("Content-Type", "application/json").timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.BodyPublisher json(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+
+    // Each client picks the next endpoint by weight and sends as soon as the previous response arrived
+    private Map<String, Samples> run(Map<String, Integer> weights, long seconds) throws Exception {
+        String[] slots = weights.entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                .toArray(String[]::new);
+        long endAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<String, Samples>>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                Map<String, Samples> samples = new LinkedHashMap<>();
+                for (String endpoint : weights.keySet()) samples.put(endpoint, new Samples());
+                while (System.nanoTime() < endAt) {
+                    String endpoint = slots[ThreadLocalRandom.current().nextInt(slots.length)];
+                    long startedAt = System.nanoTime();
+                    int status;
+                    try {
+                        status = send(endpoint).statusCode();
+                    } catch (IOException ex) {
+                        status = -1;
+                    }
+                    samples.get(endpoint).record(status, System.nanoTime() - startedAt);
+                }
+                return samples;
+            }));
+        }
+        Map<String, Samples> merged = new LinkedHashMap<>();
+        for (String endpoint : weights.keySet()) merged.put(endpoint, new Samples());
+        for (Future<Map<String, Samples>> future : futures) {
+            future.get().forEach((endpoint, samples) -> merged.get(endpoint).addAll(samples));
+        }
+        clients.shutdown();
+        return merged;
+    }
+
+    private Properties report(Map<String, Samples> results) {
+        Properties measured = new Properties();
+        measured.setProperty("config.users", String.valueOf(users));
+        measured.setProperty("config.concurrency", String.valueOf(concurrency));
+        measured.setProperty("config.duration-seconds", String.valueOf(durationSeconds));
+        measured.setProperty("config.mix", mix);
+        System.out.printf("%,d users, %d clients, %d s (after %d s warm-up), mix %s%n", users, concurrency, durationSeconds, warmupSeconds, mix);
+        System.out.printf("  %-12s %10s %9s %9s %9s %9s %9s %8s%n", "endpoint", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        long total = 0;
+        for (Map.Entry<String, Samples> entry : results.entrySet()) {
+            Samples samples = entry.getValue();
+            samples.sort();
+            double throughput = samples.ok / (double) durationSeconds;
+            total += samples.ok;
+            System.out.printf("  %-12s %,10.1f %9.1f %9.1f %9.1f %9.1f %9.1f %8d %s%n", entry.getKey(), throughput,
+                    samples.percentileMillis(0.50), samples.percentileMillis(0.95), samples.percentileMillis(0.99),
+                    samples.percentileMillis(0.999), samples.percentileMillis(1.0), samples.errors(),
+                    samples.errorStatuses.isEmpty() ? "" : samples.errorStatuses);
+            String key = entry.getKey() + ".";
+            measured.setProperty(key + "throughput", String.format("%.1f", throughput));
+            measured.setProperty(key + "p50-ms", String.format("%.1f", samples.percentileMillis(0.50)));
+            measured.setProperty(key + "p95-ms", String.format("%.1f", samples.percentileMillis(0.95)));
+            measured.setProperty(key + "samples", String.valueOf(samples.ok));
+            // A tail percentile of fewer samples is just the slowest few requests: too noisy to hold a run to
+            if (samples.ok >= 100) measured.setProperty(key + "p99-ms", String.format("%.1f", samples.percentileMillis(0.99)));
+            if (samples.ok >= 1000) measured.setProperty(key + "p99.9-ms", String.format("%.1f", samples.percentileMillis(0.999)));
+            measured.setProperty(key + "error-rate", String.format("%.4f", samples.errorRate()));
+        }
+        System.out.printf("  %-12s %,10.1f%n", "total", total / (double) durationSeconds);
+        return measured;
+    }
+
+    // Throughput may drop and latencies may grow by the tolerance; the error rate may not exceed the baseline's
+    // (or 0.1% when the baseline had none)
+    private void compare(Properties measured) throws IOException {
+        Properties expected = new Properties();
+        try (InputStream in = baseline.isEmpty() ? getClass().getResourceAsStream("/api-load-baseline.properties")
+                : Files.newInputStream(Paths.get(baseline))) {
+            if (in == null) {
+                System.out.println("No baseline found; not compared");
+                return;
+            }
+            expected.load(in);
+        }
+        for (String key : List.of("config.users", "config.concurrency", "config.duration-seconds", "config.mix")) {
+            if (!measured.getProperty(key).equals(expected.getProperty(key))) {
+                System.out.printf("Baseline was recorded with %s=%s (this run: %s); not compared%n", key,
+                        expected.getProperty(key), measured.getProperty(key));
+                return;
+            }
+        }
+        List<String> regressions = new ArrayList<>();
+        for (String key : new TreeSet<>(expected.stringPropertyNames())) {
+            if (key.startsWith("config.") || key.endsWith(".samples") || measured.getProperty(key) == null) continue;
+            double was = Double.parseDouble(expected.getProperty(key));
+            double now = Double.parseDouble(measured.getProperty(key));
+            boolean regressed;
+            if (key.endsWith(".throughput")) regressed = now < was * (1 - tolerance);
+            else if (key.endsWith(".error-rate")) regressed = now > Math.max(was, 0.001);
+            else regressed = now > was * (1 + tolerance);
+            if (regressed) regressions.add(String.format("%s: %s, baseline %s", key, measured.getProperty(key), expected.getProperty(key)));
+        }
+        assertTrue(regressions.isEmpty(), "Regressed past the baseline (tolerance " + tolerance + "):\n  "
+                + String.join("\n  ", regressions));
+        System.out.println("Within baseline (tolerance " + tolerance + ")");
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split(":");
+            if (!ENDPOINTS.contains(entry[0].trim())) throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + entry[0]);
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) weights.put(entry[0].trim(), weight);
+        }
+        if (weights.isEmpty()) throw new IllegalArgumentException("loadtest.mix has no endpoint with a positive weight");
+        return weights;
+    }
+
+    // Latencies of the successful (2xx) responses; everything else is counted by status, -1 for I/O errors
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int ok;
+        private final Map<Integer, Integer> errorStatuses = new TreeMap<>();
+
+        void record(int status, long elapsedNanos) {
+            if (status < 200 || status >= 300) {
+                errorStatuses.merge(status, 1, Integer::sum);
+                return;
+            }
+            if (ok == nanos.length) nanos = Arrays.copyOf(nanos, ok * 2);
+            nanos[ok++] = elapsedNanos;
+        }
+
+        void addAll(Samples other) {
+            if (ok + other.ok > nanos.length) nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, ok + other.ok));
+            System.arraycopy(other.nanos, 0, nanos, ok, other.ok);
+            ok += other.ok;
+            other.errorStatuses.forEach((status, count) -> errorStatuses.merge(status, count, Integer::sum));
+        }
+
+        void sort() {
+            Arrays.sort(nanos, 0, ok);
+        }
+
+        int errors() {
+            return errorStatuses.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        double errorRate() {
+            int errors = errors();
+            return ok + errors == 0 ? 0 : errors / (double) (ok + errors);
+        }
+
+        // Nearest-rank percentile of the sorted latencies
+        double percentileMillis(double quantile) {
+            if (ok == 0) return 0;
+            return nanos[Math.max(0, Math.min(ok - 1, (int) Math.ceil(quantile * ok) - 1))] / 1e6;
+        }
+    }
+}
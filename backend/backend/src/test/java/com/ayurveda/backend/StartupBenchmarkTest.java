@@ -0,0 +1,135 @@
+package com.ayurveda.backend;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Time to first request for each startup mode: the extracted jar on a plain JVM, with a CDS archive, with Spring
+// AOT, and with both. Every run is a fresh process on in-memory H2 (so it includes schema creation and demo data
+// seeding) and is timed from launch until /actuator/health/readiness answers 200, i.e. until the seeded application
+// takes traffic. Each mode gets its own CDS training run first. Reports the median of startup.runs launches and
+// writes target/startup-result.properties.
+// Needs the fast-startup build: mvn -Pfast-startup package -DskipTests, then
+// mvn test -Pbenchmark -Dtest=StartupBenchmarkTest [-Dstartup.runs=5]
+@Tag("benchmark")
+class StartupBenchmarkTest {
+    private static final Path APPLICATION = Paths.get("target", "application", "backend-0.0.1-SNAPSHOT.jar");
+    private static final Path WORK = Paths.get("target", "startup-benchmark");
+
+    private final int runs = Integer.getInteger("startup.runs", 3);
+    private final long timeoutSeconds = Long.getLong("startup.timeout-seconds", 180);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void reportsTimeToFirstRequest() throws Exception {
+        assumeTrue(Files.exists(APPLICATION), "Build it first: mvn -Pfast-startup package -DskipTests");
+        Files.createDirectories(WORK);
+
+        Map<String, Long> medians = new LinkedHashMap<>();
+        for (String mode : List.of("jvm", "cds", "aot", "aot+cds")) {
+            boolean aot = mode.startsWith("aot");
+            List<String> flags = new ArrayList<>();
+            if (aot) flags.add("-Dspring.aot.enabled=true");
+            if (mode.endsWith("cds")) {
+                Path archive = WORK.resolve((aot ? "aot" : "jvm") + ".jsa");
+                train(archive, aot);
+                flags.add("-XX:SharedArchiveFile=" + archive);
+                // Fail instead of silently starting without the archive
+                flags.add("-Xshare:on");
+            }
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = timeToReady(flags, WORK.resolve(mode.replace('+', '-') + "-" + run + ".log"));
+            }
+            Arrays.sort(millis);
+            medians.put(mode, millis[runs / 2]);
+            System.out.printf("%-8s median %,6d ms  (runs: %s)%n", mode, millis[runs / 2], Arrays.toString(millis));
+        }
+        long jvm = medians.get("jvm");
+        medians.forEach((mode, median) -> System.out.printf("%-8s %,6d ms  %5.1f%% of jvm%n", mode, median, 100.0 * median / jvm));
+
+        Path resultFile = Paths.get("target", "startup-result.properties");
+        try (Writer out = Files.newBufferedWriter(resultFile, StandardCharsets.UTF_8)) {
+            out.write("# StartupBenchmarkTest results, " + Instant.now() + ", Java " + Runtime.version() + ", "
+                    + Runtime.getRuntime().availableProcessors() + " CPUs, median of " + runs + " runs\n");
+            for (Map.Entry<String, Long> entry : medians.entrySet()) {
+                out.write(entry.getKey().replace('+', '-') + ".ready.ms=" + entry.getValue() + "\n");
+            }
+        }
+    }
+
+    // Starts the application up to a refreshed context and writes the classes it loaded into the archive
+    private void train(Path archive, boolean aot) throws IOException, InterruptedException {
+        Files.deleteIfExists(archive);
+        List<String> command = new ArrayList<>(List.of(java(), "-XX:ArchiveClassesAtExit=" + archive, "-Xlog:cds=error",
+                "-Dspring.context.exit=onRefresh"));
+        if (aot) command.add("-Dspring.aot.enabled=true");
+        command.addAll(List.of("-jar", APPLICATION.toString(), "--server.port=0", "--cohort.snapshot.dir="));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(WORK.resolve(archive.getFileName() + ".training.log").toFile()).start();
+        assertTrue(process.waitFor(timeoutSeconds, TimeUnit.SECONDS), "CDS training run did not finish");
+        assertEquals(0, process.exitValue(), "CDS training run failed, see " + WORK);
+        assertTrue(Files.exists(archive), "No CDS archive written");
+    }
+
+    private long timeToReady(List<String> flags, Path log) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(java());
+        command.addAll(flags);
+        command.addAll(List.of("-jar", APPLICATION.toString(), "--server.port=" + port, "--cohort.snapshot.dir="));
+        HttpRequest readiness = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(2)).build();
+
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            while (System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(timeoutSeconds)) {
+                assertTrue(process.isAlive(), "Application exited during startup, see " + log);
+                try {
+                    if (client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - startedAt) / 1_000_000;
+                    }
+                } catch (IOException notListeningYet) {
+                    // Connection refused until Tomcat is up
+                }
+                Thread.sleep(20);
+            }
+            throw new AssertionError("Not ready within " + timeoutSeconds + " s, see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static String java() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+}
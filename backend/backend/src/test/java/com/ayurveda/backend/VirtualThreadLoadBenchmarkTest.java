@@ -0,0 +1,146 @@
+package com.ayurveda.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Closed-loop load against GET /api/users?limit=50 (JWT filter, JPA query, JSON) in platform-thread mode and,
+// on a Java 21+ runtime, in virtual-thread mode, at increasing numbers of in-flight requests. Reports throughput,
+// p50/p99 latency, errors, peak platform threads and the heap held per in-flight request (sampled heap during the
+// run minus idle heap, divided by concurrency; indicative only, GC timing adds noise). Client and server share the JVM.
+// Run with: JAVA_HOME=<jdk 21> mvn test -Pbenchmark -Dtest=VirtualThreadLoadBenchmarkTest
+@Tag("benchmark")
+class VirtualThreadLoadBenchmarkTest {
+    private static final int[] CONCURRENCY = {16, 64, 256, 1024};
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 5_000;
+
+    @Test
+    void compareModes() throws Exception {
+        run("platform", false);
+        if (Runtime.version().feature() >= 21) run("virtual", true);
+        else System.out.println("Virtual-thread mode skipped: runtime is Java " + Runtime.version().feature() + ", needs 21+");
+    }
+
+    private void run(String mode, boolean virtualThreads) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BackendApplication.class).properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "spring.jpa.show-sql=false",
+                "cohort.snapshot.dir=",
+                "logging.level.root=WARN",
+                "server.tomcat.accept-count=2000");
+        if (virtualThreads) builder.profiles("virtual-threads");
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            ExecutorService clientPool = Executors.newFixedThreadPool(4);
+            HttpClient client = HttpClient.newBuilder().executor(clientPool).connectTimeout(Duration.ofSeconds(10)).build();
+            String token = login(client, port);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users?limit=50"))
+                    .header("Authorization", "Bearer " + token).timeout(Duration.ofSeconds(30)).build();
+            System.out.printf("%s threads (Java %s):%n", mode, Runtime.version().feature());
+            for (int concurrency : CONCURRENCY) {
+                load(client, request, concurrency, WARMUP_MILLIS, null);
+                Result result = new Result();
+                load(client, request, concurrency, MEASURE_MILLIS, result);
+                System.out.printf("  %5d in flight: %,7.0f req/s, p50 %,6.1f ms, p99 %,7.1f ms, %,d errors, "
+                                + "peak platform threads %,d, heap/in-flight %,6.1f KB%n",
+                        concurrency, result.completed.sum() * 1000.0 / MEASURE_MILLIS, result.percentileMillis(0.50),
+                        result.percentileMillis(0.99), result.errors.sum(), result.peakThreads,
+                        result.heapPerInFlightBytes / 1024.0);
+            }
+            clientPool.shutdownNow();
+        }
+    }
+
+    private static String login(HttpClient client, int port) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"Admin12\",\"password\":\"Admin@123\"}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return (String) new ObjectMapper().readValue(response.body(), Map.class).get("token");
+    }
+
+    // Keeps exactly `concurrency` requests in flight for the given time, then waits for the stragglers
+    private static void load(HttpClient client, HttpRequest request, int concurrency, long millis, Result result)
+            throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long idleHeap = 0;
+        if (result != null) {
+            System.gc();
+            Thread.sleep(200);
+            idleHeap = memory.getHeapMemoryUsage().getUsed();
+            ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        }
+        Semaphore inFlight = new Semaphore(concurrency);
+        long endAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long heapSum = 0;
+        int heapSamples = 0;
+        long nextSampleAt = System.nanoTime();
+        while (System.nanoTime() < endAt) {
+            if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) continue;
+            long startedAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.release();
+                if (result == null) return;
+                if (error != null || response.statusCode() != 200) result.errors.increment();
+                else result.record(System.nanoTime() - startedAt);
+            });
+            if (result != null && System.nanoTime() >= nextSampleAt) {
+                heapSum += memory.getHeapMemoryUsage().getUsed();
+                heapSamples++;
+                nextSampleAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+            }
+        }
+        inFlight.acquire(concurrency);
+        if (result != null) {
+            result.peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+            result.heapPerInFlightBytes = heapSamples == 0 ? 0 : Math.max(0, heapSum / heapSamples - idleHeap) / (double) concurrency;
+        }
+    }
+
+    private static final class Result {
+        private final long[] latencies = new long[4_000_000];
+        private final AtomicInteger recorded = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private int peakThreads;
+        private double heapPerInFlightBytes;
+
+        void record(long nanos) {
+            completed.increment();
+            int slot = recorded.getAndIncrement();
+            if (slot < latencies.length) latencies[slot] = nanos;
+        }
+
+        double percentileMillis(double quantile) {
+            int count = Math.min(recorded.get(), latencies.length);
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(quantile * count) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ayurveda.backend.audit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Publish cost seen by request threads: several producers offer into the ring buffer while one consumer
+// drains it, compared with ArrayBlockingQueue.offer. Also checks that every accepted element arrives once,
+// in per-producer order, and that a full buffer rejects instead of blocking.
+// Run with: mvn test -Pbenchmark -Dtest=MpscRingBufferBenchmarkTest
+@Tag("benchmark")
+class MpscRingBufferBenchmarkTest {
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 2_000_000;
+    private static final int CAPACITY = 65536;
+
+    @Test
+    void offersWithoutBlocking() throws InterruptedException {
+        for (int round = 0; round < 3; round++) {
+            long ringNanos = runRing();
+            long queueNanos = runBlockingQueue();
+            System.out.printf("%d producers x %,d offers: ring buffer %,d ns/offer, ArrayBlockingQueue %,d ns/offer%n",
+                    PRODUCERS, PER_PRODUCER, ringNanos / PER_PRODUCER, queueNanos / PER_PRODUCER);
+        }
+
+        MpscRingBuffer<Long> full = new MpscRingBuffer<>(4);
+        for (long i = 0; i < 4; i++) assertTrue(full.offer(i));
+        assertFalse(full.offer(4L));
+        assertEquals(2, full.drain(e -> { }, 2));
+        assertTrue(full.offer(5L));
+    }
+
+    // Producer p publishes p << 32 | n for increasing n; the consumer checks order and counts
+    private long runRing() throws InterruptedException {
+        MpscRingBuffer<Long> buffer = new MpscRingBuffer<>(CAPACITY);
+        LongAdder accepted = new LongAdder();
+        long[] next = new long[PRODUCERS];
+        long[] received = {0};
+        AtomicBoolean done = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            while (true) {
+                boolean finished = done.get();
+                int drained = buffer.drain(value -> {
+                    int producer = (int) (value >>> 32);
+                    long n = value & 0xffffffffL;
+                    assertTrue(n >= next[producer], "Out of order");
+                    next[producer] = n + 1;
+                    received[0]++;
+                }, 4096);
+                if (drained == 0) {
+                    if (finished) return;
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        consumer.start();
+        long nanos = timeProducers(index -> {
+            for (long n = 0; n < PER_PRODUCER; n++) {
+                if (buffer.offer(((long) index << 32) | n)) accepted.increment();
+            }
+        });
+        done.set(true);
+        consumer.join();
+        assertEquals(accepted.sum(), received[0]);
+        return nanos;
+    }
+
+    private long runBlockingQueue() throws InterruptedException {
+        ArrayBlockingQueue<Long> queue = new ArrayBlockingQueue<>(CAPACITY);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            List<Long> sink = new ArrayList<>(4096);
+            while (!done.get() || !queue.isEmpty()) {
+                if (queue.drainTo(sink, 4096) == 0) Thread.onSpinWait();
+                sink.clear();
+            }
+        });
+        consumer.start();
+        long nanos = timeProducers(index -> {
+            for (long n = 0; n < PER_PRODUCER; n++) queue.offer(((long) index << 32) | n);
+        });
+        done.set(true);
+        consumer.join();
+        return nanos;
+    }
+
+    private static long timeProducers(IntConsumer body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int i = 0; i < PRODUCERS; i++) {
+            int index = i;
+            producers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                body.accept(index);
+            });
+            producers[i].start();
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Thread producer : producers) producer.join();
+        return System.nanoTime() - startedAt;
+    }
+}
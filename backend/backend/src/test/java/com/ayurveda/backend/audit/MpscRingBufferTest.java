@@ -0,0 +1,97 @@
+package com.ayurveda.backend.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Ring buffer behind the audit log: a full buffer drops the offer instead of blocking, drains hand elements over in
+// offer order and respect their limit, slots are reused across many wrap-arounds, and concurrent producers lose nothing.
+class MpscRingBufferTest {
+
+    @Test
+    void dropsOffersWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) assertTrue(buffer.offer(i));
+        assertFalse(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, buffer.drain(drained::add, 1));
+        assertTrue(buffer.offer(6));
+        assertFalse(buffer.offer(7));
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 6), drained);
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drain(drained::add, 10));
+    }
+
+    @Test
+    void drainsInOfferOrderAcrossWrapArounds() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        // Uneven batches so the head and tail cross the end of the array at different slots each time
+        for (int round = 0; round < 1_000; round++) {
+            int batch = 1 + round % 8;
+            for (int i = 0; i < batch; i++) {
+                boolean room = buffer.size() < buffer.capacity();
+                assertEquals(room, buffer.offer(next));
+                if (room) next++;
+            }
+            buffer.drain(drained::add, 1 + round % 5);
+        }
+        buffer.drain(drained::add, Integer.MAX_VALUE);
+        assertEquals(next, drained.size());
+        for (int i = 0; i < drained.size(); i++) assertEquals(i, drained.get(i));
+    }
+
+    @Test
+    void keepsEveryProducersOrder() throws InterruptedException {
+        int producers = 3;
+        int perProducer = 50_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(64);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(new long[] {producer, i})) Thread.yield();
+                }
+                done.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long[] expected = new long[producers];
+        int[] received = {0};
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received[0] < producers * perProducer) {
+            assertTrue(System.nanoTime() < deadline, "Producers did not finish");
+            int drained = buffer.drain(element -> {
+                assertEquals(expected[(int) element[0]]++, element[1]);
+                received[0]++;
+            }, 256);
+            if (drained == 0) Thread.yield();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (long count : expected) assertEquals(perProducer, count);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void requiresPowerOfTwoCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(1));
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(6));
+        assertEquals(16, new MpscRingBuffer<>(16).capacity());
+    }
+}
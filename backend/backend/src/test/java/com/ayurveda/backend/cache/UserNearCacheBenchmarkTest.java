@@ -0,0 +1,114 @@
+package com.ayurveda.backend.cache;
+
+import com.ayurveda.backend.dto.UserRequestDTO;
+import com.ayurveda.backend.repository.UserRepository;
+import com.ayurveda.backend.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Login-style lookups of 10k users by username, straight from the database vs through the near cache, then
+// cross-instance consistency: a second cache on the same invalidation bus plays another backend instance and
+// must drop its copy of a user updated through this one.
+// Run with: mvn test -Pbenchmark -Dtest=UserNearCacheBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-cache-benchmark",
+        "cohort.snapshot.dir=",
+        "users.cache.max-entries=20000"})
+class UserNearCacheBenchmarkTest {
+    private static final int USERS = 10_000;
+    private static final long FIRST_ID = 1_000_000L;
+    private static final int LOOKUPS = 200_000;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserNearCache userNearCache;
+    @Autowired
+    private LocalCacheInvalidationBus invalidationBus;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void servesLookupsAndStaysConsistentAcrossInstances() throws InterruptedException {
+        Integer roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'FACULTY'", Integer.class);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[] {FIRST_ID + i, "cached" + i, "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchmark", "Cached", "User " + i,
+                    "cached" + i + "@example.com", "+91 90000 " + String.format("%05d", i), "Shalya", "ACTIVE", roleId, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "status, role_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        Random random = new Random(3);
+        long dbStartedAt = System.nanoTime();
+        for (int i = 0; i < LOOKUPS / 10; i++) {
+            assertNotNull(userRepository.findCachedByUsername("cached" + random.nextInt(USERS)).orElse(null));
+        }
+        double dbNanos = (System.nanoTime() - dbStartedAt) / (double) (LOOKUPS / 10);
+
+        userNearCache.clear();
+        long cacheStartedAt = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertNotNull(userService.getCachedUser("cached" + random.nextInt(USERS)));
+        }
+        double cacheNanos = (System.nanoTime() - cacheStartedAt) / (double) LOOKUPS;
+        System.out.printf("Lookup by username over %,d users: database %,.0f ns, near cache %,.0f ns (%.0fx, incl. cold misses); %s%n",
+                USERS, dbNanos, cacheNanos, dbNanos / cacheNanos, userNearCache.stats());
+
+        // Instance B caches the user, instance A (the application) updates it
+        UserNearCache other = new UserNearCache();
+        ReflectionTestUtils.setField(other, "invalidationBus", invalidationBus);
+        ReflectionTestUtils.setField(other, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(other, "enabled", true);
+        ReflectionTestUtils.setField(other, "maxEntries", 100);
+        ReflectionTestUtils.setField(other, "ttlSeconds", 60L);
+        other.start();
+        String username = "cached42";
+        assertEquals("User 42", other.getByUsername(username, () -> userRepository.findCachedByUsername(username).orElse(null))
+                .getView().getLastName());
+
+        UserRequestDTO update = new UserRequestDTO();
+        update.setUsername(username);
+        update.setFirstName("Cached");
+        update.setLastName("Renamed");
+        update.setEmail("cached42@example.com");
+        update.setPhone("+91 90000 00042");
+        update.setDepartment("Shalya");
+        update.setRoleId(roleId);
+        long updatedAt = System.nanoTime();
+        userService.updateUser(FIRST_ID + 42, update);
+        // Synchronous on the writing instance
+        assertEquals("Renamed", userService.getUserViewByUsername(username).getLastName());
+        assertEquals("Renamed", userService.getUserViewById(FIRST_ID + 42).getLastName());
+
+        String seen = null;
+        while (System.nanoTime() - updatedAt < 2_000_000_000L) {
+            seen = other.getByUsername(username, () -> userRepository.findCachedByUsername(username).orElse(null)).getView().getLastName();
+            if (seen.equals("Renamed")) break;
+            Thread.sleep(1);
+        }
+        assertEquals("Renamed", seen, "Other instance still served the old row after 2 s");
+        System.out.printf("Other instance saw the update after %,d us; %s%n", (System.nanoTime() - updatedAt) / 1000, other.stats());
+        assertTrue((long) other.stats().get("remoteInvalidations") >= 1);
+        assertEquals(0, invalidationBus.getDropped());
+    }
+}
@@ -0,0 +1,175 @@
+package com.ayurveda.backend.cache;
+
+import com.ayurveda.backend.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// User near cache: loads once per user by either key, never caches a missing user or a load that overlapped an
+// invalidation, drops both keys of an invalidated user, applies invalidations from another instance but not its own
+// echoes, and stays within users.cache.max-entries. Two caches on one synchronous bus play two instances.
+class UserNearCacheTest {
+    private final SynchronousBus bus = new SynchronousBus();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void cachesLoadedUsersByBothKeys() {
+        UserNearCache cache = cache(100);
+        CachedUser asha = user(1L, "asha");
+        assertSame(asha, cache.getByUsername("asha", loader(asha)));
+        assertSame(asha, cache.getByUsername("asha", loader(asha)));
+        assertSame(asha, cache.getById(1L, loader(asha)));
+        assertEquals(1, loads.get());
+
+        assertNull(cache.getByUsername("nobody", loader(null)));
+        assertNull(cache.getByUsername("nobody", loader(null)));
+        assertEquals(3, loads.get());
+        assertEquals(2L, cache.stats().get("hits"));
+        assertEquals(3L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void invalidationDropsBothKeys() {
+        UserNearCache cache = cache(100);
+        CachedUser asha = user(1L, "asha");
+        cache.getById(1L, loader(asha));
+        cache.invalidate(1L, null);
+        assertEquals(0, cache.stats().get("size"));
+        cache.getByUsername("asha", loader(asha));
+        assertEquals(2, loads.get());
+
+        // A rename caches the new username and forgets the old one
+        CachedUser renamed = user(1L, "asha.k");
+        cache.invalidate(1L, "asha");
+        cache.getById(1L, loader(renamed));
+        assertSame(renamed, cache.getByUsername("asha.k", loader(renamed)));
+        assertNull(cache.getByUsername("asha", loader(null)));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() throws Exception {
+        UserNearCache cache = cache(100);
+        CachedUser stale = user(1L, "asha");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<CachedUser> read = CompletableFuture.supplyAsync(() -> cache.getById(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                // The row was read before the update below committed
+                assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return stale;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.invalidate(1L, "asha");
+        invalidated.countDown();
+
+        assertSame(stale, read.get(5, TimeUnit.SECONDS));
+        assertEquals(0, cache.stats().get("size"));
+        CachedUser fresh = user(1L, "asha");
+        assertSame(fresh, cache.getById(1L, loader(fresh)));
+        assertSame(fresh, cache.getByUsername("asha", loader(stale)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void appliesRemoteInvalidations() {
+        UserNearCache first = cache(100);
+        UserNearCache second = cache(100);
+        CachedUser asha = user(1L, "asha");
+        CachedUser ravi = user(2L, "ravi");
+        for (UserNearCache cache : List.of(first, second)) {
+            cache.getById(1L, loader(asha));
+            cache.getById(2L, loader(ravi));
+        }
+        assertEquals(4, loads.get());
+
+        first.invalidate(null, "asha");
+        assertEquals(1, second.stats().get("size"));
+        assertEquals(1L, second.stats().get("remoteInvalidations"));
+        // Its own echo is ignored
+        assertEquals(0L, first.stats().get("remoteInvalidations"));
+        second.getById(2L, loader(ravi));
+        second.getById(1L, loader(asha));
+        assertEquals(5, loads.get());
+
+        // A table-level change carries no user and drops nothing
+        bus.publish(new CacheInvalidation("elsewhere", null, null));
+        assertEquals(2, second.stats().get("size"));
+
+        second.invalidateAll();
+        assertEquals(0, first.stats().get("size"));
+        assertEquals(0, second.stats().get("size"));
+        assertEquals(1L, first.stats().get("remoteInvalidations"));
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        UserNearCache cache = cache(10);
+        for (long id = 1; id <= 25; id++) {
+            CachedUser user = user(id, "user" + id);
+            cache.getById(id, loader(user));
+            assertTrue((int) cache.stats().get("size") <= 10);
+        }
+        assertTrue((long) cache.stats().get("evictions") >= 15);
+        // The latest user is still cached
+        cache.getByUsername("user25", loader(null));
+        assertEquals(25, loads.get());
+    }
+
+    private UserNearCache cache(int maxEntries) {
+        UserNearCache cache = new UserNearCache();
+        ReflectionTestUtils.setField(cache, "invalidationBus", bus);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        cache.start();
+        return cache;
+    }
+
+    private Supplier<CachedUser> loader(CachedUser user) {
+        return () -> {
+            loads.incrementAndGet();
+            return user;
+        };
+    }
+
+    private static CachedUser user(Long id, String username) {
+        return new CachedUser(id, username, "{noop}secret", "First", "Last", username + "@example.com", "+91 90000 00000",
+                "Kayachikitsa", null, null, null, User.Status.ACTIVE, "FACULTY");
+    }
+
+    // Delivers on the publishing thread, so a test sees the other instance's state right after publish returns
+    private static final class SynchronousBus implements CacheInvalidationBus {
+        private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(CacheInvalidation invalidation) {
+            for (Consumer<CacheInvalidation> listener : listeners) listener.accept(invalidation);
+        }
+
+        @Override
+        public void subscribe(Consumer<CacheInvalidation> listener) {
+            listeners.add(listener);
+        }
+    }
+}
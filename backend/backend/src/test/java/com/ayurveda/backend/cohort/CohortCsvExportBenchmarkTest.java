@@ -0,0 +1,114 @@
+package com.ayurveda.backend.cohort;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Streams a 1M-row filtered selection of a synthetic cohort to a discarding stream and reports rows/s,
+// bytes allocated per row and the heap retained after the export.
+// Run with: mvn test -Pbenchmark -Dtest=CohortCsvExportBenchmarkTest
+@Tag("benchmark")
+class CohortCsvExportBenchmarkTest {
+    private static final int ROWS = 1_250_000;
+    private static final String[] VILLAGES = {"Wardha", "Sevagram", "Pawnar", "Deoli", "Hinganghat", "Selu, East"};
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+
+    private static CohortDataset dataset;
+
+    @BeforeAll
+    static void buildDataset() {
+        Random random = new Random(7);
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(new String[] {
+            "Patient Name", "Village Name", "Age", "Gender Of Patient", "Contact Number", "Remarks"});
+        for (int row = 0; row < ROWS; row++) {
+            builder.addRecord(new String[] {
+                "Patient " + row + (row % 97 == 0 ? " \"Bala\"" : ""),
+                VILLAGES[random.nextInt(VILLAGES.length)],
+                Integer.toString(random.nextInt(90)),
+                row % 5 == 0 ? "Other" : GENDERS[random.nextInt(2)],
+                Long.toString(9_000_000_000L + random.nextInt(999_999_999)),
+                row % 13 == 0 ? "follow-up\nin two weeks" : ""});
+        }
+        dataset = builder.build("benchmark", "synthetic");
+    }
+
+    @Test
+    void exportsWithFlatHeap() throws Exception {
+        RoaringBitmap rows = dataset.getIndex().evaluate(new CohortFilter(
+                Map.of(CohortSchema.GENDER, List.of("Male", "Female")), List.of()));
+        assertTrue(rows.getLongCardinality() >= 990_000);
+
+        // Escaping sanity check on a few rows, including quoted, comma and multi-line cells
+        ByteArrayOutputStream sample = new ByteArrayOutputStream();
+        new CohortCsvWriter(dataset, null).write(RoaringBitmap.bitmapOf(0, 13, 97), sample);
+        String csv = sample.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("patient_name,village,age,gender,contact_number,"), csv);
+        assertTrue(csv.contains("\"Patient 0 \"\"Bala\"\"\""));
+        assertTrue(csv.contains("\"follow-up\nin two weeks\""));
+
+        for (int i = 0; i < 3; i++) new CohortCsvWriter(dataset, null).write(rows, OutputStream.nullOutputStream());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeapAfterGc();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        CountingStream out = new CountingStream();
+        CohortCsvWriter writer = new CohortCsvWriter(dataset, null);
+        long startedAt = System.nanoTime();
+        long written = writer.write(rows, out);
+        long nanos = System.nanoTime() - startedAt;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long heapAfter = usedHeapAfterGc();
+        assertEquals(rows.getLongCardinality(), written);
+        assertEquals(writer.getBytesWritten(), out.bytes);
+
+        CountingStream gzipOut = new CountingStream();
+        long gzipStartedAt = System.nanoTime();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipOut, CohortCsvWriter.BUFFER_SIZE)) {
+            new CohortCsvWriter(dataset, null).write(rows, gzip);
+        }
+        long gzipNanos = System.nanoTime() - gzipStartedAt;
+
+        System.out.printf("CSV export of %,d rows: %,d ms (%,d rows/s, %.0f MB/s), %,d bytes allocated/row, "
+                        + "max write %,d bytes, retained heap %+,d KB; gzip %,d ms (%,d rows/s, %,d KB -> %,d KB)%n",
+                written, nanos / 1_000_000, written * 1_000_000_000L / nanos, out.bytes / (nanos / 1e9) / 1e6,
+                allocated / written, out.maxWrite, (heapAfter - heapBefore) / 1024, gzipNanos / 1_000_000,
+                written * 1_000_000_000L / gzipNanos, out.bytes / 1024, gzipOut.bytes / 1024);
+        assertTrue(out.maxWrite <= CohortCsvWriter.BUFFER_SIZE);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        System.gc();
+        Thread.sleep(100);
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class CountingStream extends OutputStream {
+        private long bytes;
+        private int maxWrite;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            maxWrite = Math.max(maxWrite, len);
+        }
+    }
+}
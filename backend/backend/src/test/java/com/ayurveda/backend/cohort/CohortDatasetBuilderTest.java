@@ -0,0 +1,204 @@
+package com.ayurveda.backend.cohort;
+
+import com.ayurveda.backend.csv.CsvReader;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// CSV records into the columnar layout: survey headers resolve to canonical columns, categoricals share one code
+// per distinct value, numbers and dates land in primitive arrays (blood pressure split in two), empty and
+// unparseable cells read as missing, and appends and compaction keep every cell and code consistent.
+class CohortDatasetBuilderTest {
+    private static final String CSV = "Village,Patient Name,Age,Gender Of Patient,Disease,Weight,Height,Date,Blood Pressure,"
+            + "Blood Sugar,Contact Number,Medicine/ Panchakarma\n"
+            + "Nagpur,Ramesh Kumar,45,Male,Diabetes,75,170,2024-01-15,140/90,180,9876543210,\"Amlapitta, Sandhivata\"\n"
+            + "Pune,Sunita Patel,32,Female,Hypertension,62.5 kg,158,16/01/2024,160/100,120mg/dl,9876543212,Amlapitta\n"
+            + "Nagpur,Anil Deshmukh,,Male,Diabetes,,,not a date,130,,,\n"
+            + "Wardha,\"Joshi, Meera\",67,Female,,58,150,17-1-2024,,95.5,9876543216\n";
+
+    @Test
+    void encodesEachKindOfColumn() throws IOException {
+        CohortDataset dataset = build(CSV);
+        assertEquals(4, dataset.getRowCount());
+        assertEquals(List.of(CohortSchema.VILLAGE, CohortSchema.PATIENT_NAME, CohortSchema.AGE, CohortSchema.GENDER,
+                CohortSchema.DISEASE, CohortSchema.WEIGHT, CohortSchema.HEIGHT, CohortSchema.DATE, CohortSchema.BP_SYSTOLIC,
+                CohortSchema.BP_DIASTOLIC, CohortSchema.BLOOD_SUGAR, CohortSchema.CONTACT_NUMBER,
+                CohortSchema.MEDICINE_PANCHAKARMA), dataset.getColumns().stream().map(CohortColumn::getName).collect(Collectors.toList()));
+
+        CategoricalColumn village = (CategoricalColumn) dataset.column(CohortSchema.VILLAGE);
+        assertEquals(List.of("Nagpur", "Pune", "Wardha"), village.getDictionary().values());
+        assertEquals(village.code(0), village.code(2));
+        assertEquals(3, village.distinctValues());
+        CategoricalColumn disease = (CategoricalColumn) dataset.column(CohortSchema.DISEASE);
+        assertTrue(disease.isMissing(3));
+        assertEquals(CategoricalColumn.MISSING, disease.code(3));
+        assertEquals(1, disease.missingCount());
+
+        IntColumn age = (IntColumn) dataset.column(CohortSchema.AGE);
+        assertEquals(45, age.get(0));
+        assertTrue(age.isMissing(2));
+        DecimalColumn weight = (DecimalColumn) dataset.column(CohortSchema.WEIGHT);
+        assertEquals(62.5, weight.get(1));
+        assertTrue(Double.isNaN(weight.get(2)));
+        assertEquals(120.0, ((DecimalColumn) dataset.column(CohortSchema.BLOOD_SUGAR)).get(1));
+
+        IntColumn date = (IntColumn) dataset.column(CohortSchema.DATE);
+        assertEquals(ColumnKind.DATE, date.getKind());
+        assertEquals(LocalDate.of(2024, 1, 15).toEpochDay(), date.get(0));
+        assertEquals(LocalDate.of(2024, 1, 16).toEpochDay(), date.get(1));
+        assertEquals(LocalDate.of(2024, 1, 17).toEpochDay(), date.get(3));
+        assertTrue(date.isMissing(2));
+        assertEquals("2024-01-15", date.format(0));
+
+        IntColumn systolic = (IntColumn) dataset.column(CohortSchema.BP_SYSTOLIC);
+        IntColumn diastolic = (IntColumn) dataset.column(CohortSchema.BP_DIASTOLIC);
+        assertEquals(160, systolic.get(1));
+        assertEquals(100, diastolic.get(1));
+        assertEquals(130, systolic.get(2));
+        assertTrue(diastolic.isMissing(2));
+        assertTrue(systolic.isMissing(3));
+        assertNull(dataset.column(CohortSchema.BLOOD_PRESSURE));
+
+        TextColumn name = (TextColumn) dataset.column(CohortSchema.PATIENT_NAME);
+        assertEquals("Joshi, Meera", name.get(3));
+        TextColumn contact = (TextColumn) dataset.column(CohortSchema.CONTACT_NUMBER);
+        assertEquals("9876543212", contact.get(1));
+        assertTrue(contact.isMissing(2));
+
+        // Short last record: the trailing column is missing, and a multi-select cell holds each condition once
+        MultiCategoricalColumn medicine = (MultiCategoricalColumn) dataset.column(CohortSchema.MEDICINE_PANCHAKARMA);
+        assertEquals("Amlapitta, Sandhivata", medicine.format(0));
+        assertEquals(1, medicine.end(1) - medicine.start(1));
+        assertEquals(medicine.codeAt(medicine.start(0)), medicine.codeAt(medicine.start(1)));
+        assertTrue(medicine.isMissing(2));
+        assertTrue(medicine.isMissing(3));
+        assertEquals(2, medicine.distinctValues());
+    }
+
+    @Test
+    void memoryStatsFollowTheLayout() throws IOException {
+        CohortDataset dataset = build(CSV);
+        long total = 0;
+        for (CohortColumn column : dataset.getColumns()) {
+            assertTrue(column.memoryBytes() > 0, column.getName());
+            assertEquals(4, column.size(), column.getName());
+            total += column.memoryBytes();
+        }
+        assertEquals(total, dataset.memoryBytes());
+        assertEquals(16L + 4L * 4, dataset.column(CohortSchema.AGE).memoryBytes());
+        assertEquals(16L + 8L * 4, dataset.column(CohortSchema.WEIGHT).memoryBytes());
+        assertEquals(-1, dataset.column(CohortSchema.AGE).distinctValues());
+    }
+
+    @Test
+    void appendKeepsCodesAndAddsValues() throws IOException {
+        CohortDataset base = build(CSV);
+        CohortDataset appended = append(base, "Age,Village,Blood Pressure,Patient Name\n"
+                + "29,Amravati,120/80,Kavita Rao\n"
+                + "51,Pune,,Suresh Pawar\n");
+        assertEquals(6, appended.getRowCount());
+        assertEquals(base.getVersion() + 1, appended.getVersion());
+        assertEquals(base.getId(), appended.getId());
+
+        CategoricalColumn before = (CategoricalColumn) base.column(CohortSchema.VILLAGE);
+        CategoricalColumn after = (CategoricalColumn) appended.column(CohortSchema.VILLAGE);
+        for (int row = 0; row < base.getRowCount(); row++) assertEquals(before.code(row), after.code(row));
+        assertEquals(List.of("Nagpur", "Pune", "Wardha", "Amravati"), after.getDictionary().values());
+        assertEquals(after.code(1), after.code(5));
+        // The base version is untouched
+        assertEquals(3, before.getDictionary().size());
+        assertEquals(4, before.size());
+
+        assertEquals(120, ((IntColumn) appended.column(CohortSchema.BP_SYSTOLIC)).get(4));
+        assertEquals(80, ((IntColumn) appended.column(CohortSchema.BP_DIASTOLIC)).get(4));
+        assertEquals("Kavita Rao", ((TextColumn) appended.column(CohortSchema.PATIENT_NAME)).get(4));
+        // Columns the upload left out are missing on the new rows
+        assertTrue(appended.column(CohortSchema.DISEASE).isMissing(4));
+        assertTrue(appended.column(CohortSchema.WEIGHT).isMissing(5));
+        assertTrue(appended.column(CohortSchema.MEDICINE_PANCHAKARMA).isMissing(5));
+        assertEquals(base.column(CohortSchema.MEDICINE_PANCHAKARMA).format(0), appended.column(CohortSchema.MEDICINE_PANCHAKARMA).format(0));
+
+        assertThrows(IllegalArgumentException.class, () -> new CohortDatasetBuilder(base, new String[] {"Village", "Shoe Size"}));
+        assertThrows(IllegalStateException.class, () -> new CohortDatasetBuilder(base, new String[] {"Village"}).buildCompacted());
+    }
+
+    @Test
+    void compactionKeepsSelectedRowsAndDropsUnusedValues() throws IOException {
+        CohortDataset source = build(CSV);
+        CohortDataset compacted = new CohortDatasetBuilder(source, RoaringBitmap.bitmapOf(1, 3)).buildCompacted();
+        assertEquals(2, compacted.getRowCount());
+        assertEquals(source.getVersion() + 1, compacted.getVersion());
+        for (CohortColumn column : compacted.getColumns()) {
+            CohortColumn original = source.column(column.getName());
+            assertEquals(original.format(1), column.format(0), column.getName());
+            assertEquals(original.format(3), column.format(1), column.getName());
+        }
+        CategoricalColumn village = (CategoricalColumn) compacted.column(CohortSchema.VILLAGE);
+        assertEquals(List.of("Pune", "Wardha"), village.getDictionary().values());
+        assertFalse(village.getDictionary().values().contains("Nagpur"));
+        assertThrows(IllegalStateException.class, () -> new CohortDatasetBuilder(source, RoaringBitmap.bitmapOf(0)).buildAppended());
+    }
+
+    @Test
+    void headersResolveToCanonicalColumns() {
+        assertEquals(CohortSchema.GENDER, CohortSchema.resolve("Gender Of Patient").getName());
+        assertEquals(ColumnKind.MULTI_CATEGORICAL, CohortSchema.resolve("Medicine/ Panchakarma").getKind());
+        assertEquals(ColumnKind.TEXT, CohortSchema.resolve("Patient Email").getKind());
+        assertEquals(ColumnKind.CATEGORICAL, CohortSchema.resolve("Caste").getKind());
+        List<CohortSchema.ColumnSpec> specs = CohortSchema.resolve(new String[] {"Village", "village name", "Age"});
+        assertEquals(List.of("village", "village_2", "age"), specs.stream().map(CohortSchema.ColumnSpec::getName).collect(Collectors.toList()));
+        assertEquals(List.of("Have you heard about DMAMCHRC (Wanadongri,Nagpur)", "Age"),
+                List.of(CohortSchema.mergeSplitHeaders(new String[] {"Have you heard about DMAMCHRC (Wanadongri", "Nagpur)", "Age"})));
+    }
+
+    @Test
+    void numbersWithUnitsAndJunk() {
+        assertEquals(72.0, CohortDatasetBuilder.parseDecimal("72 kg"));
+        assertEquals(-3.5, CohortDatasetBuilder.parseDecimal("-3.5"));
+        assertTrue(Double.isNaN(CohortDatasetBuilder.parseDecimal("n/a")));
+        assertTrue(Double.isNaN(CohortDatasetBuilder.parseDecimal("")));
+        assertEquals(73, CohortDatasetBuilder.parseInt("72.6"));
+        assertEquals(IntColumn.MISSING, CohortDatasetBuilder.parseInt("unknown"));
+        assertEquals(IntColumn.MISSING, CohortDatasetBuilder.parseEpochDay("2024-13-40"));
+        assertEquals(LocalDate.of(2024, 2, 3).toEpochDay(), CohortDatasetBuilder.parseEpochDay("3.2.2024"));
+    }
+
+    @Test
+    void sharedDictionaryIsNotMutatedByLaterBuilds() throws IOException {
+        CohortDataset base = build(CSV);
+        Dictionary dictionary = ((CategoricalColumn) base.column(CohortSchema.GENDER)).getDictionary();
+        append(base, "Gender\nOther\n");
+        assertSame(dictionary, ((CategoricalColumn) base.column(CohortSchema.GENDER)).getDictionary());
+        assertEquals(-1, dictionary.code("Other"));
+    }
+
+    private static CohortDataset build(String csv) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder.build("test", "test.csv");
+        }
+    }
+
+    private static CohortDataset append(CohortDataset base, String csv) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(base, reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder.buildAppended();
+        }
+    }
+}
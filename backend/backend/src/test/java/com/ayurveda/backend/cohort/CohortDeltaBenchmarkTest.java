@@ -0,0 +1,194 @@
+package com.ayurveda.backend.cohort;
+
+import com.ayurveda.backend.csv.CsvReader;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A 200k-row cohort receiving ten delta uploads (updates, deletes and new patients keyed by contact number plus
+// name) while reader threads keep filtering the current version without locks: delta apply time vs re-parsing the
+// whole upload, reader latency during the swaps, then compaction and a snapshot round trip of a version with
+// tombstones. Every version a reader sees must be internally consistent. The last delta runs with the readers
+// stopped, since on a small machine they compete with the writer for CPU.
+// Run with: mvn test -Pbenchmark -Dtest=CohortDeltaBenchmarkTest
+@Tag("benchmark")
+class CohortDeltaBenchmarkTest {
+    private static final int ROWS = 200_000;
+    private static final int DELTAS = 10;
+    private static final int UPDATES = 1_000;
+    private static final int DELETES = 500;
+    private static final int INSERTS = 500;
+    private static final String HEADER = "Village Name,Patient Name,Age,Gender,Disease,Contact Number";
+    private static final String[] DISEASES = {"Arthritis", "Diabetes", "Hypertension", "Obesity", "Asthma", "Migraine"};
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void appliesDeltasWhileReadersRun() throws Exception {
+        Random random = new Random(17);
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        for (int row = 0; row < ROWS; row++) csv.append(record(row, DISEASES[random.nextInt(DISEASES.length)], random)).append('\n');
+
+        long parseStartedAt = System.nanoTime();
+        CohortDataset base = parse(csv.toString());
+        long parseMillis = (System.nanoTime() - parseStartedAt) / 1_000_000;
+        CohortStore store = new CohortStore();
+        store.put(base);
+        long keysStartedAt = System.nanoTime();
+        assertEquals(ROWS, base.getKeys().size());
+        long keysMillis = (System.nanoTime() - keysStartedAt) / 1_000_000;
+
+        CohortFilter women = new CohortFilter(Map.of(CohortSchema.GENDER, List.of("Female")), List.of());
+        CohortFilter everyone = new CohortFilter(Map.of(), List.of());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong slowestReadNanos = new AtomicLong();
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        long startedAt = System.nanoTime();
+                        CohortDataset current = store.get("delta");
+                        long all = current.getIndex().count(everyone);
+                        long female = current.getIndex().count(women);
+                        slowestReadNanos.accumulateAndGet(System.nanoTime() - startedAt, Math::max);
+                        // One version throughout: its live rows add up and no filter sees a tombstoned row
+                        if (all != current.getRowCount() - current.getDeletedRowCount() || female > all) {
+                            throw new AssertionError("Inconsistent version " + current.getVersion());
+                        }
+                        reads.incrementAndGet();
+                    }
+                } catch (Throwable ex) {
+                    readerFailure.set(ex);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        // Each delta updates, deletes and adds patients; rows are chosen so no key is touched twice
+        int nextRow = ROWS;
+        List<Integer> updatedRows = new ArrayList<>();
+        List<Integer> deletedRows = new ArrayList<>();
+        long deltaNanos = 0;
+        long quietDeltaNanos = 0;
+        for (int d = 0; d < DELTAS; d++) {
+            if (d == DELTAS - 1) {
+                running.set(false);
+                for (Thread reader : readers) reader.join();
+            }
+            StringBuilder delta = new StringBuilder(HEADER).append(",delta_op\n");
+            for (int i = 0; i < UPDATES; i++) {
+                int row = d * (UPDATES + DELETES) + i;
+                updatedRows.add(row);
+                delta.append(record(row, "Recovered", random)).append(",upsert\n");
+            }
+            for (int i = 0; i < DELETES; i++) {
+                int row = d * (UPDATES + DELETES) + UPDATES + i;
+                deletedRows.add(row);
+                delta.append(record(row, "", random)).append(",delete\n");
+            }
+            for (int i = 0; i < INSERTS; i++) delta.append(record(nextRow++, "Diabetes", random)).append(",\n");
+
+            long startedAt = System.nanoTime();
+            CohortDataset current = store.get("delta");
+            CohortDeltaBuilder builder = applyDelta(current, delta.toString());
+            CohortDataset next = builder.build();
+            assertTrue(store.replace(current, next));
+            if (d < DELTAS - 1) deltaNanos += System.nanoTime() - startedAt;
+            else quietDeltaNanos = System.nanoTime() - startedAt;
+            assertEquals(UPDATES, builder.getUpdated());
+            assertEquals(DELETES, builder.getDeleted());
+            assertEquals(INSERTS, builder.getInserted());
+            assertEquals(current.getVersion() + 1, next.getVersion());
+        }
+        assertNull(readerFailure.get(), () -> "Reader failed: " + readerFailure.get());
+
+        CohortDataset versioned = store.get("delta");
+        int live = ROWS + DELTAS * (INSERTS - DELETES);
+        assertEquals(live, versioned.getIndex().getLiveRowCount());
+        assertEquals(DELTAS * (UPDATES + DELETES), versioned.getDeletedRowCount());
+        CohortFilter recovered = new CohortFilter(Map.of(CohortSchema.DISEASE, List.of("Recovered")), List.of());
+        assertEquals(updatedRows.size(), versioned.getIndex().count(recovered));
+        assertEquals(1, versioned.getSearchIndex().search(contact(updatedRows.get(3))).getTotal());
+        assertEquals(0, versioned.getSearchIndex().search(contact(deletedRows.get(3))).getTotal());
+        // A stale version still answers as it did
+        assertEquals(1, base.getSearchIndex().search(contact(deletedRows.get(3))).getTotal());
+        assertThrows(IllegalArgumentException.class, () -> applyDelta(versioned, "Village Name,Age\nVillage 1,40\n"));
+
+        long compactStartedAt = System.nanoTime();
+        CohortDataset compacted = new CohortDatasetBuilder(versioned, versioned.getIndex().allRows()).buildCompacted();
+        long compactMillis = (System.nanoTime() - compactStartedAt) / 1_000_000;
+        assertTrue(store.replace(versioned, compacted));
+        assertEquals(live, compacted.getRowCount());
+        assertEquals(0, compacted.getDeletedRowCount());
+        assertEquals(versioned.getVersion() + 1, compacted.getVersion());
+        assertEquals(versioned.getIndex().count(women), compacted.getIndex().count(women));
+        assertEquals(updatedRows.size(), compacted.getIndex().count(recovered));
+        assertEquals(1, compacted.getSearchIndex().search(contact(updatedRows.get(3))).getTotal());
+        assertEquals(live, compacted.getKeys().size());
+
+        // Tombstones and the version survive a snapshot
+        Path dir = workDir.resolve("snapshot");
+        CohortSnapshot.write(versioned, dir);
+        CohortDataset reopened = CohortSnapshot.open(dir, true);
+        assertNotNull(reopened);
+        assertEquals(versioned.getVersion(), reopened.getVersion());
+        assertEquals(versioned.getDeletedRowCount(), reopened.getDeletedRowCount());
+        assertEquals(versioned.getIndex().count(women), reopened.getIndex().count(women));
+        assertEquals(0, reopened.getSearchIndex().search(contact(deletedRows.get(3))).getTotal());
+
+        System.out.printf("Cohort of %,d rows: full parse %,d ms; key index %,d ms; delta of %,d records (%,d updates, %,d deletes, "
+                        + "%,d inserts) %,.1f ms on average with readers, %,.1f ms without; compaction of %,d tombstones %,d ms; %,d lock-free reads during "
+                        + "the deltas, slowest %,.2f ms%n",
+                ROWS, parseMillis, keysMillis, UPDATES + DELETES + INSERTS, UPDATES, DELETES, INSERTS,
+                deltaNanos / 1e6 / (DELTAS - 1), quietDeltaNanos / 1e6, versioned.getDeletedRowCount(), compactMillis, reads.get(), slowestReadNanos.get() / 1e6);
+    }
+
+    private static String record(int row, String disease, Random random) {
+        return "Village " + (row % 40) + ",Patient " + row + " Patil," + (18 + random.nextInt(70)) + ","
+                + (random.nextBoolean() ? "Male" : "Female") + "," + disease + "," + contact(row);
+    }
+
+    private static String contact(int row) {
+        return Long.toString(9_000_000_000L + row);
+    }
+
+    private static CohortDataset parse(String csv) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder.build("delta", "synthetic");
+        }
+    }
+
+    private static CohortDeltaBuilder applyDelta(CohortDataset base, String csv) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CohortDeltaBuilder builder = new CohortDeltaBuilder(base, reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.ayurveda.backend.cohort;
+
+import com.ayurveda.backend.csv.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Delta uploads on a small cohort: upserts tombstone the rows they replace and append the new record, deletes only
+// tombstone, keys compare on the last ten contact digits and normalized names, a delete-only delta shares the base's
+// columns, and older versions keep answering as they did. Keys stay exact across many layered deltas, and compaction
+// drops the tombstoned rows while filters, search and keys answer as before.
+class CohortDeltaBuilderTest {
+    private static final String HEADER = "Village Name,Patient Name,Age,Gender,Disease,Contact Number";
+    private static final CohortFilter ARTHRITIS = new CohortFilter(Map.of(CohortSchema.DISEASE, List.of("Arthritis")), List.of());
+    private static final CohortFilter EVERYONE = CohortFilter.none();
+
+    @Test
+    void upsertsReplaceAndInsert() throws IOException {
+        CohortDataset base = base();
+        CohortDeltaBuilder delta = apply(base, HEADER + "\n"
+                + "Wardha,sunita  PATIL,46,Female,Asthma,+91 98220 00001\n"
+                + "Hingna,Meera Rao,29,Female,Arthritis,9822000009\n");
+        CohortDataset next = delta.build();
+
+        assertEquals(2, delta.getRecords());
+        assertEquals(1, delta.getUpdated());
+        assertEquals(1, delta.getInserted());
+        assertEquals(base.getVersion() + 1, next.getVersion());
+        assertEquals(6, next.getRowCount());
+        assertEquals(1, next.getDeletedRowCount());
+        assertEquals(5, next.getIndex().getLiveRowCount());
+        // Row 1 (Sunita) is replaced by row 4; Meera is row 5
+        assertArrayEquals(new int[] {4}, next.getKeys().rows(CohortKeys.key("9822000001", "Sunita Patil")));
+        assertArrayEquals(new int[] {5}, next.getKeys().rows(CohortKeys.key("9822000009", "Meera Rao")));
+        assertEquals("Asthma", next.column(CohortSchema.DISEASE).format(4));
+        assertEquals("46", next.column(CohortSchema.AGE).format(4));
+        assertEquals(2, next.getIndex().count(ARTHRITIS));
+        // Search finds the new row only
+        CohortSearchIndex.Ranking sunitas = next.getSearchIndex().search("sunita");
+        assertEquals(1, sunitas.getTotal());
+        assertTrue(sunitas.rows(0).contains(4));
+
+        // The base version is untouched
+        assertEquals(0, base.getDeletedRowCount());
+        assertEquals(2, base.getIndex().count(ARTHRITIS));
+        assertArrayEquals(new int[] {1}, base.getKeys().rows(CohortKeys.key("9822000001", "Sunita Patil")));
+    }
+
+    @Test
+    void deletesOnlyTombstone() throws IOException {
+        CohortDataset base = base();
+        CohortDeltaBuilder delta = apply(base, "Patient Name,Contact Number,delta_op\n"
+                + "Asha Kale,9822000000,delete\n"
+                + "Nobody Here,9822000099,DELETE\n");
+        CohortDataset next = delta.build();
+
+        assertEquals(1, delta.getDeleted());
+        assertEquals(1, delta.getUnmatched());
+        assertEquals(base.getRowCount(), next.getRowCount());
+        assertEquals(3, next.getIndex().getLiveRowCount());
+        assertEquals(1, next.getIndex().count(ARTHRITIS));
+        assertEquals(3, next.getKeys().size());
+        assertEquals(0, next.getKeys().rows(CohortKeys.key("9822000000", "Asha Kale")).length);
+        // Nothing was appended, so the columns are shared
+        for (CohortColumn column : base.getColumns()) assertSame(column, next.column(column.getName()));
+
+        // A delta that matches nothing publishes no version
+        CohortDeltaBuilder nothing = apply(next, "Patient Name,Contact Number,delta_op\nNobody Here,9822000099,delete\n");
+        assertSame(next, nothing.build());
+    }
+
+    @Test
+    void laterRecordsOfOneDeltaWin() throws IOException {
+        CohortDataset base = base();
+        CohortDeltaBuilder delta = apply(base, HEADER + ",delta_op\n"
+                + "Wardha,Ravi Deshmukh,52,Male,Obesity,9822000002,upsert\n"
+                + "Wardha,Ravi Deshmukh,53,Male,Diabetes,9822000002,\n"
+                + "Hingna,Meera Rao,29,Female,Arthritis,9822000009,upsert\n"
+                + "Hingna,Meera Rao,,,,9822000009,delete\n");
+        CohortDataset next = delta.build();
+
+        assertEquals(7, next.getRowCount());
+        assertEquals(3, next.getDeletedRowCount());
+        assertArrayEquals(new int[] {5}, next.getKeys().rows(CohortKeys.key("9822000002", "Ravi Deshmukh")));
+        assertEquals("53", next.column(CohortSchema.AGE).format(5));
+        assertEquals(0, next.getKeys().rows(CohortKeys.key("9822000009", "Meera Rao")).length);
+        assertEquals(4, next.getIndex().count(EVERYONE));
+    }
+
+    @Test
+    void rejectsBadUploads() throws IOException {
+        CohortDataset base = base();
+        assertThrows(IllegalArgumentException.class, () -> apply(base, "Village Name,Age\nWardha,40\n"));
+        assertThrows(IllegalArgumentException.class, () -> apply(base, "Patient Name,Contact Number,Shoe Size\nA B,9822000000,9\n"));
+        assertThrows(IllegalArgumentException.class, () -> apply(base, "Patient Name,Contact Number,delta_op\nAsha Kale,9822000000,merge\n"));
+        assertThrows(IllegalArgumentException.class, () -> apply(base, "Patient Name,Contact Number\n,\n"));
+    }
+
+    @Test
+    void keysStayExactAcrossLayeredDeltas() throws IOException {
+        CohortDataset first = base();
+        // Enough patients that the small deltas below are layered rather than folded each time
+        StringBuilder patients = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 300; i++) patients.append("Kamptee,Resident ").append(i).append(",40,Male,Obesity,").append(9_822_200_000L + i).append('\n');
+        CohortDataset version = apply(first, patients.toString()).build();
+        int deepest = 0;
+        for (int d = 0; d < 40; d++) {
+            // Each delta moves Sunita to a new row, adds a patient and deletes the one added two deltas earlier
+            StringBuilder csv = new StringBuilder(HEADER).append(",delta_op\n")
+                    .append("Wardha,Sunita Patil,").append(20 + d).append(",Female,Arthritis,9822000001,upsert\n")
+                    .append("Hingna,Patient ").append(d).append(",30,Male,Obesity,").append(9_822_100_000L + d).append(",upsert\n");
+            if (d >= 2) csv.append("Hingna,Patient ").append(d - 2).append(",,,,").append(9_822_100_000L + d - 2).append(",delete\n");
+            CohortDataset next = apply(version, csv.toString()).build();
+            assertTrue(next.getKeys().layers() <= 16, "Keys not folded after " + (d + 1) + " deltas");
+            deepest = Math.max(deepest, next.getKeys().layers());
+            version = next;
+        }
+        assertEquals(16, deepest);
+
+        CohortKeys keys = version.getKeys();
+        assertEquals(4 + 300 + 2, keys.size());
+        assertEquals(keys.size(), version.getIndex().getLiveRowCount());
+        int sunita = keys.rows(CohortKeys.key("9822000001", "Sunita Patil"))[0];
+        assertEquals("59", version.column(CohortSchema.AGE).format(sunita));
+        assertEquals(0, keys.rows(CohortKeys.key(Long.toString(9_822_100_000L + 37), "Patient 37")).length);
+        assertEquals(1, keys.rows(CohortKeys.key(Long.toString(9_822_100_000L + 38), "Patient 38")).length);
+        // The first version still resolves its own rows
+        assertArrayEquals(new int[] {1}, first.getKeys().rows(CohortKeys.key("9822000001", "Sunita Patil")));
+        // Every live row is keyed exactly once
+        assertEquals(CohortKeys.build(version).size(), keys.size());
+        for (int row : version.getIndex().allRows()) {
+            String key = CohortKeys.key(version.column(CohortSchema.CONTACT_NUMBER).format(row),
+                    version.column(CohortSchema.PATIENT_NAME).format(row));
+            assertArrayEquals(new int[] {row}, keys.rows(key));
+        }
+    }
+
+    @Test
+    void compactionDropsTombstonedRows() throws IOException {
+        CohortDataset base = base();
+        CohortDataset versioned = apply(base, HEADER + ",delta_op\n"
+                + "Wardha,Sunita Patil,46,Female,Asthma,9822000001,upsert\n"
+                + "Nagpur,Asha Kale,,,,9822000000,delete\n"
+                + "Hingna,Meera Rao,29,Female,Arthritis,9822000009,\n").build();
+        CohortDataset compacted = new CohortDatasetBuilder(versioned, versioned.getIndex().allRows()).buildCompacted();
+
+        assertEquals(versioned.getVersion() + 1, compacted.getVersion());
+        assertEquals(versioned.getId(), compacted.getId());
+        assertEquals(4, compacted.getRowCount());
+        assertEquals(0, compacted.getDeletedRowCount());
+        assertEquals(versioned.getIndex().count(ARTHRITIS), compacted.getIndex().count(ARTHRITIS));
+        assertEquals(versioned.getIndex().count(EVERYONE), compacted.getIndex().count(EVERYONE));
+        assertEquals(1, compacted.getSearchIndex().search("meera").getTotal());
+        assertEquals(0, compacted.getSearchIndex().search("asha").getTotal());
+        assertEquals(4, compacted.getKeys().size());
+        // Rows are renumbered densely in their old order: Ravi, Kiran, Sunita's update, Meera
+        assertEquals("Ravi Deshmukh", compacted.column(CohortSchema.PATIENT_NAME).format(0));
+        assertEquals("Asthma", compacted.column(CohortSchema.DISEASE).format(2));
+        assertArrayEquals(new int[] {3}, compacted.getKeys().rows(CohortKeys.key("9822000009", "Meera Rao")));
+        // Deltas apply on top of a compacted version as on any other
+        CohortDataset next = apply(compacted, "Patient Name,Contact Number,delta_op\nMeera Rao,9822000009,delete\n").build();
+        assertEquals(3, next.getIndex().getLiveRowCount());
+    }
+
+    // Asha (Arthritis), Sunita (Arthritis), Ravi, Kiran
+    private static CohortDataset base() throws IOException {
+        String csv = HEADER + "\n"
+                + "Nagpur,Asha Kale,34,Female,Arthritis,9822000000\n"
+                + "Wardha,Sunita Patil,45,Female,Arthritis,+91 98220 00001\n"
+                + "Wardha,Ravi Deshmukh,51,Male,Diabetes,9822000002\n"
+                + "Saoner,Kiran Jadhav,62,Male,Hypertension,9822000003\n";
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder.build("delta-test", "delta-test.csv");
+        }
+    }
+
+    private static CohortDeltaBuilder apply(CohortDataset base, String csv) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            CohortDeltaBuilder builder = new CohortDeltaBuilder(base, reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ayurveda.backend.cohort;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Bitmap-index filtering vs a row-by-row scan on a synthetic 1M-row cohort.
+// Run with: mvn test -Pbenchmark -Dtest=CohortIndexBenchmarkTest
+@Tag("benchmark")
+class CohortIndexBenchmarkTest {
+    private static final int ROWS = 1_000_000;
+    private static final int ITERATIONS = 50;
+
+    private static final String[] VILLAGES = new String[40];
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] EDUCATION = {"None", "Primary", "Secondary", "Graduate", "Postgraduate"};
+    private static final String[] OCCUPATIONS = {"Farmer", "Labourer", "Homemaker", "Student", "Service", "Business", "Retired"};
+    private static final String[] SURGERY = {"Hernia", "Piles", "Fistula", "Cataract", "Appendix", "Gallstone"};
+
+    private static CohortDataset dataset;
+
+    @BeforeAll
+    static void buildDataset() {
+        for (int i = 0; i < VILLAGES.length; i++) VILLAGES[i] = "Village " + i;
+        Random random = new Random(42);
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(new String[] {
+            "Village Name", "Ward", "Age", "Gender Of Patient", "Education", "Occupation", "Surgery"});
+        for (int row = 0; row < ROWS; row++) {
+            String surgery = random.nextInt(4) == 0
+                    ? SURGERY[random.nextInt(SURGERY.length)] + ", " + SURGERY[random.nextInt(SURGERY.length)]
+                    : "";
+            builder.addRecord(new String[] {
+                VILLAGES[random.nextInt(VILLAGES.length)],
+                "Ward " + random.nextInt(12),
+                Integer.toString(random.nextInt(90)),
+                GENDERS[random.nextInt(GENDERS.length)],
+                EDUCATION[random.nextInt(EDUCATION.length)],
+                OCCUPATIONS[random.nextInt(OCCUPATIONS.length)],
+                surgery});
+        }
+        dataset = builder.build("benchmark", "synthetic");
+    }
+
+    @Test
+    void bitmapFilterBeatsRowScan() {
+        Map<String, List<String>> selections = Map.of(
+                CohortSchema.VILLAGE, List.of("Village 3", "Village 7", "Village 11"),
+                CohortSchema.GENDER, List.of("Female"),
+                CohortSchema.SURGERY, List.of("Cataract", "Hernia"));
+        List<String> ageBrackets = List.of("45-54", "55-64");
+        CohortFilter filter = new CohortFilter(selections, ageBrackets);
+
+        long expected = scan(selections, ageBrackets);
+        assertEquals(expected, dataset.getIndex().count(filter));
+
+        // warm up both paths before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            scan(selections, ageBrackets);
+            dataset.getIndex().count(filter);
+        }
+
+        long scanStartedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) assertEquals(expected, scan(selections, ageBrackets));
+        long scanNanos = (System.nanoTime() - scanStartedAt) / ITERATIONS;
+
+        long bitmapStartedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) assertEquals(expected, dataset.getIndex().count(filter));
+        long bitmapNanos = (System.nanoTime() - bitmapStartedAt) / ITERATIONS;
+
+        System.out.printf("Cohort filter over %,d rows, %,d matches: row scan %,d us, bitmap %,d us (%.1fx); index %,d KB%n",
+                ROWS, expected, scanNanos / 1_000, bitmapNanos / 1_000, (double) scanNanos / Math.max(1, bitmapNanos),
+                dataset.getIndex().memoryBytes() / 1024);
+    }
+
+    // Row-at-a-time evaluation over the column store, the way the browser filters today
+    private static long scan(Map<String, List<String>> selections, List<String> ageBrackets) {
+        CategoricalColumn village = (CategoricalColumn) dataset.column(CohortSchema.VILLAGE);
+        CategoricalColumn gender = (CategoricalColumn) dataset.column(CohortSchema.GENDER);
+        MultiCategoricalColumn surgery = (MultiCategoricalColumn) dataset.column(CohortSchema.SURGERY);
+        IntColumn age = (IntColumn) dataset.column(CohortSchema.AGE);
+        Set<String> villages = Set.copyOf(selections.get(CohortSchema.VILLAGE));
+        Set<String> genders = Set.copyOf(selections.get(CohortSchema.GENDER));
+        Set<String> surgeries = Set.copyOf(selections.get(CohortSchema.SURGERY));
+        long count = 0;
+        for (int row = 0; row < ROWS; row++) {
+            if (!villages.contains(village.format(row)) || !genders.contains(gender.format(row))) continue;
+            AgeBracket bracket = AgeBracket.of(age.get(row));
+            if (bracket == null || !ageBrackets.contains(bracket.getLabel())) continue;
+            boolean anySurgery = false;
+            for (int i = surgery.start(row); i < surgery.end(row) && !anySurgery; i++) {
+                anySurgery = surgeries.contains(surgery.getDictionary().value(surgery.codeAt(i)));
+            }
+            if (anySurgery) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,205 @@
+package com.ayurveda.backend.cohort;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bitmap filters against a row-by-row scan of the same columns on a random cohort: OR within a column (multi-select
+// cells match on any of their conditions), AND across columns and age brackets, missing cells matching nothing,
+// "All" and empty selections unconstrained. Indexes extended by an append or carrying tombstones must answer
+// exactly like one built from scratch over the live rows.
+class CohortIndexTest {
+    private static final String[] HEADER = {"village", "gender", "education", "age", "Medicine/ Panchakarma", "surgery"};
+    private static final String[] VILLAGES = {"Nagpur", "Wardha", "Wanadongri", "Hingna", "Butibori", "Kamptee", "Saoner"};
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] EDUCATION = {"Primary", "Secondary", "Graduate", "None"};
+    private static final String[] MEDICINE = {"Amlapitta", "Sandhivata", "Prameha", "Kasa", "Shwasa"};
+    private static final String[] SURGERY = {"Arsha", "Bhagandara", "Hernia"};
+    private static final String[] BRACKETS = {"0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"};
+    private static final int ROWS = 20_000;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void matchesRowScan() {
+        CohortDataset dataset = build(records(ROWS), null);
+        int nonEmpty = 0;
+        for (int i = 0; i < 300; i++) {
+            CohortFilter filter = randomFilter();
+            RoaringBitmap expected = scan(dataset, filter, null);
+            assertEquals(expected, dataset.getIndex().evaluate(filter), describe(filter));
+            if (!expected.isEmpty()) nonEmpty++;
+        }
+        assertTrue(nonEmpty > 200, "Too few filters match anything: " + nonEmpty);
+    }
+
+    @Test
+    void selectionEdgeCases() {
+        CohortDataset dataset = build(records(2_000), null);
+        CohortIndex index = dataset.getIndex();
+        assertEquals(2_000, index.count(CohortFilter.none()));
+        assertEquals(2_000, index.count(filter(Map.of("village", List.of()), null)));
+        assertEquals(2_000, index.count(filter(Map.of("village", List.of("Nagpur", CohortFilter.ALL)), List.of(CohortFilter.ALL))));
+        assertEquals(0, index.count(filter(Map.of("village", List.of("Atlantis")), null)));
+        // An unknown value among known ones adds nothing
+        CohortFilter known = filter(Map.of("village", List.of("Nagpur")), null);
+        assertEquals(index.count(known), index.count(filter(Map.of("village", List.of("Nagpur", "Atlantis")), null)));
+        // Bracket labels and constant names are the same bracket
+        assertEquals(index.count(filter(null, List.of("65+"))), index.count(filter(null, List.of("AGE_65_PLUS"))));
+
+        assertThrows(IllegalArgumentException.class, () -> index.evaluate(filter(Map.of("age", List.of("40")), null)));
+        assertThrows(IllegalArgumentException.class, () -> index.evaluate(filter(Map.of("shoe_size", List.of("9")), null)));
+        assertThrows(IllegalArgumentException.class, () -> index.evaluate(filter(null, List.of("40-49"))));
+        CohortDataset noAges = build(List.<String[]>of(new String[] {"Nagpur", "Male", "None", "", "", ""}),
+                new String[] {"village", "gender", "education", "weight", "Medicine/ Panchakarma", "surgery"});
+        assertNull(noAges.getIndex().ageBitmap(AgeBracket.AGE_18_24));
+        assertThrows(IllegalArgumentException.class, () -> noAges.getIndex().evaluate(filter(null, List.of("18-24"))));
+
+        // The caller owns the result; the shared bitmaps are untouched
+        RoaringBitmap result = index.evaluate(known);
+        long before = index.count(known);
+        result.clear();
+        assertEquals(before, index.count(known));
+        assertTrue(index.isIndexed("medicine_panchakarma"));
+        assertFalse(index.isIndexed("age"));
+    }
+
+    @Test
+    void appendedIndexMatchesRebuild() {
+        List<String[]> records = records(6_000);
+        CohortDataset base = build(records.subList(0, 4_000), null);
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(base, HEADER);
+        List<String[]> appended = new ArrayList<>(records.subList(4_000, 6_000));
+        // New values only the appended rows use
+        appended.add(new String[] {"Umred", "Male", "Doctorate", "70", "Pandu", ""});
+        for (String[] record : appended) builder.addRecord(record);
+        CohortDataset extended = builder.buildAppended();
+
+        List<String[]> all = new ArrayList<>(records);
+        all.add(appended.get(appended.size() - 1));
+        CohortDataset rebuilt = build(all, null);
+        assertEquals(rebuilt.getRowCount(), extended.getRowCount());
+        for (int i = 0; i < 100; i++) {
+            CohortFilter filter = randomFilter();
+            assertEquals(rebuilt.getIndex().evaluate(filter), extended.getIndex().evaluate(filter), describe(filter));
+        }
+        CohortFilter newValues = filter(Map.of("village", List.of("Umred"), "medicine_panchakarma", List.of("Pandu")), null);
+        assertEquals(RoaringBitmap.bitmapOf(6_000), extended.getIndex().evaluate(newValues));
+        // The base version does not know the new values
+        assertEquals(0, base.getIndex().count(filter(Map.of("village", List.of("Umred")), null)));
+    }
+
+    @Test
+    void tombstonedRowsNeverMatch() {
+        CohortDataset dataset = build(records(5_000), null);
+        RoaringBitmap deleted = new RoaringBitmap();
+        for (int i = 0; i < 600; i++) deleted.add(random.nextInt(5_000));
+        CohortIndex index = new CohortIndex(dataset.getIndex(), dataset.getRowCount(), dataset.getColumns(), deleted);
+        assertEquals(5_000 - deleted.getCardinality(), index.getLiveRowCount());
+        assertEquals(5_000 - deleted.getCardinality(), index.count(CohortFilter.none()));
+        for (int i = 0; i < 100; i++) {
+            CohortFilter filter = randomFilter();
+            RoaringBitmap matches = index.evaluate(filter);
+            assertFalse(RoaringBitmap.intersects(matches, deleted));
+            assertEquals(scan(dataset, filter, deleted), matches, describe(filter));
+        }
+    }
+
+    private CohortFilter randomFilter() {
+        Map<String, List<String>> selections = new LinkedHashMap<>();
+        if (random.nextBoolean()) selections.put("village", pick(VILLAGES));
+        if (random.nextInt(3) == 0) selections.put("gender", pick(GENDERS));
+        if (random.nextInt(3) == 0) selections.put("education", pick(EDUCATION));
+        if (random.nextBoolean()) selections.put("medicine_panchakarma", pick(MEDICINE));
+        if (random.nextInt(4) == 0) selections.put("surgery", pick(SURGERY));
+        return filter(selections, random.nextInt(3) == 0 ? pick(BRACKETS) : null);
+    }
+
+    private List<String> pick(String[] values) {
+        List<String> picked = new ArrayList<>();
+        for (String value : values) {
+            if (random.nextInt(3) == 0) picked.add(value);
+        }
+        if (picked.isEmpty()) picked.add(values[random.nextInt(values.length)]);
+        return picked;
+    }
+
+    private List<String[]> records(int rows) {
+        List<String[]> records = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            records.add(new String[] {
+                random.nextInt(20) == 0 ? "" : VILLAGES[(int) Math.abs(random.nextGaussian() * 2) % VILLAGES.length],
+                random.nextInt(50) == 0 ? "" : GENDERS[random.nextInt(10) == 0 ? 2 : random.nextInt(2)],
+                EDUCATION[random.nextInt(EDUCATION.length)],
+                random.nextInt(25) == 0 ? "" : Integer.toString(random.nextInt(95)),
+                conditions(MEDICINE, 3),
+                conditions(SURGERY, 1)});
+        }
+        return records;
+    }
+
+    private String conditions(String[] values, int max) {
+        List<String> picked = new ArrayList<>();
+        int count = random.nextInt(max + 2) - 1;
+        for (int i = 0; i < count; i++) picked.add(values[random.nextInt(values.length)]);
+        return String.join(", ", picked);
+    }
+
+    private static CohortDataset build(List<String[]> records, String[] header) {
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(header != null ? header : HEADER);
+        for (String[] record : records) builder.addRecord(record);
+        return builder.build("index-test", "index-test.csv");
+    }
+
+    private static CohortFilter filter(Map<String, List<String>> selections, List<String> brackets) {
+        return new CohortFilter(selections, brackets);
+    }
+
+    // The filter semantics applied cell by cell
+    private static RoaringBitmap scan(CohortDataset dataset, CohortFilter filter, RoaringBitmap deleted) {
+        RoaringBitmap matches = new RoaringBitmap();
+        IntColumn ages = (IntColumn) dataset.column(CohortSchema.AGE);
+        Set<AgeBracket> brackets = new HashSet<>();
+        if (!CohortFilter.isUnconstrained(filter.getAgeBrackets())) {
+            for (String label : filter.getAgeBrackets()) brackets.add(AgeBracket.parse(label));
+        }
+        for (int row = 0; row < dataset.getRowCount(); row++) {
+            if (deleted != null && deleted.contains(row)) continue;
+            boolean match = brackets.isEmpty() || brackets.contains(AgeBracket.of(ages.get(row)));
+            for (Map.Entry<String, List<String>> selection : filter.getSelections().entrySet()) {
+                if (!match || CohortFilter.isUnconstrained(selection.getValue())) continue;
+                CohortColumn column = dataset.column(selection.getKey());
+                if (column instanceof MultiCategoricalColumn) {
+                    MultiCategoricalColumn multi = (MultiCategoricalColumn) column;
+                    boolean any = false;
+                    for (int i = multi.start(row); i < multi.end(row); i++) {
+                        any |= selection.getValue().contains(multi.getDictionary().value(multi.codeAt(i)));
+                    }
+                    match = any;
+                } else {
+                    match = !column.isMissing(row) && selection.getValue().contains(column.format(row));
+                }
+            }
+            if (match) matches.add(row);
+        }
+        return matches;
+    }
+
+    private static String describe(CohortFilter filter) {
+        return filter.getSelections() + " ages " + Arrays.toString(filter.getAgeBrackets().toArray());
+    }
+}
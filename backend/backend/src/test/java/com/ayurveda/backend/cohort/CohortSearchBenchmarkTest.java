@@ -0,0 +1,112 @@
+package com.ayurveda.backend.cohort;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.PeekableIntIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Global search latency on a synthetic 1M-row cohort: ranking plus the first page of 20 hits must stay in single-digit
+// milliseconds for name prefixes, substrings, villages, contact numbers and two-token queries.
+// Run with: mvn test -Pbenchmark -Dtest=CohortSearchBenchmarkTest
+@Tag("benchmark")
+class CohortSearchBenchmarkTest {
+    private static final int ROWS = 1_000_000;
+    private static final int ITERATIONS = 50;
+    private static final int PAGE = 20;
+    private static final long TARGET_MICROS = 10_000;
+
+    private static final String[] SYLLABLES = {"ra", "me", "sh", "su", "ni", "ta", "an", "il", "ka", "vi", "de", "pa",
+        "jo", "shi", "ku", "ma", "ar", "ha", "go", "la", "dh", "wa", "ro", "bha"};
+    private static final String[] VILLAGES = new String[400];
+    private static final String[] FIRST = new String[2_000];
+    private static final String[] LAST = new String[800];
+
+    private static CohortDataset dataset;
+
+    @BeforeAll
+    static void buildDataset() {
+        Random random = new Random(42);
+        for (int i = 0; i < VILLAGES.length; i++) VILLAGES[i] = word(random, 3) + (i % 5 == 0 ? " Khurd" : "");
+        for (int i = 0; i < FIRST.length; i++) FIRST[i] = word(random, 2 + random.nextInt(2));
+        for (int i = 0; i < LAST.length; i++) LAST[i] = word(random, 3);
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(new String[] {
+            "Patient Name", "Village", "Contact Number", "Emergency Contact"});
+        for (int row = 0; row < ROWS; row++) {
+            builder.addRecord(new String[] {
+                FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)],
+                VILLAGES[random.nextInt(VILLAGES.length)],
+                Long.toString(9_000_000_000L + row),
+                random.nextInt(4) == 0 ? "+91 " + (8_000_000_000L + random.nextInt(ROWS)) : ""});
+        }
+        dataset = builder.build("benchmark", "synthetic");
+        dataset.getSearchIndex();
+    }
+
+    @Test
+    void searchStaysUnderTenMilliseconds() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("name prefix", FIRST[7].substring(0, 3));
+        queries.put("full name", FIRST[11] + " " + LAST[5]);
+        queries.put("substring", LAST[3].substring(1, 5));
+        queries.put("village", VILLAGES[10]);
+        queries.put("name + village", FIRST[3] + " " + VILLAGES[20].substring(0, 4));
+        queries.put("contact", "+91 90001 23456");
+        queries.put("short prefix", "ra");
+
+        // warm up every query before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (String query : queries.values()) firstPage(query);
+        }
+
+        List<String> slow = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            long[] micros = new long[ITERATIONS];
+            long total = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long startedAt = System.nanoTime();
+                total = firstPage(query.getValue());
+                micros[i] = (System.nanoTime() - startedAt) / 1_000;
+            }
+            Arrays.sort(micros);
+            long median = micros[ITERATIONS / 2];
+            System.out.printf("Search %-15s %-22s %,9d hits: median %,6d us, p90 %,6d us%n", query.getKey(),
+                    "\"" + query.getValue() + "\"", total, median, micros[ITERATIONS * 9 / 10]);
+            if (median >= TARGET_MICROS) slow.add(query.getKey() + " " + median + " us");
+        }
+        System.out.printf("Search index over %,d rows: %,d KB in %d segments%n", ROWS,
+                dataset.getSearchIndex().memoryBytes() / 1024, dataset.getSearchIndex().getSegmentCount());
+        assertTrue(slow.isEmpty(), "Searches over " + TARGET_MICROS / 1_000 + " ms: " + slow);
+    }
+
+    // Ranks the query and reads the first page of hits the way the API does; returns the total
+    private static long firstPage(String query) {
+        CohortSearchIndex.Ranking ranking = dataset.getSearchIndex().search(query);
+        int taken = 0;
+        long checksum = 0;
+        for (int b = 0; b < ranking.bucketCount() && taken < PAGE; b++) {
+            PeekableIntIterator it = ranking.rows(b).getIntIterator();
+            while (it.hasNext() && taken < PAGE) {
+                int row = it.next();
+                for (CohortColumn column : dataset.getColumns()) checksum += column.format(row).length();
+                taken++;
+            }
+        }
+        assertTrue(checksum >= 0);
+        return ranking.getTotal();
+    }
+
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,219 @@
+package com.ayurveda.backend.cohort;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Global search against a brute-force scan of the same cells: every query token must match a name or village term
+// (exact, prefix, or a substring of three or more characters) or a contact number, and rows score the number of
+// tokens plus one for each prefix and each exact match. Appends only index the new rows yet answer like a rebuild,
+// and tombstoned rows are never returned.
+class CohortSearchIndexTest {
+    private static final String[] HEADER = {"Patient Name", "Village", "Contact Number", "Emergency Contact"};
+    private static final String[] FIRST = {"Ramesh", "Sunita", "Anil", "Meera", "Kavita", "Suresh", "Asha", "Ravi", "Ramakant", "Sunil"};
+    private static final String[] LAST = {"Kumar", "Patel", "Deshmukh", "Joshi", "Rao", "Pawar", "Kulkarni", "Deshpande", "Patil"};
+    private static final String[] VILLAGES = {"Nagpur", "Wardha", "Wanadongri", "Hingna", "Butibori MIDC", "Kamptee", "Nagpur Rural"};
+    private static final int ROWS = 3_000;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void matchesBruteForceScoring() {
+        List<String[]> records = records(ROWS);
+        CohortDataset dataset = build(records);
+        CohortSearchIndex index = dataset.getSearchIndex();
+        for (int i = 0; i < 400; i++) {
+            String query = randomQuery(records);
+            assertEquals(expected(records, query, null), scores(index.search(query)), query);
+        }
+    }
+
+    @Test
+    void rankingOrdersExactBeforePrefixBeforeSubstring() {
+        List<String[]> records = List.of(
+                new String[] {"Ram Patil", "Wardha", "9800000001", ""},
+                new String[] {"Ramesh Patil", "Wardha", "9800000002", ""},
+                new String[] {"Shriram Patil", "Wardha", "9800000003", ""},
+                new String[] {"Ramakant Rao", "Wardha", "9800000004", "+91 98000 00001"},
+                new String[] {"Sita Kale", "Ramtek", "9800000005", ""});
+        CohortSearchIndex index = build(records).getSearchIndex();
+
+        CohortSearchIndex.Ranking ram = index.search("Ram");
+        assertEquals(5, ram.getTotal());
+        assertEquals(List.of(3, 2), List.of(ram.score(0), ram.score(1)));
+        assertEquals(RoaringBitmap.bitmapOf(0), ram.rows(0));
+        assertEquals(RoaringBitmap.bitmapOf(1, 3, 4), ram.rows(1));
+        assertEquals(RoaringBitmap.bitmapOf(2), ram.rows(ram.bucketCount() - 1));
+        assertEquals(1, ram.score(ram.bucketCount() - 1));
+
+        // All tokens must match; each adds its own score
+        CohortSearchIndex.Ranking ramPatil = index.search("ram patil");
+        assertEquals(3, ramPatil.getTotal());
+        assertEquals(6, ramPatil.score(0));
+        assertEquals(RoaringBitmap.bitmapOf(0), ramPatil.rows(0));
+
+        // Contact numbers match whole, in any formatting, on either contact field
+        assertEquals(Map.of(0, 3, 3, 3), scores(index.search("+91 98000-00001")));
+        assertEquals(Map.of(0, 3, 3, 3), scores(index.search("9800000001")));
+        assertEquals(Map.of(), scores(index.search("98000000")));
+        assertEquals(Map.of(), scores(index.search("")));
+        assertEquals(Map.of(), scores(index.search("  --  ")));
+        assertEquals(Map.of(), scores(index.search("ram zzz")));
+    }
+
+    @Test
+    void appendsIndexOnlyNewRows() {
+        List<String[]> records = records(ROWS);
+        CohortDataset dataset = build(records.subList(0, 1_000));
+        assertEquals(1, dataset.getSearchIndex().getSegmentCount());
+        int appended = 1_000;
+        for (int batch = 0; batch < 10; batch++) {
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(dataset, HEADER);
+            int to = batch == 9 ? ROWS : appended + 150;
+            for (String[] record : records.subList(appended, to)) builder.addRecord(record);
+            appended = to;
+            dataset = builder.buildAppended();
+            assertTrue(dataset.getSearchIndex().getSegmentCount() <= 8);
+            if (batch == 0) assertEquals(2, dataset.getSearchIndex().getSegmentCount());
+        }
+        // A village and a name first seen in the last append
+        List<String[]> all = new ArrayList<>(records);
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(dataset, HEADER);
+        String[] newcomer = {"Zubin Irani", "Umred", "9822000000", ""};
+        builder.addRecord(newcomer);
+        all.add(newcomer);
+        dataset = builder.buildAppended();
+
+        CohortSearchIndex rebuilt = build(all).getSearchIndex();
+        for (int i = 0; i < 200; i++) {
+            String query = randomQuery(all);
+            assertEquals(scores(rebuilt.search(query)), scores(dataset.getSearchIndex().search(query)), query);
+        }
+        assertEquals(Map.of(ROWS, 5), scores(dataset.getSearchIndex().search("zubin umr")));
+    }
+
+    @Test
+    void tombstonedRowsAreNotFound() {
+        List<String[]> records = records(1_000);
+        CohortDataset dataset = build(records);
+        RoaringBitmap deleted = new RoaringBitmap();
+        for (int i = 0; i < 150; i++) deleted.add(random.nextInt(1_000));
+        CohortDataset pruned = new CohortDatasetBuilder(dataset, HEADER).buildAppended(deleted, null);
+        for (int i = 0; i < 200; i++) {
+            String query = randomQuery(records);
+            Map<Integer, Integer> found = scores(pruned.getSearchIndex().search(query));
+            assertEquals(expected(records, query, deleted), found, query);
+        }
+    }
+
+    @Test
+    void queryTokens() {
+        assertEquals(List.of("919876543210"), CohortSearchIndex.queryTokens("+91 (98765) 43-210"));
+        assertEquals(List.of("ramesh", "nagpur"), CohortSearchIndex.queryTokens("Ramesh, NAGPUR!"));
+        assertEquals(6, CohortSearchIndex.queryTokens("a b c d e f g h").size());
+        assertEquals(List.of("ward", "12"), CohortSearchIndex.queryTokens("Ward 12"));
+        assertEquals(List.of("ward"), CohortSearchIndex.tokenize("Ward 12", false));
+        assertEquals(9876543210L, CohortSearchIndex.contactKey("+91 98765 43210"));
+        assertEquals(-1, CohortSearchIndex.contactKey("98765x"));
+        assertEquals(-1, CohortSearchIndex.contactKey("12345"));
+    }
+
+    private String randomQuery(List<String[]> records) {
+        String[] record = records.get(random.nextInt(records.size()));
+        List<String> terms = CohortSearchIndex.tokenize(record[0] + " " + record[1], false);
+        String term = terms.get(random.nextInt(terms.size()));
+        switch (random.nextInt(8)) {
+            case 0: return term;
+            case 1: return term.substring(0, 1 + random.nextInt(term.length()));
+            case 2: {
+                int from = random.nextInt(Math.max(1, term.length() - 2));
+                return term.substring(from, Math.min(term.length(), from + 3 + random.nextInt(3)));
+            }
+            case 3: return record[0].toUpperCase(Locale.ROOT);
+            case 4: return term.substring(0, Math.min(term.length(), 3)) + " " + terms.get(random.nextInt(terms.size()));
+            case 5: return record[2].isEmpty() ? "zzq" : "+91 " + record[2].substring(0, 5) + " " + record[2].substring(5);
+            case 6: return record[3].isEmpty() ? record[1] : record[3];
+            default: return term + "x";
+        }
+    }
+
+    private List<String[]> records(int rows) {
+        List<String[]> records = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + (random.nextInt(5) == 0 ? " B. " : " ") + LAST[random.nextInt(LAST.length)];
+            records.add(new String[] {
+                random.nextInt(40) == 0 ? "" : name,
+                VILLAGES[random.nextInt(VILLAGES.length)],
+                random.nextInt(20) == 0 ? "" : Long.toString(9_000_000_000L + random.nextInt(2_000)),
+                random.nextInt(3) == 0 ? "+91 " + (9_000_000_000L + random.nextInt(2_000)) : ""});
+        }
+        return records;
+    }
+
+    private static CohortDataset build(List<String[]> records) {
+        CohortDatasetBuilder builder = new CohortDatasetBuilder(HEADER);
+        for (String[] record : records) builder.addRecord(record);
+        return builder.build("search-test", "search-test.csv");
+    }
+
+    // Row -> score; scores must be strictly descending across buckets and each row in one bucket
+    private static Map<Integer, Integer> scores(CohortSearchIndex.Ranking ranking) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (int b = 0; b < ranking.bucketCount(); b++) {
+            assertTrue(b == 0 || ranking.score(b) < ranking.score(b - 1));
+            for (int row : ranking.rows(b)) assertNull(scores.put(row, ranking.score(b)));
+        }
+        assertEquals(ranking.getTotal(), scores.size());
+        return scores;
+    }
+
+    // The ranking rules applied to every row's raw cells
+    private static Map<Integer, Integer> expected(List<String[]> records, String query, RoaringBitmap deleted) {
+        List<String> tokens = CohortSearchIndex.queryTokens(query);
+        Map<Integer, Integer> scores = new HashMap<>();
+        if (tokens.isEmpty()) return scores;
+        for (int row = 0; row < records.size(); row++) {
+            if (deleted != null && deleted.contains(row)) continue;
+            String[] record = records.get(row);
+            List<String> terms = new ArrayList<>(CohortSearchIndex.tokenize(record[0], false));
+            terms.addAll(CohortSearchIndex.tokenize(record[1], false));
+            int score = tokens.size();
+            boolean all = true;
+            for (String token : tokens) {
+                long contact = CohortSearchIndex.contactKey(token);
+                boolean exact = false;
+                boolean prefix = false;
+                boolean contains = false;
+                if (contact >= 0) {
+                    exact = (!record[2].isEmpty() && CohortSearchIndex.contactKey(record[2]) == contact)
+                            || (!record[3].isEmpty() && CohortSearchIndex.contactKey(record[3]) == contact);
+                    prefix = exact;
+                    contains = exact;
+                } else {
+                    for (String term : terms) {
+                        exact |= term.equals(token);
+                        prefix |= term.startsWith(token);
+                        contains |= term.startsWith(token) || (token.length() >= 3 && term.contains(token));
+                    }
+                }
+                if (!contains) {
+                    all = false;
+                    break;
+                }
+                score += (prefix ? 1 : 0) + (exact ? 1 : 0);
+            }
+            if (all) scores.put(row, score);
+        }
+        return scores;
+    }
+}
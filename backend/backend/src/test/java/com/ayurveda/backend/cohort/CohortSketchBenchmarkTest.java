@@ -0,0 +1,161 @@
+package com.ayurveda.backend.cohort;
+
+import com.ayurveda.backend.csv.CsvReader;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// District rollup of a cohort uploaded in four parts (600k rows, 200 villages, patients returning across uploads):
+// distinct patients, median and p90 blood sugar and top diseases per village answered by merging per-upload,
+// per-village sketches, against an exact scan of every row. Each answer must fall within the bounds the sketch
+// reports, and a sketch of the full cohort must be no larger than one of a single upload.
+// Run with: mvn test -Pbenchmark -Dtest=CohortSketchBenchmarkTest
+@Tag("benchmark")
+class CohortSketchBenchmarkTest {
+    private static final int UPLOADS = 4;
+    private static final int UPLOAD_ROWS = 150_000;
+    private static final int VILLAGES = 200;
+    private static final int PATIENTS = 400_000;
+    private static final int DISEASES = 30;
+    private static final String HEADER = "Village Name,Patient Name,Age,Gender,Disease,Blood Sugar,Contact Number";
+    private static final CohortSketches.Settings SETTINGS = new CohortSketches.Settings(12, 0.01, 2048, 8);
+    private static final int QUERIES = 20;
+
+    @Test
+    void mergedSketchesStayWithinTheirBounds() throws Exception {
+        Random random = new Random(25);
+        CohortDataset dataset = null;
+        List<CohortSketches> uploads = new ArrayList<>();
+        long sketchNanos = 0;
+        for (int u = 0; u < UPLOADS; u++) {
+            StringBuilder csv = new StringBuilder(HEADER).append('\n');
+            for (int row = 0; row < UPLOAD_ROWS; row++) csv.append(record(random)).append('\n');
+            int from = dataset == null ? 0 : dataset.getRowCount();
+            dataset = parse(dataset, csv.toString());
+            RoaringBitmap added = new RoaringBitmap();
+            added.add((long) from, (long) dataset.getRowCount());
+            long startedAt = System.nanoTime();
+            uploads.add(CohortSketches.build(dataset, added, SETTINGS));
+            sketchNanos += System.nanoTime() - startedAt;
+        }
+        int rows = dataset.getRowCount();
+
+        // Exact answers, scanning every row
+        long exactStartedAt = System.nanoTime();
+        CohortColumn villages = dataset.column(CohortSchema.VILLAGE);
+        CohortColumn diseases = dataset.column(CohortSchema.DISEASE);
+        DecimalColumn sugar = (DecimalColumn) dataset.column(CohortSchema.BLOOD_SUGAR);
+        Set<String> patients = new HashSet<>();
+        double[] sugars = new double[rows];
+        Map<String, Map<String, Long>> diseasesByVillage = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            patients.add(CohortKeys.key(dataset.column(CohortSchema.CONTACT_NUMBER).format(row), dataset.column(CohortSchema.PATIENT_NAME).format(row)));
+            sugars[row] = sugar.get(row);
+            diseasesByVillage.computeIfAbsent(villages.format(row), v -> new HashMap<>()).merge(diseases.format(row), 1L, Long::sum);
+        }
+        Arrays.sort(sugars);
+        long exactMicros = (System.nanoTime() - exactStartedAt) / 1_000;
+
+        // Merged answers: every upload's village groups, overall and per village
+        CohortSketches.Group overall = null;
+        Map<String, CohortSketches.Group> byVillage = null;
+        long mergeStartedAt = System.nanoTime();
+        for (int q = 0; q < QUERIES; q++) {
+            overall = new CohortSketches.Group(SETTINGS);
+            byVillage = new HashMap<>();
+            for (CohortSketches upload : uploads) {
+                for (Map.Entry<String, CohortSketches.Group> village : upload.getVillages().entrySet()) {
+                    overall.merge(village.getValue(), List.of(CohortSchema.BLOOD_SUGAR), List.of(CohortSchema.DISEASE));
+                    byVillage.computeIfAbsent(village.getKey(), v -> new CohortSketches.Group(SETTINGS))
+                            .merge(village.getValue(), List.of(CohortSchema.BLOOD_SUGAR), List.of(CohortSchema.DISEASE));
+                }
+            }
+        }
+        long mergeMicros = (System.nanoTime() - mergeStartedAt) / 1_000 / QUERIES;
+
+        assertEquals(rows, overall.getRows());
+        HyperLogLog hll = overall.getPatients();
+        double distinctError = Math.abs(hll.estimate() - patients.size()) / patients.size();
+        // The interval the analytics API reports for distinct patients
+        double lower = hll.lower(hll.estimate());
+        double upper = hll.upper(hll.estimate());
+        assertTrue(lower <= patients.size() && patients.size() <= upper,
+                () -> "Distinct patients " + patients.size() + " outside [" + lower + ", " + upper + "]");
+
+        QuantileSketch sugarSketch = overall.vital(CohortSchema.BLOOD_SUGAR);
+        assertEquals(rows, sugarSketch.getCount());
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            double exact = sugars[(int) Math.floor(q * (rows - 1))];
+            double estimate = sugarSketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= sugarSketch.getRelativeAccuracy() * exact + 1e-9,
+                    () -> "p" + q + " " + estimate + " vs " + exact);
+        }
+
+        // With only eight counters for thirty diseases the counts are approximate, but stay within the bound
+        long worstError = 0;
+        for (Map.Entry<String, CohortSketches.Group> village : byVillage.entrySet()) {
+            HeavyHitters top = village.getValue().category(CohortSchema.DISEASE);
+            Map<String, Long> exact = diseasesByVillage.get(village.getKey());
+            assertTrue(top.getMaxError() <= top.getTotal() / (SETTINGS.getHeavyHitters() + 1));
+            Set<String> listed = new HashSet<>();
+            for (Map.Entry<String, Long> counter : top.top(SETTINGS.getHeavyHitters())) {
+                long actual = exact.get(counter.getKey());
+                assertTrue(counter.getValue() <= actual && actual <= counter.getValue() + top.getMaxError());
+                listed.add(counter.getKey());
+                worstError = Math.max(worstError, actual - counter.getValue());
+            }
+            for (Map.Entry<String, Long> count : exact.entrySet()) {
+                assertTrue(listed.contains(count.getKey()) || count.getValue() <= top.getMaxError(),
+                        () -> count.getKey() + " missing from the top values of " + village.getKey());
+            }
+        }
+
+        // Size depends on villages and settings, not rows
+        long uploadBytes = uploads.get(0).memoryBytes();
+        RoaringBitmap all = new RoaringBitmap();
+        all.add(0L, (long) rows);
+        long fullBytes = CohortSketches.build(dataset, all, SETTINGS).memoryBytes();
+        assertTrue(fullBytes <= uploadBytes * 1.1, () -> fullBytes + " bytes for all rows vs " + uploadBytes + " for one upload");
+
+        System.out.printf("Cohort of %,d rows in %d uploads, %d villages: sketching %,d ms in total; exact scan %,d ms; merged query "
+                        + "%,.2f ms (%,d groups); distinct %,.0f vs %,d (%.2f%% off, bound %.2f%% at 99.7%%); p50 sugar %.1f vs %.1f, "
+                        + "p90 %.1f vs %.1f (bound 1%%); worst top-disease undercount %,d; sketches %,d KB per upload%n",
+                rows, UPLOADS, VILLAGES, sketchNanos / 1_000_000, exactMicros / 1_000, mergeMicros / 1e3, UPLOADS * VILLAGES,
+                hll.estimate(), patients.size(), distinctError * 100, 300 * hll.relativeStandardError(),
+                sugarSketch.quantile(0.5), sugars[(int) Math.floor(0.5 * (rows - 1))],
+                sugarSketch.quantile(0.9), sugars[(int) Math.floor(0.9 * (rows - 1))], worstError, uploadBytes / 1024);
+    }
+
+    private static String record(Random random) {
+        int patient = random.nextInt(PATIENTS);
+        // Diseases follow a skewed distribution so a few dominate each village
+        int disease = (int) Math.min(DISEASES - 1, Math.floor(-Math.log(1 - random.nextDouble()) * 4));
+        double sugar = Math.round(Math.exp(4.7 + 0.3 * random.nextGaussian()) * 10) / 10.0;
+        return "Village " + (patient % VILLAGES) + ",Patient " + patient + " Patil," + (18 + patient % 70) + ","
+                + (patient % 2 == 0 ? "Male" : "Female") + ",Disease " + disease + "," + sugar + "," + (9_000_000_000L + patient);
+    }
+
+    private static CohortDataset parse(CohortDataset base, String csv) throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            String[] header = reader.readRecord();
+            CohortDatasetBuilder builder = base == null ? new CohortDatasetBuilder(header) : new CohortDatasetBuilder(base, header);
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return base == null ? builder.build("sketch", "synthetic") : builder.buildAppended();
+        }
+    }
+}
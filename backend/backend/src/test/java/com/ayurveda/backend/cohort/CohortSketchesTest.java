@@ -0,0 +1,181 @@
+package com.ayurveda.backend.cohort;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The per-village sketches on their own: a merged HyperLogLog equals the sketch of the union and its estimate falls
+// within lower()/upper(), quantiles stay within the relative accuracy after merging and only the lowest ones loosen
+// once buckets fold, and merged heavy-hitters counters never overcount, undercount by at most maxError and keep
+// maxError within total / (capacity + 1). Sketches with different settings refuse to merge.
+class CohortSketchesTest {
+    private final Random random = new Random(25);
+
+    @Test
+    void hyperLogLogMergeMatchesSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 50_000; i++) {
+            // Overlapping halves, so the merge has to take the larger register rather than add
+            if (i < 30_000) left.add("patient-" + i);
+            if (i >= 20_000) right.add("patient-" + i);
+            union.add("patient-" + i);
+        }
+        left.merge(right);
+        assertEquals(union.estimate(), left.estimate());
+        // Merging the same values again changes nothing
+        left.merge(union);
+        assertEquals(union.estimate(), left.estimate());
+        assertEquals(0, new HyperLogLog(12).estimate());
+        assertEquals(4096 + 16, union.memoryBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new HyperLogLog(11)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+    }
+
+    @Test
+    void hyperLogLogEstimatesStayWithinTheirBounds() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        int added = 0;
+        for (int distinct : new int[] {1, 10, 100, 1_000, 10_000, 100_000, 300_000}) {
+            for (; added < distinct; added++) {
+                sketch.add("patient-" + added);
+                // Repeats do not count
+                sketch.add("patient-" + added / 2);
+            }
+            double estimate = sketch.estimate();
+            assertTrue(sketch.lower(estimate) <= distinct && distinct <= sketch.upper(estimate),
+                    () -> distinct + " outside [" + sketch.lower(estimate) + ", " + sketch.upper(estimate) + "]");
+        }
+        assertEquals(1.04 / 64, sketch.relativeStandardError(), 1e-12);
+    }
+
+    @Test
+    void quantilesStayWithinTheRelativeAccuracy() {
+        QuantileSketch first = new QuantileSketch(0.01, 2048);
+        QuantileSketch second = new QuantileSketch(0.01, 2048);
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round(Math.exp(4.7 + 0.3 * random.nextGaussian()) * 10) / 10.0;
+            (i % 3 == 0 ? first : second).add(values[i]);
+        }
+        first.merge(second);
+        Arrays.sort(values);
+
+        assertEquals(values.length, first.getCount());
+        assertEquals(values[0], first.getMin());
+        assertEquals(values[values.length - 1], first.getMax());
+        for (double q : new double[] {0, 0.01, 0.25, 0.5, 0.9, 0.99, 1}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            double estimate = first.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= 0.01 * exact + 1e-9, () -> "p" + q + " " + estimate + " vs " + exact);
+        }
+    }
+
+    @Test
+    void quantilesFoldTheLowestBucketsPastTheLimit() {
+        QuantileSketch low = new QuantileSketch(0.01, 64);
+        QuantileSketch high = new QuantileSketch(0.01, 64);
+        for (int i = 0; i < 50_000; i++) (i < 25_000 ? low : high).add(1 + i * 0.01);
+
+        // 64 buckets cannot span 1..500 at 1%, so the lowest fold together; the upper quantiles keep their accuracy
+        low.merge(high);
+        assertEquals(50_000, low.getCount());
+        double p90 = 1 + Math.floor(0.9 * 49_999) * 0.01;
+        assertTrue(Math.abs(low.quantile(0.9) - p90) <= 0.01 * p90);
+        assertTrue(low.memoryBytes() <= 64 * 8 + 96);
+        // Folded values are answered no lower than the true minimum
+        assertTrue(low.quantile(0) >= 1);
+    }
+
+    @Test
+    void quantilesOfZeroNegativeAndMissingValues() {
+        QuantileSketch sketch = new QuantileSketch(0.02, 128);
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        sketch.add(Double.NaN);
+        assertEquals(0, sketch.getCount());
+
+        sketch.add(0);
+        sketch.add(-3);
+        sketch.add(100);
+        sketch.add(120);
+        assertEquals(4, sketch.getCount());
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(0, sketch.quantile(0.3));
+        assertEquals(100, sketch.quantile(0.7), 100 * 0.02);
+        assertEquals(120, sketch.quantile(1), 120 * 0.02);
+
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new QuantileSketch(0.01, 128)));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0, 128));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0.01, 1));
+    }
+
+    @Test
+    void heavyHittersMergeKeepsItsBounds() {
+        int capacity = 5;
+        HeavyHitters merged = new HeavyHitters(capacity);
+        Map<String, Long> exact = new HashMap<>();
+        for (int part = 0; part < 12; part++) {
+            // Skewed so a few values dominate, with a different mix in each part
+            Map<String, Long> counts = new HashMap<>();
+            for (int i = 0; i < 2_000; i++) {
+                int value = (int) Math.min(39, Math.floor(-Math.log(1 - random.nextDouble()) * (3 + part % 4)));
+                counts.merge("Disease " + value, 1L, Long::sum);
+            }
+            counts.forEach((value, n) -> exact.merge(value, n, Long::sum));
+            merged.merge(HeavyHitters.of(counts, capacity));
+        }
+
+        assertEquals(12 * 2_000, merged.getTotal());
+        assertTrue(merged.getMaxError() <= merged.getTotal() / (capacity + 1));
+        Set<String> listed = new HashSet<>();
+        for (Map.Entry<String, Long> counter : merged.top(capacity)) {
+            long actual = exact.get(counter.getKey());
+            assertTrue(counter.getValue() <= actual && actual <= counter.getValue() + merged.getMaxError(),
+                    () -> counter.getKey() + " counted " + counter.getValue() + " of " + actual);
+            listed.add(counter.getKey());
+        }
+        for (Map.Entry<String, Long> count : exact.entrySet()) {
+            assertTrue(listed.contains(count.getKey()) || count.getValue() <= merged.getMaxError(),
+                    () -> count.getKey() + " missing from the top values");
+        }
+        // Disease 0 leads every part, so it also leads the merged summary
+        String mostFrequent = exact.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+        assertEquals(mostFrequent, merged.top(1).get(0).getKey());
+    }
+
+    @Test
+    void heavyHittersOfExactCounts() {
+        Map<String, Long> counts = Map.of("Arthritis", 40L, "Diabetes", 25L, "Asthma", 25L, "Obesity", 3L, "Migraine", 1L);
+        HeavyHitters exact = HeavyHitters.of(counts, 5);
+        assertEquals(0, exact.getMaxError());
+        assertEquals(94, exact.getTotal());
+        // Ties are listed by value
+        assertEquals(List.of("Arthritis", "Asthma", "Diabetes"), names(exact.top(3)));
+
+        HeavyHitters truncated = HeavyHitters.of(counts, 2);
+        assertEquals(25, truncated.getMaxError());
+        assertEquals(List.of("Arthritis", "Asthma"), names(truncated.top(10)));
+
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(0));
+    }
+
+    private static List<String> names(List<Map.Entry<String, Long>> counters) {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Long> counter : counters) names.add(counter.getKey());
+        return names;
+    }
+}
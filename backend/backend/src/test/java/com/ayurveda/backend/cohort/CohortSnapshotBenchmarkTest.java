@@ -0,0 +1,115 @@
+package com.ayurveda.backend.cohort;
+
+import com.ayurveda.backend.csv.CsvReader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cold start of a 1M-row cohort: parsing and indexing its CSV vs opening its memory-mapped snapshot,
+// each measured up to the first answered filter query. The OS page cache is warm in both cases.
+// Run with: mvn test -Pbenchmark -Dtest=CohortSnapshotBenchmarkTest
+@Tag("benchmark")
+class CohortSnapshotBenchmarkTest {
+    private static final int ROWS = 1_000_000;
+    private static final String[] VILLAGES = new String[60];
+    private static final String[] SURNAMES = {"Patil", "Deshmukh", "Kulkarni", "Joshi", "Pawar", "Shinde", "More", "Jadhav"};
+    private static final String[] DISEASES = {"Arthritis", "Diabetes", "Hypertension", "Obesity", "Asthma", "Migraine"};
+
+    @TempDir
+    static Path workDir;
+    private static Path csv;
+
+    @BeforeAll
+    static void writeCsv() throws IOException {
+        for (int i = 0; i < VILLAGES.length; i++) VILLAGES[i] = "Village " + i;
+        csv = workDir.resolve("cohort.csv");
+        Random random = new Random(11);
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("Village Name,Patient Name,Age,Gender,Disease,Weight,Date,Blood Pressure,Contact Number\n");
+            for (int row = 0; row < ROWS; row++) {
+                out.write(VILLAGES[random.nextInt(VILLAGES.length)] + ",Patient " + row + " " + SURNAMES[random.nextInt(SURNAMES.length)]
+                        + "," + random.nextInt(90) + "," + (random.nextBoolean() ? "Male" : "Female")
+                        + "," + DISEASES[random.nextInt(DISEASES.length)] + "," + (40 + random.nextInt(60)) + "." + random.nextInt(10)
+                        + String.format(",2024-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28))
+                        + "," + (100 + random.nextInt(60)) + "/" + (60 + random.nextInt(30))
+                        + "," + (9_000_000_000L + row) + "\n");
+            }
+        }
+    }
+
+    @Test
+    void snapshotOpensFasterThanCsv() throws IOException {
+        CohortFilter filter = new CohortFilter(Map.of(CohortSchema.VILLAGE, List.of("Village 3", "Village 9"),
+                CohortSchema.GENDER, List.of("Female")), List.of("25-34", "35-44"));
+
+        long csvStartedAt = System.nanoTime();
+        CohortDataset parsed = parse(csv);
+        long csvCount = parsed.getIndex().count(filter);
+        long csvNanos = System.nanoTime() - csvStartedAt;
+
+        Path dir = workDir.resolve("snapshot");
+        long writeStartedAt = System.nanoTime();
+        CohortSnapshot.write(parsed, dir);
+        long writeNanos = System.nanoTime() - writeStartedAt;
+        long snapshotBytes;
+        try (var files = Files.list(dir)) {
+            snapshotBytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+
+        // Best of a few opens, both with and without checksum verification
+        long openNanos = Long.MAX_VALUE;
+        long verifiedNanos = Long.MAX_VALUE;
+        CohortDataset opened = null;
+        for (int i = 0; i < 5; i++) {
+            long startedAt = System.nanoTime();
+            opened = CohortSnapshot.open(dir, false);
+            assertNotNull(opened);
+            assertEquals(csvCount, opened.getIndex().count(filter));
+            openNanos = Math.min(openNanos, System.nanoTime() - startedAt);
+
+            startedAt = System.nanoTime();
+            assertEquals(csvCount, CohortSnapshot.open(dir, true).getIndex().count(filter));
+            verifiedNanos = Math.min(verifiedNanos, System.nanoTime() - startedAt);
+        }
+
+        assertEquals(parsed.getRowCount(), opened.getRowCount());
+        for (int row : new int[] {0, 1, ROWS / 2, ROWS - 1}) {
+            for (CohortColumn column : parsed.getColumns()) {
+                assertEquals(column.format(row), opened.column(column.getName()).format(row));
+            }
+        }
+        long searchStartedAt = System.nanoTime();
+        assertEquals(parsed.getSearchIndex().search("9000000042").getTotal(), opened.getSearchIndex().search("9000000042").getTotal());
+        long searchNanos = System.nanoTime() - searchStartedAt;
+        assertTrue(opened.isSearchIndexBuilt());
+
+        System.out.printf("Cold start of %,d rows to first filter (%,d matches): CSV %,d ms, snapshot %,d ms "
+                        + "(%,d ms with checksums, %.0fx faster); snapshot write %,d ms, %,d MB on disk; "
+                        + "lazy search index rebuild %,d ms%n",
+                ROWS, csvCount, csvNanos / 1_000_000, openNanos / 1_000_000, verifiedNanos / 1_000_000,
+                (double) csvNanos / Math.max(1, openNanos), writeNanos / 1_000_000, snapshotBytes >> 20, searchNanos / 1_000_000);
+    }
+
+    private static CohortDataset parse(Path file) throws IOException {
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            CohortDatasetBuilder builder = new CohortDatasetBuilder(reader.readRecord());
+            String[] record;
+            while ((record = reader.readRecord()) != null) builder.addRecord(record);
+            return builder.build("benchmark", "synthetic");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.security.JwtUtil;
+import com.ayurveda.backend.service.PasswordHashingService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.convention.TestBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Onboarding 5,000 users through POST /api/users/bulk (CSV) against one POST /api/users per user. BCrypt's cost is
+// a setting and caps any import at about one hash per bulk thread per ~90 ms, so the password encoder is swapped for
+// a cheap digest here and the target applies to everything else the import does per row: parsing, validation, the
+// per-batch uniqueness query and the batched INSERT must sustain thousands of users per second. The BCrypt ceiling
+// for this machine is printed alongside.
+// Run with: mvn test -Pbenchmark -Dtest=BulkUserImportBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-import-benchmark",
+        "cohort.snapshot.dir="})
+class BulkUserImportBenchmarkTest {
+    private static final int USERS = 5_000;
+    private static final int RUNS = 3;
+    private static final int SINGLE_USERS = 200;
+    private static final double TARGET_ROWS_PER_SECOND = 2_000;
+
+    @TestBean
+    private PasswordEncoder passwordEncoder;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    static PasswordEncoder passwordEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+                    return "{sha256}" + HexFormat.of().formatHex(digest);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    @Test
+    void bulkImportSustainsThousandsPerSecond() throws Exception {
+        String token = jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+
+        // Warm-up upload, so the timed one does not pay for class loading and JIT
+        post(token, csv("warmup", 5_000));
+
+        // Best of a few timed uploads, each of fresh users
+        double bulkSeconds = Double.MAX_VALUE;
+        JsonNode report = null;
+        for (int run = 0; run < RUNS; run++) {
+            String csv = csv("bulkbench" + run + "x", USERS);
+            long startedAt = System.nanoTime();
+            JsonNode uploaded = post(token, csv);
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            assertEquals(USERS, uploaded.get("created").asInt());
+            if (seconds < bulkSeconds) {
+                bulkSeconds = seconds;
+                report = uploaded;
+            }
+        }
+        assertEquals(RUNS * USERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username LIKE 'bulkbench%'", Integer.class));
+        double bulkRate = USERS / bulkSeconds;
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < SINGLE_USERS; i++) {
+            String json = "{\"username\":\"single" + i + "\",\"password\":\"Single@1234\",\"firstName\":\"Single\","
+                    + "\"lastName\":\"User " + i + "\",\"email\":\"single" + i + "@example.com\",\"phone\":\"9600000000\",\"roleId\":3}";
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+        double singleRate = SINGLE_USERS / ((System.nanoTime() - startedAt) / 1e9);
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        bcrypt.encode("Warmup@1234");
+        startedAt = System.nanoTime();
+        for (int i = 0; i < 10; i++) bcrypt.encode("Bulk@1234");
+        double bcryptMillis = (System.nanoTime() - startedAt) / 1e6 / 10;
+        int bulkThreads = (int) passwordHashingService.stats().get("bulkPoolSize");
+
+        System.out.printf("Bulk import of %,d users: %,.0f users/s (%,.0f ms; server-side %,.0f rows/s); one POST per user: "
+                        + "%,.0f users/s (%.0fx); BCrypt at the default cost: %.0f ms per hash, so at most %,.0f users/s on %d bulk threads%n",
+                USERS, bulkRate, bulkSeconds * 1000, report.get("rowsPerSecond").asDouble(), singleRate, bulkRate / singleRate,
+                bcryptMillis, bulkThreads * 1000 / bcryptMillis, bulkThreads);
+        assertTrue(bulkRate >= TARGET_ROWS_PER_SECOND, () -> String.format("%,.0f users/s is below the %,.0f target", bulkRate, TARGET_ROWS_PER_SECOND));
+    }
+
+    private JsonNode post(String token, String csv) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/bulk"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static String csv(String prefix, int users) {
+        StringBuilder csv = new StringBuilder("username,password,firstName,lastName,email,phone,department,employeeId,role\n");
+        for (int i = 0; i < users; i++) {
+            csv.append(prefix).append(i).append(",Bulk@1234,Faculty,Member ").append(i).append(',')
+                    .append(prefix).append(i).append("@college.example.com,+91 98000 ").append(String.format("%05d", i))
+                    .append(",Rachana Sharir,").append(prefix.toUpperCase()).append('-').append(i).append(",FACULTY\n");
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// POST /api/users/bulk with a mix of good and bad rows, as CSV and as NDJSON: every row gets a result with its line
+// number, only the good rows are created (with a BCrypt hash of their password and the right role), the bad ones are
+// rejected with the reason, and a malformed NDJSON line is a rejected row rather than a failed upload.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class BulkUserImportTest {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void removeImportedUsers() {
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'bulk%'");
+    }
+
+    @Test
+    void csvWithMixedRows() throws Exception {
+        String listingEtag = get("/api/users?limit=1").headers().firstValue("ETag").orElseThrow();
+        String csv = "Username,Password,First Name,Last Name,Email,Phone,Department,Role\n"
+                + "bulkcsv1,Bulk@1234,Asha,Kulkarni,bulkcsv1@example.com,9400000001,Kayachikitsa,FACULTY\n"
+                + "bulkcsv2,Bulk@1234,Ravi,Deshmukh,bulkcsv2@example.com,9400000002,,data_analyst\n"
+                + "bulkcsv3,weak,Weak,Password,bulkcsv3@example.com,9400000003,,FACULTY\n"
+                + "bulkcsv4,Bulk@1234,Meera,,bulkcsv4@example.com,9400000004,,FACULTY\n"
+                + "bulkcsv1,Bulk@1234,Again,Same,bulkcsv1b@example.com,9400000005,,FACULTY\n"
+                + "Admin12,Bulk@1234,Existing,User,bulkcsv6@example.com,9400000006,,FACULTY\n"
+                + "bulkcsv7,Bulk@1234,Taken,Email,admin12@test.com,9400000007,,FACULTY\n"
+                + "bulkcsv8,Bulk@1234,No,Role,bulkcsv8@example.com,9400000008,,NO_SUCH_ROLE\n"
+                + "bulkcsv9,Bulk@1234,Long,Department,bulkcsv9@example.com,9400000009," + "x".repeat(300) + ",FACULTY\n"
+                + "bulkcsv10,Bulk@1234,Quoted,Field,bulkcsv10@example.com,9400000010,\"Shalya, Surgery\",viewer\n";
+
+        JsonNode report = post("text/csv", csv);
+        assertEquals(10, report.get("total").asInt());
+        assertEquals(3, report.get("created").asInt());
+        assertEquals(7, report.get("rejected").asInt());
+
+        Map<Long, JsonNode> rows = byLine(report);
+        assertCreated(rows.get(2L), "bulkcsv1");
+        assertCreated(rows.get(3L), "bulkcsv2");
+        assertTrue(rows.get(4L).get("error").asText().startsWith("Password must be at least 8 characters"));
+        assertRejected(rows.get(5L), "Last name is required");
+        assertRejected(rows.get(6L), "Duplicate username in upload");
+        assertRejected(rows.get(7L), "Username already exists");
+        assertRejected(rows.get(8L), "Email already exists");
+        assertRejected(rows.get(9L), "Role is required");
+        assertRejected(rows.get(10L), "Values are limited to 255 characters");
+        assertCreated(rows.get(11L), "bulkcsv10");
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username LIKE 'bulkcsv%'", Integer.class));
+        Map<String, Object> user = jdbcTemplate.queryForMap("SELECT u.id, u.password, u.department, u.status, r.name AS role "
+                + "FROM users u JOIN roles r ON r.id = u.role_id WHERE u.username = 'bulkcsv10'");
+        assertEquals(rows.get(11L).get("id").asLong(), ((Number) user.get("ID")).longValue());
+        assertTrue(passwordEncoder.matches("Bulk@1234", (String) user.get("PASSWORD")));
+        assertEquals("Shalya, Surgery", user.get("DEPARTMENT"));
+        assertEquals("ACTIVE", user.get("STATUS"));
+        assertEquals("VIEWER", user.get("ROLE"));
+        assertEquals("DATA_ANALYST", jdbcTemplate.queryForObject("SELECT r.name FROM users u JOIN roles r ON r.id = u.role_id "
+                + "WHERE u.username = 'bulkcsv2'", String.class));
+
+        // Imported users are visible to the cached lookups and move the listing ETag on
+        assertEquals(200, get("/api/users/by-username/bulkcsv1").statusCode());
+        assertNotEquals(listingEtag, get("/api/users?limit=1").headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void ndjsonWithMalformedLines() throws Exception {
+        Long managerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'Admin12'", Long.class);
+        String ndjson = "{\"username\":\"bulkjson1\",\"password\":\"Bulk@1234\",\"firstName\":\"Kiran\",\"lastName\":\"Patil\","
+                + "\"email\":\"bulkjson1@example.com\",\"phone\":\"9500000001\",\"roleId\":3,\"managerId\":" + managerId + "}\n"
+                + "{\"username\": \"bulkjson2\", \"password\":\n"
+                + "\n"
+                + "null\n"
+                + "{\"username\":\"bulkjson5\",\"password\":\"Bulk@1234\",\"firstName\":\"Nisha\",\"lastName\":\"Joshi\","
+                + "\"email\":\"bulkjson5@example.com\",\"phone\":\"9500000005\",\"roleId\":3,\"status\":\"RETIRED\"}\n"
+                + "{\"username\":\"bulkjson6\",\"password\":\"Bulk@1234\",\"firstName\":\"Ajay\",\"lastName\":\"Rao\","
+                + "\"email\":\"bulkjson6@example.com\",\"phone\":\"9500000006\",\"roleId\":3,\"managerId\":987654321}\n"
+                + "{\"username\":\"bulkjson7\",\"password\":\"Bulk@1234\",\"firstName\":\"Leela\",\"lastName\":\"Naik\","
+                + "\"email\":\"bulkjson7@example.com\",\"phone\":\"9500000007\",\"roleId\":4}\n";
+
+        JsonNode report = post("application/x-ndjson", ndjson);
+        assertEquals(6, report.get("total").asInt());
+        assertEquals(2, report.get("created").asInt());
+        assertEquals(4, report.get("rejected").asInt());
+
+        Map<Long, JsonNode> rows = byLine(report);
+        assertCreated(rows.get(1L), "bulkjson1");
+        assertTrue(rows.get(2L).get("error").asText().startsWith("Malformed JSON"), rows.get(2L).toString());
+        assertRejected(rows.get(4L), "Expected a JSON object");
+        assertRejected(rows.get(5L), "Invalid status");
+        assertRejected(rows.get(6L), "Invalid manager ID");
+        assertCreated(rows.get(7L), "bulkjson7");
+
+        assertEquals(managerId, jdbcTemplate.queryForObject("SELECT manager_id FROM users WHERE username = 'bulkjson1'", Long.class));
+        JsonNode reports = objectMapper.readTree(get("/api/users/" + managerId + "/reports?limit=200").body());
+        boolean listed = false;
+        for (JsonNode item : reports.get("items")) listed |= item.get("username").asText().equals("bulkjson1");
+        assertTrue(listed, "Imported user missing from the manager's reports");
+    }
+
+    @Test
+    void emptyUploads() throws Exception {
+        JsonNode csv = post("text/csv", "");
+        assertEquals(0, csv.get("total").asInt());
+        JsonNode headerOnly = post("text/csv", "username,password\n");
+        assertEquals(0, headerOnly.get("total").asInt());
+        assertEquals(0, post("application/x-ndjson", "\n\n").get("total").asInt());
+    }
+
+    private static Map<Long, JsonNode> byLine(JsonNode report) {
+        Map<Long, JsonNode> rows = new HashMap<>();
+        for (JsonNode row : report.get("rows")) assertNull(rows.put(row.get("row").asLong(), row), "Two results for one row");
+        return rows;
+    }
+
+    private static void assertCreated(JsonNode row, String username) {
+        assertNotNull(row);
+        assertEquals("CREATED", row.get("status").asText(), row.toString());
+        assertEquals(username, row.get("username").asText());
+        assertTrue(row.get("id").asLong() > 0);
+    }
+
+    private static void assertRejected(JsonNode row, String error) {
+        assertNotNull(row);
+        assertEquals("REJECTED", row.get("status").asText());
+        assertEquals(error, row.get("error").asText());
+        assertTrue(row.get("id").isNull());
+    }
+
+    private JsonNode post(String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/users/bulk"))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("Admin12", "SUPER_ADMIN"))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("Admin12", "SUPER_ADMIN"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
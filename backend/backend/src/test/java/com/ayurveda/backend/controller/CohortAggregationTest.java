@@ -0,0 +1,331 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.cohort.AgeBracket;
+import com.ayurveda.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GET /api/cohorts/{id}/summary and POST /api/cohorts/{id}/aggregate against brute-force counts over the generated
+// CSV: group-by counts (multi-select cells count once per condition), the age histogram, numeric stats with
+// nearest-rank percentiles, cross-tabs and the monthly trend. The dataset spans two 64K-row chunks so partials are
+// merged; unfiltered requests the rollup covers are served from it, and an append refreshes it.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class CohortAggregationTest {
+    private static final String[] VILLAGES = {"Nagpur", "Wardha", "Hingna", "Kamptee", "Saoner"};
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] DISEASES = {"Diabetes", "Hypertension", "Arthritis", "Asthma"};
+    private static final String[] MEDICINE = {"Amlapitta", "Sandhivata", "Prameha", "Kasa"};
+    private static final int ROWS = 70_000;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Patient> patients = new ArrayList<>();
+    private String id;
+
+    @BeforeEach
+    void upload() throws Exception {
+        Random random = new Random(11);
+        for (int row = 0; row < ROWS; row++) patients.add(Patient.random(random));
+        HttpResponse<String> response = send(request("/api/cohorts?name=aggregation-test.csv")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv(patients))));
+        assertEquals(200, response.statusCode(), response.body());
+        id = objectMapper.readTree(response.body()).get("id").asText();
+    }
+
+    @AfterEach
+    void delete() throws Exception {
+        send(request("/api/cohorts/" + id).DELETE());
+    }
+
+    @Test
+    void summaryMatchesBruteForce() throws Exception {
+        HttpResponse<String> response = send(request("/api/cohorts/" + id + "/summary"));
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode summary = objectMapper.readTree(response.body());
+        assertTrue(summary.get("materialized").asBoolean());
+        assertEquals(ROWS, summary.get("count").asLong());
+
+        Predicate<Patient> all = p -> true;
+        assertEquals(counts(all, p -> single(p.village)), longs(summary.get("groups").get("village")));
+        assertEquals(counts(all, p -> single(p.gender)), longs(summary.get("groups").get("gender")));
+        assertEquals(counts(all, p -> single(p.disease)), longs(summary.get("groups").get("disease")));
+        assertEquals(counts(all, p -> p.medicine), longs(summary.get("groups").get("medicine_panchakarma")));
+        assertEquals(ageHistogram(all), longs(summary.get("ageHistogram")));
+
+        double[] quartiles = {0.25, 0.5, 0.75, 0.9, 0.95};
+        assertStats(all, p -> p.age < 0 ? Double.NaN : p.age, quartiles, summary.get("stats").get("age"));
+        assertStats(all, p -> p.weight, quartiles, summary.get("stats").get("weight"));
+
+        Map<String, Map<String, Long>> crossTabs = crossTabs(summary);
+        assertEquals(Map.of("disease|village", crossTab(all, p -> single(p.disease), p -> single(p.village)),
+                "disease|age_bracket", crossTab(all, p -> single(p.disease), Patient::bracket),
+                "gender|age_bracket", crossTab(all, p -> single(p.gender), Patient::bracket)), crossTabs);
+        assertEquals(counts(all, p -> p.date == null ? List.of() : List.of(p.date.toString().substring(0, 7))),
+                longs(summary.get("trend")));
+    }
+
+    @Test
+    void filteredAggregateMatchesBruteForce() throws Exception {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("filters", Map.of("village", List.of("Nagpur", "Hingna"), "medicine_panchakarma", List.of("Kasa", "Prameha")));
+        body.put("ageBrackets", List.of("25-34", "35-44", "65+"));
+        body.put("groupBy", List.of("gender", "medicine_panchakarma"));
+        body.put("ageHistogram", true);
+        body.put("stats", List.of("weight", "age"));
+        body.put("percentiles", List.of(0.01, 0.5, 0.999));
+        body.put("crossTabs", List.of(List.of("medicine_panchakarma", "gender"), List.of("age_bracket", "village")));
+        JsonNode result = aggregate(body);
+        assertFalse(result.get("materialized").asBoolean());
+
+        List<AgeBracket> brackets = List.of(AgeBracket.AGE_25_34, AgeBracket.AGE_35_44, AgeBracket.AGE_65_PLUS);
+        Predicate<Patient> selected = p -> (p.village.equals("Nagpur") || p.village.equals("Hingna"))
+                && (p.medicine.contains("Kasa") || p.medicine.contains("Prameha"))
+                && p.age >= 0 && brackets.contains(AgeBracket.of(p.age));
+        long count = patients.stream().filter(selected).count();
+        assertTrue(count > 1_000, "Too few rows selected: " + count);
+        assertEquals(count, result.get("count").asLong());
+        assertEquals(counts(selected, p -> single(p.gender)), longs(result.get("groups").get("gender")));
+        assertEquals(counts(selected, p -> p.medicine), longs(result.get("groups").get("medicine_panchakarma")));
+        assertEquals(List.of("gender", "medicine_panchakarma"), fieldNames(result.get("groups")));
+        assertEquals(ageHistogram(selected), longs(result.get("ageHistogram")));
+        assertStats(selected, p -> p.weight, new double[] {0.01, 0.5, 0.999}, result.get("stats").get("weight"));
+        assertStats(selected, p -> (double) p.age, new double[] {0.01, 0.5, 0.999}, result.get("stats").get("age"));
+        assertEquals(Map.of("medicine_panchakarma|gender", crossTab(selected, p -> p.medicine, p -> single(p.gender)),
+                "age_bracket|village", crossTab(selected, Patient::bracket, p -> single(p.village))), crossTabs(result));
+        assertTrue(result.get("trend").isNull());
+
+        Map<String, Object> none = Map.of("filters", Map.of("village", List.of("Atlantis")), "groupBy", List.of("gender"),
+                "stats", List.of("weight"));
+        JsonNode empty = aggregate(none);
+        assertEquals(0, empty.get("count").asLong());
+        assertEquals(Map.of(), longs(empty.get("groups").get("gender")));
+        assertEquals(0, empty.get("stats").get("weight").get("count").asLong());
+        assertTrue(empty.get("stats").get("weight").get("mean").isNull());
+    }
+
+    @Test
+    void unfilteredRequestsUseTheRollup() throws Exception {
+        JsonNode covered = aggregate(Map.of("groupBy", List.of("village"), "stats", List.of("weight")));
+        assertTrue(covered.get("materialized").asBoolean());
+        assertEquals(counts(p -> true, p -> single(p.village)), longs(covered.get("groups").get("village")));
+        assertEquals(List.of("village"), fieldNames(covered.get("groups")));
+        assertEquals(List.of("weight"), fieldNames(covered.get("stats")));
+
+        // Percentiles the rollup did not compute are scanned
+        JsonNode scanned = aggregate(Map.of("groupBy", List.of("village"), "stats", List.of("weight"), "percentiles", List.of(0.5)));
+        assertFalse(scanned.get("materialized").asBoolean());
+        assertEquals(longs(covered.get("groups").get("village")), longs(scanned.get("groups").get("village")));
+        assertEquals(covered.get("stats").get("weight").get("percentiles").get("p50").asDouble(),
+                scanned.get("stats").get("weight").get("percentiles").get("p50").asDouble());
+
+        HttpResponse<String> appended = send(request("/api/cohorts/" + id + "/rows")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString("village,gender,age\nUmred,Female,30\nNagpur,Male,\n")));
+        assertEquals(200, appended.statusCode(), appended.body());
+        JsonNode summary = objectMapper.readTree(send(request("/api/cohorts/" + id + "/summary")).body());
+        assertEquals(ROWS + 2, summary.get("count").asLong());
+        Map<String, Long> villages = counts(p -> true, p -> single(p.village));
+        villages.merge("Nagpur", 1L, Long::sum);
+        villages.put("Umred", 1L);
+        assertEquals(villages, longs(summary.get("groups").get("village")));
+        assertEquals(patients.stream().filter(p -> Double.isNaN(p.weight)).count() + 2,
+                summary.get("stats").get("weight").get("missing").asLong());
+    }
+
+    @Test
+    void badRequests() throws Exception {
+        assertEquals(400, post("/api/cohorts/" + id + "/aggregate", Map.of("groupBy", List.of("shoe_size"))).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/aggregate", Map.of("groupBy", List.of("age"))).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/aggregate", Map.of("stats", List.of("village"))).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/aggregate", Map.of("percentiles", List.of(1.5))).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/aggregate", Map.of("crossTabs", List.of(List.of("village")))).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/aggregate", Map.of("ageBrackets", List.of("40-49"))).statusCode());
+        assertEquals(404, post("/api/cohorts/no-such-dataset/aggregate", Map.of()).statusCode());
+        assertEquals(404, send(request("/api/cohorts/no-such-dataset/summary")).statusCode());
+    }
+
+    private Map<String, Long> counts(Predicate<Patient> selected, Function<Patient, List<String>> values) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Patient patient : patients) {
+            if (!selected.test(patient)) continue;
+            for (String value : values.apply(patient)) counts.merge(value, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private Map<String, Long> ageHistogram(Predicate<Patient> selected) {
+        Map<String, Long> histogram = new HashMap<>();
+        for (AgeBracket bracket : AgeBracket.values()) histogram.put(bracket.getLabel(), 0L);
+        histogram.putAll(counts(selected, Patient::bracket));
+        return histogram;
+    }
+
+    // Non-zero cells keyed "row|column"
+    private Map<String, Long> crossTab(Predicate<Patient> selected, Function<Patient, List<String>> rows,
+                                       Function<Patient, List<String>> columns) {
+        return counts(selected, p -> {
+            List<String> cells = new ArrayList<>();
+            for (String row : rows.apply(p)) {
+                for (String column : columns.apply(p)) cells.add(row + "|" + column);
+            }
+            return cells;
+        });
+    }
+
+    private void assertStats(Predicate<Patient> selected, Function<Patient, Double> measure, double[] percentiles, JsonNode stats) {
+        List<Double> values = new ArrayList<>();
+        long count = 0;
+        for (Patient patient : patients) {
+            if (!selected.test(patient)) continue;
+            count++;
+            double value = measure.apply(patient);
+            if (!Double.isNaN(value)) values.add(value);
+        }
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        assertEquals(sorted.length, stats.get("count").asLong());
+        assertEquals(count - sorted.length, stats.get("missing").asLong());
+        assertEquals(Arrays.stream(sorted).sum() / sorted.length, stats.get("mean").asDouble(), 1e-9);
+        assertEquals(sorted[0], stats.get("min").asDouble());
+        assertEquals(sorted[sorted.length - 1], stats.get("max").asDouble());
+        assertEquals(percentiles.length, stats.get("percentiles").size());
+        Iterator<JsonNode> actual = stats.get("percentiles").elements();
+        for (double q : percentiles) {
+            // Nearest rank: the smallest value with at least q of the values at or below it
+            int rank = (int) Math.max(1, Math.ceil(q * sorted.length));
+            assertEquals(sorted[rank - 1], actual.next().asDouble(), 1e-9, "p" + q);
+        }
+    }
+
+    private static Map<String, Map<String, Long>> crossTabs(JsonNode result) {
+        Map<String, Map<String, Long>> crossTabs = new HashMap<>();
+        for (JsonNode crossTab : result.get("crossTabs")) {
+            Map<String, Long> cells = new HashMap<>();
+            JsonNode rows = crossTab.get("rowValues");
+            JsonNode columns = crossTab.get("columnValues");
+            for (int i = 0; i < rows.size(); i++) {
+                long rowTotal = 0;
+                for (int j = 0; j < columns.size(); j++) {
+                    long count = crossTab.get("counts").get(i).get(j).asLong();
+                    if (count > 0) cells.put(rows.get(i).asText() + "|" + columns.get(j).asText(), count);
+                    rowTotal += count;
+                }
+                assertTrue(rowTotal > 0, "Empty cross-tab row " + rows.get(i));
+            }
+            crossTabs.put(crossTab.get("rowColumn").asText() + "|" + crossTab.get("columnColumn").asText(), cells);
+        }
+        return crossTabs;
+    }
+
+    private static Map<String, Long> longs(JsonNode node) {
+        Map<String, Long> values = new HashMap<>();
+        for (Map.Entry<String, JsonNode> field : node.properties()) values.put(field.getKey(), field.getValue().asLong());
+        return values;
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static List<String> single(String value) {
+        return value.isEmpty() ? List.of() : List.of(value);
+    }
+
+    private static String csv(List<Patient> patients) {
+        StringBuilder csv = new StringBuilder("village,gender,age,disease,weight,date,medicine_panchakarma\n");
+        for (Patient p : patients) {
+            csv.append(p.village).append(',').append(p.gender).append(',').append(p.age < 0 ? "" : Integer.toString(p.age))
+                    .append(',').append(p.disease).append(',')
+                    .append(Double.isNaN(p.weight) ? "" : String.format(Locale.ROOT, "%.2f", p.weight)).append(',')
+                    .append(p.date == null ? "" : p.date.toString()).append(",\"").append(String.join(", ", p.medicine)).append("\"\n");
+        }
+        return csv.toString();
+    }
+
+    private JsonNode aggregate(Map<String, Object> body) throws Exception {
+        HttpResponse<String> response = post("/api/cohorts/" + id + "/aggregate", body);
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> post(String path, Map<String, Object> body) throws Exception {
+        return send(request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("Admin12", "SUPER_ADMIN"));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static final class Patient {
+        private String village;
+        private String gender;
+        private int age;
+        private String disease;
+        private double weight;
+        private LocalDate date;
+        private List<String> medicine;
+
+        static Patient random(Random random) {
+            Patient p = new Patient();
+            p.village = VILLAGES[random.nextInt(VILLAGES.length)];
+            p.gender = random.nextInt(50) == 0 ? "" : GENDERS[random.nextInt(10) == 0 ? 2 : random.nextInt(2)];
+            p.age = random.nextInt(25) == 0 ? -1 : random.nextInt(95);
+            p.disease = random.nextInt(10) == 0 ? "" : DISEASES[random.nextInt(DISEASES.length)];
+            p.weight = random.nextInt(8) == 0 ? Double.NaN : 40 + random.nextInt(6_001) / 100.0;
+            p.date = random.nextInt(20) == 0 ? null : LocalDate.of(2023, 1, 1).plusDays(random.nextInt(540));
+            p.medicine = new ArrayList<>();
+            for (String condition : MEDICINE) {
+                if (random.nextInt(3) == 0) p.medicine.add(condition);
+            }
+            return p;
+        }
+
+        List<String> bracket() {
+            return age < 0 ? List.of() : List.of(AgeBracket.of(age).getLabel());
+        }
+    }
+}
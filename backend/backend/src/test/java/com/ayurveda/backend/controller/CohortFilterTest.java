@@ -0,0 +1,165 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// POST /api/cohorts/{id}/filter over an uploaded CSV: counts match the rows the filter describes, paging through
+// ids visits each match once in row order, rows come back with their cells, and bad requests are rejected.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class CohortFilterTest {
+    private static final String[] VILLAGES = {"Nagpur", "Wardha", "Hingna"};
+    private static final String[] MEDICINE = {"Amlapitta", "Sandhivata", "Amlapitta; Prameha", ""};
+    private static final int ROWS = 120;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String id;
+
+    @BeforeEach
+    void upload() throws Exception {
+        StringBuilder csv = new StringBuilder("village,gender,age,medicine_panchakarma\n");
+        for (int row = 0; row < ROWS; row++) {
+            csv.append(VILLAGES[row % 3]).append(',').append(row % 2 == 0 ? "Male" : "Female").append(',')
+                    .append(row % 10 == 9 ? "" : Integer.toString(row % 80)).append(",\"").append(MEDICINE[row % 4]).append("\"\n");
+        }
+        HttpResponse<String> response = send(request("/api/cohorts?name=filter-test.csv")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())));
+        assertEquals(200, response.statusCode(), response.body());
+        id = objectMapper.readTree(response.body()).get("id").asText();
+    }
+
+    @AfterEach
+    void delete() throws Exception {
+        send(request("/api/cohorts/" + id).DELETE());
+    }
+
+    @Test
+    void countsMatchTheData() throws Exception {
+        assertEquals(ROWS, filter(Map.of()).get("count").asLong());
+        JsonNode nagpurMen = filter(Map.of("filters", Map.of("village", List.of("Nagpur"), "gender", List.of("Male"))));
+        assertEquals(expected(List.of("Nagpur"), "Male", null), nagpurMen.get("count").asLong());
+        assertTrue(nagpurMen.get("elapsedMicros").asLong() >= 0);
+        assertTrue(nagpurMen.get("ids").isNull());
+
+        // OR within the multi-select: rows with Amlapitta alone or alongside Prameha, and rows with Prameha
+        assertEquals(ROWS / 2, filter(Map.of("filters", Map.of("medicine_panchakarma", List.of("Amlapitta")))).get("count").asLong());
+        assertEquals(ROWS / 2, filter(Map.of("filters", Map.of("medicine_panchakarma", List.of("Prameha", "Amlapitta")))).get("count").asLong());
+        assertEquals(3 * ROWS / 4, filter(Map.of("filters", Map.of("medicine_panchakarma", List.of("Sandhivata", "Amlapitta")))).get("count").asLong());
+
+        JsonNode young = filter(Map.of("filters", Map.of("village", List.of("Wardha", "Hingna")), "ageBrackets", List.of("18-24", "65+")));
+        assertEquals(expected(List.of("Wardha", "Hingna"), null, new int[] {18, 24, 65, Integer.MAX_VALUE}), young.get("count").asLong());
+        assertEquals(ROWS, filter(Map.of("filters", Map.of("village", List.of("All")))).get("count").asLong());
+    }
+
+    @Test
+    void idPagesVisitEveryMatchOnce() throws Exception {
+        Map<String, Object> filters = Map.of("village", List.of("Nagpur", "Hingna"));
+        long count = filter(Map.of("filters", filters)).get("count").asLong();
+        List<Integer> ids = new ArrayList<>();
+        Integer offset = 0;
+        while (offset != null) {
+            JsonNode page = filter(Map.of("filters", filters, "include", "ids", "offset", offset, "limit", 7));
+            assertEquals(count, page.get("count").asLong());
+            assertTrue(page.get("ids").size() <= 7);
+            for (JsonNode rowId : page.get("ids")) ids.add(rowId.asInt());
+            offset = page.get("nextOffset").isNull() ? null : page.get("nextOffset").asInt();
+        }
+        assertEquals(count, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertTrue(i == 0 || ids.get(i) > ids.get(i - 1));
+            assertTrue(ids.get(i) % 3 != 1, "Wardha row " + ids.get(i));
+        }
+
+        JsonNode past = filter(Map.of("filters", filters, "include", "ids", "offset", 10_000));
+        assertEquals(0, past.get("ids").size());
+        assertTrue(past.get("nextOffset").isNull());
+    }
+
+    @Test
+    void rowsCarryTheirCells() throws Exception {
+        JsonNode result = filter(Map.of("filters", Map.of("gender", List.of("Female")), "ageBrackets", List.of("25-34"),
+                "include", "rows", "limit", 1000));
+        assertEquals(result.get("count").asLong(), result.get("rows").size());
+        assertTrue(result.get("rows").size() > 0);
+        for (JsonNode row : result.get("rows")) {
+            int rowId = row.get("id").asInt();
+            assertEquals("Female", row.get("gender").asText());
+            assertEquals(VILLAGES[rowId % 3], row.get("village").asText());
+            int age = row.get("age").asInt();
+            assertTrue(age >= 25 && age <= 34, row.toString());
+        }
+    }
+
+    @Test
+    void badRequests() throws Exception {
+        assertEquals(400, post("/api/cohorts/" + id + "/filter", Map.of("include", "everything")).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/filter", Map.of("filters", Map.of("shoe_size", List.of("9")))).statusCode());
+        assertEquals(400, post("/api/cohorts/" + id + "/filter", Map.of("ageBrackets", List.of("40-49"))).statusCode());
+        assertEquals(404, post("/api/cohorts/no-such-dataset/filter", Map.of()).statusCode());
+    }
+
+    // Matching rows of the generated CSV; ages holds inclusive [min, max] pairs
+    private static long expected(List<String> villages, String gender, int[] ages) {
+        long count = 0;
+        for (int row = 0; row < ROWS; row++) {
+            if (villages != null && !villages.contains(VILLAGES[row % 3])) continue;
+            if (gender != null && !(row % 2 == 0 ? "Male" : "Female").equals(gender)) continue;
+            if (ages != null) {
+                if (row % 10 == 9) continue;
+                boolean inBracket = false;
+                for (int i = 0; i < ages.length; i += 2) inBracket |= row % 80 >= ages[i] && row % 80 <= ages[i + 1];
+                if (!inBracket) continue;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private JsonNode filter(Map<String, Object> body) throws Exception {
+        HttpResponse<String> response = post("/api/cohorts/" + id + "/filter", body);
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> post(String path, Map<String, Object> body) throws Exception {
+        return send(request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("Admin12", "SUPER_ADMIN"));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,156 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GET /api/cohorts/search and /api/cohorts/{id}/search: hits are ranked by score across datasets, pages walked by
+// nextOffset list every hit once, appended rows are found, and the endpoint sits behind the JWT chain.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class CohortSearchTest {
+    private static final int ROWS = 120;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String first;
+    private String second;
+
+    @BeforeEach
+    void upload() throws Exception {
+        // Every third patient is a Zephyr (exact), a Zephyrine (prefix) or an Azephyr (substring) match for "zephyr"
+        StringBuilder csv = new StringBuilder("patient_name,village,contact_number\n");
+        String[] names = {"Zephyr", "Zephyrine", "Azephyr"};
+        for (int row = 0; row < ROWS; row++) {
+            csv.append(names[row % 3]).append(" Patil ").append(row).append(",Quorvalle,").append(9_700_000_000L + row).append('\n');
+        }
+        first = upload(csv.toString());
+        second = upload("patient_name,village,contact_number\nZephyr Rao,Umred,9712345678\n");
+    }
+
+    @AfterEach
+    void delete() throws Exception {
+        send(request("/api/cohorts/" + first).DELETE());
+        send(request("/api/cohorts/" + second).DELETE());
+    }
+
+    @Test
+    void pagesAreRankedAndComplete() throws Exception {
+        Set<String> seen = new HashSet<>();
+        int previousScore = Integer.MAX_VALUE;
+        int exact = 0;
+        Integer offset = 0;
+        while (offset != null) {
+            JsonNode page = search("/api/cohorts/search?q=zephyr&limit=7&offset=" + offset);
+            assertEquals(ROWS + 1, page.get("total").asLong());
+            assertTrue(page.get("hits").size() <= 7);
+            for (JsonNode hit : page.get("hits")) {
+                int score = hit.get("score").asInt();
+                assertTrue(score <= previousScore, "Hits out of score order");
+                previousScore = score;
+                assertTrue(seen.add(hit.get("datasetId").asText() + "/" + hit.get("row").asInt()), "Hit listed twice");
+                String name = hit.get("fields").get("patient_name").asText();
+                if (score == 3) {
+                    exact++;
+                    assertTrue(name.startsWith("Zephyr "), name);
+                } else if (score == 2) {
+                    assertTrue(name.startsWith("Zephyrine"), name);
+                } else {
+                    assertTrue(name.startsWith("Azephyr"), name);
+                }
+            }
+            offset = page.get("nextOffset").isNull() ? null : page.get("nextOffset").asInt();
+        }
+        assertEquals(ROWS + 1, seen.size());
+        assertEquals(ROWS / 3 + 1, exact);
+
+        // Scoped to one dataset, by a second token and by contact number
+        assertEquals(1, search("/api/cohorts/" + second + "/search?q=zephyr").get("total").asLong());
+        assertEquals(1, search("/api/cohorts/search?q=zephyr&dataset=" + second).get("total").asLong());
+        assertEquals(ROWS / 3, search("/api/cohorts/" + first + "/search?q=" + encode("zephyrine quorv")).get("total").asLong());
+        JsonNode contact = search("/api/cohorts/search?q=" + encode("+91 97000 00042"));
+        assertEquals(1, contact.get("total").asLong());
+        assertEquals(42, contact.get("hits").get(0).get("row").asInt());
+        assertEquals(0, search("/api/cohorts/search?q=zephyrx").get("total").asLong());
+    }
+
+    @Test
+    void appendedRowsAreFound() throws Exception {
+        assertEquals(0, search("/api/cohorts/" + first + "/search?q=xanthippe").get("total").asLong());
+        HttpResponse<String> appended = send(request("/api/cohorts/" + first + "/rows")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString("patient_name,village\nXanthippe Zephyr,Quorvalle\n")));
+        assertEquals(200, appended.statusCode(), appended.body());
+        JsonNode found = search("/api/cohorts/" + first + "/search?q=xanthippe");
+        assertEquals(1, found.get("total").asLong());
+        assertEquals(ROWS, found.get("hits").get(0).get("row").asInt());
+        assertEquals(ROWS + 2, search("/api/cohorts/search?q=zephyr").get("total").asLong());
+    }
+
+    @Test
+    void limitsAndErrors() throws Exception {
+        assertEquals(20, search("/api/cohorts/search?q=quorvalle").get("hits").size());
+        assertEquals(100, search("/api/cohorts/search?q=quorvalle&limit=1000").get("hits").size());
+        assertEquals(1, search("/api/cohorts/search?q=quorvalle&limit=0").get("hits").size());
+        JsonNode last = search("/api/cohorts/search?q=quorvalle&offset=" + (ROWS - 5));
+        assertEquals(5, last.get("hits").size());
+        assertTrue(last.get("nextOffset").isNull());
+        assertEquals(400, send(request("/api/cohorts/search?q=%20")).statusCode());
+        assertEquals(404, send(request("/api/cohorts/no-such-dataset/search?q=zephyrine")).statusCode());
+        HttpResponse<String> anonymous = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                + "/api/cohorts/search?q=zephyrine")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, anonymous.statusCode());
+    }
+
+    private String upload(String csv) throws Exception {
+        HttpResponse<String> response = send(request("/api/cohorts?name=search-test.csv")
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv)));
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("id").asText();
+    }
+
+    private JsonNode search(String path) throws Exception {
+        HttpResponse<String> response = send(request(path));
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static String encode(String query) {
+        return URLEncoder.encode(query, StandardCharsets.UTF_8);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + jwtUtil.generateToken("Admin12", "SUPER_ADMIN"));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
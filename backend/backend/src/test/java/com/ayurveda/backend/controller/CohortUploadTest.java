@@ -0,0 +1,147 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// POST /api/cohorts behind the JWT chain: anonymous uploads are refused, a CSV or multipart upload answers with the
+// row count and per-column kind, distinct values, missing cells and memory, and appended rows show up in the stats.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class CohortUploadTest {
+    private static final String CSV = "village,patient_name,age,gender,disease,weight,height,date,blood_pressure,blood_sugar,contact_number\n"
+            + "Nagpur,Ramesh Kumar,45,Male,Diabetes,75,170,2024-01-15,140/90,180,9876543210\n"
+            + "Pune,Sunita Patel,32,Female,Hypertension,62,158,2024-01-16,160/100,120,9876543212\n"
+            + "Nagpur,Anil Deshmukh,,Male,Diabetes,,,,,,\n";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<String> uploaded = new ArrayList<>();
+
+    @AfterEach
+    void deleteUploads() throws Exception {
+        for (String id : uploaded) send(request("/api/cohorts/" + id, jwtUtil.generateToken("Admin12", "SUPER_ADMIN")).DELETE());
+    }
+
+    @Test
+    void anonymousUploadIsRefused() throws Exception {
+        HttpResponse<String> response = send(request("/api/cohorts", null)
+                .header("Content-Type", "text/csv").POST(HttpRequest.BodyPublishers.ofString(CSV)));
+        assertEquals(403, response.statusCode());
+        HttpResponse<String> forged = send(request("/api/cohorts", "not.a.jwt")
+                .header("Content-Type", "text/csv").POST(HttpRequest.BodyPublishers.ofString(CSV)));
+        assertEquals(403, forged.statusCode());
+    }
+
+    @Test
+    void csvUploadReportsColumnStats() throws Exception {
+        JsonNode dataset = upload("/api/cohorts?name=survey.csv", "text/csv", CSV);
+        assertEquals("survey.csv", dataset.get("name").asText());
+        assertEquals(3, dataset.get("rowCount").asInt());
+        assertEquals(1, dataset.get("version").asLong());
+
+        Map<String, JsonNode> columns = columns(dataset);
+        assertEquals(List.of("village", "patient_name", "age", "gender", "disease", "weight", "height", "date", "bp_systolic",
+                "bp_diastolic", "blood_sugar", "contact_number"), new ArrayList<>(columns.keySet()));
+        assertEquals("CATEGORICAL", columns.get("village").get("kind").asText());
+        assertEquals(2, columns.get("village").get("distinctValues").asInt());
+        assertEquals("INTEGER", columns.get("age").get("kind").asText());
+        assertEquals(1, columns.get("age").get("missing").asInt());
+        assertEquals("DECIMAL", columns.get("weight").get("kind").asText());
+        assertEquals("DATE", columns.get("date").get("kind").asText());
+        assertEquals("TEXT", columns.get("contact_number").get("kind").asText());
+        assertEquals(1, columns.get("bp_diastolic").get("missing").asInt());
+        long total = 0;
+        for (JsonNode column : columns.values()) total += column.get("memoryBytes").asLong();
+        assertEquals(total, dataset.get("memoryBytes").asLong());
+
+        JsonNode fetched = objectMapper.readTree(send(request("/api/cohorts/" + dataset.get("id").asText(), token()).GET()).body());
+        assertEquals(dataset.get("id").asText(), fetched.get("id").asText());
+        assertEquals(3, fetched.get("rowCount").asInt());
+    }
+
+    @Test
+    void multipartUploadAndAppend() throws Exception {
+        String boundary = "cohort-upload-boundary";
+        String body = "--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"villages.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n" + CSV + "\r\n--" + boundary + "--\r\n";
+        JsonNode dataset = upload("/api/cohorts", "multipart/form-data; boundary=" + boundary, body);
+        assertEquals("villages.csv", dataset.get("name").asText());
+        String id = dataset.get("id").asText();
+
+        HttpResponse<String> appended = send(request("/api/cohorts/" + id + "/rows", token())
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString("village,age\nWardha,61\nPune,28\n")));
+        assertEquals(200, appended.statusCode(), appended.body());
+        JsonNode next = objectMapper.readTree(appended.body());
+        assertEquals(5, next.get("rowCount").asInt());
+        assertEquals(2, next.get("version").asLong());
+        Map<String, JsonNode> columns = columns(next);
+        assertEquals(3, columns.get("village").get("distinctValues").asInt());
+        assertEquals(1, columns.get("age").get("missing").asInt());
+        assertEquals(2, columns.get("disease").get("missing").asInt());
+
+        assertEquals(400, send(request("/api/cohorts/" + id + "/rows", token()).header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString("shoe_size\n9\n"))).statusCode());
+        assertEquals(404, send(request("/api/cohorts/no-such-dataset/rows", token()).header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString("village\nPune\n"))).statusCode());
+        assertEquals(400, send(request("/api/cohorts", token()).header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(""))).statusCode());
+    }
+
+    private JsonNode upload(String path, String contentType, String body) throws Exception {
+        HttpResponse<String> response = send(request(path, token())
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)));
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode dataset = objectMapper.readTree(response.body());
+        uploaded.add(dataset.get("id").asText());
+        return dataset;
+    }
+
+    private static Map<String, JsonNode> columns(JsonNode dataset) {
+        Map<String, JsonNode> columns = new LinkedHashMap<>();
+        for (JsonNode column : dataset.get("columns")) columns.put(column.get("name").asText(), column);
+        assertTrue(columns.size() > 0);
+        return columns;
+    }
+
+    private String token() {
+        return jwtUtil.generateToken("college@ayurveda.com", "COLLEGE_ADMIN");
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
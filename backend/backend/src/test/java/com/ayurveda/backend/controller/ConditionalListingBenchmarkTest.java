@@ -0,0 +1,122 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.metrics.QueryCountingFilter;
+import com.ayurveda.backend.security.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dashboard-style polling of GET /api/users (10k users, streamed) and GET /api/roles over HTTP: full responses,
+// gzip-compressed responses, and revalidations with If-None-Match that must come back 304 without running a
+// single SQL statement. A user write must change the ETag.
+// Run with: mvn test -Pbenchmark -Dtest=ConditionalListingBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-listing-benchmark",
+        "cohort.snapshot.dir="})
+class ConditionalListingBenchmarkTest {
+    private static final int USERS = 10_000;
+    private static final long FIRST_ID = 1_000_000L;
+    private static final int POLLS = 50;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private QueryCountingFilter queryCountingFilter;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String token;
+
+    @Test
+    void revalidatesWithoutQueries() throws Exception {
+        Integer roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'FACULTY'", Integer.class);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[] {FIRST_ID + i, "listed" + i, "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchmark", "Listed", "User " + i,
+                    "listed" + i + "@example.com", "+91 90000 " + String.format("%05d", i), "Shalya", "ACTIVE", roleId, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "status, role_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        token = jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+
+        HttpResponse<byte[]> first = get("/api/users", null, false);
+        assertEquals(200, first.statusCode());
+        String etag = first.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag);
+        assertEquals("no-cache, private", first.headers().firstValue("Cache-Control").orElse(null));
+
+        long plainBytes = 0;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) plainBytes = get("/api/users", null, false).body().length;
+        double fullMillis = (System.nanoTime() - startedAt) / 1e6 / POLLS;
+
+        long gzipBytes = 0;
+        startedAt = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            HttpResponse<byte[]> gzipped = get("/api/users", null, true);
+            assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+            gzipBytes = gzipped.body().length;
+        }
+        double gzipMillis = (System.nanoTime() - startedAt) / 1e6 / POLLS;
+
+        long statementsBefore = (long) queryCountingFilter.stats().get("statements");
+        startedAt = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            HttpResponse<byte[]> revalidated = get("/api/users", etag, true);
+            assertEquals(304, revalidated.statusCode());
+            assertEquals(0, revalidated.body().length);
+        }
+        double notModifiedMillis = (System.nanoTime() - startedAt) / 1e6 / POLLS;
+        assertEquals(statementsBefore, (long) queryCountingFilter.stats().get("statements"), "A 304 ran SQL");
+        assertEquals(304, get("/api/users?limit=50", etag, false).statusCode());
+
+        System.out.printf("GET /api/users, %,d users: full %,.1f ms (%,d bytes), gzip %,.1f ms (%,d bytes), 304 %,.2f ms%n",
+                USERS, fullMillis, plainBytes, gzipMillis, gzipBytes, notModifiedMillis);
+        assertTrue(gzipBytes < plainBytes / 4, "Listing barely compressed");
+
+        // Any user write moves the tag on
+        HttpResponse<byte[]> delete = client.send(authorized("/api/users/" + (FIRST_ID + 1)).DELETE().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(204, delete.statusCode());
+        HttpResponse<byte[]> changed = get("/api/users", etag, false);
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElse(null));
+
+        HttpResponse<byte[]> roles = get("/api/roles", null, false);
+        assertEquals("max-age=300, public, stale-while-revalidate=86400", roles.headers().firstValue("Cache-Control").orElse(null));
+        assertEquals(304, get("/api/roles", roles.headers().firstValue("ETag").orElseThrow(), false).statusCode());
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch, boolean gzip) throws Exception {
+        HttpRequest.Builder request = authorized(path).GET();
+        if (ifNoneMatch != null) request.header("If-None-Match", ifNoneMatch);
+        if (gzip) request.header("Accept-Encoding", "gzip");
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).header("Authorization", "Bearer " + token);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ayurveda.backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// If-None-Match matching for the listing ETags: weak comparison in both directions, lists with stray whitespace,
+// the * form, and no match for absent, blank or different tags. The 304 carries the ETag and cache policy but no body.
+class ConditionalRequestsTest {
+    private static final String WEAK = "W/\"users-abc-42\"";
+    private static final String STRONG = "\"roles-7\"";
+
+    @Test
+    void comparesWeakly() {
+        assertTrue(ConditionalRequests.matches(WEAK, WEAK));
+        assertTrue(ConditionalRequests.matches("\"users-abc-42\"", WEAK));
+        assertTrue(ConditionalRequests.matches(STRONG, STRONG));
+        assertTrue(ConditionalRequests.matches("W/\"roles-7\"", STRONG));
+        assertFalse(ConditionalRequests.matches("W/\"users-abc-43\"", WEAK));
+        assertFalse(ConditionalRequests.matches("\"users-xyz-42\"", WEAK));
+        // The quotes are part of the tag
+        assertFalse(ConditionalRequests.matches("users-abc-42", WEAK));
+    }
+
+    @Test
+    void matchesAnyTagOfAList() {
+        assertTrue(ConditionalRequests.matches("\"a\", W/\"users-abc-42\"", WEAK));
+        assertTrue(ConditionalRequests.matches("W/\"a\",\"roles-7\" ,W/\"b\"", STRONG));
+        assertFalse(ConditionalRequests.matches("\"a\", W/\"b\", \"users-abc-4\"", WEAK));
+        assertFalse(ConditionalRequests.matches(",", WEAK));
+    }
+
+    @Test
+    void starMatchesAnyCurrentRepresentation() {
+        assertTrue(ConditionalRequests.matches("*", WEAK));
+        assertTrue(ConditionalRequests.matches(" * ", STRONG));
+        assertTrue(ConditionalRequests.matches("\"a\", *", STRONG));
+    }
+
+    @Test
+    void absentOrBlankHeaderNeverMatches() {
+        assertFalse(ConditionalRequests.matches(null, WEAK));
+        assertFalse(ConditionalRequests.matches("", WEAK));
+        assertFalse(ConditionalRequests.matches("   ", WEAK));
+    }
+
+    @Test
+    void notModifiedKeepsTheEtagAndCachePolicy() {
+        CacheControl policy = CacheControl.maxAge(300, TimeUnit.SECONDS).cachePublic();
+        ResponseEntity<String> response = ConditionalRequests.notModified(WEAK, policy);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(WEAK, response.getHeaders().getETag());
+        assertEquals("max-age=300, public", response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+        assertNull(response.getBody());
+    }
+}
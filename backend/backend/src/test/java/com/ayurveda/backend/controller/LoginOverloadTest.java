@@ -0,0 +1,105 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.service.PasswordHashingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Login and registration while every hashing thread and queue slot is taken: both answer 503 with Retry-After at
+// once instead of waiting, GET /api/roles is still served, and logins succeed again once the pool drains.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class LoginOverloadTest {
+    private static final String LOGIN = "{\"username\":\"Admin12\",\"password\":\"Admin@123\"}";
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void saturatedPoolAnswers503() throws Exception {
+        assertEquals(200, post("/api/users/login", LOGIN).statusCode());
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHashingService, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Once every thread runs a blocker the queue can no longer drain; a thread still finishing the first
+            // login would otherwise take a blocker off the queue later and free a slot
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (executor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            int blockers = fill(executor, release);
+            while (executor.getActiveCount() < executor.getMaximumPoolSize() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            blockers += fill(executor, release);
+            assertTrue(blockers > 0);
+            assertEquals(0, executor.getQueue().remainingCapacity());
+
+            long startedAt = System.nanoTime();
+            HttpResponse<String> login = post("/api/users/login", LOGIN);
+            assertEquals(503, login.statusCode());
+            assertEquals("1", login.headers().firstValue("Retry-After").orElse(null));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 5_000, "Rejection waited for the pool");
+
+            HttpResponse<String> register = post("/api/users", "{\"username\":\"overload1\",\"password\":\"Overload@123\","
+                    + "\"firstName\":\"Over\",\"lastName\":\"Load\",\"email\":\"overload1@example.com\",\"phone\":\"9000000001\","
+                    + "\"roleId\":3}");
+            assertEquals(503, register.statusCode());
+            assertEquals("1", register.headers().firstValue("Retry-After").orElse(null));
+
+            HttpResponse<String> roles = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/roles")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, roles.statusCode());
+            assertTrue((long) passwordHashingService.stats().get("rejected") >= 2);
+        } finally {
+            release.countDown();
+        }
+
+        long drainedBy = System.currentTimeMillis() + 10_000;
+        while (executor.getActiveCount() > 0 && System.currentTimeMillis() < drainedBy) Thread.sleep(10);
+        assertEquals(200, post("/api/users/login", LOGIN).statusCode());
+    }
+
+    // Queues blockers until the pool rejects one, i.e. every thread and queue slot is taken
+    private static int fill(ThreadPoolExecutor executor, CountDownLatch release) {
+        int blockers = 0;
+        try {
+            while (true) {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                blockers++;
+            }
+        } catch (RejectedExecutionException e) {
+            return blockers;
+        }
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
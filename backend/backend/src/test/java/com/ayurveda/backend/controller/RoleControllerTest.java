@@ -0,0 +1,151 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.entity.Role;
+import com.ayurveda.backend.security.JwtUtil;
+import com.ayurveda.backend.service.RoleRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GET /api/roles from the in-memory registry: the seeded roles in id order under an ETag that only a refresh moves,
+// 304 on a matching If-None-Match, and POST /api/roles/refresh restricted to SUPER_ADMIN. A refresh after a rename
+// must reach the cached users and the user listing ETag; before it, a role the registry lacks is named without
+// initializing a detached lazy proxy.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class RoleControllerTest {
+    private static final int ROLE_ID = 900;
+    private static final long USER_ID = 4_000_000L;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RoleRegistry roleRegistry;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    void removeTestRole() throws Exception {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM roles WHERE id = ?", ROLE_ID);
+        send("POST", "/api/roles/refresh", "SUPER_ADMIN", null);
+    }
+
+    @Test
+    void servesSeededRolesWithEtag() throws Exception {
+        HttpResponse<String> roles = send("GET", "/api/roles", null, null);
+        assertEquals(200, roles.statusCode());
+        assertEquals("max-age=300, public, stale-while-revalidate=86400", roles.headers().firstValue("Cache-Control").orElse(null));
+        String etag = roles.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag);
+
+        List<String> names = new ArrayList<>();
+        int previousId = 0;
+        for (JsonNode role : objectMapper.readTree(roles.body())) {
+            assertTrue(role.get("id").asInt() > previousId);
+            previousId = role.get("id").asInt();
+            names.add(role.get("name").asText());
+        }
+        assertEquals(List.of("SUPER_ADMIN", "COLLEGE_ADMIN", "FACULTY", "DATA_ANALYST", "VIEWER"), names);
+        assertEquals(jdbcTemplate.queryForList("SELECT name FROM roles ORDER BY id", String.class), names);
+
+        HttpResponse<String> revalidated = send("GET", "/api/roles", null, etag);
+        assertEquals(304, revalidated.statusCode());
+        assertEquals(etag, revalidated.headers().firstValue("ETag").orElse(null));
+        assertEquals("", revalidated.body());
+        assertEquals(304, send("GET", "/api/roles", null, "\"other\", " + etag.substring(2)).statusCode());
+        assertEquals(200, send("GET", "/api/roles", null, "W/\"roles-0\"").statusCode());
+    }
+
+    @Test
+    void refreshNeedsSuperAdmin() throws Exception {
+        assertEquals(403, send("POST", "/api/roles/refresh", null, null).statusCode());
+        assertEquals(403, send("POST", "/api/roles/refresh", "COLLEGE_ADMIN", null).statusCode());
+        assertEquals(403, send("POST", "/api/roles/refresh", "VIEWER", null).statusCode());
+        assertEquals(200, send("POST", "/api/roles/refresh", "SUPER_ADMIN", null).statusCode());
+    }
+
+    @Test
+    void refreshPicksUpRenamedRoles() throws Exception {
+        jdbcTemplate.update("INSERT INTO roles (id, name) VALUES (?, ?)", ROLE_ID, "AUDITOR");
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update("INSERT INTO users (id, username, password, first_name, last_name, email, phone, status, role_id, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", USER_ID, "auditor1",
+                "$2a$10$rolesrolesrolesrolesrolesrolesrolesrolesrolesrolesrol", "Audit", "Or", "auditor1@example.com",
+                "9200000001", "ACTIVE", ROLE_ID, now, now);
+        String etag = send("GET", "/api/roles", null, null).headers().firstValue("ETag").orElseThrow();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Role proxy = entityManager.getReference(Role.class, ROLE_ID);
+        entityManager.close();
+        assertFalse(Hibernate.isInitialized(proxy));
+        assertEquals("AUDITOR", roleRegistry.nameOf(proxy));
+        assertFalse(Hibernate.isInitialized(proxy));
+        assertEquals(200, send("POST", "/api/roles/refresh", "SUPER_ADMIN", null).statusCode());
+        String added = send("GET", "/api/roles", null, null).headers().firstValue("ETag").orElseThrow();
+        assertNotEquals(etag, added);
+        assertEquals(200, send("GET", "/api/roles", null, etag).statusCode());
+        assertEquals("AUDITOR", roleName("auditor1"));
+
+        // Renamed in the database: nothing changes until the refresh, then the role list, cached users and listing move on
+        jdbcTemplate.update("UPDATE roles SET name = ? WHERE id = ?", "COMPLIANCE_AUDITOR", ROLE_ID);
+        assertEquals(304, send("GET", "/api/roles", null, added).statusCode());
+        assertEquals("AUDITOR", roleName("auditor1"));
+        String listingEtag = send("GET", "/api/users?limit=1", "SUPER_ADMIN", null).headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> refreshed = send("POST", "/api/roles/refresh", "SUPER_ADMIN", null);
+        assertEquals(200, refreshed.statusCode());
+        assertTrue(refreshed.body().contains("COMPLIANCE_AUDITOR"));
+        HttpResponse<String> roles = send("GET", "/api/roles", null, added);
+        assertEquals(200, roles.statusCode());
+        assertTrue(roles.body().contains("COMPLIANCE_AUDITOR"));
+        assertFalse(roles.body().contains("\"AUDITOR\""));
+        assertEquals("COMPLIANCE_AUDITOR", roleName("auditor1"));
+        assertEquals(200, send("GET", "/api/users?limit=1", "SUPER_ADMIN", listingEtag).statusCode());
+    }
+
+    private String roleName(String username) throws Exception {
+        HttpResponse<String> user = send("GET", "/api/users/by-username/" + username, "SUPER_ADMIN", null);
+        assertEquals(200, user.statusCode());
+        return objectMapper.readTree(user.body()).get("roleName").asText();
+    }
+
+    private HttpResponse<String> send(String method, String path, String role, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, HttpRequest.BodyPublishers.noBody());
+        if (role != null) request.header("Authorization", "Bearer " + jwtUtil.generateToken("roles-test", role));
+        if (ifNoneMatch != null) request.header("If-None-Match", ifNoneMatch);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,105 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.dto.UserRequestDTO;
+import com.ayurveda.backend.dto.UserResponseDTO;
+import com.ayurveda.backend.entity.Role;
+import com.ayurveda.backend.entity.User;
+import com.ayurveda.backend.repository.RoleRepository;
+import com.ayurveda.backend.service.RoleRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Request validation and entity-to-DTO mapping on the user endpoints.
+// Run with: mvn -Pjmh test -Djmh.include=UserControllerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserControllerBenchmark {
+    private UserController controller;
+    private UserRequestDTO validRequest;
+    private UserRequestDTO weakPasswordRequest;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        List<Role> roles = new ArrayList<>();
+        String[] names = {"SUPER_ADMIN", "COLLEGE_ADMIN", "FACULTY", "DATA_ANALYST", "VIEWER"};
+        for (int i = 0; i < names.length; i++) {
+            Role role = new Role();
+            role.setId(i + 1);
+            role.setName(names[i]);
+            roles.add(role);
+        }
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll(any(Sort.class))).thenReturn(roles);
+        RoleRegistry roleRegistry = new RoleRegistry();
+        ReflectionTestUtils.setField(roleRegistry, "roleRepository", roleRepository);
+        ReflectionTestUtils.setField(roleRegistry, "objectMapper", new ObjectMapper());
+        roleRegistry.refresh();
+        controller = new UserController();
+        ReflectionTestUtils.setField(controller, "roleRegistry", roleRegistry);
+
+        validRequest = request("Ashok@1234");
+        weakPasswordRequest = request("ashok1234");
+
+        user = new User();
+        user.setId(42L);
+        user.setUsername("ashok.patil");
+        user.setFirstName("Ashok");
+        user.setLastName("Patil");
+        user.setEmail("ashok.patil@example.com");
+        user.setPhone("+91 98220 12345");
+        user.setDepartment("Kayachikitsa");
+        user.setEmployeeId("EMP-0042");
+        user.setReportingManager("Dr. Kulkarni");
+        user.setStatus(User.Status.ACTIVE);
+        user.setRole(roles.get(2));
+    }
+
+    private static UserRequestDTO request(String password) {
+        UserRequestDTO dto = new UserRequestDTO();
+        dto.setUsername("ashok.patil");
+        dto.setPassword(password);
+        dto.setEmail("ashok.patil@example.com");
+        dto.setPhone("+91 98220 12345");
+        return dto;
+    }
+
+    @Benchmark
+    public boolean isStrongPassword() {
+        return UserController.isStrongPassword("Ashok@1234");
+    }
+
+    @Benchmark
+    public boolean isStrongPasswordRejected() {
+        return UserController.isStrongPassword("ashok1234");
+    }
+
+    @Benchmark
+    public String validateUserRequest() {
+        return UserController.validateUserRequest(validRequest, false);
+    }
+
+    @Benchmark
+    public String validateUserRequestRejected() {
+        return UserController.validateUserRequest(weakPasswordRequest, false);
+    }
+
+    @Benchmark
+    public UserResponseDTO toResponseDTO() {
+        return controller.toResponseDTO(user);
+    }
+}
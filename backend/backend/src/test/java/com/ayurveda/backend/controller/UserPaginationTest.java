@@ -0,0 +1,160 @@
+package com.ayurveda.backend.controller;
+
+import com.ayurveda.backend.security.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Keyset paging of GET /api/users against the table itself: walking nextCursor visits every user once in id order,
+// even when rows already paged past are deleted mid-walk; limits are capped, bad cursors rejected, and the
+// streamed array and NDJSON export list the same users as the pages.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class UserPaginationTest {
+    private static final int USERS = 250;
+    private static final long FIRST_ID = 3_000_000L;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String token;
+
+    @BeforeEach
+    void insertUsers() {
+        token = jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", FIRST_ID, FIRST_ID + USERS - 1);
+        Integer roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'FACULTY'", Integer.class);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[] {FIRST_ID + i, "paged" + i, "$2a$10$paginationpaginationpaginationpaginationpaginationpa", "Paged", "User " + i,
+                    "paged" + i + "@example.com", "9100000" + String.format("%03d", i), "Kayachikitsa", "ACTIVE", roleId, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "status, role_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void cursorWalkVisitsEveryUserOnce() throws Exception {
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = json(get("/api/users?limit=7" + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "")));
+            assertEquals(7, page.get("limit").asInt());
+            assertTrue(page.get("items").size() <= 7);
+            for (JsonNode user : page.get("items")) {
+                seen.add(user.get("id").asLong());
+                assertFalse(user.has("password"));
+            }
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+        assertEquals(expected, seen);
+        assertEquals((expected.size() + 7) / 7, pages, "A full last page costs one more, empty request");
+    }
+
+    @Test
+    void deletingPastRowsDoesNotShiftPages() throws Exception {
+        JsonNode first = json(get("/api/users?limit=20&cursor=" + cursor(FIRST_ID - 1)));
+        List<Long> firstIds = new ArrayList<>();
+        for (JsonNode user : first.get("items")) firstIds.add(user.get("id").asLong());
+        // An offset-paged listing would now skip the user that moved into the first page
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", firstIds.get(0), firstIds.get(1));
+
+        List<Long> rest = new ArrayList<>();
+        String cursor = first.get("nextCursor").asText();
+        while (cursor != null) {
+            JsonNode page = json(get("/api/users?limit=50&cursor=" + cursor));
+            for (JsonNode user : page.get("items")) rest.add(user.get("id").asLong());
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        }
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM users WHERE id > ? ORDER BY id", Long.class,
+                firstIds.get(firstIds.size() - 1));
+        assertEquals(expected, rest);
+    }
+
+    @Test
+    void limitsAreCappedAndBadCursorsRejected() throws Exception {
+        JsonNode capped = json(get("/api/users?limit=100000"));
+        assertEquals(200, capped.get("limit").asInt());
+        assertEquals(200, capped.get("items").size());
+        assertEquals(1, json(get("/api/users?limit=0")).get("limit").asInt());
+        assertEquals(50, json(get("/api/users?cursor=")).get("limit").asInt());
+
+        assertEquals(400, get("/api/users?limit=10&cursor=bm90LWEtbnVtYmVy").statusCode());
+        assertEquals(400, get("/api/users?limit=10&cursor=%25%25%25").statusCode());
+
+        // Past the last user: an empty page with no next cursor
+        JsonNode empty = json(get("/api/users?limit=10&cursor=" + cursor(Long.MAX_VALUE)));
+        assertEquals(0, empty.get("items").size());
+        assertNull(empty.get("nextCursor").textValue());
+    }
+
+    @Test
+    void streamedListingsMatchThePages() throws Exception {
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+
+        HttpResponse<String> array = get("/api/users");
+        assertEquals(200, array.statusCode());
+        List<Long> listed = new ArrayList<>();
+        for (JsonNode user : objectMapper.readTree(array.body())) listed.add(user.get("id").asLong());
+        assertEquals(expected, listed);
+
+        HttpResponse<String> export = get("/api/users/export");
+        assertEquals(200, export.statusCode());
+        assertTrue(export.headers().firstValue("Content-Type").orElse("").startsWith("application/x-ndjson"));
+        List<Long> exported = new ArrayList<>();
+        for (String line : export.body().split("\n")) {
+            if (!line.isBlank()) exported.add(objectMapper.readTree(line).get("id").asLong());
+        }
+        assertEquals(expected, exported);
+    }
+
+    private static String cursor(long afterId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(afterId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws Exception {
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,43 @@
+package com.ayurveda.backend.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.ayurveda.backend.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of user lists as returned by GET /api/users (one page, a large page, the full list).
+// Run with: mvn -Pjmh test -Djmh.include=UserResponseSerializationBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseSerializationBenchmark {
+    @Param({"1", "50", "1000", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<UserResponseDTO> users;
+
+    @Setup
+    public void setUp() {
+        // Configured like Spring Boot's auto-configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new UserResponseDTO((long) i, "user" + i, "First" + i, "Last" + i, "user" + i + "@example.com",
+                    "+91 90000 " + String.format("%05d", i), "Kayachikitsa", "EMP-" + i, "Dr. Kulkarni", 1L, User.Status.ACTIVE, "FACULTY"));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,178 @@
+package com.ayurveda.backend.hierarchy;
+
+import com.ayurveda.backend.dto.ReportCountDTO;
+import com.ayurveda.backend.dto.UserRequestDTO;
+import com.ayurveda.backend.service.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Org-tree queries over 100k users (an 8-way reporting tree, 6 levels deep): report counts and "is X under Y"
+// from the in-memory hierarchy vs a recursive CTE over users.manager_id, paging a whole subtree, then a move, a
+// rejected cycle and a delete through UserService, checked against the table.
+// Run with: mvn test -Pbenchmark -Dtest=OrgHierarchyBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:org-hierarchy-benchmark",
+        "cohort.snapshot.dir="})
+class OrgHierarchyBenchmarkTest {
+    private static final int USERS = 100_000;
+    private static final int FANOUT = 8;
+    private static final long FIRST_ID = 1_000_000L;
+    private static final int CHECKS = 200_000;
+    private static final String SUBTREE_SIZE = "WITH RECURSIVE sub(id) AS (SELECT id FROM users WHERE manager_id = ? "
+            + "UNION ALL SELECT u.id FROM users u JOIN sub s ON u.manager_id = s.id) SELECT COUNT(*) FROM sub";
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void answersOrgTreeQueriesAndFollowsWrites() {
+        Integer roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'FACULTY'", Integer.class);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[] {FIRST_ID + i, "org" + i, "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchmark", "Org", "User " + i,
+                    "org" + i + "@example.com", "+91 90000 " + String.format("%05d", i), "Shalya", "ACTIVE", roleId, now, now,
+                    i == 0 ? null : managerOf(FIRST_ID + i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "status, role_id, created_at, updated_at, manager_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        long loadStartedAt = System.nanoTime();
+        ReportCountDTO top = orgHierarchyService.countReports(FIRST_ID);
+        System.out.printf("Hierarchy of %,d users loaded in %,d ms%n", orgHierarchyService.stats().get("users"),
+                (System.nanoTime() - loadStartedAt) / 1_000_000);
+        assertEquals(USERS - 1, top.getTotalReports());
+        assertEquals(FANOUT, top.getDirectReports());
+
+        // Report counts of second-level managers (about 1,500 reports each)
+        long cteStartedAt = System.nanoTime();
+        for (int i = 1; i <= FANOUT; i++) {
+            long manager = FIRST_ID + i;
+            assertEquals(orgHierarchyService.countReports(manager).getTotalReports(),
+                    jdbcTemplate.queryForObject(SUBTREE_SIZE, Integer.class, manager));
+        }
+        double cteMicros = (System.nanoTime() - cteStartedAt) / 1000.0 / FANOUT;
+        Random random = new Random(5);
+        long countStartedAt = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < CHECKS; i++) total += orgHierarchyService.countReports(FIRST_ID + random.nextInt(USERS)).getTotalReports();
+        double countNanos = (System.nanoTime() - countStartedAt) / (double) CHECKS;
+        System.out.printf("Report count: recursive CTE %,.0f us, hierarchy %,.0f ns (sum %d)%n", cteMicros, countNanos, total);
+
+        // "is X under Y" for random pairs, checked against the manager chain
+        for (int i = 0; i < 1000; i++) {
+            long user = FIRST_ID + random.nextInt(USERS);
+            long manager = FIRST_ID + random.nextInt(200);
+            assertEquals(chainContains(user, manager), orgHierarchyService.isUnder(user, manager));
+        }
+        long underStartedAt = System.nanoTime();
+        int under = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (orgHierarchyService.isUnder(FIRST_ID + random.nextInt(USERS), FIRST_ID + random.nextInt(100))) under++;
+        }
+        double underNanos = (System.nanoTime() - underStartedAt) / (double) CHECKS;
+        System.out.printf("Is-under check: %,.0f ns (%d of %d true)%n", underNanos, under, CHECKS);
+
+        // The whole subtree of a second-level manager, 200 at a time: every report exactly once
+        long pageManager = FIRST_ID + 3;
+        assertEquals(orgHierarchyService.countReports(pageManager).getTotalReports(), pageThrough(pageManager, 200).size());
+
+        // Move a third-level manager and its subtree under another branch
+        long moved = FIRST_ID + 9 * FANOUT + 1;
+        int movedReports = orgHierarchyService.countReports(moved).getTotalReports();
+        long oldBranch = FIRST_ID + 9;
+        long newBranch = FIRST_ID + 5;
+        int oldBranchReports = orgHierarchyService.countReports(oldBranch).getTotalReports();
+        int newBranchReports = orgHierarchyService.countReports(newBranch).getTotalReports();
+        userService.updateUser(moved, request(moved, newBranch, roleId));
+        assertEquals(oldBranchReports - movedReports - 1, orgHierarchyService.countReports(oldBranch).getTotalReports());
+        assertEquals(newBranchReports + movedReports + 1, orgHierarchyService.countReports(newBranch).getTotalReports());
+        long movedReport = FIRST_ID + (moved - FIRST_ID) * FANOUT + 1;
+        assertTrue(orgHierarchyService.isUnder(movedReport, newBranch));
+        assertFalse(orgHierarchyService.isUnder(movedReport, oldBranch));
+        assertEquals(newBranch, userService.getUserViewById(moved).getManagerId());
+        long renumberStartedAt = System.nanoTime();
+        Set<Long> newBranchPage = pageThrough(newBranch, 200);
+        System.out.printf("First page after a move (renumbers %,d users): %,d us%n", USERS,
+                (System.nanoTime() - renumberStartedAt) / 1000);
+        assertTrue(newBranchPage.contains(moved));
+        assertEquals(orgHierarchyService.countReports(newBranch).getTotalReports(), newBranchPage.size());
+        assertEquals(orgHierarchyService.countReports(newBranch).getTotalReports(),
+                jdbcTemplate.queryForObject(SUBTREE_SIZE, Integer.class, newBranch));
+
+        // A manager cannot be placed under one of its own reports
+        assertThrows(IllegalArgumentException.class, () -> userService.updateUser(newBranch, request(newBranch, moved, roleId)));
+        assertEquals(FIRST_ID, orgHierarchyService.countReports(newBranch).getManagerId());
+
+        // Deleting a manager moves its reports up
+        int directReports = orgHierarchyService.countReports(moved).getDirectReports();
+        userService.deleteUser(moved);
+        assertNull(orgHierarchyService.countReports(moved));
+        assertEquals(newBranchReports + movedReports, orgHierarchyService.countReports(newBranch).getTotalReports());
+        assertEquals(directReports, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE manager_id = ? AND id > ?", Integer.class, newBranch, moved));
+        assertEquals(orgHierarchyService.countReports(newBranch).getTotalReports(),
+                jdbcTemplate.queryForObject(SUBTREE_SIZE, Integer.class, newBranch));
+        assertFalse(pageThrough(newBranch, 200).contains(moved));
+        System.out.println(orgHierarchyService.stats());
+    }
+
+    private Set<Long> pageThrough(long manager, int limit) {
+        Set<Long> seen = new HashSet<>();
+        Long after = null;
+        while (true) {
+            long[] page = orgHierarchyService.reportsPage(manager, after, limit);
+            for (long id : page) assertTrue(seen.add(id), "Listed twice: " + id);
+            if (page.length < limit) return seen;
+            after = page[page.length - 1];
+        }
+    }
+
+    private static long managerOf(long id) {
+        return FIRST_ID + (id - FIRST_ID - 1) / FANOUT;
+    }
+
+    private static boolean chainContains(long user, long manager) {
+        for (long id = user; id != FIRST_ID; ) {
+            id = managerOf(id);
+            if (id == manager) return true;
+        }
+        return false;
+    }
+
+    private static UserRequestDTO request(long id, long managerId, Integer roleId) {
+        long i = id - FIRST_ID;
+        UserRequestDTO dto = new UserRequestDTO();
+        dto.setUsername("org" + i);
+        dto.setFirstName("Org");
+        dto.setLastName("User " + i);
+        dto.setEmail("org" + i + "@example.com");
+        dto.setPhone("+91 90000 " + String.format("%05d", i));
+        dto.setDepartment("Shalya");
+        dto.setRoleId(roleId);
+        dto.setManagerId(managerId);
+        return dto;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ayurveda.backend.hierarchy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Reporting-line forest: report counts and chain checks, cycles rejected whether or not the numbering is current,
+// subtree moves and removals that hand reports up to the manager, and reportsPage cursors walking a subtree in
+// pre-order and refusing cursors from outside it.
+class OrgTreeTest {
+    private OrgTree tree;
+
+    // 1 -> {2 -> {4, 5}, 3 -> {6}}, and 10 on its own
+    @BeforeEach
+    void build() {
+        tree = new OrgTree();
+        tree.put(1, null);
+        tree.put(10, null);
+        tree.put(2, 1L);
+        tree.put(3, 1L);
+        tree.put(4, 2L);
+        tree.put(5, 2L);
+        tree.put(6, 3L);
+    }
+
+    @Test
+    void countsReportsAndChains() {
+        assertEquals(7, tree.size());
+        assertEquals(2, tree.directReports(1));
+        assertEquals(5, tree.allReports(1));
+        assertEquals(2, tree.allReports(2));
+        assertEquals(0, tree.allReports(6));
+        assertEquals(0, tree.allReports(99));
+        assertEquals(2L, tree.managerOf(4));
+        assertNull(tree.managerOf(1));
+        assertNull(tree.managerOf(99));
+        for (boolean numbered : new boolean[] {false, true}) {
+            if (numbered) tree.renumber();
+            assertEquals(numbered, tree.isNumbered());
+            assertTrue(tree.isUnder(6, 1));
+            assertTrue(tree.isUnder(4, 2));
+            assertFalse(tree.isUnder(6, 2));
+            assertFalse(tree.isUnder(1, 6));
+            assertFalse(tree.isUnder(1, 1));
+            assertFalse(tree.isUnder(6, 10));
+        }
+        assertEquals(2, tree.getRoots());
+    }
+
+    @Test
+    void rejectsCycles() {
+        for (boolean numbered : new boolean[] {false, true}) {
+            if (numbered) tree.renumber();
+            assertThrows(IllegalArgumentException.class, () -> tree.put(1, 4L));
+            assertThrows(IllegalArgumentException.class, () -> tree.put(2, 5L));
+            assertThrows(IllegalArgumentException.class, () -> tree.put(3, 3L));
+            assertThrows(IllegalArgumentException.class, () -> tree.put(7, 99L));
+            assertEquals(5, tree.allReports(1));
+            assertEquals(1L, tree.managerOf(2));
+            assertEquals(numbered, tree.isNumbered());
+        }
+    }
+
+    @Test
+    void movesWholeSubtrees() {
+        tree.renumber();
+        tree.put(2, 10L);
+        assertFalse(tree.isNumbered());
+        assertEquals(10L, tree.managerOf(2));
+        assertEquals(2, tree.allReports(1));
+        assertEquals(3, tree.allReports(10));
+        assertTrue(tree.isUnder(5, 10));
+        assertFalse(tree.isUnder(5, 1));
+
+        // Moving to the top level, and a no-op move that keeps the numbering
+        tree.put(3, null);
+        assertEquals(0, tree.allReports(1));
+        tree.renumber();
+        tree.put(6, 3L);
+        assertTrue(tree.isNumbered());
+        assertEquals(3, tree.getRoots());
+    }
+
+    @Test
+    void removalHandsReportsToTheManager() {
+        assertEquals(List.of(4L, 5L), tree.remove(2));
+        assertFalse(tree.contains(2));
+        assertEquals(1L, tree.managerOf(4));
+        assertEquals(1L, tree.managerOf(5));
+        assertEquals(3, tree.directReports(1));
+        assertEquals(4, tree.allReports(1));
+
+        // A top-level user's reports become top-level themselves
+        assertEquals(3, tree.remove(1).size());
+        assertNull(tree.managerOf(3));
+        assertEquals(1, tree.allReports(3));
+        assertEquals(List.of(), tree.remove(99));
+        tree.renumber();
+        assertEquals(4, tree.getRoots());
+    }
+
+    @Test
+    void pagesASubtreeInPreOrder() {
+        tree.put(11, 10L);
+        tree.renumber();
+        assertArrayEquals(new long[] {2, 4}, tree.reportsPage(1, null, 2));
+        assertArrayEquals(new long[] {5, 3}, tree.reportsPage(1, 4L, 2));
+        assertArrayEquals(new long[] {6}, tree.reportsPage(1, 3L, 2));
+        assertArrayEquals(new long[] {}, tree.reportsPage(1, 6L, 2));
+        assertArrayEquals(new long[] {}, tree.reportsPage(6, null, 10));
+        assertArrayEquals(new long[] {11}, tree.reportsPage(10, null, 10));
+
+        // Walking the cursor lists every report once
+        List<Long> walked = new ArrayList<>();
+        Long cursor = null;
+        for (long[] page = tree.reportsPage(1, null, 1); page.length > 0; page = tree.reportsPage(1, cursor, 1)) {
+            walked.add(page[0]);
+            cursor = page[0];
+        }
+        assertEquals(List.of(2L, 4L, 5L, 3L, 6L), walked);
+
+        assertNull(tree.reportsPage(99, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> tree.reportsPage(1, 11L, 10));
+        assertThrows(IllegalArgumentException.class, () -> tree.reportsPage(2, 1L, 10));
+        assertThrows(IllegalArgumentException.class, () -> tree.reportsPage(2, 99L, 10));
+
+        // A cursor user moved out of the subtree is refused after the renumbering
+        tree.put(5, 10L);
+        assertThrows(IllegalStateException.class, () -> tree.reportsPage(1, null, 10));
+        tree.renumber();
+        assertThrows(IllegalArgumentException.class, () -> tree.reportsPage(2, 5L, 10));
+        assertArrayEquals(new long[] {4}, tree.reportsPage(2, null, 10));
+        assertEquals(2, tree.getRenumberings());
+    }
+}
@@ -0,0 +1,57 @@
+package com.ayurveda.backend.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Token bucket behind the outbox channels: starts full, grants at most what it holds, refills at its rate up to the
+// burst, and takes back unused tokens without ever exceeding the burst.
+class TokenBucketTest {
+
+    @Test
+    void grantsUpToWhatItHolds() {
+        TokenBucket bucket = new TokenBucket(0.001, 10);
+        assertEquals(4, bucket.tryAcquireUpTo(4));
+        assertEquals(6, bucket.tryAcquireUpTo(100));
+        assertEquals(0, bucket.tryAcquireUpTo(1));
+        assertEquals(0, bucket.tryAcquireUpTo(0));
+    }
+
+    @Test
+    void releasedTokensAreCappedAtTheBurst() {
+        TokenBucket bucket = new TokenBucket(0.001, 10);
+        assertEquals(10, bucket.tryAcquireUpTo(10));
+        bucket.release(3);
+        assertEquals(3, bucket.tryAcquireUpTo(10));
+        bucket.release(50);
+        assertEquals(10, (int) Math.floor(bucket.available()));
+        assertEquals(10, bucket.tryAcquireUpTo(50));
+    }
+
+    @Test
+    void refillsAtItsRateUpToTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 5);
+        assertEquals(5, bucket.tryAcquireUpTo(5));
+        Thread.sleep(20);
+        // 20 ms at 1000/s is 20 tokens, but the bucket holds at most 5
+        assertEquals(5, bucket.tryAcquireUpTo(100));
+
+        TokenBucket slow = new TokenBucket(100, 50);
+        assertEquals(50, slow.tryAcquireUpTo(50));
+        long startedAt = System.nanoTime();
+        Thread.sleep(50);
+        int granted = slow.tryAcquireUpTo(100);
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+        assertTrue(granted >= 4, "Refilled " + granted + " tokens in 50 ms at 100/s");
+        assertTrue(granted <= Math.ceil(elapsedSeconds * 100), "Refilled " + granted + " tokens in " + elapsedSeconds + " s");
+    }
+
+    @Test
+    void rejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0.5));
+    }
+}
@@ -0,0 +1,137 @@
+package com.ayurveda.backend.repository;
+
+import com.ayurveda.backend.cache.CachedUser;
+import com.ayurveda.backend.dto.UserResponseDTO;
+import com.ayurveda.backend.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The read-side projections in UserRepository against the entities they replace: every response field matches,
+// including the manager id and role name, only the near-cache row carries the password hash, and no query
+// hydrates or manages a single User.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:api-tests",
+        "cohort.snapshot.dir="})
+class UserProjectionTest {
+    private static final long FIRST_ID = 5_000_000L;
+    private static final int USERS = 30;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void insertUsers() {
+        jdbcTemplate.update("UPDATE users SET manager_id = NULL WHERE id BETWEEN ? AND ?", FIRST_ID, FIRST_ID + USERS - 1);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", FIRST_ID, FIRST_ID + USERS - 1);
+        List<Integer> roleIds = jdbcTemplate.queryForList("SELECT id FROM roles ORDER BY id", Integer.class);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            // Every third user reports to the first one; optional columns are left empty on some rows
+            rows.add(new Object[] {FIRST_ID + i, "projected" + i, "$2a$10$projection" + i, "Projected", "User " + i,
+                    "projected" + i + "@example.com", "93000000" + String.format("%02d", i), i % 4 == 0 ? null : "Shalakya",
+                    i % 5 == 0 ? null : "EMP-" + i, i % 2 == 0 ? null : "Dr. Manager", i > 0 && i % 3 == 0 ? FIRST_ID : null,
+                    i % 7 == 0 ? "INACTIVE" : "ACTIVE", roleIds.get(i % roleIds.size()), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "employee_id, reporting_manager, manager_id, status, role_id, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void viewsMatchEntities() {
+        List<UserResponseDTO> page = transactionTemplate.execute(status -> userRepository.findViewPageAfter(FIRST_ID - 1, Limit.of(USERS)));
+        assertEquals(USERS, page.size());
+        for (int i = 0; i < USERS; i++) assertEquals(FIRST_ID + i, page.get(i).getId());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (UserResponseDTO view : page) assertMatches(userRepository.findById(view.getId()).orElseThrow(), view);
+        });
+
+        List<Long> ids = List.of(FIRST_ID + 3, FIRST_ID + 11, FIRST_ID + 29, 999_999_999L);
+        List<UserResponseDTO> byIds = transactionTemplate.execute(status -> userRepository.findViewsByIds(ids));
+        assertEquals(List.of(FIRST_ID + 3, FIRST_ID + 11, FIRST_ID + 29),
+                byIds.stream().map(UserResponseDTO::getId).sorted().collect(Collectors.toList()));
+
+        CachedUser cached = userRepository.findCachedByUsername("projected3").orElseThrow();
+        assertEquals("$2a$10$projection3", cached.getPasswordHash());
+        assertEquals(FIRST_ID, cached.getView().getManagerId());
+        assertEquals(cached.getView().getUsername(), userRepository.findCachedById(FIRST_ID + 3).orElseThrow().getUsername());
+        assertTrue(userRepository.findCachedByUsername("no-such-user").isEmpty());
+
+        UserResponseDTO top = page.get(0);
+        assertNull(top.getManagerId());
+        assertNull(top.getDepartment());
+        assertEquals("INACTIVE", top.getStatus());
+    }
+
+    @Test
+    void streamListsEveryUserInIdOrder() {
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        List<Long> streamed = transactionTemplate.execute(status -> {
+            try (Stream<UserResponseDTO> views = userRepository.streamAllViews()) {
+                return views.map(UserResponseDTO::getId).collect(Collectors.toList());
+            }
+        });
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void projectionsManageNoEntities() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long loadsBefore = statistics.getEntityLoadCount();
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.findViewPageAfter(0L, Limit.of(200));
+            userRepository.findViewsByIds(List.of(FIRST_ID, FIRST_ID + 1));
+            userRepository.findCachedById(FIRST_ID + 3);
+            try (Stream<UserResponseDTO> views = userRepository.streamAllViews()) {
+                assertTrue(views.count() >= USERS);
+            }
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        });
+        assertEquals(loadsBefore, statistics.getEntityLoadCount());
+    }
+
+    private static void assertMatches(User user, UserResponseDTO view) {
+        assertEquals(user.getId(), view.getId());
+        assertEquals(user.getUsername(), view.getUsername());
+        assertEquals(user.getFirstName(), view.getFirstName());
+        assertEquals(user.getLastName(), view.getLastName());
+        assertEquals(user.getEmail(), view.getEmail());
+        assertEquals(user.getPhone(), view.getPhone());
+        assertEquals(user.getDepartment(), view.getDepartment());
+        assertEquals(user.getEmployeeId(), view.getEmployeeId());
+        assertEquals(user.getReportingManager(), view.getReportingManager());
+        assertEquals(user.getManager() != null ? user.getManager().getId() : null, view.getManagerId());
+        assertEquals(user.getStatus().name(), view.getStatus());
+        assertEquals(user.getRole().getName(), view.getRoleName());
+    }
+}
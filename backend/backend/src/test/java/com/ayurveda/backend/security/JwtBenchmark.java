@@ -0,0 +1,49 @@
+package com.ayurveda.backend.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Token issue and the per-request checks (HS512 signature + claims parse each time; JwtClaimsCache sits in front
+// of parseClaims in the filter). Run with: mvn -Pjmh test -Djmh.include=JwtBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        token = jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public String extractRole() {
+        return jwtUtil.extractRole(token);
+    }
+
+    @Benchmark
+    public JwtClaims parseClaims() {
+        return jwtUtil.parseClaims(token);
+    }
+}
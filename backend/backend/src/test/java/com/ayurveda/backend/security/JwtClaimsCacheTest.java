@@ -0,0 +1,139 @@
+package com.ayurveda.backend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Verified-claims cache in front of JwtUtil: one verification per token until it expires, nothing cached for
+// rejected tokens, bounded size, and JwtFilter authenticating from the cached claims.
+class JwtClaimsCacheTest {
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final JwtUtil jwtUtil = new JwtUtil() {
+        @Override
+        public JwtClaims parseClaims(String token) {
+            verifications.incrementAndGet();
+            return super.parseClaims(token);
+        }
+    };
+    private JwtClaimsCache cache;
+
+    @BeforeEach
+    void createCache() {
+        cache = cache(jwtUtil, 100);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void verifiesEachTokenOnce() {
+        String token = jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+        JwtClaims first = cache.getOrVerify(token);
+        assertNotNull(first);
+        assertEquals("Admin12", first.getUsername());
+        assertEquals("SUPER_ADMIN", first.getRole());
+        assertTrue(first.getExpiresAtMillis() > System.currentTimeMillis());
+
+        for (int i = 0; i < 10; i++) assertSame(first, cache.getOrVerify(token));
+        assertEquals(1, verifications.get());
+        assertEquals(10L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+        assertEquals(1, cache.stats().get("size"));
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() {
+        String token = jwtUtil.generateToken("Admin12", "SUPER_ADMIN");
+        String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+        assertNull(cache.getOrVerify(tampered));
+        assertNull(cache.getOrVerify(tampered));
+        assertNull(cache.getOrVerify("not.a.token"));
+        assertEquals(3, verifications.get());
+        assertEquals(0, cache.stats().get("size"));
+    }
+
+    @Test
+    void entriesDieAtTokenExpiry() throws InterruptedException {
+        JwtUtil shortLived = new JwtUtil() {
+            @Override
+            public JwtClaims parseClaims(String token) {
+                verifications.incrementAndGet();
+                return new JwtClaims(token, "VIEWER", System.currentTimeMillis() + 50);
+            }
+        };
+        JwtClaimsCache expiring = cache(shortLived, 100);
+        assertNotNull(expiring.getOrVerify("viewer"));
+        assertNotNull(expiring.getOrVerify("viewer"));
+        assertEquals(1, verifications.get());
+
+        Thread.sleep(100);
+        assertNotNull(expiring.getOrVerify("viewer"));
+        assertEquals(2, verifications.get());
+        assertEquals(1L, expiring.stats().get("evictions"));
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        JwtClaimsCache small = cache(jwtUtil, 10);
+        for (int i = 0; i < 50; i++) assertNotNull(small.getOrVerify(jwtUtil.generateToken("user" + i, "FACULTY")));
+        assertTrue((int) small.stats().get("size") <= 10, () -> "size " + small.stats().get("size"));
+        assertTrue((long) small.stats().get("evictions") >= 40);
+    }
+
+    @Test
+    void filterAuthenticatesWithRoleAuthority() throws Exception {
+        JwtFilter filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtClaimsCache", cache);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("college@ayurveda.com", "COLLEGE_ADMIN"));
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("college@ayurveda.com", authentication.getName());
+        List<String> authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+        assertEquals(List.of("ROLE_COLLEGE_ADMIN"), authorities);
+        assertSame(cache.getOrVerify(request.getHeader("Authorization").substring(7)), request.getAttribute(JwtClaims.class.getName()));
+    }
+
+    @Test
+    void filterIgnoresInvalidTokens() throws Exception {
+        JwtFilter filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtClaimsCache", cache);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("Authorization", "Bearer not.a.token");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(chain.getRequest());
+    }
+
+    private static JwtClaimsCache cache(JwtUtil jwtUtil, int maxEntries) {
+        JwtClaimsCache cache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(cache, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        cache.registerMeters();
+        return cache;
+    }
+}
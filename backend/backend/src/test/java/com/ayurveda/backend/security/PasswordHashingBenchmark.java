@@ -0,0 +1,38 @@
+package com.ayurveda.backend.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// BCrypt cost per work factor (SecurityConfig uses the default, 10); each step doubles the time.
+// Run with: mvn -Pjmh test -Djmh.include=PasswordHashingBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    @Param({"4", "8", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("Ashok@1234");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("Ashok@1234");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("Ashok@1234", hash);
+    }
+}
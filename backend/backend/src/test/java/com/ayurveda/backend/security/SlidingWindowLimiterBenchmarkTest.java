@@ -0,0 +1,72 @@
+package com.ayurveda.backend.security;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cost of one login admission check with several threads hammering a mix of hot and cold keys, plus
+// the window arithmetic: exact limit per window, sliding decay of the previous window and idle eviction.
+// Run with: mvn test -Pbenchmark -Dtest=SlidingWindowLimiterBenchmarkTest
+@Tag("benchmark")
+class SlidingWindowLimiterBenchmarkTest {
+    private static final int THREADS = 4;
+    private static final int CHECKS_PER_THREAD = 2_000_000;
+    private static final int KEYS = 10_000;
+
+    @Test
+    void checksAreCheap() throws InterruptedException {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(60_000, 10, 100_000);
+        long t0 = 1_000_000_000_000L - 1_000_000_000_000L % 60_000;
+        int admitted = 0;
+        for (int i = 0; i < 15; i++) if (limiter.tryAcquire("asha", t0 + i) == 0) admitted++;
+        assertEquals(10, admitted);
+        // Full: the next window still carries this one's 10 at weight 1 - t, so 1 more fits after 10% of it
+        assertEquals(60_000 - 15 + 6_000, limiter.tryAcquire("asha", t0 + 15));
+        // Halfway through the next window half of the previous count still applies: 5 + 5 more fit
+        admitted = 0;
+        for (int i = 0; i < 10; i++) if (limiter.tryAcquire("asha", t0 + 90_000) == 0) admitted++;
+        assertEquals(5, admitted);
+        assertTrue(limiter.tryAcquire("asha", t0 + 90_000) > 0);
+        assertEquals(0, limiter.evictIdle(t0 + 90_000));
+        assertEquals(1, limiter.evictIdle(t0 + 180_000));
+        assertEquals(0, limiter.size());
+
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) keys[i] = "10.0." + (i >> 8) + "." + (i & 255);
+        for (int round = 0; round < 3; round++) {
+            SlidingWindowLimiter shared = new SlidingWindowLimiter(60_000, 100, 100_000);
+            LongAdder rejected = new LongAdder();
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int seed = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    int rejections = 0;
+                    for (int i = 0; i < CHECKS_PER_THREAD; i++) {
+                        // Every fourth check hits one hot key, the rest spread over the others
+                        String key = (i & 3) == 0 ? keys[0] : keys[(i * 31 + seed * 7919) % KEYS];
+                        if (shared.tryAcquire(key, System.currentTimeMillis()) > 0) rejections++;
+                    }
+                    rejected.add(rejections);
+                });
+                threads[t].start();
+            }
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) thread.join();
+            long nanos = System.nanoTime() - startedAt;
+            System.out.printf("%d threads x %,d checks over %,d keys: %,d ns/check (wall time / total checks), %,d rejected%n",
+                    THREADS, CHECKS_PER_THREAD, KEYS, nanos / ((long) THREADS * CHECKS_PER_THREAD), rejected.sum());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ayurveda.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Login attempt limiter: the limit per window and per key, retry-after values that are exact (one millisecond earlier
+// is still refused) both when the current window is full and while the previous one decays, idle eviction after two
+// windows, and untracked admission once the key table is full.
+class SlidingWindowLimiterTest {
+    private static final long WINDOW = 1_000;
+    private static final long T0 = 10_000;
+
+    @Test
+    void admitsTheLimitPerKey() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(WINDOW, 4, 100);
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("asha", T0 + i));
+        assertTrue(limiter.tryAcquire("asha", T0 + 4) > 0);
+        // Refused attempts are not counted, and other keys have their own windows
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("ravi", T0 + 5));
+        assertTrue(limiter.tryAcquire("ravi", T0 + 5) > 0);
+        assertEquals(2, limiter.size());
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void retryAfterIsExactWhenTheWindowIsFull() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(WINDOW, 4, 100);
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("asha", T0));
+        // The next window carries these 4 at weight 1 - t; one more fits once the weight is down to 3/4
+        long retryAfter = limiter.tryAcquire("asha", T0 + 100);
+        assertEquals(900 + 250, retryAfter);
+        assertTrue(limiter.tryAcquire("asha", T0 + 100 + retryAfter - 1) > 0);
+        assertEquals(0, limiter.tryAcquire("asha", T0 + 100 + retryAfter));
+    }
+
+    @Test
+    void retryAfterIsExactWhileThePreviousWindowDecays() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(WINDOW, 4, 100);
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("asha", T0));
+        assertEquals(0, limiter.tryAcquire("asha", T0 + 1_250));
+        // 4 * 0.75 + 1 fills the limit; a second attempt fits once 4 * weight is down to 2, halfway through
+        long retryAfter = limiter.tryAcquire("asha", T0 + 1_250);
+        assertEquals(250, retryAfter);
+        assertTrue(limiter.tryAcquire("asha", T0 + 1_499) > 0);
+        assertEquals(0, limiter.tryAcquire("asha", T0 + 1_500));
+        assertTrue(limiter.tryAcquire("asha", T0 + 1_500) > 0);
+        // Two windows on nothing carries over
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("asha", T0 + 3_000));
+    }
+
+    @Test
+    void evictsKeysIdleForTwoWindows() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(WINDOW, 4, 100);
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("asha", T0));
+        assertEquals(0, limiter.tryAcquire("ravi", T0 + 1_100));
+        assertEquals(0, limiter.evictIdle(T0 + 1_999));
+        // asha's window is two behind; ravi's last attempt was in the previous window, which still counts
+        assertEquals(1, limiter.evictIdle(T0 + 2_000));
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.evictIdle(T0 + 3_000));
+        assertEquals(0, limiter.size());
+        for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("asha", T0 + 3_000));
+        assertTrue(limiter.tryAcquire("asha", T0 + 3_000) > 0);
+    }
+
+    @Test
+    void admitsUntrackedOnceTheTableIsFull() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(WINDOW, 2, 2);
+        assertEquals(0, limiter.tryAcquire("a", T0));
+        assertEquals(0, limiter.tryAcquire("b", T0));
+        for (int i = 0; i < 5; i++) assertEquals(0, limiter.tryAcquire("c", T0));
+        assertEquals(5, limiter.getUntracked());
+        assertEquals(2, limiter.size());
+        // Tracked keys are still limited
+        assertEquals(0, limiter.tryAcquire("a", T0));
+        assertTrue(limiter.tryAcquire("a", T0) > 0);
+    }
+
+    @Test
+    void rejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowLimiter(0, 4, 100));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowLimiter(WINDOW, 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowLimiter(WINDOW, 0x10000, 100));
+    }
+}
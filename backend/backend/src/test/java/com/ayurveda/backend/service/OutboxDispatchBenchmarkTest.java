@@ -0,0 +1,85 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.dto.OutboxSendRequestDTO;
+import com.ayurveda.backend.dto.OutboxSendStatusDTO;
+import com.ayurveda.backend.messaging.StubMessageSink;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Queues one templated message for each of 100k users on the stub channel and drains it through the
+// dispatcher: reports enqueue time, drain time and messages/s against the channel's configured rate.
+// Run with: mvn test -Pbenchmark -Dtest=OutboxDispatchBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-benchmark",
+        "spring.jpa.show-sql=false",
+        "cohort.snapshot.dir=",
+        "outbox.rate.stub=5000",
+        "outbox.burst.stub=500",
+        "outbox.stub.latency-ms=1",
+        "outbox.stub.failure-rate=0.01",
+        "outbox.retry.initial-delay-ms=100",
+        "outbox.dispatch.workers=32",
+        "outbox.dispatch.poll-interval-ms=50"})
+class OutboxDispatchBenchmarkTest {
+    private static final int USERS = 100_000;
+    private static final double RATE = 5000;
+
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private StubMessageSink stubMessageSink;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void drainsAtConfiguredRate() throws InterruptedException {
+        Integer roleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'FACULTY'", Integer.class);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[] {1_000_000L + i, "bench" + i, "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchmark", "User", "No " + i,
+                    "bench" + i + "@example.com", "+91 90000 " + String.format("%05d", i), i % 2 == 0 ? "Kayachikitsa" : "Shalya",
+                    "ACTIVE", roleId, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, first_name, last_name, email, phone, department, "
+                + "status, role_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        OutboxSendRequestDTO request = new OutboxSendRequestDTO();
+        request.setChannel("stub");
+        request.setMessage("Namaste {{firstName}} {{lastName}}, the {{department}} review is on Friday.");
+        request.setRoles(List.of("FACULTY"));
+        OutboxSendStatusDTO queued = outboxService.send(request);
+        assertTrue(queued.getTotal() >= USERS);
+
+        long startedAt = System.nanoTime();
+        OutboxSendStatusDTO status = outboxService.getStatus(queued.getSendId());
+        while (status.getPending() + status.getSending() > 0) {
+            assertTrue(System.nanoTime() - startedAt < 120_000_000_000L, "Send did not drain within two minutes");
+            Thread.sleep(100);
+            status = outboxService.getStatus(queued.getSendId());
+        }
+        long drainNanos = System.nanoTime() - startedAt;
+        double perSecond = stubMessageSink.getDelivered() / (drainNanos / 1e9);
+
+        System.out.printf("Outbox send to %,d users: enqueued in %,d ms; drained in %,d ms (%,.0f msgs/s, limit %,.0f/s), "
+                        + "%,d sent, %,d failed, %,d simulated gateway errors retried%n",
+                queued.getTotal(), queued.getEnqueueMillis(), drainNanos / 1_000_000, perSecond, RATE,
+                status.getSent(), status.getFailed(), stubMessageSink.getFailed());
+        assertEquals(queued.getTotal(), status.getSent() + status.getFailed());
+        // Every gateway call takes a token, retries included, so calls per second stay within rate plus the initial burst
+        assertTrue((stubMessageSink.getDelivered() + stubMessageSink.getFailed()) <= RATE * drainNanos / 1e9 + 500 + RATE * 0.05,
+                "Dispatch exceeded the channel rate");
+    }
+}
@@ -0,0 +1,177 @@
+package com.ayurveda.backend.service;
+
+import com.ayurveda.backend.entity.OutboxMessage;
+import com.ayurveda.backend.messaging.MessageDeliveryException;
+import com.ayurveda.backend.messaging.MessageSink;
+import com.ayurveda.backend.messaging.OutgoingMessage;
+import com.ayurveda.backend.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Outbox dispatch against a scripted sink: delivered rows are marked sent, retryable failures go back to PENDING until
+// outbox.retry.max-attempts, permanent ones fail at once, expired leases are reclaimed and live ones left alone, and the
+// retry backoff doubles with jitter up to its cap. The scheduled poll is pushed out of the way; dispatch() is called directly.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-tests",
+        "cohort.snapshot.dir=",
+        "outbox.dispatch.poll-interval-ms=3600000",
+        "outbox.retry.max-attempts=3",
+        "outbox.retry.initial-delay-ms=0",
+        "outbox.rate.scripted=1000",
+        "outbox.burst.scripted=100"})
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private ScriptedSink sink;
+
+    @BeforeEach
+    void clear() {
+        outboxMessageRepository.deleteAll();
+        sink.calls.clear();
+    }
+
+    @Test
+    void marksDeliveredMessagesSent() {
+        long id = queue("ok-1", OutboxMessage.Status.PENDING, Instant.now().minusSeconds(1));
+        dispatcher.dispatch();
+
+        OutboxMessage message = reload(id);
+        assertEquals(OutboxMessage.Status.SENT, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertNotNull(message.getSentAt());
+        assertNull(message.getLastError());
+        assertEquals(1, sink.calls("ok-1"));
+    }
+
+    @Test
+    void retriesUntilMaxAttempts() {
+        long id = queue("retry-1", OutboxMessage.Status.PENDING, Instant.now().minusSeconds(1));
+        for (int attempt = 1; attempt < 3; attempt++) {
+            dispatcher.dispatch();
+            OutboxMessage message = reload(id);
+            assertEquals(OutboxMessage.Status.PENDING, message.getStatus());
+            assertEquals(attempt, message.getAttempts());
+            assertEquals("Gateway timeout", message.getLastError());
+        }
+        dispatcher.dispatch();
+        OutboxMessage message = reload(id);
+        assertEquals(OutboxMessage.Status.FAILED, message.getStatus());
+        assertEquals(3, message.getAttempts());
+
+        // A failed message is never picked up again
+        dispatcher.dispatch();
+        assertEquals(3, sink.calls("retry-1"));
+    }
+
+    @Test
+    void failsPermanentErrorsAtOnce() {
+        long rejected = queue("reject-1", OutboxMessage.Status.PENDING, Instant.now().minusSeconds(1));
+        long delivered = queue("ok-2", OutboxMessage.Status.PENDING, Instant.now().minusSeconds(1));
+        dispatcher.dispatch();
+
+        OutboxMessage message = reload(rejected);
+        assertEquals(OutboxMessage.Status.FAILED, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertEquals("Invalid number", message.getLastError());
+        assertEquals(OutboxMessage.Status.SENT, reload(delivered).getStatus());
+    }
+
+    @Test
+    void reclaimsExpiredLeasesOnly() {
+        long expired = queue("ok-3", OutboxMessage.Status.SENDING, Instant.now().minusSeconds(5));
+        long leased = queue("ok-4", OutboxMessage.Status.SENDING, Instant.now().plusSeconds(600));
+        long scheduled = queue("ok-5", OutboxMessage.Status.PENDING, Instant.now().plusSeconds(600));
+        dispatcher.dispatch();
+
+        assertEquals(OutboxMessage.Status.SENT, reload(expired).getStatus());
+        assertEquals(OutboxMessage.Status.SENDING, reload(leased).getStatus());
+        assertEquals(OutboxMessage.Status.PENDING, reload(scheduled).getStatus());
+        assertEquals(0, sink.calls("ok-4"));
+        assertEquals(0, sink.calls("ok-5"));
+    }
+
+    @Test
+    void backoffDoublesWithJitterUpToTheCap() {
+        OutboxDispatcher backoff = new OutboxDispatcher();
+        ReflectionTestUtils.setField(backoff, "initialRetryDelayMillis", 1000L);
+        ReflectionTestUtils.setField(backoff, "maxRetryDelayMillis", 10_000L);
+        for (int i = 0; i < 100; i++) {
+            assertInRange(backoff.retryDelayMillis(1), 800, 1200);
+            assertInRange(backoff.retryDelayMillis(2), 1600, 2400);
+            assertInRange(backoff.retryDelayMillis(4), 6400, 9600);
+            assertInRange(backoff.retryDelayMillis(5), 8000, 12_000);
+            assertInRange(backoff.retryDelayMillis(40), 8000, 12_000);
+        }
+    }
+
+    private static void assertInRange(long value, long min, long max) {
+        assertTrue(value >= min && value <= max, value + " not in [" + min + ", " + max + "]");
+    }
+
+    private long queue(String recipient, OutboxMessage.Status status, Instant nextAttemptAt) {
+        OutboxMessage message = new OutboxMessage();
+        message.setSendId(UUID.randomUUID().toString());
+        message.setChannel(ScriptedSink.CHANNEL);
+        message.setRecipient(recipient);
+        message.setBody("Namaste " + recipient);
+        message.setStatus(status);
+        message.setNextAttemptAt(Timestamp.from(nextAttemptAt));
+        message.setCreatedAt(Timestamp.from(Instant.now()));
+        return outboxMessageRepository.save(message).getId();
+    }
+
+    private OutboxMessage reload(long id) {
+        return outboxMessageRepository.findById(id).orElseThrow();
+    }
+
+    @TestConfiguration
+    static class Sinks {
+        @Bean
+        ScriptedSink scriptedSink() {
+            return new ScriptedSink();
+        }
+    }
+
+    // "retry-" recipients time out, "reject-" recipients are refused for good, everyone else is accepted
+    static class ScriptedSink implements MessageSink {
+        static final String CHANNEL = "scripted";
+
+        private final Map<String, Integer> calls = new ConcurrentHashMap<>();
+
+        @Override
+        public String getChannel() {
+            return CHANNEL;
+        }
+
+        @Override
+        public void send(OutgoingMessage message) throws MessageDeliveryException {
+            calls.merge(message.getRecipient(), 1, Integer::sum);
+            if (message.getRecipient().startsWith("retry-")) throw new MessageDeliveryException("Gateway timeout", true);
+            if (message.getRecipient().startsWith("reject-")) throw new MessageDeliveryException("Invalid number", false);
+        }
+
+        int calls(String recipient) {
+            return calls.getOrDefault(recipient, 0);
+        }
+    }
+}
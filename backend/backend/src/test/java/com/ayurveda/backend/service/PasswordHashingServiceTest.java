@@ -0,0 +1,117 @@
+package com.ayurveda.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Bounded hashing pool: work beyond threads + queue-capacity is rejected at once with the Retry-After hint, queued
+// work still completes, and bulk hashing keeps the order of its input on its own pool.
+class PasswordHashingServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile String hashedOn;
+    private PasswordHashingService service;
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (service != null) service.stop();
+    }
+
+    @Test
+    void rejectsWorkBeyondPoolAndQueue() throws Exception {
+        service = service(new BlockingEncoder(), 1, 2, 1);
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        accepted.add(service.encodeAsync("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        accepted.add(service.encodeAsync("second"));
+        accepted.add(service.encodeAsync("third"));
+
+        HashingCapacityExceededException rejected = assertThrows(HashingCapacityExceededException.class,
+                () -> service.encodeAsync("fourth"));
+        assertEquals(7, rejected.getRetryAfterSeconds());
+        assertThrows(HashingCapacityExceededException.class, () -> service.matchesAsync("fifth", "{noop}fifth"));
+        assertEquals(2L, service.stats().get("rejected"));
+        assertEquals(2, service.stats().get("queueDepth"));
+        for (CompletableFuture<String> future : accepted) assertFalse(future.isDone());
+
+        release.countDown();
+        assertEquals("hashed:first", accepted.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:second", accepted.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:third", accepted.get(2).get(5, TimeUnit.SECONDS));
+        // Capacity is back once the queue drains
+        assertEquals("hashed:sixth", service.encodeAsync("sixth").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hashesOnThePoolThreads() throws Exception {
+        release.countDown();
+        service = service(new BlockingEncoder(), 2, 4, 1);
+        assertTrue(service.matchesAsync("secret", "hashed:secret").get(5, TimeUnit.SECONDS));
+        assertTrue(hashedOn.startsWith("password-hash-"), hashedOn);
+        assertFalse(service.matchesAsync("wrong", "hashed:secret").get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:secret", service.encode("secret"));
+    }
+
+    @Test
+    void encodeAllKeepsInputOrder() {
+        release.countDown();
+        service = service(new BlockingEncoder(), 1, 1, 3);
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < 101; i++) passwords.add("password" + i);
+        List<String> hashes = service.encodeAll(passwords);
+        assertEquals(passwords.size(), hashes.size());
+        for (int i = 0; i < passwords.size(); i++) assertEquals("hashed:password" + i, hashes.get(i));
+        assertTrue(hashedOn.startsWith("password-hash-bulk-"), hashedOn);
+        assertEquals(List.of(), service.encodeAll(List.of()));
+        assertEquals(3, service.stats().get("bulkPoolSize"));
+        // Bulk hashing never touches the login pool
+        assertEquals(0L, service.stats().get("completed"));
+    }
+
+    private PasswordHashingService service(PasswordEncoder encoder, int threads, int queueCapacity, int bulkThreads) {
+        PasswordHashingService hashing = new PasswordHashingService();
+        ReflectionTestUtils.setField(hashing, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(hashing, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hashing, "threads", threads);
+        ReflectionTestUtils.setField(hashing, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(hashing, "retryAfterSeconds", 7);
+        ReflectionTestUtils.setField(hashing, "bulkThreads", bulkThreads);
+        ReflectionTestUtils.setField(hashing, "bulkConcurrency", 1);
+        hashing.start();
+        return hashing;
+    }
+
+    // Stands in for BCrypt: holds every hash until the test releases it
+    private class BlockingEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashedOn = Thread.currentThread().getName();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}